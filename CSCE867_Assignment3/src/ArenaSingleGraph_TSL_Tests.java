@@ -0,0 +1,100 @@
+import static org.junit.Assert.*;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Test;
+
+import csce867.graph.ArenaEdge;
+import csce867.graph.ArenaEdgeFactory;
+import csce867.graph.ArenaNode;
+import csce867.graph.ArenaNodeFactory;
+import csce867.graph.ElementArena;
+
+// runs every SingleGraph test case on a SingleGraph built by the arena factories, plus arena cases
+public class ArenaSingleGraph_TSL_Tests extends SingleGraph_TSL_Tests {
+
+	@Override
+	protected Graph makeSingleGraph(String id) {
+		return withArenas(new SingleGraph(id));
+	}
+	@Override
+	protected Graph makeSingleGraph(String id, boolean strict, boolean auto_c) {
+		return withArenas(new SingleGraph(id, strict, auto_c));
+	}
+	// columns on the numeric keys the shared cases use
+	private static SingleGraph withArenas(SingleGraph sg) {
+		sg.setNodeFactory(new ArenaNodeFactory(new ElementArena().column("n", Integer.class)
+				.column("count", Integer.class).column("weight", Double.class).column("size", Integer.class)));
+		sg.setEdgeFactory(new ArenaEdgeFactory(new ElementArena().column("weight", Double.class)
+				.column("cost", Double.class)));
+		return sg;
+	}
+	@Test
+	public void ArenaColumnsKeepTheirClassTest() {
+		SingleGraph sg = new SingleGraph("Columns");
+		ElementArena nodes = new ElementArena().column("rank", Double.class).column("hits", Long.class);
+		sg.setNodeFactory(new ArenaNodeFactory(nodes));
+		Node n = sg.addNode("Node0");
+		n.addAttribute("rank", 0.5);
+		n.addAttribute("hits", 7L);
+		n.addAttribute("label", "zero");
+		assertEquals("column value", 0.5, n.getNumber("rank"), 0.0);
+		assertEquals("long column", 7L, (long) n.getAttribute("hits"));
+		assertEquals("attribute count", 3, n.getAttributeCount());
+		assertTrue("keys", n.getAttributeKeySet().containsAll(java.util.Arrays.asList("rank", "hits", "label")));
+		// an Integer under a Double column stays an Integer, in the map
+		n.addAttribute("rank", 3);
+		assertTrue("Integer value changed class", n.getAttribute("rank") instanceof Integer);
+		assertEquals("count after a type change", 3, n.getAttributeCount());
+		n.addAttribute("rank", 1.5);
+		assertEquals("back in the column", 1.5, (double) n.getAttribute("rank"), 0.0);
+		n.removeAttribute("hits");
+		assertFalse("removed column value", n.hasAttribute("hits"));
+		n.clearAttributes();
+		assertEquals("attributes not cleared", 0, n.getAttributeCount());
+		assertEquals("one record", 1, nodes.getLiveCount());
+	}
+	@Test
+	public void ArenaRecordsFollowRemovalAndClearTest() {
+		SingleGraph sg = new SingleGraph("Lifecycle");
+		ElementArena nodes = new ElementArena().column("rank", Double.class);
+		ElementArena edges = new ElementArena().column("weight", Double.class);
+		sg.setNodeFactory(new ArenaNodeFactory(nodes));
+		sg.setEdgeFactory(new ArenaEdgeFactory(edges));
+		for (int i = 0; i < 100; i++)
+			sg.addNode("Node" + i).addAttribute("rank", (double) i);
+		for (int i = 1; i < 100; i++)
+			sg.addEdge("Edge" + i, "Node0", "Node" + i).addAttribute("weight", (double) i);
+		assertEquals("node records", 100, nodes.getLiveCount());
+		assertEquals("edge records", 99, edges.getLiveCount());
+		ArenaNode hub = sg.getNode("Node0");
+		ArenaEdge spoke = sg.getEdge("Edge5");
+		// the hub and its 99 edges go, the last record only when the next element comes
+		sg.removeNode("Node0");
+		sg.addNode("Node100").addAttribute("rank", 100.0);
+		sg.addNode("Node101");
+		sg.addNode("Node102");
+		sg.addEdge("Edge100", "Node101", "Node102");
+		assertFalse("removed node kept its record", hub.hasRecord());
+		assertFalse("removed edge kept its record", spoke.hasRecord());
+		assertFalse("removed node still has its value", hub.hasAttribute("rank"));
+		assertEquals("node records after removal", 102, nodes.getLiveCount());
+		assertEquals("edge records after removal", 1, edges.getLiveCount());
+		// freed records are reused without mixing values
+		for (int i = 1; i < 100; i++)
+			assertEquals("value lost for Node" + i, (double) i, sg.getNode("Node" + i).getNumber("rank"), 0.0);
+		assertEquals("reused record", 100.0, sg.getNode("Node100").getNumber("rank"), 0.0);
+		assertFalse("reused record not blank", sg.getNode("Node101").hasAttribute("rank"));
+		long slabs = nodes.getOffHeapBytes();
+		ArenaNode kept = sg.getNode("Node1");
+		sg.clear();
+		assertEquals("records after clear", 0, nodes.getLiveCount());
+		assertEquals("edge records after clear", 0, edges.getLiveCount());
+		assertFalse("cleared node kept its record", kept.hasRecord());
+		sg.addNode("Node0").addAttribute("rank", 1.0);
+		assertEquals("slabs not reused after clear", slabs, nodes.getOffHeapBytes());
+		assertFalse("old handle sees the new record", kept.hasAttribute("rank"));
+	}
+}
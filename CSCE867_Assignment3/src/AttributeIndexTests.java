@@ -0,0 +1,68 @@
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Test;
+
+import csce867.graph.AttributeIndex;
+
+// AttributeIndex lookups, kept up to date by the graph's attribute events
+public class AttributeIndexTests {
+
+	@Test
+	public void AttributeIndexLookups() {
+		Graph sg = new SingleGraph("AttributeIndex");
+		for (int i = 0; i < 100; i++)
+			sg.addNode("Node" + i).addAttribute("colour", i % 2 == 0 ? "red" : "blue");
+		for (int i = 0; i < 99; i++)
+			sg.addEdge("Edge" + i, "Node" + i, "Node" + (i + 1)).addAttribute("weight", (double) i);
+		AttributeIndex index = new AttributeIndex(sg);
+		index.indexNodes("colour");
+		index.indexNodes("size");
+		index.indexEdgesByRange("weight");
+		assertEquals("indexed from existing nodes", 50, index.countNodes("colour", "red"));
+		assertEquals("range on existing edges", Arrays.asList("Edge10", "Edge11", "Edge12"),
+				index.edgeIds("weight", 10, 12.5));
+		assertEquals("equality on a sorted index", "Edge7", index.edges("weight", 7).get(0).getId());
+
+		// kept up to date by the attribute events
+		sg.getNode("Node0").setAttribute("colour", "blue");
+		sg.getNode("Node1").removeAttribute("colour");
+		sg.getNode("Node3").clearAttributes();
+		sg.getNode("Node5").addAttribute("size", 3);
+		sg.addNode("Late").addAttribute("colour", "red");
+		sg.removeNode("Node2");
+		assertEquals("red after changes", 49, index.countNodes("colour", "red"));
+		assertEquals("blue after changes", 49, index.countNodes("colour", "blue"));
+		assertTrue("changed node missing", index.nodeIds("colour", "blue").contains("Node0"));
+		assertEquals("added key", "Node5", index.<Node> nodes("size", 3).get(0).getId());
+		assertEquals("hash index keeps Integer apart from Double", 0, index.countNodes("size", 3.0));
+		assertTrue("new node missing", index.nodeIds("colour", "red").contains("Late"));
+		assertFalse("removed node still indexed", index.nodeIds("colour", "red").contains("Node2"));
+		// removing Node2 removed Edge1 and Edge2
+		assertEquals("range after node removal", Arrays.asList("Edge0", "Edge3"), index.edgeIds("weight", 0, 3));
+		sg.getEdge("Edge3").setAttribute("weight", 100);
+		sg.getEdge("Edge4").setAttribute("weight", "heavy");
+		assertEquals("non-numbers stay out of a sorted index", Arrays.asList("Edge98", "Edge3"),
+				index.edgeIds("weight", 98, Double.POSITIVE_INFINITY));
+		try {
+			index.nodeIds("colour", 0, 1);
+			fail("range query on a hash index");
+		} catch (IllegalStateException e) {
+		}
+
+		sg.clear();
+		assertEquals("index after clear", 0, index.countNodes("colour", "red"));
+		sg.addNode("Again").addAttribute("colour", "red");
+		assertEquals("index after clear and add", Arrays.asList("Again"), index.nodeIds("colour", "red"));
+		index.detach();
+		try {
+			index.countNodes("colour", "red");
+			fail("detached index still answers");
+		} catch (IllegalStateException e) {
+		}
+	}
+}
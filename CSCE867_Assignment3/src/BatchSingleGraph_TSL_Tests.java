@@ -0,0 +1,108 @@
+import static org.junit.Assert.*;
+
+import org.graphstream.graph.EdgeRejectedException;
+import org.graphstream.graph.ElementNotFoundException;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.IdAlreadyInUseException;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Test;
+
+import csce867.graph.BatchSingleGraph;
+
+// runs every SingleGraph test case against BatchSingleGraph, plus batch cases
+public class BatchSingleGraph_TSL_Tests extends SingleGraph_TSL_Tests {
+
+	@Override
+	protected Graph makeSingleGraph(String id) {
+		Graph sg = new BatchSingleGraph(id);
+		return sg;
+	}
+	@Override
+	protected Graph makeSingleGraph(String id, boolean strict, boolean auto_c) {
+		Graph sg = new BatchSingleGraph(id, strict, auto_c);
+		return sg;
+	}
+	@Test
+	public void BatchEdgeNoNodeStrictTest() {
+		// CreateOneEdgeNoNodeStrict for a whole batch, nothing is added
+		BatchSingleGraph sg = new BatchSingleGraph("BatchStrict");
+		try {
+			sg.batch().addNode("Node1").addEdge("ErrorEdge", "Node1", "Node2").commit();
+			fail("could add edge w/no nodes & strict set");
+		} catch (ElementNotFoundException e) {
+			assertTrue(true);
+		}
+		assertEquals("batch partly applied", 0, sg.getNodeCount());
+		assertEquals("batch partly applied", 0, sg.getEdgeCount());
+	}
+	@Test
+	public void BatchAutoCreateTest() {
+		// TestCase40 through a batch
+		BatchSingleGraph sg = new BatchSingleGraph("BatchAuto", false, true);
+		sg.addNode("Node1");
+		sg.batch().addEdge("EdgeDirected1", "Node1", "Node2", true).commit();
+		assertNotNull("node not auto created", sg.getNode("Node2"));
+		assertTrue("edge not directed", sg.getEdge("EdgeDirected1").isDirected());
+		// without auto create the edge is dropped
+		BatchSingleGraph plain = new BatchSingleGraph("BatchNoAuto", false, false);
+		plain.batch().addNode("Node1").addEdge("Edge1", "Node1", "Node2").commit();
+		assertEquals("node created", 1, plain.getNodeCount());
+		assertNull("edge created", plain.getEdge("Edge1"));
+	}
+	@Test
+	public void BatchRejectedEdgeUndoneTest() {
+		BatchSingleGraph sg = new BatchSingleGraph("BatchReject");
+		sg.addNode("Node0");
+		try {
+			sg.batch().addNodes("Node1", "Node2").addEdge("Edge1", "Node0", "Node1").addEdge("Edge2", "Node1", "Node0")
+					.commit();
+			fail("second edge between two nodes accepted");
+		} catch (EdgeRejectedException e) {
+			assertTrue(true);
+		}
+		assertEquals("nodes left behind", 1, sg.getNodeCount());
+		assertEquals("edges left behind", 0, sg.getEdgeCount());
+		try {
+			sg.batch().addNodes("Node1", "Node1").commit();
+			fail("repeated id accepted");
+		} catch (IdAlreadyInUseException e) {
+			assertTrue(true);
+		}
+	}
+	@Test
+	public void BatchByIndexMatchesSingleGraphTest() {
+		BatchSingleGraph bg = new BatchSingleGraph("BatchIdx");
+		SingleGraph sg = new SingleGraph("BatchIdx");
+		int n = 500;
+		String[] nodeIds = new String[n], edgeIds = new String[n];
+		int[] from = new int[n], to = new int[n];
+		for (int i = 0; i < n; i++) {
+			nodeIds[i] = "Node" + i;
+			edgeIds[i] = "Edge" + i;
+			from[i] = i;
+			to[i] = (i + 1) % n;
+			sg.addNode(nodeIds[i]);
+		}
+		for (int i = 0; i < n; i++)
+			sg.addEdge(edgeIds[i], from[i], to[i]);
+		bg.batch().addNodes(nodeIds).addEdges(edgeIds, from, to, false).commit();
+		assertEquals("node count diverged", sg.getNodeCount(), bg.getNodeCount());
+		assertEquals("edge count diverged", sg.getEdgeCount(), bg.getEdgeCount());
+		for (int i = 0; i < n; i++) {
+			assertEquals("node index diverged", sg.getNode(i).getId(), bg.getNode(i).getId());
+			assertEquals("edge index diverged", sg.getEdge(i).getId(), bg.getEdge(i).getId());
+		}
+	}
+	@Test
+	public void BatchEventsTest() {
+		BatchSingleGraph sg = new BatchSingleGraph("BatchEvents");
+		SingleGraph copy = new SingleGraph("BatchEventsCopy");
+		sg.addSink(copy);
+		sg.batch().addNodes("Node1", "Node2").addEdge("Edge1", 0, 1, true).commit();
+		assertEquals("node events not sent", 2, copy.getNodeCount());
+		assertTrue("edge event not sent", copy.getEdge("Edge1").isDirected());
+		// sinks are back in place for single calls
+		sg.addNode("Node3");
+		assertNotNull("sink detached after batch", copy.getNode("Node3"));
+	}
+}
@@ -0,0 +1,318 @@
+import static org.junit.Assert.*;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.ElementNotFoundException;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Test;
+
+import csce867.graph.CompactGraph;
+import csce867.graph.CompactNode;
+
+// runs every SingleGraph test case against CompactGraph, plus index cases
+public class CompactGraph_TSL_Tests extends SingleGraph_TSL_Tests {
+
+	@Override
+	protected Graph makeSingleGraph(String id) {
+		Graph sg = new CompactGraph(id);
+		return sg;
+	}
+	@Override
+	protected Graph makeSingleGraph(String id, boolean strict, boolean auto_c) {
+		Graph sg = new CompactGraph(id, strict, auto_c);
+		return sg;
+	}
+	@Test
+	public void RemoveNodeSwapsLastIndexTest() {
+		CompactGraph cg = new CompactGraph("SwapIdx");
+		Node n0 = cg.addNode("Node0");
+		cg.addNode("Node1");
+		Node n2 = cg.addNode("Node2");
+		cg.addEdge("Edge0", "Node0", "Node2");
+		cg.removeNode("Node1");
+		assertEquals("removal did not move last node into the hole", 1, n2.getIndex());
+		assertEquals("moved node not found by index", n2, cg.getNode(1));
+		assertEquals("index lookup of moved node", 1, cg.getNodeIndex("Node2"));
+		assertEquals("edge endpoints not renamed", n2, cg.getEdge("Edge0").getOpposite(n0));
+		assertEquals("removed node still indexed", -1, cg.getNodeIndex("Node1"));
+	}
+	@Test
+	public void ChurnMatchesSingleGraphTest() {
+		CompactGraph cg = new CompactGraph("Churn", false, false);
+		SingleGraph sg = new SingleGraph("Churn", false, false);
+		int n = 2000;
+		for (int i = 0; i < n; i++) {
+			cg.addNode("Node" + i);
+			sg.addNode("Node" + i);
+		}
+		// enough adds and removes to force several CSR rebuilds
+		for (int i = 0; i < 20000; i++) {
+			String a = "Node" + (i % n), b = "Node" + ((i * 7 + 13) % n);
+			if (i % 3 == 2) {
+				cg.removeEdge(a, b);
+				sg.removeEdge(a, b);
+			} else {
+				cg.addEdge("Edge" + i, a, b);
+				sg.addEdge("Edge" + i, a, b);
+			}
+		}
+		assertEquals("edge count diverged", sg.getEdgeCount(), cg.getEdgeCount());
+		for (Node node : sg) {
+			Node other = cg.getNode(node.getId());
+			assertEquals("degree diverged for " + node.getId(), node.getDegree(), other.getDegree());
+			for (Edge edge : node.getEachEdge()) {
+				Edge copy = other.getEdgeBetween(edge.getOpposite(node).getId());
+				assertNotNull("edge missing in compact graph", copy);
+				assertEquals("edge id diverged", edge.getId(), copy.getId());
+			}
+		}
+	}
+	@Test
+	public void NumberColumnTest() {
+		CompactGraph cg = new CompactGraph("NumberColumn");
+		CompactNode n0 = cg.addNode("Node0");
+		CompactNode n1 = cg.addNode("Node1");
+		n0.setNumber("KeyString", 1.5);
+		n1.addAttribute("KeyString", 7);
+		assertEquals("column value", 1.5, n0.getNumber("KeyString"), 0.0);
+		assertEquals("by index", 1.5, cg.getNodeNumber(0, "KeyString"), 0.0);
+		assertTrue("column value not a Double", n0.hasAttribute("KeyString", Double.class));
+		assertTrue("hasNumber on column value", n0.hasNumber("KeyString"));
+		// an Integer under a Double column keeps its class
+		assertTrue("Integer value changed class", n1.getAttribute("KeyString") instanceof Integer);
+		assertEquals("Integer value", 7.0, n1.getNumber("KeyString"), 0.0);
+		n0.addAttribute("KeyString", "text");
+		assertFalse("string still read from column", n0.hasNumber("KeyString"));
+		assertEquals("attribute count", 1, n0.getAttributeCount());
+		n0.removeAttribute("KeyString");
+		assertFalse("attribute not removed", n0.hasAttribute("KeyString"));
+	}
+	@Test
+	public void NumberColumnFollowsIndexTest() {
+		CompactGraph cg = new CompactGraph("NumberSwap");
+		for (int i = 0; i < 3; i++)
+			cg.<CompactNode> addNode("Node" + i).setNumber("KeyString", (long) i);
+		cg.removeNode("Node0");
+		Node moved = cg.getNode("Node2");
+		assertEquals("moved node index", 0, moved.getIndex());
+		assertEquals("column value did not move", 2L, (long) moved.getAttribute("KeyString"));
+		assertEquals("count after removal", 1, cg.getNode("Node1").getAttributeCount());
+	}
+	@Test
+	public void NumberColumnEventsTest() {
+		CompactGraph cg = new CompactGraph("NumberEvents");
+		CompactGraph copy = new CompactGraph("NumberEventsCopy");
+		cg.addSink(copy);
+		cg.addNode("Node0");
+		cg.setNodeNumber(0, "KeyString", 2.0);
+		assertEquals("attribute event not sent", 2.0, copy.getNode("Node0").getNumber("KeyString"), 0.0);
+		cg.removeSink(copy);
+		cg.setNodeNumber(0, "KeyString", 3.0);
+		assertEquals("quiet write lost", 3.0, cg.getNode("Node0").getNumber("KeyString"), 0.0);
+		assertEquals("event sent without sink", 2.0, copy.getNode("Node0").getNumber("KeyString"), 0.0);
+	}
+	@Test
+	public void SharedKeyRowsTest() {
+		CompactGraph cg = new CompactGraph("SharedKeys");
+		for (int i = 0; i < 3; i++) {
+			Node n = cg.addNode("Node" + i);
+			n.addAttribute("attrib_key", "value" + i);
+			n.addAttribute("KeyString", i);
+			n.addAttribute("third_key", "third" + i);
+		}
+		Node n1 = cg.getNode("Node1");
+		n1.removeAttribute("KeyString");
+		assertEquals("attribute count after removal", 2, n1.getAttributeCount());
+		assertEquals("value before removed key", "value1", n1.getAttribute("attrib_key"));
+		assertEquals("value after removed key", "third1", n1.getAttribute("third_key"));
+		assertFalse("removed key still present", n1.hasAttribute("KeyString"));
+		n1.addAttribute("KeyString", 9);
+		assertEquals("re-added value", 9, (int) n1.getAttribute("KeyString"));
+		assertEquals("other node touched", 2, (int) cg.getNode("Node2").getAttribute("KeyString"));
+		n1.clearAttributes();
+		assertEquals("attributes not cleared", 0, n1.getAttributeCount());
+		assertEquals("other node cleared", 3, cg.getNode("Node0").getAttributeCount());
+	}
+	@Test
+	public void StableIndicesRemovalTest() {
+		CompactGraph cg = new CompactGraph("Stable");
+		cg.setStableIndices(true);
+		for (int i = 0; i < 6; i++)
+			cg.addNode("Node" + i);
+		for (int i = 1; i < 6; i++)
+			cg.addEdge("Edge" + i, "Node0", "Node" + i);
+		cg.addEdge("Edge6", "Node4", "Node5");
+		Node n5 = cg.getNode("Node5");
+		Edge e6 = cg.getEdge("Edge6");
+		cg.removeNode("Node0");
+		assertEquals("node count after removal", 5, cg.getNodeCount());
+		assertEquals("edge count after removal", 1, cg.getEdgeCount());
+		assertEquals("index moved with stable indices", 5, n5.getIndex());
+		assertEquals("edge index moved with stable indices", 5, e6.getIndex());
+		assertFalse("hole reported as a node", cg.hasNode(0));
+		assertEquals("index limit", 6, cg.getNodeIndexLimit());
+		assertEquals("stale edge still counted", 1, n5.getDegree());
+		assertEquals("stale edge still listed", e6, n5.getEdge(0));
+		assertNull("removed edge found", cg.getEdge("Edge1"));
+		int seen = 0;
+		for (Node n : cg.getEachNode()) {
+			assertTrue("iterator returned a hole", n.getIndex() > 0);
+			seen++;
+		}
+		assertEquals("iterator count", 5, seen);
+		try {
+			cg.getNode(0);
+			fail("hole returned by getNode(int)");
+		} catch (IndexOutOfBoundsException e) {
+		}
+		// the removed edges do not block new ones
+		cg.addNode("Node0");
+		assertEquals("new node not appended after the holes", 6, cg.getNodeIndex("Node0"));
+		assertNotNull("edge refused after removal", cg.addEdge("Edge7", "Node1", "Node0"));
+	}
+	@Test
+	public void StableIndicesCompactionTest() {
+		CompactGraph cg = new CompactGraph("StableCompact");
+		cg.setStableIndices(true);
+		for (int i = 0; i < 5; i++)
+			cg.addNode("Node" + i).addAttribute("KeyString", i);
+		cg.addEdge("Edge0", "Node0", "Node1");
+		cg.addEdge("Edge1", "Node3", "Node4", true);
+		cg.addEdge("Edge2", "Node1", "Node4");
+		Node n4 = cg.getNode("Node4");
+		Edge e1 = cg.getEdge("Edge1");
+		cg.removeNode("Node1");
+		cg.removeNode("Node2");
+		cg.setStableIndices(false);
+		assertEquals("node count after compaction", 3, cg.getNodeCount());
+		assertEquals("index limit after compaction", 3, cg.getNodeIndexLimit());
+		assertEquals("facade did not follow its node", 2, n4.getIndex());
+		assertEquals("node by new index", n4, cg.getNode(2));
+		assertEquals("attribute did not follow its node", 4, (int) n4.getAttribute("KeyString"));
+		assertEquals("edge facade did not follow", 0, e1.getIndex());
+		assertTrue("direction lost", e1.isDirected());
+		assertEquals("endpoint not renumbered", n4, e1.getTargetNode());
+		assertEquals("degree after compaction", 1, n4.getDegree());
+		// back to the dense contract
+		cg.removeNode("Node0");
+		assertEquals("last node not moved into the hole", 0, n4.getIndex());
+	}
+	@Test
+	public void RemoveHighDegreeNodeTest() {
+		for (boolean stable : new boolean[] { false, true }) {
+			CompactGraph cg = new CompactGraph("HighDegree", true, false);
+			cg.setStableIndices(stable);
+			int n = 3000;
+			for (int i = 0; i < n; i++)
+				cg.addNode("Node" + i);
+			for (int i = 1; i < n; i++) {
+				cg.addEdge("Hub" + i, "Node0", "Node" + i, i % 2 == 0);
+				if (i > 1)
+					cg.addEdge("Ring" + i, "Node" + (i - 1), "Node" + i);
+			}
+			cg.removeNode("Node0");
+			assertEquals("edges left", n - 2, cg.getEdgeCount());
+			for (int i = 2; i < n - 1; i++)
+				assertEquals("degree of Node" + i, 2, cg.getNode("Node" + i).getDegree());
+			assertNull("hub edge left", cg.getNode("Node1").getEdgeBetween("Node0"));
+			cg.compact();
+			assertEquals("degree after rebuild", 1, cg.getNode("Node1").getDegree());
+		}
+	}
+	@Test
+	public void ClearStartsNewGenerationTest() {
+		CompactGraph cg = new CompactGraph("Generation");
+		Node n0 = cg.addNode("Node0");
+		cg.addNode("Node1");
+		Edge e0 = cg.addEdge("Edge0", "Node0", "Node1");
+		n0.addAttribute("KeyString", 1);
+		cg.clear();
+		Node fresh = cg.addNode("Other0");
+		assertEquals("node count after clear", 1, cg.getNodeCount());
+		assertEquals("old facade not detached", -1, n0.getIndex());
+		assertEquals("old facade lost its id", "Node0", n0.getId());
+		assertEquals("old edge lost its id", "Edge0", e0.getId());
+		assertEquals("old facade sees new attributes", 0, n0.getAttributeCount());
+		assertTrue("old facade handed out again", n0 != fresh);
+		try {
+			cg.addEdge("Edge1", n0, fresh);
+			fail("old facade accepted as a node");
+		} catch (ElementNotFoundException e) {
+		}
+		assertEquals("fresh node index", 0, fresh.getIndex());
+	}
+	@Test
+	public void StreamSkipsHolesTest() {
+		CompactGraph cg = new CompactGraph("StreamHoles");
+		cg.setStableIndices(true);
+		for (int i = 0; i < 100; i++)
+			cg.addNode("Node" + i).addAttribute("KeyString", i);
+		for (int i = 0; i < 100; i += 3)
+			cg.removeNode("Node" + i);
+		assertEquals("stream count with holes", 66, cg.nodes().parallel().count());
+		assertTrue("removed node streamed", cg.<Node> nodes().noneMatch(n -> n.getIndex() % 3 == 0));
+		assertEquals("column filter", 33,
+				cg.nodes("KeyString", v -> ((Number) v).intValue() % 3 == 1).parallel().count());
+	}
+	@Test
+	public void EdgePairIndexMatchesListsTest() {
+		// plain lists, the index alone, the index behind a Bloom filter
+		CompactGraph plain = new CompactGraph("Pairs", false, false);
+		CompactGraph indexed = new CompactGraph("Pairs", false, false);
+		CompactGraph filtered = new CompactGraph("Pairs", false, false);
+		indexed.setEdgePairIndex(true, false);
+		CompactGraph[] graphs = { plain, indexed, filtered };
+		int n = 300;
+		for (CompactGraph g : graphs)
+			for (int i = 0; i < n; i++)
+				g.addNode("Node" + i);
+		java.util.Random rnd = new java.util.Random(867);
+		for (int i = 0; i < 30000; i++) {
+			String a = "Node" + rnd.nextInt(n), b = "Node" + rnd.nextInt(n);
+			int op = rnd.nextInt(20);
+			if (i == 10000)
+				filtered.setEdgePairIndex(true, true);
+			if (i == 20000)
+				for (CompactGraph g : graphs)
+					g.setStableIndices(true);
+			for (CompactGraph g : graphs) {
+				// node removals move the last node and re-key its edges
+				if (op == 0 && g.getNode(a) != null) {
+					g.removeNode(a);
+					g.addNode(a);
+				} else if (op < 8) {
+					g.removeEdge(a, b);
+				} else {
+					g.addEdge("Edge" + i, a, b, op % 2 == 0);
+				}
+			}
+			boolean between = plain.getNode(b).hasEdgeBetween(a);
+			for (CompactGraph g : graphs) {
+				assertEquals("edge count diverged", plain.getEdgeCount(), g.getEdgeCount());
+				assertEquals("edge between diverged", between, g.getNode(b).hasEdgeBetween(a));
+			}
+		}
+		filtered.setStableIndices(false);
+		assertTrue("index dropped", indexed.hasEdgePairIndex() && filtered.hasEdgePairIndex());
+		for (int i = 0; i < n; i++)
+			for (int j = 0; j < n; j++) {
+				Node u = plain.getNode("Node" + i);
+				Edge expected = u.getEdgeToward("Node" + j);
+				for (CompactGraph g : new CompactGraph[] { indexed, filtered }) {
+					Node v = g.getNode("Node" + i);
+					Edge found = v.getEdgeToward("Node" + j);
+					assertEquals("edge toward diverged", expected == null ? null : expected.getId(),
+							found == null ? null : found.getId());
+					assertEquals("edge between diverged", u.hasEdgeBetween("Node" + j), v.hasEdgeBetween("Node" + j));
+				}
+			}
+		indexed.clear();
+		indexed.addNode("Node0");
+		indexed.addNode("Node1");
+		assertNull("cleared pair still indexed", indexed.getNode("Node0").getEdgeBetween("Node1"));
+		indexed.addEdge("Edge0", "Node0", "Node1", true);
+		assertNotNull("pair not indexed after clear", indexed.getNode("Node1").getEdgeFrom("Node0"));
+		assertNull("direction ignored", indexed.getNode("Node1").getEdgeToward("Node0"));
+	}
+}
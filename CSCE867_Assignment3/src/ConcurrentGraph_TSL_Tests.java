@@ -0,0 +1,208 @@
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.junit.Test;
+
+import csce867.graph.ConcurrentGraph;
+
+// runs every SingleGraph test case against ConcurrentGraph, then the same
+// scenarios from several threads on one shared graph
+public class ConcurrentGraph_TSL_Tests extends SingleGraph_TSL_Tests {
+
+	@Override
+	protected Graph makeSingleGraph(String id) {
+		Graph sg = new ConcurrentGraph(id);
+		return sg;
+	}
+	@Override
+	protected Graph makeSingleGraph(String id, boolean strict, boolean auto_c) {
+		Graph sg = new ConcurrentGraph(id, strict, auto_c);
+		return sg;
+	}
+	static final int THREADS = 4;
+	static final int PER_THREAD = 2000;
+
+	// runs body(t) for t in 0..THREADS-1 on its own thread and rethrows
+	// the first failure
+	interface Body {
+		void run(int t) throws Exception;
+	}
+	private static void inThreads(int threads, final Body body) throws Exception {
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		Thread[] all = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final int id = t;
+			all[t] = new Thread() {
+				public void run() {
+					try {
+						body.run(id);
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					}
+				}
+			};
+			all[t].start();
+		}
+		for (Thread thread : all)
+			thread.join();
+		if (failure.get() != null)
+			throw new AssertionError(failure.get());
+	}
+	@Test
+	public void StressAddRemoveWhileIterating() throws Exception {
+		// CreateEdgeByNodeId and RemoveEdgeByNodeIds from writer threads,
+		// getNodeIterator/getEdgeIterator loops from reader threads
+		final ConcurrentGraph sg = new ConcurrentGraph("StressStructure");
+		final AtomicBoolean writing = new AtomicBoolean(true);
+		Thread readers = new Thread() {
+			public void run() {
+				try {
+					inThreads(THREADS, new Body() {
+						public void run(int t) {
+							while (writing.get()) {
+								Iterator<Node> node_iter = sg.getNodeIterator();
+								while (node_iter.hasNext())
+									assertNotNull("null node from iterator", node_iter.next().getId());
+								Iterator<Edge> edge_iter = sg.getEdgeIterator();
+								while (edge_iter.hasNext()) {
+									Edge edge = edge_iter.next();
+									try {
+										assertNotNull("edge without source", edge.getSourceNode());
+									} catch (IllegalStateException e) {
+										// removed since it was returned
+									}
+								}
+							}
+						}
+					});
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+		final AtomicReference<Throwable> readFailure = new AtomicReference<Throwable>();
+		readers.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+			public void uncaughtException(Thread t, Throwable e) {
+				readFailure.set(e);
+			}
+		});
+		readers.start();
+		inThreads(THREADS, new Body() {
+			public void run(int t) {
+				for (int i = 0; i < PER_THREAD; i++)
+					sg.addNode("Node" + t + "_" + i);
+				for (int i = 1; i < PER_THREAD; i++)
+					sg.addEdge("Edge" + t + "_" + i, "Node" + t + "_" + (i - 1), "Node" + t + "_" + i);
+				for (int i = 1; i < PER_THREAD; i += 2)
+					sg.removeEdge("Node" + t + "_" + (i - 1), "Node" + t + "_" + i);
+			}
+		});
+		writing.set(false);
+		readers.join();
+		assertNull("reader failed: " + readFailure.get(), readFailure.get());
+		assertEquals("node count after concurrent adds", THREADS * PER_THREAD, sg.getNodeCount());
+		assertEquals("edge count after concurrent removes", THREADS * (PER_THREAD / 2 - 1), sg.getEdgeCount());
+		for (int t = 0; t < THREADS; t++)
+			assertNotNull("edge lost", sg.getEdge("Edge" + t + "_2"));
+	}
+	@Test
+	public void StressAttributesByStripe() throws Exception {
+		// TestCase40 from several threads, each on its own nodes and edges
+		final ConcurrentGraph sg = new ConcurrentGraph("StressAttributes", false, true);
+		for (int i = 0; i < PER_THREAD; i++)
+			sg.addEdge("EdgeDirected" + i, "Node" + i, "Node" + (i + 1), true);
+		final String key = "attrib_key";
+		inThreads(THREADS, new Body() {
+			public void run(int t) {
+				for (int round = 0; round < 5; round++) {
+					for (int i = t; i < sg.getNodeCount(); i += THREADS) {
+						Node node = sg.getNode(i);
+						node.addAttribute(key, "node_attrib_value" + round);
+						assertTrue("attr label not found", node.hasLabel(key));
+					}
+					for (int i = t; i < sg.getEdgeCount(); i += THREADS) {
+						Edge edge = sg.getEdge(i);
+						edge.addAttribute(key, "edge_attrib_value" + round);
+						assertTrue("attr label not found", edge.hasLabel(key));
+						assertTrue("edge not directed", edge.isDirected());
+					}
+				}
+			}
+		});
+		for (Node node : sg)
+			assertEquals("last write lost", "node_attrib_value4", node.getAttribute(key));
+		for (Edge edge : sg.getEachEdge())
+			assertEquals("last write lost", "edge_attrib_value4", edge.getAttribute(key));
+	}
+	@Test
+	public void StressAttributesFollowRemoval() throws Exception {
+		// RemoveNodeByIdx while other threads keep writing attributes: values
+		// must stay with their node across index swaps
+		final ConcurrentGraph sg = new ConcurrentGraph("StressSwap");
+		for (int i = 0; i < PER_THREAD; i++)
+			sg.addNode("Node" + i).addAttribute("KeyString", "Node" + i);
+		inThreads(THREADS, new Body() {
+			public void run(int t) {
+				for (int i = t; i < PER_THREAD; i += THREADS) {
+					if (i % 2 == 0) {
+						sg.removeNode("Node" + i);
+					} else {
+						Node node = sg.getNode("Node" + i);
+						assertEquals("attribute moved to another node", node.getId(), node.getAttribute("KeyString"));
+						node.addAttribute("KeyString", node.getId());
+					}
+				}
+			}
+		});
+		assertEquals("node count", PER_THREAD / 2, sg.getNodeCount());
+		for (Node node : sg)
+			assertEquals("attribute moved to another node", node.getId(), node.getAttribute("KeyString"));
+	}
+	@Test
+	public void StressReadsOfOneElement() throws Exception {
+		// TestCase40's attributes and CreateEdgeByNodeId's lookups, thread 0
+		// writing one node, one edge and the graph while the others read them
+		final ConcurrentGraph sg = new ConcurrentGraph("StressOneElement");
+		final Node node = sg.addNode("Node0");
+		sg.addNode("Node1");
+		final Edge edge = sg.addEdge("Edge01", "Node0", "Node1");
+		final AtomicBoolean writing = new AtomicBoolean(true);
+		inThreads(THREADS, new Body() {
+			public void run(int t) {
+				if (t == 0) {
+					for (int i = 0; i < PER_THREAD * 5; i++) {
+						String key = "Key" + (i % 16);
+						if (i % 3 == 2) {
+							node.removeAttribute(key);
+							sg.removeAttribute(key);
+						} else {
+							node.addAttribute(key, i);
+							edge.addAttribute(key, i);
+							sg.addAttribute(key, i);
+						}
+						if (i % 100 == 0)
+							sg.addEdge("Edge" + i, "Node1", sg.addNode("Node" + (i + 2)).getId());
+					}
+					writing.set(false);
+					return;
+				}
+				while (writing.get()) {
+					for (String key : node.getAttributeKeySet())
+						assertTrue("key without its map", key.startsWith("Key"));
+					assertTrue("too many attributes", node.getAttributeCount() <= 16);
+					assertTrue("too many attributes", sg.getAttributeKeySet().size() <= 16);
+					Object value = edge.getAttribute("Key1");
+					assertTrue("value of another key", value == null || ((Integer) value) % 16 == 1);
+					assertNotNull("edge between lost", sg.getNode("Node1").getEdgeBetween("Node0"));
+				}
+			}
+		});
+		assertEquals("edge attributes", 16, edge.getAttributeCount());
+	}
+}
@@ -0,0 +1,166 @@
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Test;
+
+import csce867.graph.BinaryGraphFile;
+import csce867.graph.CompactGraph;
+import csce867.graph.FileSinkBinary;
+import csce867.graph.FileSourceBinary;
+
+// binary snapshots written by FileSinkBinary, read back by FileSourceBinary
+// and looked up in place through BinaryGraphFile
+public class FileSinkBinaryTests {
+
+	// binary snapshot read back must match what DGS reads back
+	@Test
+	public void WriteGraphBinary() {
+		Graph sg = new SingleGraph("WriteGraphBinary");
+		sg.addAttribute("title", "binary");
+		for (int i = 0; i < 50; i++) {
+			Node n = sg.addNode("Node" + i);
+			n.addAttribute("weight", i * 0.5);
+			n.addAttribute("label", "n" + i);
+		}
+		for (int i = 0; i < 50; i++) {
+			Edge e = sg.addEdge("Edge" + i, "Node" + i, "Node" + ((i + 1) % 50), i % 2 == 0);
+			e.addAttribute("cost", i);
+		}
+		Graph fromDgs = new SingleGraph("fromDgs");
+		Graph fromBinary = new SingleGraph("fromBinary");
+		try {
+			sg.write("graph_output.dgs");
+			fromDgs.read("graph_output.dgs");
+			sg.write(new FileSinkBinary(), "graph_output.gsb");
+			FileSourceBinary source = new FileSourceBinary();
+			source.addSink(fromBinary);
+			source.readAll("graph_output.gsb");
+		} catch (Exception e) {
+			fail("binary round trip failed with " + e);
+		} finally {
+			new File("graph_output.dgs").delete();
+			new File("graph_output.gsb").delete();
+		}
+		assertEquals("node count differs", fromDgs.getNodeCount(), fromBinary.getNodeCount());
+		assertEquals("edge count differs", fromDgs.getEdgeCount(), fromBinary.getEdgeCount());
+		assertEquals("graph attribute differs", "binary", fromBinary.getAttribute("title"));
+		for (Node n : fromDgs.getEachNode()) {
+			Node b = fromBinary.getNode(n.getId());
+			assertNotNull("node missing: " + n.getId(), b);
+			Object expected = n.getAttribute("label"), actual = b.getAttribute("label");
+			assertEquals("label differs", expected, actual);
+			assertEquals("weight differs", ((Number) n.getAttribute("weight")).doubleValue(),
+					((Number) b.getAttribute("weight")).doubleValue(), 0);
+		}
+		for (Edge e : fromDgs.getEachEdge()) {
+			Edge b = fromBinary.getEdge(e.getId());
+			assertNotNull("edge missing: " + e.getId(), b);
+			assertEquals("source differs", e.getSourceNode().getId(), b.getSourceNode().getId());
+			assertEquals("target differs", e.getTargetNode().getId(), b.getTargetNode().getId());
+			assertEquals("direction differs", e.isDirected(), b.isDirected());
+			assertEquals("cost differs", ((Number) e.getAttribute("cost")).intValue(),
+					((Number) b.getAttribute("cost")).intValue());
+		}
+	}
+
+	@Test
+	public void BinaryGraphFileLookup() {
+		Graph sg = new SingleGraph("BinaryLookup");
+		sg.addNode("Node1");
+		sg.addNode("Node2");
+		sg.addNode("Node3");
+		sg.addEdge("Edge1", "Node1", "Node2", true);
+		sg.addEdge("Edge2", "Node2", "Node3");
+		sg.getNode("Node2").addAttribute("flag", true);
+		try {
+			sg.write(new FileSinkBinary(), "graph_output.gsb");
+			BinaryGraphFile file = BinaryGraphFile.open("graph_output.gsb");
+			try {
+				assertEquals("node count differs", 3, file.getNodeCount());
+				int n2 = file.getNodeIndex("Node2");
+				assertEquals("id lookup failed", "Node2", file.getNodeId(n2));
+				assertEquals("unknown id found", -1, file.getNodeIndex("Node4"));
+				assertEquals("degree differs", 2, file.getDegree(n2));
+				int e1 = file.getEdgeIndex("Edge1");
+				assertTrue("Edge1 not directed", file.isDirected(e1));
+				assertFalse("Edge2 directed", file.isDirected(file.getEdgeIndex("Edge2")));
+				assertEquals("target differs", n2, file.getTargetIndex(e1));
+				boolean incident = file.getIncidentEdge(n2, 0) == e1 || file.getIncidentEdge(n2, 1) == e1;
+				assertTrue("Edge1 not incident to Node2", incident);
+				assertEquals("boolean attribute differs", Boolean.TRUE, file.getNodeAttribute(n2, "flag"));
+				assertNull("attribute on wrong node", file.getNodeAttribute(file.getNodeIndex("Node1"), "flag"));
+			} finally {
+				file.close();
+			}
+		} catch (IOException e) {
+			fail("binary snapshot failed with IO Exception");
+		} finally {
+			new File("graph_output.gsb").delete();
+		}
+	}
+
+	// holes left by stable indices are closed, and only allowed classes are
+	// stored serialized
+	@Test
+	public void WriteCompactGraphWithHoles() {
+		CompactGraph cg = new CompactGraph("Holes", false, true);
+		cg.setStableIndices(true);
+		for (int i = 0; i < 20; i++)
+			cg.addNode("Node" + i).addAttribute("n", i);
+		for (int i = 0; i < 20; i++)
+			cg.addEdge("Edge" + i, "Node" + i, "Node" + ((i + 1) % 20)).addAttribute("e", i);
+		for (int i = 0; i < 20; i += 3)
+			cg.removeNode("Node" + i);
+		cg.removeEdge("Edge10");
+		cg.getNode("Node1").addAttribute("xyz", new double[] { 1, 2, 3 });
+		cg.getNode("Node2").addAttribute("when", new Date(0));
+		Graph fromBinary = new SingleGraph("fromBinary");
+		try {
+			cg.write(new FileSinkBinary(), "graph_output.gsb");
+			BinaryGraphFile file = BinaryGraphFile.open("graph_output.gsb");
+			try {
+				assertEquals("node count differs", cg.getNodeCount(), file.getNodeCount());
+				assertEquals("edge count differs", cg.getEdgeCount(), file.getEdgeCount());
+				for (Edge e : cg.getEachEdge()) {
+					int i = file.getEdgeIndex(e.getId());
+					assertTrue("edge index out of range", i >= 0 && i < file.getEdgeCount());
+					assertEquals("target differs", e.getTargetNode().getId(),
+							file.getNodeId(file.getTargetIndex(i)));
+				}
+			} finally {
+				file.close();
+			}
+			FileSourceBinary source = new FileSourceBinary();
+			source.addSink(fromBinary);
+			source.readAll("graph_output.gsb");
+		} catch (IOException e) {
+			fail("binary snapshot failed with " + e);
+		} finally {
+			new File("graph_output.gsb").delete();
+		}
+		assertEquals(cg.getNodeCount(), fromBinary.getNodeCount());
+		assertEquals(cg.getEdgeCount(), fromBinary.getEdgeCount());
+		for (Node n : cg.getEachNode()) {
+			Node b = fromBinary.getNode(n.getId());
+			assertNotNull("node missing: " + n.getId(), b);
+			assertEquals("degree differs", n.getDegree(), b.getDegree());
+			Object expected = n.getAttribute("n"), actual = b.getAttribute("n");
+			assertEquals("attribute differs", expected, actual);
+		}
+		for (Edge e : cg.getEachEdge()) {
+			Object expected = e.getAttribute("e"), actual = fromBinary.getEdge(e.getId()).getAttribute("e");
+			assertEquals("edge attribute differs", expected, actual);
+		}
+		Object xyz = fromBinary.getNode("Node1").getAttribute("xyz");
+		assertArrayEquals("array not stored serialized", new double[] { 1, 2, 3 }, (double[]) xyz, 0);
+		Object when = fromBinary.getNode("Node2").getAttribute("when");
+		assertEquals("class outside the allowlist stored serialized", new Date(0).toString(), when);
+	}
+}
@@ -0,0 +1,97 @@
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.ForkJoinPool;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Test;
+
+import csce867.graph.FileSourceParallel;
+
+// FileSourceParallel against the sequential DGS reader
+public class FileSourceParallelTests {
+
+	// parallel reader must give the graph Graph.read() gives
+	@Test
+	public void ReadGraphParallel() {
+		Graph sg = new SingleGraph("ReadParallel");
+		sg.addAttribute("title", "multi\nline \"quoted\" # not a comment");
+		for (int i = 0; i < 300; i++)
+			sg.addNode("Node" + i).addAttribute("label", i % 3 == 0 ? "a\nb" : "n" + i);
+		for (int i = 0; i < 300; i++)
+			sg.addEdge("Edge" + i, "Node" + i, "Node" + ((i + 1) % 300), i % 2 == 0).addAttribute("cost", i);
+		Graph sequential = new SingleGraph("sequential");
+		Graph parallel = new SingleGraph("parallel");
+		try {
+			sg.write("graph_output.dgs");
+			sequential.read("graph_output.dgs");
+			// small chunks so the file is cut many times
+			FileSourceParallel source = new FileSourceParallel(new ForkJoinPool(4), 512);
+			source.addSink(parallel);
+			source.readAll("graph_output.dgs");
+		} catch (Exception e) {
+			fail("parallel read failed with " + e);
+		} finally {
+			new File("graph_output.dgs").delete();
+		}
+		Object expected = sequential.getAttribute("title"), actual = parallel.getAttribute("title");
+		assertEquals("graph attribute differs", expected, actual);
+		assertEquals("node count differs", sequential.getNodeCount(), parallel.getNodeCount());
+		assertEquals("edge count differs", sequential.getEdgeCount(), parallel.getEdgeCount());
+		for (int i = 0; i < sequential.getNodeCount(); i++) {
+			Node n = sequential.getNode(i), p = parallel.getNode(i);
+			assertEquals("node order differs", n.getId(), p.getId());
+			expected = n.getAttribute("label");
+			actual = p.getAttribute("label");
+			assertEquals("label differs", expected, actual);
+		}
+		for (int i = 0; i < sequential.getEdgeCount(); i++) {
+			Edge e = sequential.getEdge(i), p = parallel.getEdge(i);
+			assertEquals("edge order differs", e.getId(), p.getId());
+			assertEquals("source differs", e.getSourceNode().getId(), p.getSourceNode().getId());
+			assertEquals("direction differs", e.isDirected(), p.isDirected());
+			expected = e.getAttribute("cost");
+			actual = p.getAttribute("cost");
+			assertEquals("cost differs", expected, actual);
+		}
+	}
+
+	@Test
+	public void ReadGraphParallelSteps() {
+		StringBuilder dgs = new StringBuilder("DGS004\nsteps 0 0\n");
+		for (int step = 0; step < 20; step++) {
+			dgs.append("st ").append(step).append("\n");
+			dgs.append("an Node").append(step).append(" step=").append(step).append("\n");
+			if (step > 0)
+				dgs.append("ae Edge").append(step).append(" Node").append(step - 1).append(" > Node").append(step)
+						.append("\n");
+			if (step > 1)
+				dgs.append("dn Node").append(step - 2).append("\n");
+		}
+		Graph sg = new SingleGraph("ReadParallelSteps");
+		FileSourceParallel source = new FileSourceParallel(new ForkJoinPool(4), 64);
+		source.addSink(sg);
+		try {
+			source.begin(new StringReader(dgs.toString()));
+			// step 0 is announced before its events, so after k steps Node(k-2) is the latest node
+			for (int k = 1; k <= 20; k++) {
+				assertTrue("step " + k + " missing", source.nextStep());
+				if (k >= 2)
+					assertNotNull("Node" + (k - 2) + " not there at step " + k, sg.getNode("Node" + (k - 2)));
+				if (k >= 4)
+					assertNull("Node" + (k - 4) + " not removed at step " + k, sg.getNode("Node" + (k - 4)));
+			}
+			assertFalse("events after the last step", source.nextStep());
+			source.end();
+		} catch (IOException e) {
+			fail("parallel read failed with IO Exception");
+		}
+		assertEquals("final node count differs", 2, sg.getNodeCount());
+		assertTrue("last edge not directed", sg.getEdge("Edge19").isDirected());
+	}
+}
@@ -0,0 +1,106 @@
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Test;
+
+import csce867.graph.GraphJournal;
+
+// GraphJournal segments and snapshots replayed by recover()
+public class GraphJournalTests {
+
+	// journal segments and snapshots must rebuild the graph they followed
+	@Test
+	public void JournalGraph() {
+		File dir = new File("graph_journal");
+		Graph sg = new SingleGraph("Journal");
+		Graph rebuilt = new SingleGraph("Rebuilt");
+		try {
+			// small ring and segments so producers stall, segments rotate and compact
+			GraphJournal journal = new GraphJournal(dir.getPath(), 64, 2048, 2, false);
+			sg.addSink(journal);
+			sg.addAttribute("title", "journal");
+			for (int i = 0; i < 400; i++)
+				sg.addNode("Node" + i).addAttribute("label", "n" + i);
+			for (int i = 0; i < 400; i++)
+				sg.addEdge("Edge" + i, "Node" + i, "Node" + ((i + 1) % 400), i % 2 == 0);
+			for (int i = 0; i < 400; i += 4)
+				sg.removeNode("Node" + i);
+			journal.compact();
+			for (int i = 1; i < 400; i += 4)
+				sg.getNode("Node" + i).changeAttribute("label", "changed");
+			journal.flush();
+			assertEquals("events pending after flush", 0, journal.getPendingEvents());
+			journal.close();
+			assertTrue("no compaction ran", journal.getCompactionCount() > 0);
+			assertTrue("no flush recorded", journal.getFlushCount() > 0);
+			GraphJournal.recover(dir.getPath(), rebuilt);
+		} catch (IOException e) {
+			fail("journal failed with IO Exception " + e);
+		} finally {
+			deleteJournal(dir);
+		}
+		assertEquals("graph attribute differs", "journal", rebuilt.getAttribute("title"));
+		assertEquals("node count differs", sg.getNodeCount(), rebuilt.getNodeCount());
+		assertEquals("edge count differs", sg.getEdgeCount(), rebuilt.getEdgeCount());
+		for (Node n : sg.getEachNode()) {
+			Object expected = n.getAttribute("label"), actual = rebuilt.getNode(n.getId()).getAttribute("label");
+			assertEquals("label differs", expected, actual);
+		}
+		for (Edge e : sg.getEachEdge())
+			assertEquals("direction differs", e.isDirected(), rebuilt.getEdge(e.getId()).isDirected());
+	}
+
+	// values are journaled as sent, strings may hold newlines and a group cut
+	// by a crash is dropped whole
+	@Test
+	public void JournalFramesSurviveTornWrites() {
+		File dir = new File("graph_journal_torn");
+		Graph sg = new SingleGraph("Torn");
+		Graph rebuilt = new SingleGraph("Rebuilt");
+		try {
+			GraphJournal journal = new GraphJournal(dir.getPath(), 64, 1 << 20, 0, false);
+			sg.addSink(journal);
+			Node a = sg.addNode("A");
+			a.addAttribute("text", "line1\nline2");
+			double[] xyz = { 1, 2, 3 };
+			a.addAttribute("xyz", xyz);
+			xyz[0] = 9;
+			journal.close();
+			String[] names = dir.list();
+			assertEquals("one segment expected", 1, names.length);
+			FileOutputStream out = new FileOutputStream(new File(dir, names[0]), true);
+			try {
+				out.write("#frame 100 0\nan \"Torn\"\ncn \"A\" \"text\":\"cut\n".getBytes(StandardCharsets.UTF_8));
+			} finally {
+				out.close();
+			}
+			GraphJournal.recover(dir.getPath(), rebuilt);
+		} catch (IOException e) {
+			fail("journal failed with IO Exception " + e);
+		} finally {
+			deleteJournal(dir);
+		}
+		assertNull("torn frame replayed", rebuilt.getNode("Torn"));
+		Node a = rebuilt.getNode("A");
+		Object text = a.getAttribute("text");
+		assertEquals("newline in a string lost", "line1\nline2", text);
+		Object[] xyz = a.getAttribute("xyz");
+		assertEquals("value changed after it was sent", 1, ((Number) xyz[0]).doubleValue(), 0);
+	}
+
+	static void deleteJournal(File dir) {
+		String[] names = dir.list();
+		if (names != null)
+			for (String name : names)
+				new File(dir, name).delete();
+		dir.delete();
+	}
+}
@@ -0,0 +1,50 @@
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Test;
+
+import csce867.graph.CompactGraph;
+import csce867.graph.GraphStreams;
+
+// GraphStreams over a SingleGraph and over the CompactGraph index views
+public class GraphStreamsTests {
+
+	@Test
+	public void StreamNodesAndEdges() {
+		for (Graph sg : new Graph[] { new SingleGraph("Streams"), new CompactGraph("Streams") }) {
+			int n = 5000;
+			for (int i = 0; i < n; i++)
+				sg.addNode("Node" + i).addAttribute("KeyString", i % 10);
+			for (int i = 0; i < n; i++)
+				sg.addEdge("Edge" + i, "Node" + i, "Node" + ((i + 1) % n)).addAttribute("weight", (double) i);
+			Spliterator<Node> split = GraphStreams.<Node> nodes(sg).spliterator();
+			assertTrue("node spliterator not SIZED", split.hasCharacteristics(Spliterator.SIZED));
+			assertEquals("node spliterator size", n, split.getExactSizeIfKnown());
+			assertEquals("parallel node count", n, GraphStreams.nodes(sg).parallel().count());
+			assertEquals("parallel degree sum", 2 * n,
+					GraphStreams.<Node> nodes(sg).parallel().mapToInt(Node::getDegree).sum());
+			// ordered views keep the iteration order through parallel collection
+			List<String> ids = GraphStreams.<Node> nodes(sg).parallel().map(Node::getId).collect(Collectors.toList());
+			Iterator<Node> nodes = sg.getNodeIterator();
+			for (String id : ids)
+				assertEquals("stream order differs from iterator", nodes.next().getId(), id);
+			assertFalse("iterator has more nodes than the stream", nodes.hasNext());
+			assertEquals("filtered node count", n / 10,
+					GraphStreams.nodes(sg, "KeyString", v -> Integer.valueOf(3).equals(v)).parallel().count());
+			assertEquals("missing key seen as non-null", 0,
+					GraphStreams.nodes(sg, "NoSuchKey", v -> v != null).count());
+			assertEquals("filtered edge count", 100,
+					GraphStreams.edges(sg, "weight", v -> ((Double) v) < 100).parallel().count());
+			assertEquals("edge stream first element", "Edge0",
+					GraphStreams.<Edge> edges(sg).findFirst().get().getId());
+		}
+	}
+}
@@ -0,0 +1,91 @@
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.SinkAdapter;
+import org.junit.Test;
+
+import csce867.graph.GraphSnapshot;
+import csce867.graph.GraphTimeline;
+
+// GraphTimeline seeks and windows against the states recorded step by step
+public class GraphTimelineTests {
+
+	// SnapshotMirrorTests.describe() with the lines sorted, for graphs built in another order
+	private static String canonical(Graph g) {
+		String[] lines = SnapshotMirrorTests.describe(g).split("\n");
+		Arrays.sort(lines);
+		return String.join("\n", lines);
+	}
+
+	@Test
+	public void TimelineSeeksMatchTheRecordedStates() {
+		Graph sg = new SingleGraph("Timeline");
+		sg.addNode("Node0").addAttribute("n", 0);
+		GraphTimeline timeline = new GraphTimeline("Timeline", 40, 5);
+		timeline.begin(sg);
+		Random random = new Random(21);
+		List<String> states = new ArrayList<String>();
+		int next = 1;
+		for (int step = 0; step < 30; step++) {
+			sg.stepBegins(step);
+			for (int k = 0; k < 15; k++) {
+				int op = random.nextInt(6);
+				Node u = sg.getNode(random.nextInt(sg.getNodeCount()));
+				Node v = sg.getNode(random.nextInt(sg.getNodeCount()));
+				if (op < 2 || sg.getNodeCount() < 5)
+					sg.addNode("Node" + next).addAttribute("n", next++);
+				else if (op == 2 && !u.hasEdgeBetween(v) && !v.hasEdgeBetween(u))
+					sg.addEdge("Edge" + next++, u.getId(), v.getId(), random.nextBoolean());
+				else if (op == 3 && sg.getEdgeCount() > 0)
+					sg.removeEdge(sg.getEdge(random.nextInt(sg.getEdgeCount())).getId());
+				else if (op == 4)
+					sg.removeNode(u.getId());
+				else
+					u.changeAttribute("n", -step);
+			}
+			states.add(canonical(sg));
+		}
+		timeline.end();
+		sg.addNode("Unrecorded");
+		assertTrue("too few checkpoints", timeline.getCheckpointCount() > 5);
+		assertEquals(30, timeline.getStepCount());
+
+		// any time, from the nearest checkpoint
+		for (int step = 29; step >= 0; step -= 3) {
+			assertEquals("graph at " + step, states.get(step), canonical(timeline.graphAt(step)));
+			assertEquals("snapshot at " + step, states.get(step), canonical(timeline.snapshotAt(step + 0.5)));
+		}
+		assertTrue("replayed from the start", timeline.getReplayedEventCount() < timeline.getEventCount() * 5);
+		assertEquals("before the first step", 0, timeline.snapshotAt(-1).getEdgeCount());
+		assertEquals(states.get(29), canonical(timeline.snapshotAt(1000)));
+
+		// several times and windows at once
+		double[] times = { 4, 11, 17, 26 };
+		List<GraphSnapshot> snapshots = timeline.snapshotsAt(times);
+		for (int i = 0; i < times.length; i++)
+			assertEquals(states.get((int) times[i]), canonical(snapshots.get(i)));
+		Graph[] windows = { new SingleGraph("W0"), new SingleGraph("W1"), new SingleGraph("W2") };
+		final int[] steps = new int[3];
+		for (int i = 0; i < 3; i++) {
+			int window = i;
+			windows[i].addSink(new SinkAdapter() {
+				@Override
+				public void stepBegins(String sourceId, long timeId, double time) {
+					steps[window]++;
+				}
+			});
+		}
+		timeline.play(new double[] { 0, 8, 20 }, new double[] { 5, 19, 29 }, windows);
+		assertEquals(states.get(5), canonical(windows[0]));
+		assertEquals(states.get(19), canonical(windows[1]));
+		assertEquals(states.get(29), canonical(windows[2]));
+		assertTrue("window steps not played", steps[1] >= 11);
+	}
+}
@@ -0,0 +1,102 @@
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import org.graphstream.graph.ElementNotFoundException;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Test;
+
+import csce867.graph.CompactGraph;
+import csce867.graph.GraphMetrics;
+import csce867.graph.LatencyHistogram;
+import csce867.graph.MeteredGraph;
+
+// runs every SingleGraph test case through MeteredGraph, plus metrics cases
+public class MeteredGraph_TSL_Tests extends SingleGraph_TSL_Tests {
+
+	@Override
+	protected Graph makeSingleGraph(String id) {
+		Graph sg = new MeteredGraph(new SingleGraph(id));
+		return sg;
+	}
+	@Override
+	protected Graph makeSingleGraph(String id, boolean strict, boolean auto_c) {
+		Graph sg = new MeteredGraph(new SingleGraph(id, strict, auto_c));
+		return sg;
+	}
+	@Test
+	public void MeteredCallsAndErrorsTest() {
+		// CreateOneEdgeNoNodeStrict, counted
+		MeteredGraph sg = new MeteredGraph(new SingleGraph("MeteredStrict"));
+		GraphMetrics metrics = sg.getMetrics();
+		sg.addNode("Node1");
+		sg.addNode("Node2");
+		sg.addEdge("Edge1", "Node1", "Node2");
+		try {
+			sg.addEdge("ErrorEdge", "Node1", "Node3");
+			fail("could add edge w/no nodes & strict set");
+		} catch (ElementNotFoundException e) {
+			assertTrue(true);
+		}
+		sg.getNode("Node1").addAttribute("KeyString", "value");
+		sg.getNode("Node1").changeAttribute("KeyString", "other");
+		assertEquals("addNode calls", 2, metrics.getCallCount("addNode"));
+		assertEquals("addEdge calls", 2, metrics.getCallCount("addEdge"));
+		assertEquals("addEdge errors", 1, metrics.getErrorCount("addEdge"));
+		assertEquals("getNode calls", 2, metrics.getCallCount("getNode"));
+		assertEquals("error type", Long.valueOf(1), metrics.getErrorsByType().get("ElementNotFoundException"));
+		assertFalse("metrics attached a sink", sg.getGraph().attributeSinks().iterator().hasNext());
+		MeteredGraph compact = new MeteredGraph(new CompactGraph("MeteredCompact"));
+		compact.addNode("Node1").setAttribute("x", 1.0);
+		assertFalse("metered CompactGraph lost its unboxed path", compact.attributeSinks().iterator().hasNext());
+		assertEquals("mean node attributes", 0.5, metrics.getMeanNodeAttributeCount(), 1e-9);
+		assertTrue("no latency recorded", metrics.getLatency("addEdge").getMax() > 0);
+	}
+	@Test
+	public void MeteredDisabledTest() {
+		MeteredGraph sg = new MeteredGraph(new SingleGraph("MeteredOff"), false);
+		GraphMetrics metrics = sg.getMetrics();
+		sg.addNode("Node1").addAttribute("KeyString", "value");
+		assertEquals("recorded while disabled", 0, metrics.getCallCount("addNode"));
+		metrics.setEnabled(true);
+		sg.addNode("Node2").addAttribute("KeyString", "value");
+		assertEquals("not recorded once enabled", 1, metrics.getCallCount("addNode"));
+		metrics.reset();
+		assertEquals("reset kept calls", 0, metrics.getCallCount("addNode"));
+	}
+	@Test
+	public void MeteredJmxTest() throws JMException {
+		MeteredGraph sg = new MeteredGraph(new SingleGraph("MeteredJmx"));
+		sg.addNode("Node1");
+		ObjectName name = sg.getMetrics().register("MeteredJmx");
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			assertEquals("node count over JMX", 1, server.getAttribute(name, "NodeCount"));
+			TabularData calls = (TabularData) server.getAttribute(name, "Calls");
+			assertEquals("addNode over JMX", 1L, calls.get(new Object[] { "addNode" }).get("value"));
+			server.setAttribute(name, new javax.management.Attribute("Enabled", false));
+			assertFalse("disabled over JMX", sg.getMetrics().isEnabled());
+		} finally {
+			sg.getMetrics().unregister();
+		}
+	}
+	@Test
+	public void LatencyHistogramPercentileTest() {
+		LatencyHistogram h = new LatencyHistogram();
+		for (long v = 1; v <= 100000; v++)
+			h.record(v);
+		assertEquals("count", 100000, h.getCount());
+		assertEquals("max", 100000, h.getMax());
+		assertEquals("mean", 50000.5, h.getMean(), 1e-6);
+		long p50 = h.getValueAtPercentile(50), p99 = h.getValueAtPercentile(99);
+		assertEquals("p50 off by more than 1/32", 50000, p50, 50000 / 32.0);
+		assertEquals("p99 off by more than 1/32", 99000, p99, 99000 / 32.0);
+		assertTrue("percentiles not ordered", p50 <= p99 && p99 <= h.getValueAtPercentile(100));
+	}
+}
@@ -0,0 +1,73 @@
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Test;
+
+import csce867.graph.MetricsCache;
+
+// MetricsCache answers against a fresh cache under random edits
+public class MetricsCacheTests {
+
+	@Test
+	public void MetricsCacheMatchesUncached() {
+		Graph sg = new SingleGraph("Metrics");
+		Random random = new Random(11);
+		int next = 0;
+		for (int i = 0; i < 60; i++)
+			sg.addNode("Node" + i);
+		MetricsCache cache = new MetricsCache(sg);
+		MetricsCache small = new MetricsCache(sg, 150);
+		for (int round = 0; round < 400; round++) {
+			int op = random.nextInt(10);
+			Node u = sg.getNode(random.nextInt(sg.getNodeCount()));
+			Node v = sg.getNode(random.nextInt(sg.getNodeCount()));
+			if (op < 5 && u != v && !u.hasEdgeBetween(v) && !v.hasEdgeBetween(u))
+				sg.addEdge("Edge" + next++, u.getId(), v.getId(), random.nextBoolean());
+			else if (op < 8 && sg.getEdgeCount() > 0)
+				sg.removeEdge(sg.getEdge(random.nextInt(sg.getEdgeCount())).getId());
+			else if (op == 8)
+				sg.addNode("Extra" + next++);
+			else if (sg.getNodeCount() > 10)
+				sg.removeNode(u.getId());
+
+			// a fresh cache computes everything, the old ones answer partly from memory
+			MetricsCache fresh = new MetricsCache(sg);
+			for (int q = 0; q < 5; q++) {
+				String id = sg.getNode(random.nextInt(sg.getNodeCount())).getId();
+				for (MetricsCache c : Arrays.asList(cache, small)) {
+					assertEquals("neighbours of " + id, fresh.neighbours(id), c.neighbours(id));
+					assertEquals("component of " + id, fresh.component(id), c.component(id));
+				}
+			}
+			assertEquals("components", fresh.componentCount(), cache.componentCount());
+			assertEquals("components", fresh.componentCount(), small.componentCount());
+			assertTrue("degrees", Arrays.equals(fresh.degreeDistribution(), cache.degreeDistribution()));
+			fresh.detach();
+		}
+		assertTrue("hit rate " + cache.getHitRate(), cache.getHitRate() > 0.3);
+		assertTrue("nothing invalidated", cache.getInvalidationCount() > 0);
+		assertTrue("small cache never evicted", small.getEvictionCount() > 0);
+		assertTrue("over capacity", small.getWeight() <= small.getCapacity());
+
+		// an edge inside a component leaves it cached, a new node does not touch it
+		Node a = sg.getNode(0);
+		Set<String> component = cache.component(a.getId());
+		sg.addNode("Lonely");
+		long hits = cache.getHitCount();
+		assertSame("component recomputed", component, cache.component(a.getId()));
+		assertEquals(hits + 1, cache.getHitCount());
+		assertFalse(cache.connected(a.getId(), "Lonely"));
+		sg.addEdge("Bridge", a.getId(), "Lonely");
+		assertTrue("merge", cache.connected(a.getId(), "Lonely"));
+		sg.clear();
+		assertEquals(0, cache.size());
+		cache.detach();
+		small.detach();
+	}
+}
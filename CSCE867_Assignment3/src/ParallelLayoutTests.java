@@ -0,0 +1,85 @@
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.ui.layout.Layouts;
+import org.junit.Test;
+
+import csce867.graph.ParallelLayout;
+
+// ParallelLayout convergence, incremental relayout and the Layouts hook
+public class ParallelLayoutTests {
+
+	@Test
+	public void ParallelLayoutConverges() {
+		Graph sg = new SingleGraph("Layout");
+		ParallelLayout layout = new ParallelLayout(new ForkJoinPool(4), new Random(7));
+		sg.addSink(layout);
+		layout.addAttributeSink(sg);
+		int side = 15, n = side * side;
+		for (int i = 0; i < n; i++)
+			sg.addNode("Node" + i);
+		for (int i = 0; i < n; i++) {
+			if (i % side != side - 1)
+				sg.addEdge("H" + i, "Node" + i, "Node" + (i + 1));
+			if (i + side < n)
+				sg.addEdge("V" + i, "Node" + i, "Node" + (i + side));
+		}
+		int steps = 0;
+		do {
+			layout.compute();
+			steps++;
+		} while (layout.getStabilization() < 0.99 && steps < 2000);
+		assertTrue("no convergence in " + steps + " steps", steps < 2000);
+		double[] p = layout.getPosition("Node0");
+		Object[] xyz = sg.getNode("Node0").getAttribute("xyz");
+		assertEquals("position not sent to the graph", p[0], ((Number) xyz[0]).doubleValue(), 1e-9);
+		// grid neighbours end up much closer than nodes picked at random
+		Random random = new Random(1);
+		double edges = 0, pairs = 0;
+		for (int k = 0; k < 500; k++) {
+			int u = random.nextInt(n - side);
+			edges += distance(layout, "Node" + u, "Node" + (u + side));
+			pairs += distance(layout, "Node" + u, "Node" + random.nextInt(n));
+		}
+		assertTrue("layout not unfolded: " + edges / pairs, edges / pairs < 0.2);
+
+		// a new leaf moves the nodes around it, not the whole layout
+		while (layout.getNodeMovedCount() > 0)
+			layout.compute();
+		sg.addNode("Extra");
+		sg.addEdge("ExtraEdge", "Extra", "Node0");
+		int moved = 0;
+		steps = 0;
+		do {
+			layout.compute();
+			moved += layout.getNodeMovedCount();
+			steps++;
+		} while (layout.getNodeMovedCount() > 0 && steps < 500);
+		assertTrue("relayout did not settle", steps < 500);
+		assertTrue("relayout moved " + moved + " nodes", moved < n * steps / 4);
+		assertTrue("new node not beside its neighbour", distance(layout, "Extra", "Node0") < 3 * edges / 500);
+
+		sg.removeNode("Node7");
+		layout.compute();
+		assertEquals("removed node still laid out", n, layout.getNodeCount());
+		assertTrue("removed node has a position", layout.getPosition("Node7") == null);
+		sg.clear();
+		assertEquals("clear", 0, layout.getNodeCount());
+
+		System.setProperty("org.graphstream.ui.layout", ParallelLayout.class.getName());
+		try {
+			assertTrue("not plugged into Layouts", Layouts.newLayoutAlgorithm() instanceof ParallelLayout);
+		} finally {
+			System.clearProperty("org.graphstream.ui.layout");
+		}
+	}
+
+	private static double distance(ParallelLayout layout, String a, String b) {
+		double[] p = layout.getPosition(a), q = layout.getPosition(b);
+		return Math.hypot(p[0] - q[0], p[1] - q[1]);
+	}
+}
@@ -0,0 +1,80 @@
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.graphstream.graph.BreadthFirstIterator;
+import org.graphstream.graph.DepthFirstIterator;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Test;
+
+import csce867.graph.ParallelTraversal;
+
+// ParallelTraversal against the graph's own iterators
+public class ParallelTraversalTests {
+
+	@Test
+	public void TraversalMatchesIterators() {
+		// large enough for the parallel frontier expansion, mixed directed and undirected edges
+		Graph sg = new SingleGraph("Traversal", false, true);
+		Random rnd = new Random(867);
+		int n = 20000;
+		for (int i = 0; i < n; i++)
+			sg.addNode("Node" + i);
+		for (int i = 0; i < 4 * n; i++)
+			sg.addEdge("Edge" + i, "Node" + rnd.nextInt(n), "Node" + rnd.nextInt(n), i % 3 == 0);
+		ParallelTraversal traversal = new ParallelTraversal(sg, new ForkJoinPool(4));
+		for (boolean directed : new boolean[] { true, false }) {
+			Node start = sg.getNode("Node17");
+			int[] order = traversal.breadthFirst(start, directed);
+			int[] depth = traversal.breadthFirstDepths(start, directed);
+			BreadthFirstIterator<Node> bfs = new BreadthFirstIterator<Node>(start, directed);
+			int i = 0;
+			while (bfs.hasNext()) {
+				Node node = bfs.next();
+				assertTrue("breadth-first order too short", i < order.length);
+				assertEquals("breadth-first order differs at " + i, node.getIndex(), order[i++]);
+				assertEquals("depth differs for " + node.getId(), bfs.getDepthOf(node), depth[node.getIndex()]);
+			}
+			assertEquals("breadth-first order too long", i, order.length);
+			int[] dfsOrder = traversal.depthFirst(start, directed);
+			DepthFirstIterator<Node> dfs = new DepthFirstIterator<Node>(start, directed);
+			i = 0;
+			while (dfs.hasNext()) {
+				assertTrue("depth-first order too short", i < dfsOrder.length);
+				assertEquals("depth-first order differs at " + i, dfs.next().getIndex(), dfsOrder[i++]);
+			}
+			assertEquals("depth-first order too long", i, dfsOrder.length);
+			int[] reached = traversal.reachable(start, directed);
+			int[] sorted = order.clone();
+			Arrays.sort(sorted);
+			assertArrayEquals("reachable set differs from breadth-first set", sorted, reached);
+		}
+	}
+
+	@Test
+	public void TraversalNeighbourhood() {
+		Graph sg = new SingleGraph("Neighbourhood");
+		for (int i = 0; i < 10; i++)
+			sg.addNode("Node" + i);
+		for (int i = 0; i < 9; i++)
+			sg.addEdge("Edge" + i, "Node" + i, "Node" + (i + 1), true);
+		ParallelTraversal traversal = new ParallelTraversal(sg);
+		Node node3 = sg.getNode("Node3");
+		int[] hops = traversal.neighbourhood(node3, 2, true);
+		assertEquals("directed 2-hop size differs", 3, hops.length);
+		assertEquals("start not first", node3.getIndex(), hops[0]);
+		assertEquals("undirected 2-hop size differs", 5, traversal.neighbourhood(node3, 2, false).length);
+		assertEquals("0-hop is not the start only", 1, traversal.neighbourhood(node3, 0, true).length);
+		assertEquals("reachable count differs", 7, traversal.reachable(node3, true).length);
+		assertEquals("stream differs", "Node4", traversal.nodes(hops).skip(1).findFirst().get().getId());
+		// the copy is kept until refresh()
+		sg.addEdge("Edge9", "Node9", "Node0", true);
+		assertEquals("copy changed before refresh", 7, traversal.reachable(node3, true).length);
+		traversal.refresh();
+		assertEquals("refresh not seen", 10, traversal.reachable(node3, true).length);
+	}
+}
@@ -0,0 +1,82 @@
+import static org.junit.Assert.*;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.SinkAdapter;
+import org.junit.Test;
+
+import csce867.graph.RingProxyPipe;
+
+// RingProxyPipe replay, ordering under a stalled producer, batching and drainTo
+public class RingProxyPipeTests {
+
+	@Test
+	public void RingProxyPipeCarriesEvents() throws InterruptedException {
+		final Graph sg = new SingleGraph("Pipe");
+		sg.addNode("Node1");
+		sg.addNode("Node2");
+		sg.addEdge("Edge12", "Node1", "Node2");
+		Graph copy = new SingleGraph("Copy");
+		RingProxyPipe pipe = new RingProxyPipe(8, RingProxyPipe.WaitStrategy.BLOCK);
+		pipe.addSink(copy);
+		pipe.init(sg, true);
+		assertTrue("replay not posted", pipe.hasPostRemaining());
+		pipe.pump();
+		assertFalse(pipe.hasPostRemaining());
+		assertEquals("replayed nodes", 2, copy.getNodeCount());
+		assertNotNull("replayed edge", copy.getEdge("Edge12"));
+		// the replay constructors make room for the replay, posted before
+		// anything can pump
+		RingProxyPipe replaying = new RingProxyPipe(sg, true);
+		assertEquals("replay not posted", 3, replaying.getPendingEvents());
+		assertTrue("no room made", replaying.getCapacity() >= RingProxyPipe.DEFAULT_CAPACITY + 3);
+		replaying.unregisterFromSource();
+		try {
+			new RingProxyPipe(RingProxyPipe.MAX_CAPACITY + 1, RingProxyPipe.WaitStrategy.BLOCK);
+			fail("ring over the maximum capacity");
+		} catch (IllegalArgumentException e) {
+		}
+
+		// a producer thread fills the ring and stalls before the consumer
+		// starts, which then gets every event in order
+		final int count = 10000;
+		final int[] seen = { 0, 0 };
+		pipe.addSink(new SinkAdapter() {
+			public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute,
+					Object oldValue, Object newValue) {
+				if (((Integer) newValue).intValue() != seen[0] + 1)
+					seen[1]++;
+				seen[0] = (Integer) newValue;
+			}
+		});
+		sg.getNode("Node1").addAttribute("n", 0);
+		Thread producer = new Thread(() -> {
+			for (int i = 1; i <= count; i++)
+				sg.getNode("Node1").changeAttribute("n", i);
+		});
+		producer.start();
+		while (pipe.getStallCount() == 0)
+			Thread.sleep(1);
+		assertEquals("ring not full", pipe.getCapacity(), pipe.getPendingEvents() - 1);
+		while (producer.isAlive() || pipe.hasPostRemaining())
+			pipe.blockingPump(10);
+		producer.join();
+		assertEquals("events lost", count, seen[0]);
+		assertEquals("events out of order", 0, seen[1]);
+		assertEquals(count, ((Integer) copy.getNode("Node1").getAttribute("n")).intValue());
+		assertTrue("no batching", pipe.getBatchCount() < pipe.getDeliveredCount());
+
+		// drainTo bypasses the pipe's sinks
+		sg.addNode("Node3");
+		sg.addNode("Node4");
+		Graph other = new SingleGraph("Other");
+		assertEquals("partial drain", 1, pipe.drainTo(other, 1));
+		assertNotNull("drained event", other.getNode("Node3"));
+		assertNull("drained event also sent to the pipe's sinks", copy.getNode("Node3"));
+		pipe.pump();
+		assertNotNull("rest of the batch", copy.getNode("Node4"));
+		pipe.unregisterFromSource();
+		sg.addNode("Node5");
+		assertFalse("still listening", pipe.hasPostRemaining());
+	}
+}
@@ -0,0 +1,494 @@
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.ElementNotFoundException;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.IdAlreadyInUseException;
+import org.graphstream.graph.Node;
+import org.junit.Test;
+
+// the SingleGraph_TSL_Tests scenarios at scale: strictness and auto-creation,
+// attribute types, every removal variant and iterator mutation, on generated
+// graphs of 10 to tsl.maxSize nodes (10000 by default, 1000000 for a full
+// run), for every implementation the other test classes cover. Cases run
+// in parallel on tsl.threads threads, check the index invariants as they go
+// and print their time and allocation; a case whose cost per element grows
+// faster than the square root of its size fails as superlinear.
+public class ScaledGraph_TSL_Tests {
+
+	static final int MAX_SIZE = Integer.getInteger("tsl.maxSize", 10000);
+	static final int THREADS = Integer.getInteger("tsl.threads", Runtime.getRuntime().availableProcessors());
+	static final int[] SIZES = { 10, 1000, 10000, 100000, 1000000 };
+	static final String[] GENERATORS = { "ring", "random", "hub" };
+	static final long SEED = 867L;
+
+	// the implementations, as made by their test classes
+	protected List<SingleGraph_TSL_Tests> fixtures() {
+		return Arrays.asList(new SingleGraph_TSL_Tests(), new CompactGraph_TSL_Tests(),
+				new BatchSingleGraph_TSL_Tests(), new ConcurrentGraph_TSL_Tests(), new MeteredGraph_TSL_Tests(),
+				new ArenaSingleGraph_TSL_Tests());
+	}
+
+	// a generated graph: n nodes and the endpoints of each edge, at most one
+	// edge between two nodes in either direction, a few loops
+	static class Shape {
+		final String generator;
+		final int nodes;
+		int edges;
+		int[] from, to;
+		boolean[] directed;
+
+		Shape(String generator, int nodes) {
+			this.generator = generator;
+			this.nodes = nodes;
+			from = new int[nodes * 2];
+			to = new int[nodes * 2];
+			directed = new boolean[nodes * 2];
+		}
+
+		private Set<Long> pairs = new HashSet<Long>();
+
+		boolean add(int u, int v, boolean d) {
+			long key = (long) Math.min(u, v) * nodes + Math.max(u, v);
+			if (!pairs.add(key))
+				return false;
+			if (edges == from.length) {
+				from = Arrays.copyOf(from, edges * 2);
+				to = Arrays.copyOf(to, edges * 2);
+				directed = Arrays.copyOf(directed, edges * 2);
+			}
+			from[edges] = u;
+			to[edges] = v;
+			directed[edges++] = d;
+			return true;
+		}
+	}
+
+	private static final Map<String, Shape> shapes = new ConcurrentHashMap<String, Shape>();
+
+	static Shape shape(String generator, int n) {
+		return shapes.computeIfAbsent(generator + n, k -> generate(generator, n));
+	}
+
+	static Shape generate(String generator, int n) {
+		Shape s = new Shape(generator, n);
+		Random rnd = new Random(SEED + n);
+		if (generator.equals("ring")) {
+			// ring with chords, every degree about 4
+			for (int i = 0; i < n; i++) {
+				s.add(i, (i + 1) % n, rnd.nextBoolean());
+				s.add(i, (int) ((i * 7919L + 13) % n), rnd.nextBoolean());
+			}
+		} else if (generator.equals("random")) {
+			// uniform pairs, twice as many edges as nodes
+			for (int i = 0; i < 2 * n; i++)
+				s.add(rnd.nextInt(n), rnd.nextInt(n), rnd.nextBoolean());
+		} else {
+			// preferential attachment, hubs of degree near sqrt(n)
+			int[] ends = new int[4 * n + 2];
+			int count = 0;
+			ends[count++] = 0;
+			for (int i = 1; i < n; i++)
+				for (int k = 0; k < 2; k++) {
+					int v = ends[rnd.nextInt(count)];
+					if (s.add(i, v, rnd.nextBoolean())) {
+						ends[count++] = i;
+						ends[count++] = v;
+					}
+				}
+		}
+		for (int i = 0; i < n; i += 1000)
+			s.add(i, i, false);
+		s.pairs = null;
+		return s;
+	}
+
+	// one scenario on one implementation, generator, size and setting
+	static class Case {
+		final String scenario, implementation;
+		final SingleGraph_TSL_Tests fixture;
+		final Shape shape;
+		final boolean strict, autoCreate;
+		final Random random;
+		long wallNanos, cpuNanos, allocated;
+		Throwable failure;
+
+		Case(String scenario, SingleGraph_TSL_Tests fixture, String implementation, Shape shape, boolean strict,
+				boolean autoCreate) {
+			this.scenario = scenario;
+			this.fixture = fixture;
+			this.implementation = implementation;
+			this.shape = shape;
+			this.strict = strict;
+			this.autoCreate = autoCreate;
+			random = new Random(SEED ^ shape.nodes);
+		}
+
+		Graph graph() {
+			return fixture.makeSingleGraph(scenario + shape.nodes, strict, autoCreate);
+		}
+
+		// the group a case is compared within when checking growth
+		String group() {
+			return scenario + " " + implementation + " " + shape.generator + (strict ? " strict" : "")
+					+ (autoCreate ? " auto" : "");
+		}
+
+		int elements() {
+			return shape.nodes + shape.edges;
+		}
+
+		@Override
+		public String toString() {
+			return group() + " n=" + shape.nodes;
+		}
+	}
+
+	interface Scenario {
+		void run(Case c) throws Exception;
+	}
+
+	// running and reporting
+
+	private void runAll(String scenario, boolean allSettings, Scenario body) throws Exception {
+		List<Case> cases = new ArrayList<Case>();
+		for (SingleGraph_TSL_Tests fixture : fixtures()) {
+			// named after the fixture, two of them build a SingleGraph
+			String implementation = fixture.getClass().getSimpleName().replace("_TSL_Tests", "");
+			for (String generator : GENERATORS)
+				for (int n : SIZES) {
+					if (n > MAX_SIZE)
+						continue;
+					for (int setting = 0; setting < (allSettings ? 4 : 1); setting++)
+						cases.add(new Case(scenario, fixture, implementation, shape(generator, n),
+								allSettings ? (setting & 1) != 0 : true, allSettings ? (setting & 2) != 0 : false));
+				}
+		}
+		// smallest first, so the code is compiled before the large cases are
+		// timed against the small ones
+		Collections.sort(cases, (a, b) -> a.shape.nodes - b.shape.nodes);
+
+		final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> done = new ArrayList<Future<?>>();
+		for (final Case c : cases)
+			done.add(pool.submit(() -> {
+				long id = Thread.currentThread().getId();
+				long bytes = allocatedBytes(threads, id);
+				long cpu = threads.getCurrentThreadCpuTime();
+				long wall = System.nanoTime();
+				try {
+					body.run(c);
+				} catch (Throwable t) {
+					c.failure = t;
+				}
+				c.wallNanos = System.nanoTime() - wall;
+				c.cpuNanos = threads.getCurrentThreadCpuTime() - cpu;
+				c.allocated = allocatedBytes(threads, id) - bytes;
+			}));
+		for (Future<?> f : done)
+			f.get();
+		pool.shutdown();
+
+		List<String> failures = new ArrayList<String>();
+		Map<String, Case> baseline = new HashMap<String, Case>();
+		for (Case c : cases) {
+			System.out.printf("%-60s %9.1f ms %9.1f MB%s%n", c, c.wallNanos / 1e6, c.allocated / 1e6,
+					c.failure == null ? "" : "  FAILED");
+			if (c.failure != null)
+				failures.add(c + ": " + c.failure);
+			if (c.shape.nodes == 1000)
+				baseline.put(c.group(), c);
+		}
+		for (Case c : cases) {
+			Case base = baseline.get(c.group());
+			if (base == null || c.shape.nodes <= base.shape.nodes || c.failure != null)
+				continue;
+			double growth = ((double) c.cpuNanos / c.elements()) / ((double) base.cpuNanos / base.elements());
+			if (growth > Math.max(4, Math.sqrt((double) c.shape.nodes / base.shape.nodes)))
+				failures.add(c + ": superlinear, " + String.format("%.0f", growth)
+						+ "x the cost per element at n=1000");
+		}
+		if (!failures.isEmpty())
+			fail(failures.size() + " of " + cases.size() + " cases failed:\n" + String.join("\n", failures));
+	}
+
+	private static long allocatedBytes(ThreadMXBean threads, long id) {
+		if (threads instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(id);
+		return 0;
+	}
+
+	// invariants
+
+	// indices dense and matching ids, edges listed by both endpoints, the
+	// degree sum matching the edge count (a loop counts once)
+	static void checkInvariants(Graph g) {
+		int n = g.getNodeCount(), m = g.getEdgeCount();
+		long degrees = 0;
+		for (int i = 0; i < n; i++) {
+			Node u = g.getNode(i);
+			assertEquals("node index", i, u.getIndex());
+			assertEquals("node by id", i, g.getNode(u.getId()).getIndex());
+			degrees += u.getDegree();
+		}
+		int loops = 0;
+		for (int i = 0; i < m; i++) {
+			Edge e = g.getEdge(i);
+			assertEquals("edge index", i, e.getIndex());
+			assertEquals("edge by id", i, g.getEdge(e.getId()).getIndex());
+			Node a = e.getNode0(), b = e.getNode1();
+			assertEquals("dangling edge " + e.getId(), a.getIndex(), g.getNode(a.getId()).getIndex());
+			assertEquals("dangling edge " + e.getId(), b.getIndex(), g.getNode(b.getId()).getIndex());
+			// getEdgeBetween misses directed edges from the target's side in
+			// SingleGraph, toward and from do not
+			assertEquals("edge not listed by " + a.getId(), e.getId(), a.getEdgeToward(b).getId());
+			assertEquals("edge not listed by " + b.getId(), e.getId(), b.getEdgeFrom(a).getId());
+			if (e.isLoop())
+				loops++;
+		}
+		assertEquals("degree sum", 2L * m - loops, degrees);
+		int count = 0;
+		for (Iterator<Node> it = g.getNodeIterator(); it.hasNext(); it.next())
+			count++;
+		assertEquals("node iterator", n, count);
+		count = 0;
+		for (Iterator<Edge> it = g.getEdgeIterator(); it.hasNext(); it.next())
+			count++;
+		assertEquals("edge iterator", m, count);
+	}
+
+	// a strict graph refuses edges to missing nodes even with auto-creation
+	static boolean createsNodes(Case c) {
+		return c.autoCreate && !c.strict;
+	}
+
+	static Graph build(Case c) {
+		Graph g = c.graph();
+		Shape s = c.shape;
+		if (!createsNodes(c))
+			for (int i = 0; i < s.nodes; i++)
+				g.addNode("Node" + i);
+		for (int k = 0; k < s.edges; k++)
+			g.addEdge("Edge" + k, "Node" + s.from[k], "Node" + s.to[k], s.directed[k]);
+		if (createsNodes(c))
+			for (int i = 0; i < s.nodes; i++)
+				if (g.getNode("Node" + i) == null)
+					g.addNode("Node" + i);
+		assertEquals("nodes", s.nodes, g.getNodeCount());
+		assertEquals("edges", s.edges, g.getEdgeCount());
+		return g;
+	}
+
+	// scenarios
+
+	@Test
+	public void StrictAndAutoCreateAtScale() throws Exception {
+		runAll("strictness", true, c -> {
+			Graph g = build(c);
+			checkInvariants(g);
+			int n = g.getNodeCount(), m = g.getEdgeCount();
+			int probes = Math.max(1, n / 100);
+			for (int i = 0; i < probes; i++) {
+				String id = "Node" + c.random.nextInt(n);
+				try {
+					g.addNode(id);
+					assertFalse("duplicate node accepted by a strict graph", c.strict);
+				} catch (IdAlreadyInUseException e) {
+					assertTrue("duplicate node rejected by a loose graph", c.strict);
+				}
+				try {
+					assertNull("missing node removed", g.removeNode("Missing" + i));
+					assertFalse("missing node ignored by a strict graph", c.strict);
+				} catch (ElementNotFoundException e) {
+					assertTrue("missing node rejected by a loose graph", c.strict);
+				}
+			}
+			// an edge to a node that does not exist is refused unless nodes are
+			// created on demand
+			try {
+				g.addEdge("Dangling", "Node0", "Missing");
+				assertFalse("edge to nowhere accepted by a strict graph", c.strict);
+				assertEquals("edge to nowhere", createsNodes(c), g.getEdge("Dangling") != null);
+			} catch (ElementNotFoundException e) {
+				assertTrue("edge to nowhere rejected by a loose graph", c.strict);
+			}
+			int created = g.getNode("Missing") == null ? 0 : 1;
+			assertEquals("nodes", n + created, g.getNodeCount());
+			assertEquals("edges", m + created, g.getEdgeCount());
+			checkInvariants(g);
+		});
+	}
+
+	@Test
+	public void AttributeTypesAtScale() throws Exception {
+		runAll("attributes", false, c -> {
+			Graph g = build(c);
+			for (Node u : g.getEachNode()) {
+				int i = u.getIndex();
+				u.addAttribute("label", "n" + i);
+				u.addAttribute("count", i);
+				u.addAttribute("weight", i * 0.5);
+				u.addAttribute("pair", i, "x");
+				u.addAttribute("flag");
+			}
+			for (Edge e : g.getEachEdge()) {
+				e.addAttribute("cost", (double) e.getIndex());
+				e.addAttribute("label", e.getId());
+			}
+			// change half, remove a third
+			for (Node u : g.getEachNode()) {
+				int i = u.getIndex();
+				if (i % 2 == 0)
+					u.changeAttribute("weight", -i * 0.5);
+				if (i % 3 == 0)
+					u.removeAttribute("label");
+			}
+			for (Edge e : g.getEachEdge())
+				if (e.getIndex() % 2 == 1)
+					e.removeAttribute("cost");
+			for (Node u : g.getEachNode()) {
+				int i = u.getIndex();
+				assertEquals(u.getId() + " count", i, ((Integer) u.getAttribute("count")).intValue());
+				assertEquals(u.getId() + " weight", i % 2 == 0 ? -i * 0.5 : i * 0.5, u.getNumber("weight"), 0);
+				assertEquals(u.getId() + " label", i % 3 != 0, u.hasLabel("label"));
+				if (i % 3 != 0)
+					assertEquals("n" + i, u.getLabel("label").toString());
+				assertTrue(u.getId() + " pair", Arrays.equals(new Object[] { i, "x" }, u.getArray("pair")));
+				assertEquals(Boolean.TRUE, u.getAttribute("flag"));
+				assertEquals(u.getId() + " keys", i % 3 == 0 ? 4 : 5, u.getAttributeCount());
+			}
+			for (Edge e : g.getEachEdge()) {
+				assertEquals(e.getId() + " cost", e.getIndex() % 2 == 0, e.hasNumber("cost"));
+				assertEquals(e.getId(), e.getAttribute("label"));
+			}
+			checkInvariants(g);
+		});
+	}
+
+	@Test
+	public void RemovalVariantsAtScale() throws Exception {
+		runAll("removal", false, c -> {
+			Graph g = build(c);
+			int nodes = g.getNodeCount(), edges = g.getEdgeCount();
+			int stop = nodes / 3, every = Math.max(1, nodes / 10), ops = 0;
+			while (g.getNodeCount() > stop && g.getNodeCount() > 1) {
+				int variant = c.random.nextInt(9);
+				if (variant < 6 && g.getEdgeCount() > 0) {
+					Edge e = g.getEdge(c.random.nextInt(g.getEdgeCount()));
+					String id = e.getId();
+					Node from = e.getSourceNode(), to = e.getTargetNode();
+					switch (variant) {
+					case 0:
+						g.removeEdge(id);
+						break;
+					case 1:
+						g.removeEdge(e.getIndex());
+						break;
+					case 2:
+						g.removeEdge(e);
+						break;
+					case 3:
+						g.removeEdge(from.getId(), to.getId());
+						break;
+					case 4:
+						g.removeEdge(from.getIndex(), to.getIndex());
+						break;
+					default:
+						g.removeEdge(from, to);
+					}
+					assertNull("edge " + id + " still there after variant " + variant, g.getEdge(id));
+					edges--;
+				} else {
+					Node u = g.getNode(c.random.nextInt(g.getNodeCount()));
+					String id = u.getId();
+					edges -= u.getDegree();
+					if (variant % 3 == 0)
+						g.removeNode(id);
+					else if (variant % 3 == 1)
+						g.removeNode(u.getIndex());
+					else
+						g.removeNode(u);
+					assertNull("node " + id + " still there", g.getNode(id));
+					nodes--;
+				}
+				assertEquals("nodes", nodes, g.getNodeCount());
+				assertEquals("edges", edges, g.getEdgeCount());
+				if (++ops % every == 0)
+					checkInvariants(g);
+			}
+			checkInvariants(g);
+		});
+	}
+
+	@Test
+	public void IteratorMutationAtScale() throws Exception {
+		runAll("iterators", false, c -> {
+			Graph g = build(c);
+			// as in TestCase38, on every element
+			String key = "attrib_key";
+			for (Iterator<Node> it = g.getNodeIterator(); it.hasNext();) {
+				Node node = it.next();
+				node.addAttribute(key, "node_attrib_value");
+				assertTrue("attr label not found", node.hasLabel(key));
+				node.changeAttribute(key, "node_chgd_value");
+				if (node.getIndex() % 2 == 0)
+					node.clearAttributes();
+			}
+			for (Iterator<Edge> it = g.getEdgeIterator(); it.hasNext();) {
+				Edge edge = it.next();
+				edge.addAttribute(key, "edge_attrib_value");
+				assertTrue("attr label not found", edge.hasLabel(key));
+				edge.changeAttribute(key, "edge_chgd_value");
+			}
+			// removal through the iterators visits every element once
+			int edges = g.getEdgeCount(), removed = 0;
+			Set<String> seen = new HashSet<String>();
+			for (Iterator<Edge> it = g.getEdgeIterator(); it.hasNext();) {
+				Edge edge = it.next();
+				assertTrue("edge visited twice", seen.add(edge.getId()));
+				assertEquals("edge_chgd_value", edge.getAttribute(key));
+				if (c.random.nextInt(3) == 0) {
+					it.remove();
+					removed++;
+				}
+			}
+			assertEquals("edges visited", edges, seen.size());
+			assertEquals("edges", edges - removed, g.getEdgeCount());
+			int nodes = g.getNodeCount();
+			edges = g.getEdgeCount();
+			seen.clear();
+			removed = 0;
+			for (Iterator<Node> it = g.getNodeIterator(); it.hasNext();) {
+				Node node = it.next();
+				assertTrue("node visited twice", seen.add(node.getId()));
+				if (c.random.nextInt(4) == 0) {
+					edges -= node.getDegree();
+					it.remove();
+					removed++;
+				}
+			}
+			assertEquals("nodes visited", nodes, seen.size());
+			assertEquals("nodes", nodes - removed, g.getNodeCount());
+			assertEquals("edges", edges, g.getEdgeCount());
+			checkInvariants(g);
+		});
+	}
+}
@@ -0,0 +1,323 @@
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.graphstream.graph.BreadthFirstIterator;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.ElementNotFoundException;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.IdAlreadyInUseException;
+import org.graphstream.graph.Node;
+import org.junit.After;
+import org.junit.Test;
+
+import csce867.graph.CompactGraph;
+import csce867.graph.ShardWorker;
+import csce867.graph.ShardedGraph;
+
+// runs every SingleGraph test case against a ShardedGraph of three
+// partitions served from this JVM, then model checks worker processes
+// against CompactGraph
+public class ShardedGraph_TSL_Tests extends SingleGraph_TSL_Tests {
+
+	static final int WORKERS = 3;
+
+	// every graph makeSingleGraph opened, closed after each case
+	private final List<ShardedGraph> opened = new ArrayList<ShardedGraph>();
+
+	@After
+	public void closeGraphs() throws IOException {
+		for (ShardedGraph sg : opened)
+			sg.close();
+		opened.clear();
+	}
+
+	@Override
+	protected Graph makeSingleGraph(String id) {
+		return makeSingleGraph(id, true, false);
+	}
+	@Override
+	protected Graph makeSingleGraph(String id, boolean strict, boolean auto_c) {
+		try {
+			ShardedGraph sg = ShardedGraph.inProcess(id, WORKERS);
+			opened.add(sg);
+			sg.setStrict(strict);
+			sg.setAutoCreate(auto_c);
+			return sg;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// the graph in index order, elements and attributes
+	private static String dump(Graph g) {
+		StringBuilder sb = new StringBuilder(g.getAttributeKeySet() + "\n");
+		for (int i = 0; i < g.getNodeCount(); i++) {
+			Node n = g.getNode(i);
+			sb.append(n.getId()).append(' ').append(n.getDegree()).append(' ').append(n.getOutDegree());
+			for (String key : n.getAttributeKeySet()) {
+				Object value = n.getAttribute(key);
+				sb.append(' ').append(key).append('=').append(value);
+			}
+			sb.append('\n');
+		}
+		for (int i = 0; i < g.getEdgeCount(); i++) {
+			Edge e = g.getEdge(i);
+			sb.append(e.getId()).append(' ').append(e.getSourceNode().getId()).append(e.isDirected() ? ">" : "-")
+					.append(e.getTargetNode().getId());
+			for (String key : e.getAttributeKeySet()) {
+				Object value = e.getAttribute(key);
+				sb.append(' ').append(key).append('=').append(value);
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void ShardedModelCheck() throws IOException {
+		// random operations on worker processes and on a CompactGraph, whose
+		// semantics it has, which must agree on every answer, index included
+		CompactGraph model = new CompactGraph("Model", false, true);
+		ShardedGraph sg = ShardedGraph.launch("Model", WORKERS);
+		try {
+			sg.setStrict(false);
+			sg.setAutoCreate(true);
+			Random rnd = new Random(867);
+			int n = 60;
+			for (int step = 0; step < 3000; step++) {
+				String u = "Node" + rnd.nextInt(n), v = "Node" + rnd.nextInt(n), e = "Edge" + rnd.nextInt(4 * n);
+				switch (rnd.nextInt(8)) {
+				case 0:
+					model.addNode(u);
+					sg.addNode(u);
+					break;
+				case 1:
+				case 2:
+					boolean directed = rnd.nextBoolean();
+					assertEquals("addEdge " + e, model.addEdge(e, u, v, directed) == null,
+							sg.addEdge(e, u, v, directed) == null);
+					break;
+				case 3:
+					assertEquals("removeEdge " + e, model.removeEdge(e) == null, sg.removeEdge(e) == null);
+					break;
+				case 4:
+					assertEquals("removeEdge " + u + " " + v, model.removeEdge(u, v) == null,
+							sg.removeEdge(u, v) == null);
+					break;
+				case 5:
+					if (rnd.nextInt(4) == 0)
+						assertEquals("removeNode " + u, model.removeNode(u) == null, sg.removeNode(u) == null);
+					break;
+				case 6:
+					if (model.getNode(u) != null) {
+						int value = rnd.nextInt(100);
+						model.getNode(u).addAttribute("a", value);
+						sg.getNode(u).addAttribute("a", value);
+					}
+					break;
+				default:
+					if (model.getEdge(e) != null) {
+						Object expected = model.getEdge(e).getAttribute("w"), actual = sg.getEdge(e).getAttribute("w");
+						assertEquals("old weight", expected, actual);
+						model.getEdge(e).removeAttribute("w");
+						sg.getEdge(e).removeAttribute("w");
+						model.getEdge(e).addAttribute("w", (double) step);
+						sg.getEdge(e).addAttribute("w", (double) step);
+					}
+				}
+				if (step % 500 == 0)
+					assertEquals("graphs differ at step " + step, dump(model), dump(sg));
+			}
+			assertEquals(dump(model), dump(sg));
+			for (Node node : model) {
+				Node other = sg.getNode(node.getId());
+				assertEquals(node.getIndex(), other.getIndex());
+				for (Node m : model)
+					assertEquals(node.hasEdgeBetween(m), other.hasEdgeBetween(m.getId()));
+			}
+			sg.clear();
+			assertEquals(0, sg.getNodeCount());
+			assertFalse(sg.getNodeIterator().hasNext());
+		} finally {
+			sg.close();
+		}
+	}
+
+	@Test
+	public void BreadthFirstLevelsMatchIterator() {
+		ShardedGraph sg = (ShardedGraph) makeSingleGraph("Levels");
+		Random rnd = new Random(5);
+		int n = 300;
+		for (int i = 0; i < n; i++)
+			sg.addNode("Node" + i);
+		for (int i = 0; i < 2 * n; i++) {
+			int a = rnd.nextInt(n), b = rnd.nextInt(n);
+			if (!sg.getNode("Node" + a).hasEdgeBetween("Node" + b))
+				sg.addEdge("Edge" + i, "Node" + a, "Node" + b, i % 2 == 0);
+		}
+		for (boolean directed : new boolean[] { true, false }) {
+			for (int s = 0; s < 5; s++) {
+				Node source = sg.getNode("Node" + rnd.nextInt(n));
+				List<Integer> expected = new ArrayList<Integer>();
+				for (BreadthFirstIterator<Node> it = new BreadthFirstIterator<Node>(source, directed); it
+						.hasNext();) {
+					int depth = it.getDepthOf(it.next());
+					while (expected.size() <= depth)
+						expected.add(0);
+					expected.set(depth, expected.get(depth) + 1);
+				}
+				int[] levels = sg.breadthFirstLevels(source.getId(), directed);
+				assertEquals("depth", expected.size(), levels.length);
+				for (int d = 0; d < levels.length; d++)
+					assertEquals("level " + d, (int) expected.get(d), levels[d]);
+				int[] capped = sg.breadthFirstLevels(source.getId(), directed, 1);
+				assertTrue(capped.length <= 2);
+				for (int d = 0; d < capped.length; d++)
+					assertEquals(levels[d], capped[d]);
+			}
+		}
+		assertEquals("missing source", 0, sg.breadthFirstLevels("Nope", false).length);
+	}
+
+	@Test
+	public void BulkAdditionsAndAttributes() {
+		ShardedGraph sg = (ShardedGraph) makeSingleGraph("Bulk");
+		String[] nodes = new String[50];
+		for (int i = 0; i < nodes.length; i++)
+			nodes[i] = "Node" + i;
+		sg.addNodes(nodes);
+		for (int i = 0; i < nodes.length; i++)
+			assertEquals("index in call order", i, sg.getNode(nodes[i]).getIndex());
+		try {
+			sg.addNodes("Node50", "Node3");
+			fail("duplicate accepted");
+		} catch (IdAlreadyInUseException e) {
+		}
+		assertEquals("other nodes added", 51, sg.getNodeCount());
+
+		String[] ids = new String[100], from = new String[100], to = new String[100];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = "Edge" + i;
+			from[i] = "Node" + i / 2;
+			to[i] = "Node" + (i / 2 + 1 + i % 2) % 51;
+		}
+		// Edge51 repeats the pair of Edge0 reversed: the whole batch is refused
+		from[51] = "Node1";
+		to[51] = "Node0";
+		try {
+			sg.addEdges(ids, from, to, false);
+			fail("parallel edge accepted");
+		} catch (RuntimeException e) {
+		}
+		assertEquals("strict batch added edges", 0, sg.getEdgeCount());
+		sg.setStrict(false);
+		sg.setAutoCreate(true);
+		to[99] = "Fresh";
+		assertEquals("skipped edge counted", 99, sg.addEdges(ids, from, to, false));
+		assertNull(sg.getEdge("Edge51"));
+		assertNotNull(sg.getNode("Fresh"));
+		assertEquals(51, sg.getNode("Fresh").getIndex());
+		for (int i = 0; i < 99; i++) {
+			if (i == 51)
+				continue;
+			Edge e = sg.getEdge(ids[i]);
+			assertEquals(from[i], e.getSourceNode().getId());
+			assertEquals(to[i], e.getTargetNode().getId());
+		}
+
+		Object[] values = new Object[nodes.length];
+		for (int i = 0; i < values.length; i++)
+			values[i] = i * 0.5;
+		sg.setNodeAttributes("rank", nodes, values);
+		assertEquals(12.5, sg.getNode("Node25").getNumber("rank"), 0.0);
+		assertEquals(Arrays.asList(values), Arrays.asList(sg.getNodeAttributes("rank", nodes)));
+		assertNull(sg.getNodeAttributes("rank", "Fresh")[0]);
+		sg.setEdgeAttributes("weight", new String[] { "Edge0", "Edge1" }, new Object[] { 1, 2 });
+		assertEquals(Arrays.asList(1, 2, null),
+				Arrays.asList(sg.getEdgeAttributes("weight", "Edge0", "Edge1", "Edge2")));
+		try {
+			sg.setNodeAttributes("rank", new String[] { "Node0", "Nope" }, new Object[] { -1.0, -2.0 });
+			fail("missing node accepted");
+		} catch (ElementNotFoundException | IllegalStateException e) {
+		}
+		assertEquals("value set before the failure", -1.0, sg.getNode("Node0").getNumber("rank"), 0.0);
+		try {
+			sg.getNode("Node0").addAttribute("lock", new Object());
+			fail("non serializable value accepted");
+		} catch (IllegalArgumentException e) {
+		}
+
+		// the iterators fetch in chunks across partitions
+		Iterator<Node> it = sg.getNodeIterator();
+		for (int i = 0; i < sg.getNodeCount(); i++)
+			assertEquals(sg.getNode(i), it.next());
+		assertFalse(it.hasNext());
+	}
+
+	@Test
+	public void WorkersServeTheTokenHolderOnly() throws IOException {
+		byte[] token = ShardWorker.newToken();
+		ShardWorker worker = new ShardWorker(token);
+		Thread thread = new Thread(worker, "shard-token");
+		thread.setDaemon(true);
+		thread.start();
+		InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), worker.getPort());
+		// a wrong token is hung up on before anything is read as an object
+		try (Socket socket = new Socket(address.getAddress(), address.getPort())) {
+			socket.getOutputStream().write(new byte[ShardWorker.TOKEN_LENGTH]);
+			socket.setSoTimeout(10000);
+			InputStream in = socket.getInputStream();
+			assertEquals("wrong token served", -1, in.read());
+		}
+		try {
+			new ShardedGraph("Other", true, false, ShardWorker.newToken(), address);
+			fail("coordinator with another token served");
+		} catch (IOException | IllegalStateException e) {
+		}
+		// the worker then waits for the holder of the token
+		ShardedGraph sg = new ShardedGraph("Token", true, false, token, address);
+		opened.add(sg);
+		sg.addNode("Node1");
+		assertEquals(1, sg.getNodeCount());
+	}
+
+	@Test
+	public void AttributeValuesOfAllowedClassesOnly() {
+		ShardedGraph sg = (ShardedGraph) makeSingleGraph("Classes");
+		Node n = sg.addNode("Node1");
+		n.addAttribute("list", new ArrayList<Object>(Arrays.asList("a", 1, 2.5, new int[] { 3 })));
+		n.addAttribute("xyz", 1.0, 2.0, 3.0);
+		assertEquals(Arrays.asList("a", 1, 2.5), ((List<?>) n.getAttribute("list")).subList(0, 3));
+		assertEquals(3, ((Object[]) n.getAttribute("xyz")).length);
+		try {
+			n.addAttribute("date", new Date());
+			fail("value of a class the workers refuse accepted");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			n.addAttribute("nested", new ArrayList<Object>(Arrays.asList("a", new Date())));
+			fail("collection holding a refused value accepted");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			sg.setNodeAttributes("date", new String[] { "Node1" }, new Object[] { new Date() });
+			fail("bulk value of a class the workers refuse accepted");
+		} catch (IllegalArgumentException e) {
+		}
+		assertFalse(n.hasAttribute("date"));
+		// the connection survived the refusals
+		assertEquals("Node1", sg.getNode(0).getId());
+	}
+}
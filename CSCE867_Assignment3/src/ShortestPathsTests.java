@@ -0,0 +1,125 @@
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.Path;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Test;
+
+import csce867.graph.CompactGraph;
+import csce867.graph.ShortestPaths;
+
+// ShortestPaths against Bellman-Ford, over a SingleGraph and over the
+// CompactGraph adjacency ShortestPaths reads directly
+public class ShortestPathsTests {
+
+	@Test
+	public void ShortestPathsMatchBellmanFord() {
+		matchBellmanFord(new SingleGraph("Paths", false, true));
+		matchBellmanFord(new CompactGraph("Paths", false, true));
+	}
+
+	private static void matchBellmanFord(Graph sg) {
+		// weights are at least the euclidean distance of the endpoints (missing
+		// ones count as 1, above any distance in the square), so it is a
+		// consistent A* heuristic
+		Random rnd = new Random(867);
+		int n = 400;
+		double[] x = new double[n], y = new double[n];
+		for (int i = 0; i < n; i++) {
+			sg.addNode("Node" + i);
+			x[i] = rnd.nextDouble() * 0.7;
+			y[i] = rnd.nextDouble() * 0.7;
+		}
+		for (int i = 0; i < 4 * n; i++) {
+			int a = rnd.nextInt(n), b = rnd.nextInt(n);
+			Edge e = sg.addEdge("Edge" + i, "Node" + a, "Node" + b, i % 3 == 0);
+			if (e != null && i % 5 != 0)
+				e.addAttribute("weight", Math.hypot(x[a] - x[b], y[a] - y[b]) * (1 + rnd.nextDouble()));
+		}
+		ShortestPaths paths = new ShortestPaths(sg, "weight", new ForkJoinPool(4));
+		for (boolean directed : new boolean[] { true, false }) {
+			int[] sources = new int[8], targets = new int[8];
+			for (int k = 0; k < sources.length; k++) {
+				sources[k] = sg.getNode("Node" + rnd.nextInt(n)).getIndex();
+				targets[k] = sg.getNode("Node" + rnd.nextInt(n)).getIndex();
+			}
+			double[][] batch = paths.distances(sources, directed);
+			double[] pairs = paths.distances(sources, targets, directed);
+			for (int k = 0; k < sources.length; k++) {
+				Node source = sg.getNode(sources[k]), target = sg.getNode(targets[k]);
+				double[] expected = bellmanFord(sg, source, directed);
+				double[] single = paths.distances(source, directed);
+				for (int v = 0; v < n; v++) {
+					assertEquals("single source distance", expected[v], single[v], 1e-9);
+					assertEquals("batch distance", expected[v], batch[k][v], 1e-9);
+				}
+				double d = expected[target.getIndex()];
+				final int t = target.getIndex();
+				assertEquals("bidirectional distance", d, paths.distance(source, target, directed), 1e-9);
+				assertEquals("batch pair distance", d, pairs[k], 1e-9);
+				assertEquals("A* distance", d,
+						paths.distance(source.getIndex(), t, directed, v -> Math.hypot(x[v] - x[t], y[v] - y[t])), 1e-9);
+				assertEquals("A* without heuristic", d, paths.distance(source.getIndex(), t, directed, v -> 0), 1e-9);
+				int[] edges = paths.pathEdges(source.getIndex(), t, directed);
+				if (Double.isInfinite(d)) {
+					assertNull("path to an unreachable node", edges);
+					continue;
+				}
+				Node at = source;
+				double length = 0;
+				for (int i : edges) {
+					Edge e = sg.getEdge(i);
+					assertTrue("edge not incident", e.getSourceNode().getId().equals(at.getId())
+							|| !(directed && e.isDirected()) && e.getTargetNode().getId().equals(at.getId()));
+					length += e.hasNumber("weight") ? e.getNumber("weight") : 1;
+					at = e.getOpposite(at);
+				}
+				assertEquals("path does not reach the target", target.getId(), at.getId());
+				assertEquals("path length", d, length, 1e-9);
+				Path path = paths.path(source, target, directed);
+				assertEquals("path edges", edges.length, path.getEdgeCount());
+				assertEquals("path nodes", edges.length + 1, path.getNodeCount());
+				assertEquals("path end", target, path.peekNode());
+			}
+		}
+		// once warm, point to point queries reuse the thread's workspace
+		com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory
+				.getThreadMXBean();
+		for (int i = 0; i < 2000; i++)
+			paths.distance(i % n, (i * 7) % n, i % 2 == 0);
+		long before = mx.getThreadAllocatedBytes(Thread.currentThread().getId());
+		for (int i = 0; i < 2000; i++)
+			paths.distance(i % n, (i * 7) % n, i % 2 == 0);
+		long allocated = mx.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+		assertTrue("repeated queries allocated " + allocated + " bytes", allocated < 4096);
+	}
+
+	// distances from source by Bellman-Ford over the graph's own edges
+	private static double[] bellmanFord(Graph g, Node source, boolean directed) {
+		double[] dist = new double[g.getNodeCount()];
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		dist[source.getIndex()] = 0;
+		for (boolean changed = true; changed;) {
+			changed = false;
+			for (Edge e : g.getEachEdge()) {
+				double w = e.hasNumber("weight") ? e.getNumber("weight") : 1;
+				int a = e.getSourceNode().getIndex(), b = e.getTargetNode().getIndex();
+				if (dist[a] + w < dist[b]) {
+					dist[b] = dist[a] + w;
+					changed = true;
+				}
+				if ((!directed || !e.isDirected()) && dist[b] + w < dist[a]) {
+					dist[a] = dist[b] + w;
+					changed = true;
+				}
+			}
+		}
+		return dist;
+	}
+}
@@ -9,6 +9,7 @@ import java.util.Iterator;
 
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.ElementNotFoundException;
+import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
 import org.graphstream.graph.NullAttributeException;
 import org.graphstream.graph.implementations.SingleGraph;
@@ -18,12 +19,13 @@ import org.junit.Test;
 public class SingleGraph_TSL_Tests {
 
 	// constructor methods to simplify test cases
-	private SingleGraph makeSingleGraph(String id) {
-		SingleGraph sg = new SingleGraph(id);
+	// (overridden to run the same cases against another Graph implementation)
+	protected Graph makeSingleGraph(String id) {
+		Graph sg = new SingleGraph(id);
 		return sg;
 	}
-	private SingleGraph makeSingleGraph(String id, boolean strict, boolean auto_c) {
-		SingleGraph sg = new SingleGraph(id, strict, auto_c);
+	protected Graph makeSingleGraph(String id, boolean strict, boolean auto_c) {
+		Graph sg = new SingleGraph(id, strict, auto_c);
 		return sg;
 	}
 	// singleton tests
@@ -31,7 +33,7 @@ public class SingleGraph_TSL_Tests {
 	public void StrictByMethodTest() {
 		// test case 1
 		// start with graph set strict = false
-		SingleGraph sg = makeSingleGraph("StrictByMethod", false, false);
+		Graph sg = makeSingleGraph("StrictByMethod", false, false);
 		assertFalse("graph should not have strict set", sg.isStrict());
 		sg.setStrict(true);
 		assertTrue("graph should have strict set", sg.isStrict());
@@ -39,7 +41,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void AutoCreateByMethod() {
 		// test case 2
-		SingleGraph sg = makeSingleGraph("AutoCreateByMethod", false,false);
+		Graph sg = makeSingleGraph("AutoCreateByMethod", false,false);
 		assertFalse("graph should not have auto create set", sg.isAutoCreationEnabled());
 		sg.setAutoCreate(true);
 		assertTrue("graph should have auto create set", sg.isAutoCreationEnabled());
@@ -49,7 +51,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void WriteGraph() {
 		// test case 3
-		SingleGraph sg = makeSingleGraph("WriteGraph");
+		Graph sg = makeSingleGraph("WriteGraph");
 		sg.addNode("Node1");
 		sg.addNode("Node2");
 		sg.addEdge("Edge1", "Node1", "Node2");
@@ -69,7 +71,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void AttributeString() {
 		// test case 4
-		SingleGraph sg = makeSingleGraph("StringAttr");
+		Graph sg = makeSingleGraph("StringAttr");
 		String attrib = "String Attribute Value";
 		String key = "KeyString";
 		sg.addAttribute(key, attrib);
@@ -79,7 +81,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void AttributeDouble() {
 		// test case 5
-		SingleGraph sg = makeSingleGraph("StringAttr");
+		Graph sg = makeSingleGraph("StringAttr");
 		double attrib = 0.23456789;
 		String key = "KeyString";
 		sg.addAttribute(key, attrib);
@@ -90,7 +92,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void AttributeArray() {
 		// test case 6
-		SingleGraph sg = makeSingleGraph("ArrayAttr");
+		Graph sg = makeSingleGraph("ArrayAttr");
 		Object[] array = new Object[2];
 		array[0] = new String("String1");
 		array[1] = new String("String2");
@@ -103,7 +105,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void AttributeHash() {
 		// test case 7
-		SingleGraph sg = makeSingleGraph("HashAttr");
+		Graph sg = makeSingleGraph("HashAttr");
 		HashMap<Integer,String> hm = new HashMap<Integer,String>();
 		hm.put(new Integer(1), "String1");
 		hm.put(new Integer(2), "String2");
@@ -115,7 +117,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void AttributeVector() {
 		// test case 8
-		SingleGraph sg = makeSingleGraph("VectorAttr");
+		Graph sg = makeSingleGraph("VectorAttr");
 		ArrayList<String> vect = new ArrayList<String>();
 		vect.add("String1");
 		vect.add("String");
@@ -127,7 +129,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void LabelGraphEmpty() {
 		// test case 9
-		SingleGraph sg = makeSingleGraph("KeyLabelGraphEmpty");
+		Graph sg = makeSingleGraph("KeyLabelGraphEmpty");
 		String key = "";
 		String value = "KeyValue";
 		try {
@@ -143,7 +145,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void CreateOneEdgeNoNodeStrict() {
 		// test case 10
-		SingleGraph sg = makeSingleGraph("StrictEdgeCreateError");
+		Graph sg = makeSingleGraph("StrictEdgeCreateError");
 		try {
 		    sg.addEdge("ErrorEdge", "Node1", "Node2");
 		    fail("could add edge w/no nodes & strict set");
@@ -157,7 +159,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void CreateEdgeByNodeId() {
 		// test case 11
-		SingleGraph sg = makeSingleGraph("EdgeByNodeId");
+		Graph sg = makeSingleGraph("EdgeByNodeId");
 		Node node1 = sg.addNode("Node1");
 		Node node2 = sg.addNode("Node2");
 		sg.addEdge("Edge1", node1.getId(), node2.getId());
@@ -166,7 +168,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void CreateEdgeByNode() {
 		// test case 12
-		SingleGraph sg = makeSingleGraph("EdgeByNode");
+		Graph sg = makeSingleGraph("EdgeByNode");
 		Node node1 = sg.addNode("Node1");
 		Node node2 = sg.addNode("Node2");
 		sg.addEdge("Edge1", node1, node2);
@@ -175,7 +177,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void CreateEdgeByIdx() {
 		// test case 13
-		SingleGraph sg = makeSingleGraph("EdgeByNodeIdx");
+		Graph sg = makeSingleGraph("EdgeByNodeIdx");
 		Node node1 = sg.addNode("Node1");
 		Node node2 = sg.addNode("Node2");
 		sg.addEdge("Edge1", node1.getIndex(), node2.getIndex());
@@ -187,7 +189,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void CreateEdgeByNodeId_Dir() {
 		// test case 14
-		SingleGraph sg = makeSingleGraph("EdgeByNodeId_Directed");
+		Graph sg = makeSingleGraph("EdgeByNodeId_Directed");
 		Node node1 = sg.addNode("Node1");
 		Node node2 = sg.addNode("Node2");
 		sg.addEdge("Edge1", node1.getId(), node2.getId(), true);
@@ -197,7 +199,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void CreateEdgeByNode_Dir() {
 		// test case 15
-		SingleGraph sg = makeSingleGraph("EdgeByNode_Directed");
+		Graph sg = makeSingleGraph("EdgeByNode_Directed");
 		Node node1 = sg.addNode("Node1");
 		Node node2 = sg.addNode("Node2");
 		sg.addEdge("Edge1", node1, node2, true);
@@ -207,7 +209,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void CreateEdgeByNodeIdx_Dir() {
 		// test case 16
-		SingleGraph sg = makeSingleGraph("EdgeByNodeIdx_Directed");
+		Graph sg = makeSingleGraph("EdgeByNodeIdx_Directed");
 		Node node1 = sg.addNode("Node1");
 		Node node2 = sg.addNode("Node2");
 		sg.addEdge("Edge1", node1.getIndex(), node2.getIndex(), true);
@@ -221,7 +223,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void hasLabel() {
 		// test case 17
-		SingleGraph sg = makeSingleGraph("hasLabel");
+		Graph sg = makeSingleGraph("hasLabel");
 		String key = "KeyString";
 		String value = "KeyValue";
 		sg.addAttribute(key,value);
@@ -230,7 +232,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void hasNumber() {
 		// test case 18
-		SingleGraph sg = makeSingleGraph("hasNumber");
+		Graph sg = makeSingleGraph("hasNumber");
 		String key = "KeyString";
 		double value = 1.2345;
 		sg.addAttribute(key,value);
@@ -239,7 +241,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void hasHash() {
 		// test case 19
-		SingleGraph sg = makeSingleGraph("hasHash");
+		Graph sg = makeSingleGraph("hasHash");
 		String key = "KeyString";
 		HashMap<Integer,String> hm = new HashMap<Integer,String>();
 		hm.put(new Integer(1), "String1");
@@ -250,7 +252,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void hasAttribute() {
 		// test case 20
-		SingleGraph sg = makeSingleGraph("hasAttribute");
+		Graph sg = makeSingleGraph("hasAttribute");
 		String key = "KeyString";
 		String value = "KeyValue";
 		sg.addAttribute(key,value);
@@ -259,7 +261,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void hasVector() {
 		// test case 21
-		SingleGraph sg = makeSingleGraph("hasVector");
+		Graph sg = makeSingleGraph("hasVector");
 		String key = "KeyString";
 		ArrayList<String> value = new ArrayList<String>();
 		value.add("String1");
@@ -270,7 +272,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void hasArray() {
 		// test case 22
-		SingleGraph sg = makeSingleGraph("hasArray");
+		Graph sg = makeSingleGraph("hasArray");
 		Object[] array = new Object[2];
 		array[0] = new String("String1");
 		array[1] = new String("String2");
@@ -281,7 +283,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void getNodeBySet() {
 		// test case 23
-		SingleGraph sg = makeSingleGraph("getNodeBySet");
+		Graph sg = makeSingleGraph("getNodeBySet");
 		sg.addNode("Node1");
 		sg.addNode("Node2");
 		sg.addNode("Node3");
@@ -300,7 +302,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void getEdgesBySet() {
 		// test case 24
-		SingleGraph sg = makeSingleGraph("getEdgesBySet");
+		Graph sg = makeSingleGraph("getEdgesBySet");
 		sg.addNode("Node1");
 		sg.addNode("Node2");
 		sg.addNode("Node3");
@@ -323,7 +325,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void RemoveNodeById() {
 		// test case 25
-		SingleGraph sg = makeSingleGraph("RemoveNodeById");
+		Graph sg = makeSingleGraph("RemoveNodeById");
 		Node node1 = sg.addNode("Node1");
 		sg.removeNode(node1.getId());
 		assertTrue("RemoveNodeById incorrect node count after rmv",sg.getNodeCount() == 0);
@@ -331,7 +333,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void RemoveNodeByIdx() {
 		// test case 26
-		SingleGraph sg = makeSingleGraph("RemoveNodeByIdx");
+		Graph sg = makeSingleGraph("RemoveNodeByIdx");
 		Node node1 = sg.addNode("Node1");
 		sg.removeNode(node1.getIndex());
 		assertTrue("RemoveNodeByIdx incorrect node count after rmv",sg.getNodeCount() == 0);
@@ -339,7 +341,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void RemoveNodeByNode() {
 		// test case 27
-		SingleGraph sg = makeSingleGraph("RemoveNodeByNode");
+		Graph sg = makeSingleGraph("RemoveNodeByNode");
 		Node node1 = sg.addNode("Node1");
 		sg.removeNode(node1);
 		assertTrue("RemoveNodeById incorrect node count after rmv",sg.getNodeCount() == 0);
@@ -347,7 +349,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void RemoveEdgeById() {
 		// test case 28
-		SingleGraph sg = makeSingleGraph("ArrayAttr");
+		Graph sg = makeSingleGraph("ArrayAttr");
 		sg.addNode("Node1");
 		sg.addNode("Node2");
 		sg.addNode("Node3");
@@ -363,7 +365,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void RemoveEdgeByIdx() {
 		// test case 29
-		SingleGraph sg = makeSingleGraph("RemoveEdgeByIdx");
+		Graph sg = makeSingleGraph("RemoveEdgeByIdx");
 		sg.addNode("Node1");
 		sg.addNode("Node2");
 		sg.addNode("Node3");
@@ -379,7 +381,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void RemoveEdgeByEdge() {
 		// test case 30
-		SingleGraph sg = makeSingleGraph("RemoveEdgeByEdge");
+		Graph sg = makeSingleGraph("RemoveEdgeByEdge");
 		sg.addNode("Node1");
 		sg.addNode("Node2");
 		sg.addNode("Node3");
@@ -395,7 +397,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void RemoveEdgeByNodeIds() {
 		// test case 31
-		SingleGraph sg = makeSingleGraph("RemoveEdgeByNodeIds");
+		Graph sg = makeSingleGraph("RemoveEdgeByNodeIds");
 		Node node1 = sg.addNode("Node1");
 		Node node2 = sg.addNode("Node2");
 		sg.addNode("Node3");
@@ -413,7 +415,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void RemoveEdgeByNodes() {
 		// test case 32
-		SingleGraph sg = makeSingleGraph("RemoveEdgeByNodes");
+		Graph sg = makeSingleGraph("RemoveEdgeByNodes");
 		Node node1 = sg.addNode("Node1");
 		Node node2 = sg.addNode("Node2");
 		sg.addNode("Node3");
@@ -431,7 +433,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void RmvGraphAttribute() {
 		// test case 33
-		SingleGraph sg = makeSingleGraph("RmvGraphAttr");
+		Graph sg = makeSingleGraph("RmvGraphAttr");
 		String key = "KeyString";
 		String value = "AttributeValue";
 		sg.addAttribute(key, value);
@@ -442,7 +444,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void ChgGraphAttribute() {
 		// test case 34
-		SingleGraph sg = makeSingleGraph("ChgGraphAttr");
+		Graph sg = makeSingleGraph("ChgGraphAttr");
 		String key = "KeyString";
 		String value = "AttributeValue";
 		String changed_value = "OtherAttributeValue";
@@ -454,7 +456,7 @@ public class SingleGraph_TSL_Tests {
 	@Test
 	public void NullAttrsAreErrors() {
 		// test case 35
-		SingleGraph sg = makeSingleGraph("addNodeAttr");
+		Graph sg = makeSingleGraph("addNodeAttr");
 		String key = "AttrKey";
 		assertFalse("null attrs are errors unexpectedly true on init",sg.nullAttributesAreErrors());
 		sg.setNullAttributesAreErrors(true);
@@ -470,7 +472,7 @@ public class SingleGraph_TSL_Tests {
 	}
 	@Test
 	public void ClearGraph() {
-		SingleGraph sg = makeSingleGraph("ClearGraphTest", true, false);
+		Graph sg = makeSingleGraph("ClearGraphTest", true, false);
 		sg.addNode("Node1");
 		sg.addNode("Node2");
 		sg.addEdge("EdgeDirected1", "Node1", "Node2", true);
@@ -482,7 +484,7 @@ public class SingleGraph_TSL_Tests {
 	}
 	@Test
 	public void DisplayGraph() {
-		SingleGraph sg = makeSingleGraph("ClearGraphTest", true, false);
+		Graph sg = makeSingleGraph("ClearGraphTest", true, false);
 		sg.addNode("Node1");
 		sg.addNode("Node2");
 		sg.addEdge("EdgeDirected1", "Node1", "Node2", true);
@@ -493,7 +495,7 @@ public class SingleGraph_TSL_Tests {
 	}
 	@Test
 	public void TestCase38() {
-		SingleGraph sg = makeSingleGraph("TestCase38", true, false);
+		Graph sg = makeSingleGraph("TestCase38", true, false);
 		sg.addNode("Node1");
 		sg.addNode("Node2");
 		sg.addEdge("EdgeDirected1", "Node1", "Node2", true);
@@ -522,7 +524,7 @@ public class SingleGraph_TSL_Tests {
 	}
 	@Test
 	public void TestCase39() {
-		SingleGraph sg = makeSingleGraph("TestCase39", true, false);
+		Graph sg = makeSingleGraph("TestCase39", true, false);
 		Node node1 = sg.addNode("Node1");
 		sg.addNode("Node2");
 		sg.addEdge("EdgeDirected1", "Node1", "Node2", false);
@@ -546,7 +548,7 @@ public class SingleGraph_TSL_Tests {
 	}
 	@Test
 	public void TestCase40() {
-		SingleGraph sg = makeSingleGraph("TestCase40", false, true);
+		Graph sg = makeSingleGraph("TestCase40", false, true);
 		Node node1 = sg.addNode("Node1");
 		// auto-create-node
 		sg.addEdge("EdgeDirected1", "Node1", "Node2", true);
@@ -570,7 +572,7 @@ public class SingleGraph_TSL_Tests {
 	}
 	@Test
 	public void TestCase41() {
-		SingleGraph sg = makeSingleGraph("TestCase41", false, true);
+		Graph sg = makeSingleGraph("TestCase41", false, true);
 		Node node1 = sg.addNode("Node1");
 		// auto-create-node
 		sg.addEdge("EdgeDirected1", "Node1", "Node2", false);
@@ -594,7 +596,7 @@ public class SingleGraph_TSL_Tests {
 	}
 	@Test
 	public void TestCase42() {
-		SingleGraph sg = makeSingleGraph("TestCase42", false, false);
+		Graph sg = makeSingleGraph("TestCase42", false, false);
 		Node node1 = sg.addNode("Node1");
 		sg.addNode("Node2");
 		sg.addEdge("EdgeDirected1", "Node1", "Node2", true);
@@ -618,7 +620,7 @@ public class SingleGraph_TSL_Tests {
 	}
 	@Test
 	public void TestCase43() {
-		SingleGraph sg = makeSingleGraph("TestCase43", false, false);
+		Graph sg = makeSingleGraph("TestCase43", false, false);
 		Node node1 = sg.addNode("Node1");
 		sg.addNode("Node2");
 		sg.addEdge("EdgeDirected1", "Node1", "Node2", false);
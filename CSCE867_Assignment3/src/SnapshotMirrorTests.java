@@ -0,0 +1,127 @@
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import org.graphstream.graph.BreadthFirstIterator;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.Replayable;
+import org.junit.Test;
+
+import csce867.graph.GraphSnapshot;
+import csce867.graph.SnapshotMirror;
+
+// SnapshotMirror snapshots stay as taken while the graph moves on
+public class SnapshotMirrorTests {
+
+	// every node and edge with its attributes, by index, as a string
+	static String describe(Graph g) {
+		StringBuilder sb = new StringBuilder(g.getAttributeKeySet() + "\n");
+		for (int i = 0; i < g.getNodeCount(); i++) {
+			Node n = g.getNode(i);
+			sb.append(n.getId()).append(' ').append(n.getDegree());
+			for (String key : n.getAttributeKeySet()) {
+				Object value = n.getAttribute(key);
+				sb.append(' ').append(key).append('=').append(value);
+			}
+			sb.append('\n');
+		}
+		for (int i = 0; i < g.getEdgeCount(); i++) {
+			Edge e = g.getEdge(i);
+			sb.append(e.getId()).append(' ').append(e.getSourceNode().getId()).append(e.isDirected() ? ">" : "-")
+					.append(e.getTargetNode().getId());
+			for (String key : e.getAttributeKeySet()) {
+				Object value = e.getAttribute(key);
+				sb.append(' ').append(key).append('=').append(value);
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void SnapshotsStayConsistent() throws InterruptedException {
+		Graph sg = new SingleGraph("Snapshots");
+		for (int i = 0; i < 20; i++)
+			sg.addNode("Node" + i).addAttribute("n", i);
+		for (int i = 0; i < 30; i++)
+			sg.addEdge("Edge" + i, "Node" + (i % 20), "Node" + ((i + 1 + i / 20) % 20), i % 3 == 0)
+					.addAttribute("e", i);
+		sg.addAttribute("title", "before");
+		SnapshotMirror mirror = new SnapshotMirror(sg);
+		GraphSnapshot s1 = mirror.snapshot();
+		String before = describe(sg);
+		assertEquals(before, describe(s1));
+
+		sg.removeNode("Node4");
+		sg.removeEdge("Edge9");
+		sg.addNode("Late");
+		sg.addEdge("Loop", "Late", "Late");
+		sg.getNode("Node1").changeAttribute("n", -1);
+		sg.getEdge("Edge2").removeAttribute("e");
+		sg.changeAttribute("title", "after");
+		assertEquals("snapshot changed with the graph", before, describe(s1));
+		GraphSnapshot s2 = mirror.snapshot();
+		assertEquals(describe(sg), describe(s2));
+		assertNull(s1.getNode("Late"));
+		assertNotNull(s1.getNode("Node4"));
+		assertEquals(-1, ((Integer) s2.getNode("Node1").getAttribute("n")).intValue());
+		assertTrue("loop", s2.getEdge("Loop").isLoop());
+		assertTrue("nothing copied", mirror.getCopyCount() > 0);
+
+		// read-only, but traversable
+		try {
+			s1.addNode("Nope");
+			fail("snapshot accepted a node");
+		} catch (UnsupportedOperationException e) {
+		}
+		try {
+			s1.getNode("Node0").addAttribute("n", 1);
+			fail("snapshot accepted an attribute");
+		} catch (UnsupportedOperationException e) {
+		}
+		int reached = 0;
+		for (Iterator<Node> it = new BreadthFirstIterator<Node>(s1.getNode("Node0"), false); it.hasNext(); it.next())
+			reached++;
+		assertTrue(reached > 1);
+		Graph copy = new SingleGraph("Copy");
+		Replayable.Controller replay = s1.getReplayController();
+		replay.addSink(copy);
+		replay.replay();
+		assertEquals("replayed snapshot", before, describe(copy));
+
+		// readers never see a half-applied change
+		final boolean[] broken = new boolean[1];
+		Thread writer = new Thread(() -> {
+			Random random = new Random(5);
+			for (int i = 0; i < 3000; i++) {
+				Node u = sg.getNode(random.nextInt(sg.getNodeCount()));
+				Node v = sg.getNode(random.nextInt(sg.getNodeCount()));
+				if (random.nextBoolean() && !u.hasEdgeBetween(v) && !v.hasEdgeBetween(u))
+					sg.addEdge("W" + i, u.getId(), v.getId(), random.nextBoolean());
+				else if (sg.getEdgeCount() > 0)
+					sg.removeEdge(sg.getEdge(random.nextInt(sg.getEdgeCount())).getId());
+			}
+		});
+		writer.start();
+		while (writer.isAlive()) {
+			GraphSnapshot s = mirror.snapshot();
+			int degrees = 0, loops = 0;
+			for (Node n : s.getEachNode())
+				degrees += n.getDegree();
+			for (Edge e : s.getEachEdge())
+				if (e.isLoop())
+					loops++;
+			if (degrees != 2 * s.getEdgeCount() - loops)
+				broken[0] = true;
+		}
+		writer.join();
+		assertFalse("inconsistent snapshot", broken[0]);
+		assertEquals(describe(sg), describe(mirror.snapshot()));
+		assertEquals(before, describe(s1));
+		mirror.detach();
+	}
+}
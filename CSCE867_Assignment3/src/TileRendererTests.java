@@ -0,0 +1,57 @@
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Test;
+
+import csce867.graph.TileRenderer;
+
+// TileRenderer frames, painted headless from the graph's events
+public class TileRendererTests {
+
+	@Test
+	public void DisplayGraphHeadless() {
+		Graph sg = new SingleGraph("Headless");
+		sg.addNode("Node1").addAttribute("xy", 10, 10);
+		sg.addNode("Node2").addAttribute("xy", 90, 90);
+		sg.addNode("Node3").addAttribute("xy", 90, 10);
+		sg.addEdge("Edge12", "Node1", "Node2");
+		TileRenderer renderer = new TileRenderer(sg, 256, 256, 64, new ForkJoinPool(4));
+		renderer.setViewport(0, 0, 100, 100);
+		assertEquals("first frame paints every tile", 16, renderer.renderFrame());
+		BufferedImage image = renderer.getImage();
+		int black = 0xff000000, white = 0xffffffff;
+		// (x, y) lands on pixel (2.56 x, 2.56 (100 - y))
+		assertEquals("node not drawn", black, image.getRGB(25, 230));
+		assertEquals("node not drawn", black, image.getRGB(230, 230));
+		assertEquals("background", white, image.getRGB(25, 25));
+		assertEquals("idle frame repaints", 0, renderer.renderFrame());
+
+		// many moves of one node are one change, repainting a few tiles
+		for (int i = 0; i < 100; i++)
+			sg.getNode("Node3").setAttribute("xy", 90 - i * 0.1, 10 + i * 0.1);
+		assertEquals("changes not coalesced", 1, renderer.getQueueDepth());
+		int tiles = renderer.renderFrame();
+		assertTrue("move repainted " + tiles + " tiles", tiles > 0 && tiles <= 4);
+		assertEquals("old position not erased", white, image.getRGB(230, 230));
+		assertEquals("new position not drawn", black, image.getRGB(205, 205));
+
+		sg.getNode("Node1").setAttribute("ui.color", "#ff0000");
+		renderer.renderFrame();
+		assertEquals("colour not applied", 0xffff0000, image.getRGB(25, 230));
+		sg.removeNode("Node1");
+		renderer.renderFrame();
+		assertEquals("removed node still drawn", white, image.getRGB(25, 230));
+		assertEquals("removed edge still drawn", white, image.getRGB(128, 128));
+		assertEquals("frames", 5, renderer.getFrameCount());
+		assertEquals("frame times", 5, renderer.getFrameTimes().getCount());
+
+		sg.clear();
+		assertEquals("clear repaints every tile", 16, renderer.renderFrame());
+		assertEquals("cleared node still drawn", white, image.getRGB(205, 205));
+		renderer.detach();
+	}
+}
@@ -0,0 +1,150 @@
+package csce867.graph;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The attribute map of an element built by an arena factory. AbstractElement
+ * only ever reaches its attributes through its HashMap field, so this
+ * subclass takes the values of the arena's columns into the element's
+ * record and keeps the others in the map itself, whose table is only
+ * created by the first such value.
+ *
+ * Once released (element removed, graph cleared) the record is gone and
+ * the map holds whatever is left in the table, usually nothing.
+ */
+final class ArenaAttributes extends HashMap<String, Object> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final ElementArena arena;
+	private final int generation;
+	private int slot;
+
+	ArenaAttributes(ElementArena arena) {
+		super(1);
+		this.arena = arena;
+		generation = arena.generation();
+		slot = arena.allocate();
+	}
+
+	/** Frees the record, unless the arena was reset since it was allocated. */
+	void release() {
+		if (slot >= 0 && generation == arena.generation())
+			arena.free(slot);
+		slot = -1;
+	}
+
+	/** Slot of the record, -1 once released or after a reset of the arena. */
+	int slot() {
+		if (slot >= 0 && generation != arena.generation())
+			slot = -1;
+		return slot;
+	}
+
+	/** Column of key when it is present in the record, else -1. */
+	private int present(Object key) {
+		int s = slot();
+		if (s < 0 || !(key instanceof String))
+			return -1;
+		int c = arena.columnOf((String) key);
+		return c >= 0 && arena.has(s, c) ? c : -1;
+	}
+
+	/** Value of key as a double when the record holds it, else NaN. */
+	double number(String key) {
+		int c = present(key);
+		return c >= 0 ? arena.getDouble(slot, c) : Double.NaN;
+	}
+
+	@Override
+	public Object get(Object key) {
+		int c = present(key);
+		return c >= 0 ? arena.get(slot, c) : super.get(key);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return present(key) >= 0 || super.containsKey(key);
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+		int s = slot();
+		int c = s < 0 ? -1 : arena.columnOf(key);
+		if (c < 0)
+			return super.put(key, value);
+		Object old = arena.has(s, c) ? arena.get(s, c) : super.remove(key);
+		if (arena.accepts(c, value)) {
+			arena.set(s, c, value);
+		} else {
+			arena.clear(s, c);
+			super.put(key, value);
+		}
+		return old;
+	}
+
+	@Override
+	public Object remove(Object key) {
+		int c = present(key);
+		if (c < 0)
+			return super.remove(key);
+		Object old = arena.get(slot, c);
+		arena.clear(slot, c);
+		return old;
+	}
+
+	@Override
+	public int size() {
+		int s = slot();
+		return super.size() + (s < 0 ? 0 : Long.bitCount(arena.presence(s)));
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public void clear() {
+		int s = slot();
+		if (s >= 0)
+			arena.clear(s);
+		super.clear();
+	}
+
+	// the views are copies holding both parts, gs-core only reads them
+
+	private HashMap<String, Object> merged() {
+		HashMap<String, Object> all = new HashMap<String, Object>(super.size() + 4);
+		for (Map.Entry<String, Object> e : super.entrySet())
+			all.put(e.getKey(), e.getValue());
+		int s = slot();
+		if (s >= 0) {
+			long bits = arena.presence(s);
+			while (bits != 0) {
+				int c = Long.numberOfTrailingZeros(bits);
+				all.put(arena.key(c), arena.get(s, c));
+				bits &= bits - 1;
+			}
+		}
+		return all;
+	}
+
+	@Override
+	public Set<String> keySet() {
+		return merged().keySet();
+	}
+
+	@Override
+	public Collection<Object> values() {
+		return merged().values();
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		return merged().entrySet();
+	}
+}
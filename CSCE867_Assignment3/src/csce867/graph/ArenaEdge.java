@@ -0,0 +1,31 @@
+package csce867.graph;
+
+import org.graphstream.graph.implementations.AbstractEdge;
+import org.graphstream.graph.implementations.AbstractNode;
+
+/**
+ * Edge whose fixed-width attributes live in an {@link ElementArena} record,
+ * see {@link ArenaEdgeFactory}.
+ */
+public class ArenaEdge extends AbstractEdge {
+
+	protected ArenaEdge(String id, AbstractNode source, AbstractNode target, boolean directed, ElementArena arena) {
+		super(id, source, target, directed);
+		attributes = new ArenaAttributes(arena);
+	}
+
+	ArenaAttributes record() {
+		return (ArenaAttributes) attributes;
+	}
+
+	/** Whether the edge still holds its record, false once removed. */
+	public boolean hasRecord() {
+		return record().slot() >= 0;
+	}
+
+	@Override
+	public double getNumber(String key) {
+		double v = record().number(key);
+		return v == v ? v : super.getNumber(key);
+	}
+}
@@ -0,0 +1,29 @@
+package csce867.graph;
+
+import org.graphstream.graph.EdgeFactory;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.AbstractNode;
+
+/**
+ * Edge factory keeping the fixed-width attributes of its edges in an
+ * {@link ElementArena}, the counterpart of {@link ArenaNodeFactory}.
+ */
+public class ArenaEdgeFactory implements EdgeFactory<ArenaEdge> {
+
+	private final ElementArena arena;
+	private final ArenaLifecycle lifecycle;
+
+	public ArenaEdgeFactory(ElementArena arena) {
+		this.arena = arena;
+		lifecycle = new ArenaLifecycle(arena, false);
+	}
+
+	public ElementArena getArena() {
+		return arena;
+	}
+
+	public ArenaEdge newInstance(String id, Node src, Node dst, boolean directed) {
+		lifecycle.attach(src.getGraph());
+		return new ArenaEdge(id, (AbstractNode) src, (AbstractNode) dst, directed, arena);
+	}
+}
@@ -0,0 +1,78 @@
+package csce867.graph;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.stream.ElementSink;
+
+/**
+ * Frees the records of removed elements, listening to the graph the arena
+ * factory builds for. Removal events come before the element leaves the
+ * graph and other sinks may still read its attributes while they run, so
+ * a record is only freed when the next removal comes, or the next element
+ * is built. A clear resets the arena, dropping every record at once.
+ */
+final class ArenaLifecycle implements ElementSink {
+
+	private final ElementArena arena;
+	private final boolean nodes;
+	private Graph graph;
+	private ArenaAttributes pending;
+
+	ArenaLifecycle(ElementArena arena, boolean nodes) {
+		this.arena = arena;
+		this.nodes = nodes;
+	}
+
+	/** Starts listening to graph, the first time it builds an element. */
+	void attach(Graph g) {
+		if (graph == g) {
+			flush();
+			return;
+		}
+		if (graph != null)
+			throw new IllegalStateException("arena factory already serves graph " + graph.getId());
+		graph = g;
+		g.addElementSink(this);
+	}
+
+	private void flush() {
+		if (pending != null) {
+			pending.release();
+			pending = null;
+		}
+	}
+
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		if (!nodes)
+			return;
+		flush();
+		Node n = graph.getNode(nodeId);
+		if (n instanceof ArenaNode)
+			pending = ((ArenaNode) n).record();
+	}
+
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		if (nodes)
+			return;
+		flush();
+		Edge e = graph.getEdge(edgeId);
+		if (e instanceof ArenaEdge)
+			pending = ((ArenaEdge) e).record();
+	}
+
+	public void graphCleared(String sourceId, long timeId) {
+		pending = null;
+		arena.reset();
+	}
+
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+	}
+
+	public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId,
+			boolean directed) {
+	}
+
+	public void stepBegins(String sourceId, long timeId, double step) {
+	}
+}
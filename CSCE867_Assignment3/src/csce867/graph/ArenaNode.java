@@ -0,0 +1,31 @@
+package csce867.graph;
+
+import org.graphstream.graph.implementations.AbstractGraph;
+import org.graphstream.graph.implementations.SingleNode;
+
+/**
+ * SingleNode whose fixed-width attributes live in an {@link ElementArena}
+ * record, see {@link ArenaNodeFactory}.
+ */
+public class ArenaNode extends SingleNode {
+
+	protected ArenaNode(AbstractGraph graph, String id, ElementArena arena) {
+		super(graph, id);
+		attributes = new ArenaAttributes(arena);
+	}
+
+	ArenaAttributes record() {
+		return (ArenaAttributes) attributes;
+	}
+
+	/** Whether the node still holds its record, false once removed. */
+	public boolean hasRecord() {
+		return record().slot() >= 0;
+	}
+
+	@Override
+	public double getNumber(String key) {
+		double v = record().number(key);
+		return v == v ? v : super.getNumber(key);
+	}
+}
@@ -0,0 +1,43 @@
+package csce867.graph;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.NodeFactory;
+import org.graphstream.graph.implementations.AbstractGraph;
+
+/**
+ * Node factory for SingleGraph (or any AdjacencyListGraph) keeping the
+ * fixed-width attributes of its nodes off the heap in an
+ * {@link ElementArena}: a node with only column values carries no map
+ * table, entries or boxes, the objects the collector would otherwise
+ * trace. The structure stays in the SingleNode fields, which gs-core's
+ * graph reads directly.
+ *
+ * A factory serves one graph. It frees the record of a removed node and
+ * resets the arena when the graph is cleared, listening to the graph's
+ * element events from the first node it builds.
+ *
+ * <pre>
+ * SingleGraph g = new SingleGraph("g");
+ * g.setNodeFactory(new ArenaNodeFactory(new ElementArena().column("rank", Double.class)));
+ * g.setEdgeFactory(new ArenaEdgeFactory(new ElementArena().column("weight", Double.class)));
+ * </pre>
+ */
+public class ArenaNodeFactory implements NodeFactory<ArenaNode> {
+
+	private final ElementArena arena;
+	private final ArenaLifecycle lifecycle;
+
+	public ArenaNodeFactory(ElementArena arena) {
+		this.arena = arena;
+		lifecycle = new ArenaLifecycle(arena, true);
+	}
+
+	public ElementArena getArena() {
+		return arena;
+	}
+
+	public ArenaNode newInstance(String id, Graph graph) {
+		lifecycle.attach(graph);
+		return new ArenaNode((AbstractGraph) graph, id, arena);
+	}
+}
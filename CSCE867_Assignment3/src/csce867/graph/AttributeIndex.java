@@ -0,0 +1,407 @@
+package csce867.graph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.StampedLock;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Element;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.stream.Sink;
+
+/**
+ * Secondary indexes on chosen node and edge attribute keys, answering
+ * "every element whose key is v" and, for sorted indexes, "every element
+ * whose key is a number in [min, max]" without scanning the graph.
+ *
+ * An index is built from the graph when it is declared and then kept up to
+ * date by the attribute events the graph sends: added, changed and removed
+ * (clearAttributes() sends one removal per key), plus the removal of
+ * elements and graph clears. A hash index matches values with equals(), so
+ * Integer 3 and Double 3.0 are different; a sorted index holds only Number
+ * values, keyed by doubleValue(), and answers both kinds of query. Values
+ * changed in place (an array attribute edited without setAttribute) are not
+ * seen.
+ *
+ * Queries return ids or elements in the order they entered the index.
+ * Events and queries may come from different threads: a StampedLock lets
+ * queries run together and excludes them from the updates.
+ */
+public class AttributeIndex implements Sink {
+
+	private final Graph graph;
+	private final HashMap<String, Index> nodeIndexes = new HashMap<String, Index>();
+	private final HashMap<String, Index> edgeIndexes = new HashMap<String, Index>();
+	private final StampedLock lock = new StampedLock();
+	private boolean attached;
+
+	/** Attaches itself to graph; declare the indexes with indexNodes and indexEdges. */
+	public AttributeIndex(Graph graph) {
+		this.graph = graph;
+		graph.addSink(this);
+		attached = true;
+	}
+
+	public Graph getGraph() {
+		return graph;
+	}
+
+	/** Stops following the graph and drops every index. */
+	public void detach() {
+		long stamp = lock.writeLock();
+		try {
+			if (attached)
+				graph.removeSink(this);
+			attached = false;
+			nodeIndexes.clear();
+			edgeIndexes.clear();
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	// declaration
+
+	/** Hash index on the nodes' key, for equality. */
+	public void indexNodes(String key) {
+		declare(nodeIndexes, key, false, graph.getEachNode());
+	}
+
+	/** Sorted index on the nodes' numeric key, for ranges and equality. */
+	public void indexNodesByRange(String key) {
+		declare(nodeIndexes, key, true, graph.getEachNode());
+	}
+
+	public void indexEdges(String key) {
+		declare(edgeIndexes, key, false, graph.getEachEdge());
+	}
+
+	public void indexEdgesByRange(String key) {
+		declare(edgeIndexes, key, true, graph.getEachEdge());
+	}
+
+	public void dropNodeIndex(String key) {
+		drop(nodeIndexes, key);
+	}
+
+	public void dropEdgeIndex(String key) {
+		drop(edgeIndexes, key);
+	}
+
+	public boolean hasNodeIndex(String key) {
+		return has(nodeIndexes, key);
+	}
+
+	public boolean hasEdgeIndex(String key) {
+		return has(edgeIndexes, key);
+	}
+
+	private void declare(HashMap<String, Index> indexes, String key, boolean sorted,
+			Iterable<? extends Element> elements) {
+		if (key == null)
+			throw new NullPointerException("attribute key");
+		long stamp = lock.writeLock();
+		try {
+			if (!attached)
+				throw new IllegalStateException("attribute index detached from " + graph.getId());
+			Index old = indexes.get(key);
+			if (old != null && old.sorted == sorted)
+				return;
+			Index index = new Index(sorted);
+			for (Element e : elements)
+				index.set(e.getId(), e.getAttribute(key));
+			indexes.put(key, index);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	private void drop(HashMap<String, Index> indexes, String key) {
+		long stamp = lock.writeLock();
+		try {
+			indexes.remove(key);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	private boolean has(HashMap<String, Index> indexes, String key) {
+		long stamp = lock.readLock();
+		try {
+			return indexes.containsKey(key);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	// queries
+
+	/** Ids of the nodes whose key equals value. */
+	public List<String> nodeIds(String key, Object value) {
+		return ids(nodeIndexes, key, value);
+	}
+
+	/** Ids of the nodes whose key is a number in [min, max]. */
+	public List<String> nodeIds(String key, double min, double max) {
+		return ids(nodeIndexes, key, min, max);
+	}
+
+	public List<String> edgeIds(String key, Object value) {
+		return ids(edgeIndexes, key, value);
+	}
+
+	public List<String> edgeIds(String key, double min, double max) {
+		return ids(edgeIndexes, key, min, max);
+	}
+
+	public <T extends Node> List<T> nodes(String key, Object value) {
+		return this.<T> resolveNodes(nodeIds(key, value));
+	}
+
+	public <T extends Node> List<T> nodes(String key, double min, double max) {
+		return this.<T> resolveNodes(nodeIds(key, min, max));
+	}
+
+	public <T extends Edge> List<T> edges(String key, Object value) {
+		return this.<T> resolveEdges(edgeIds(key, value));
+	}
+
+	public <T extends Edge> List<T> edges(String key, double min, double max) {
+		return this.<T> resolveEdges(edgeIds(key, min, max));
+	}
+
+	/** Number of nodes whose key equals value. */
+	public int countNodes(String key, Object value) {
+		return count(nodeIndexes, key, value);
+	}
+
+	public int countEdges(String key, Object value) {
+		return count(edgeIndexes, key, value);
+	}
+
+	private List<String> ids(HashMap<String, Index> indexes, String key, Object value) {
+		long stamp = lock.readLock();
+		try {
+			Set<String> ids = index(indexes, key).get(value);
+			return ids == null ? Collections.<String> emptyList() : new ArrayList<String>(ids);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	private List<String> ids(HashMap<String, Index> indexes, String key, double min, double max) {
+		long stamp = lock.readLock();
+		try {
+			Index index = index(indexes, key);
+			if (!index.sorted)
+				throw new IllegalStateException("no sorted index on " + key);
+			if (!(min <= max))
+				return Collections.<String> emptyList();
+			ArrayList<String> ids = new ArrayList<String>();
+			for (Set<String> bucket : index.range(min, max))
+				ids.addAll(bucket);
+			return ids;
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	private int count(HashMap<String, Index> indexes, String key, Object value) {
+		long stamp = lock.readLock();
+		try {
+			Set<String> ids = index(indexes, key).get(value);
+			return ids == null ? 0 : ids.size();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	private Index index(HashMap<String, Index> indexes, String key) {
+		Index index = indexes.get(key);
+		if (index == null)
+			throw new IllegalStateException("no index on " + key);
+		return index;
+	}
+
+	private <T extends Node> List<T> resolveNodes(List<String> ids) {
+		ArrayList<T> nodes = new ArrayList<T>(ids.size());
+		for (String id : ids) {
+			T n = graph.getNode(id);
+			if (n != null)
+				nodes.add(n);
+		}
+		return nodes;
+	}
+
+	private <T extends Edge> List<T> resolveEdges(List<String> ids) {
+		ArrayList<T> edges = new ArrayList<T>(ids.size());
+		for (String id : ids) {
+			T e = graph.getEdge(id);
+			if (e != null)
+				edges.add(e);
+		}
+		return edges;
+	}
+
+	/**
+	 * One key: the value of every indexed element, and the elements of every
+	 * value, in a hash map or, for a sorted index, a tree of Double keys.
+	 */
+	private static class Index {
+		final boolean sorted;
+		final HashMap<String, Object> values = new HashMap<String, Object>();
+		final Map<Object, Set<String>> buckets;
+
+		Index(boolean sorted) {
+			this.sorted = sorted;
+			buckets = sorted ? new TreeMap<Object, Set<String>>() : new HashMap<Object, Set<String>>();
+		}
+
+		private Object bucketKey(Object value) {
+			if (!sorted)
+				return value;
+			return value instanceof Number ? Double.valueOf(((Number) value).doubleValue()) : null;
+		}
+
+		Collection<Set<String>> range(double min, double max) {
+			return ((NavigableMap<Object, Set<String>>) buckets).subMap(min, true, max, true).values();
+		}
+
+		Set<String> get(Object value) {
+			Object k = bucketKey(value);
+			return k == null ? null : buckets.get(k);
+		}
+
+		void set(String id, Object value) {
+			remove(id);
+			Object k = bucketKey(value);
+			if (k == null)
+				return;
+			values.put(id, k);
+			Set<String> bucket = buckets.get(k);
+			if (bucket == null)
+				buckets.put(k, bucket = new LinkedHashSet<String>());
+			bucket.add(id);
+		}
+
+		void remove(String id) {
+			Object k = values.remove(id);
+			if (k == null)
+				return;
+			Set<String> bucket = buckets.get(k);
+			bucket.remove(id);
+			if (bucket.isEmpty())
+				buckets.remove(k);
+		}
+
+		void clear() {
+			values.clear();
+			buckets.clear();
+		}
+	}
+
+	// updates, sent by the graph
+
+	private void update(HashMap<String, Index> indexes, String id, String key, Object value, boolean removed) {
+		long stamp = lock.writeLock();
+		try {
+			Index index = indexes.get(key);
+			if (index == null)
+				return;
+			if (removed)
+				index.remove(id);
+			else
+				index.set(id, value);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	private void removed(HashMap<String, Index> indexes, String id) {
+		long stamp = lock.writeLock();
+		try {
+			for (Index index : indexes.values())
+				index.remove(id);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	private static void clear(Collection<Index> indexes) {
+		for (Index index : indexes)
+			index.clear();
+	}
+
+	public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+		update(nodeIndexes, nodeId, attribute, value, false);
+	}
+
+	public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute,
+			Object oldValue, Object newValue) {
+		update(nodeIndexes, nodeId, attribute, newValue, false);
+	}
+
+	public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+		update(nodeIndexes, nodeId, attribute, null, true);
+	}
+
+	public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+		update(edgeIndexes, edgeId, attribute, value, false);
+	}
+
+	public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute,
+			Object oldValue, Object newValue) {
+		update(edgeIndexes, edgeId, attribute, newValue, false);
+	}
+
+	public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+		update(edgeIndexes, edgeId, attribute, null, true);
+	}
+
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		removed(nodeIndexes, nodeId);
+	}
+
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		removed(edgeIndexes, edgeId);
+	}
+
+	public void graphCleared(String sourceId, long timeId) {
+		long stamp = lock.writeLock();
+		try {
+			clear(nodeIndexes.values());
+			clear(edgeIndexes.values());
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	public void graphAttributeAdded(String sourceId, long timeId, String attribute, Object value) {
+	}
+
+	public void graphAttributeChanged(String sourceId, long timeId, String attribute, Object oldValue,
+			Object newValue) {
+	}
+
+	public void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+	}
+
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+	}
+
+	public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId,
+			boolean directed) {
+	}
+
+	public void stepBegins(String sourceId, long timeId, double step) {
+	}
+}
@@ -0,0 +1,69 @@
+package csce867.graph;
+
+import java.util.Arrays;
+
+/**
+ * Ordered set of attribute key ids shared by every element that has
+ * exactly those keys, in that order. An element's attributes are then one
+ * Object[] holding its shape followed by the values, value i belonging to
+ * key keys[i]. Elements built the same way (TestCase38-43 style, the same
+ * keys on every node) all point to the same shape, so no key is stored
+ * per element.
+ *
+ * Shapes form a tree rooted at the empty shape of the graph's
+ * {@link KeyDictionary}; adding a key follows (or creates) a transition.
+ */
+final class AttributeShape {
+
+	final int[] keys;
+
+	private int[] transitionKeys;
+	private AttributeShape[] transitions;
+	private int transitionCount;
+
+	AttributeShape(int[] keys) {
+		this.keys = keys;
+	}
+
+	int size() {
+		return keys.length;
+	}
+
+	/** Position of key id in the value array (after the shape), or -1. */
+	int slotOf(int key) {
+		int[] k = keys;
+		for (int i = 0; i < k.length; i++)
+			if (k[i] == key)
+				return i;
+		return -1;
+	}
+
+	/** This shape with key appended. */
+	AttributeShape with(int key) {
+		for (int i = 0; i < transitionCount; i++)
+			if (transitionKeys[i] == key)
+				return transitions[i];
+		if (transitions == null) {
+			transitionKeys = new int[2];
+			transitions = new AttributeShape[2];
+		} else if (transitionCount == transitions.length) {
+			transitionKeys = Arrays.copyOf(transitionKeys, 2 * transitionCount);
+			transitions = Arrays.copyOf(transitions, 2 * transitionCount);
+		}
+		int[] k = Arrays.copyOf(keys, keys.length + 1);
+		k[keys.length] = key;
+		AttributeShape next = new AttributeShape(k);
+		transitionKeys[transitionCount] = key;
+		transitions[transitionCount++] = next;
+		return next;
+	}
+
+	/** This shape without the key at slot, rebuilt from root so it is shared. */
+	AttributeShape without(int slot, AttributeShape root) {
+		AttributeShape s = root;
+		for (int i = 0; i < keys.length; i++)
+			if (i != slot)
+				s = s.with(keys[i]);
+		return s;
+	}
+}
@@ -0,0 +1,249 @@
+package csce867.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Attributes of one kind of element (nodes or edges) of a CompactGraph,
+ * keyed by element index.
+ *
+ * Keys are interned once in the graph's {@link KeyDictionary}; below that
+ * everything works on int key ids. An element with attributes has one row,
+ * an Object[] holding its {@link AttributeShape} followed by the values in
+ * shape order, and no row at all when it has none.
+ *
+ * A key that was given a {@link NumberColumn} keeps the values of its
+ * column type in that column, read and written without boxing. A value is
+ * in exactly one of the two places: storing a value the column does not
+ * accept under a column key moves it to the row, and the other way round.
+ */
+final class AttributeTable {
+
+	private static final NumberColumn[] NO_COLUMNS = new NumberColumn[0];
+
+	private final KeyDictionary dictionary;
+	private Object[] rows;
+	private NumberColumn[] columns = NO_COLUMNS;
+
+	AttributeTable(KeyDictionary dictionary, int capacity) {
+		this.dictionary = dictionary;
+		rows = new Object[Math.max(capacity, 1)];
+	}
+
+	void ensure(int capacity) {
+		if (capacity > rows.length)
+			rows = Arrays.copyOf(rows, Math.max(capacity, IdTable.grow(rows.length)));
+	}
+
+	private Object[] row(int index) {
+		return index < 0 ? null : (Object[]) rows[index];
+	}
+
+	private static void checkAlive(int index) {
+		if (index < 0)
+			throw new IllegalStateException("element was removed from its graph");
+	}
+
+	// columns
+
+	private NumberColumn column(int key) {
+		return key >= 0 && key < columns.length ? columns[key] : null;
+	}
+
+	NumberColumn column(String key) {
+		return column(dictionary.find(key));
+	}
+
+	/** Column of key, created with the given type if the key has none yet. */
+	NumberColumn column(String key, Class<? extends Number> type) {
+		int k = dictionary.intern(key);
+		NumberColumn c = column(k);
+		if (c == null) {
+			if (type == Double.class)
+				c = new NumberColumn.DoubleColumn();
+			else if (type == Long.class)
+				c = new NumberColumn.LongColumn();
+			else if (type == Integer.class)
+				c = new NumberColumn.IntColumn();
+			else
+				throw new IllegalArgumentException("no column type for " + type.getName());
+			if (k >= columns.length)
+				columns = Arrays.copyOf(columns, Math.max(k + 1, 2 * columns.length));
+			columns[k] = c;
+		}
+		return c;
+	}
+
+	/** Drops key from the row of index, for a value about to go to a column. */
+	Object evict(int index, String key) {
+		return rowRemove(index, dictionary.find(key));
+	}
+
+	// rows
+
+	private Object rowGet(int index, int key) {
+		Object[] row = row(index);
+		if (row == null)
+			return null;
+		int s = ((AttributeShape) row[0]).slotOf(key);
+		return s < 0 ? null : row[s + 1];
+	}
+
+	private boolean rowContains(int index, int key) {
+		Object[] row = row(index);
+		return row != null && ((AttributeShape) row[0]).slotOf(key) >= 0;
+	}
+
+	private Object rowPut(int index, int key, Object value) {
+		checkAlive(index);
+		Object[] row = (Object[]) rows[index];
+		if (row == null) {
+			rows[index] = new Object[] { dictionary.emptyShape().with(key), value };
+			return null;
+		}
+		AttributeShape shape = (AttributeShape) row[0];
+		int s = shape.slotOf(key);
+		if (s >= 0) {
+			Object old = row[s + 1];
+			row[s + 1] = value;
+			return old;
+		}
+		row = Arrays.copyOf(row, row.length + 1);
+		row[0] = shape.with(key);
+		row[row.length - 1] = value;
+		rows[index] = row;
+		return null;
+	}
+
+	private Object rowRemove(int index, int key) {
+		Object[] row = row(index);
+		if (row == null || key < 0)
+			return null;
+		AttributeShape shape = (AttributeShape) row[0];
+		int s = shape.slotOf(key);
+		if (s < 0)
+			return null;
+		Object old = row[s + 1];
+		if (shape.size() == 1) {
+			rows[index] = null;
+		} else {
+			Object[] smaller = new Object[row.length - 1];
+			smaller[0] = shape.without(s, dictionary.emptyShape());
+			System.arraycopy(row, 1, smaller, 1, s);
+			System.arraycopy(row, s + 2, smaller, s + 1, row.length - s - 2);
+			rows[index] = smaller;
+		}
+		return old;
+	}
+
+	// generic access, the FacadeElement hooks
+
+	Object value(int index, String key) {
+		int k = dictionary.find(key);
+		if (k < 0)
+			return null;
+		NumberColumn c = column(k);
+		if (c != null && c.has(index))
+			return c.get(index);
+		return rowGet(index, k);
+	}
+
+	boolean contains(int index, String key) {
+		int k = dictionary.find(key);
+		if (k < 0)
+			return false;
+		NumberColumn c = column(k);
+		return c != null && c.has(index) || rowContains(index, k);
+	}
+
+	Object put(int index, String key, Object value) {
+		int k = dictionary.intern(key);
+		NumberColumn c = column(k);
+		if (c != null && c.accepts(value)) {
+			checkAlive(index);
+			Object old = c.has(index) ? c.get(index) : rowRemove(index, k);
+			c.set(index, value);
+			return old;
+		}
+		Object old = rowPut(index, k, value);
+		if (c != null && c.has(index)) {
+			old = c.get(index);
+			c.remove(index);
+		}
+		return old;
+	}
+
+	Object delete(int index, String key) {
+		int k = dictionary.find(key);
+		NumberColumn c = column(k);
+		if (c != null && c.has(index)) {
+			Object old = c.get(index);
+			c.remove(index);
+			return old;
+		}
+		return rowRemove(index, k);
+	}
+
+	Collection<String> keys(int index) {
+		List<String> keys = null;
+		for (int k = 0; k < columns.length; k++) {
+			if (columns[k] != null && columns[k].has(index)) {
+				if (keys == null)
+					keys = new ArrayList<String>();
+				keys.add(dictionary.key(k));
+			}
+		}
+		Object[] row = row(index);
+		if (row != null) {
+			int[] ids = ((AttributeShape) row[0]).keys;
+			if (keys == null)
+				keys = new ArrayList<String>(ids.length);
+			for (int k : ids)
+				keys.add(dictionary.key(k));
+		}
+		return keys == null ? Collections.<String> emptyList() : keys;
+	}
+
+	int count(int index) {
+		int n = 0;
+		for (NumberColumn c : columns)
+			if (c != null && c.has(index))
+				n++;
+		Object[] row = row(index);
+		return row == null ? n : n + ((AttributeShape) row[0]).size();
+	}
+
+	// index maintenance
+
+	/** Moves all attributes of element from into the (freed) index to. */
+	void move(int from, int to) {
+		rows[to] = rows[from];
+		rows[from] = null;
+		for (NumberColumn c : columns)
+			if (c != null)
+				c.move(from, to);
+	}
+
+	/** Forgets the attributes of a removed element. */
+	void clear(int index) {
+		rows[index] = null;
+		for (NumberColumn c : columns)
+			if (c != null)
+				c.remove(index);
+	}
+
+	/** Walks every row, meant for diagnostics. */
+	long footprint() {
+		long bytes = 4L * rows.length;
+		for (Object row : rows)
+			if (row != null)
+				bytes += 16 + 4L * ((Object[]) row).length;
+		for (NumberColumn c : columns)
+			if (c != null)
+				bytes += c.footprint();
+		return bytes;
+	}
+}
@@ -0,0 +1,104 @@
+package csce867.graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.graphstream.graph.implementations.AbstractEdge;
+import org.graphstream.graph.implementations.AbstractNode;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.ElementSink;
+import org.graphstream.stream.SourceBase;
+
+/**
+ * SingleGraph that can be loaded through a {@link GraphBatch}. Apart from
+ * {@link #batch()} it is a plain SingleGraph; the subclass only exists so the
+ * batch can reach the protected node/edge arrays and maps to pre-size them
+ * and the protected addEdge() that takes resolved nodes.
+ */
+public class BatchSingleGraph extends SingleGraph {
+
+	/**
+	 * Source of the coalesced batch events. It has its own source id so its
+	 * time ids never collide with the per-call events of the graph.
+	 */
+	private static class BatchSource extends SourceBase {
+		BatchSource(String sourceId) {
+			super(sourceId);
+		}
+	}
+
+	final SourceBase batchSource;
+
+	public BatchSingleGraph(String id, boolean strictChecking, boolean autoCreate, int initialNodeCapacity,
+			int initialEdgeCapacity) {
+		super(id, strictChecking, autoCreate, initialNodeCapacity, initialEdgeCapacity);
+		batchSource = new BatchSource(id + "-batch");
+	}
+
+	public BatchSingleGraph(String id, boolean strictChecking, boolean autoCreate) {
+		super(id, strictChecking, autoCreate);
+		batchSource = new BatchSource(id + "-batch");
+	}
+
+	public BatchSingleGraph(String id) {
+		super(id);
+		batchSource = new BatchSource(id + "-batch");
+	}
+
+	/** Opens a new batch on this graph. */
+	public GraphBatch batch() {
+		return new GraphBatch(this);
+	}
+
+	/**
+	 * Grows the node and edge arrays to hold the given totals and rebuilds
+	 * the id maps with room for them when the batch at least doubles them.
+	 */
+	void ensureCapacity(int nodes, int edges) {
+		if (nodes > nodeArray.length)
+			nodeArray = Arrays.copyOf(nodeArray, nodes);
+		if (edges > edgeArray.length)
+			edgeArray = Arrays.copyOf(edgeArray, edges);
+		if (nodes >= 2 * nodeMap.size() && nodes > 16) {
+			HashMap<String, AbstractNode> map = new HashMap<String, AbstractNode>(nodes * 4 / 3 + 1);
+			map.putAll(nodeMap);
+			nodeMap = map;
+		}
+		if (edges >= 2 * edgeMap.size() && edges > 16) {
+			HashMap<String, AbstractEdge> map = new HashMap<String, AbstractEdge>(edges * 4 / 3 + 1);
+			map.putAll(edgeMap);
+			edgeMap = map;
+		}
+	}
+
+	/** AbstractGraph's addNode without the lookup and the event, the id is known to be free. */
+	AbstractNode insertNode(String nodeId) {
+		AbstractNode node = (AbstractNode) nodeFactory().newInstance(nodeId, this);
+		addNodeCallback(node);
+		return node;
+	}
+
+	/** AbstractGraph's addEdge on resolved nodes, no id lookups. */
+	AbstractEdge addResolvedEdge(String edgeId, AbstractNode src, AbstractNode dst, boolean directed) {
+		return addEdge(edgeId, src, src.getId(), dst, dst.getId(), directed);
+	}
+
+	/** The events of a committed batch, in one burst to the given sinks. */
+	void sendBatch(List<ElementSink> sinks, List<String> nodes, AbstractEdge[] edges, int edgeCount) {
+		for (ElementSink sink : sinks)
+			batchSource.addElementSink(sink);
+		try {
+			String sourceId = getId() + "-batch";
+			for (String nodeId : nodes)
+				batchSource.sendNodeAdded(sourceId, nodeId);
+			for (int i = 0; i < edgeCount; i++) {
+				AbstractEdge edge = edges[i];
+				batchSource.sendEdgeAdded(sourceId, edge.getId(), edge.getNode0().getId(), edge.getNode1().getId(),
+						edge.isDirected());
+			}
+		} finally {
+			batchSource.clearElementSinks();
+		}
+	}
+}
@@ -0,0 +1,488 @@
+package csce867.graph;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.graphstream.stream.Sink;
+import org.graphstream.stream.SourceBase;
+
+/**
+ * Read-only view of a graph snapshot written by {@link FileSinkBinary}.
+ *
+ * The file is a sequence of sections followed by a fixed size trailer:
+ *
+ * <pre>
+ * NODE_IDS, EDGE_IDS   string tables: int count, int[count + 1] offsets
+ *                      into the UTF-8 bytes that follow
+ * NODE_HASH, EDGE_HASH int slot count (power of two), int[slots] of
+ *                      index + 1, open addressing on String.hashCode()
+ * ENDPOINTS            int[m] sources, int[m] targets, long[] directed bits
+ * INCIDENCE            int[n + 1] offsets, int[] incident edges (CSR)
+ * ATTRIBUTES           int column count, then per column: byte kind
+ *                      (graph, node, edge), byte type, int key length, key
+ *                      bytes, long data length, long[] presence bits and
+ *                      the values (int/long/float/double arrays, boolean
+ *                      bits, string or serialized object tables)
+ * trailer              long offset and long length per section, int n,
+ *                      int m, int version, int magic
+ * </pre>
+ *
+ * All numbers are big endian. Opening reads the trailer and the column
+ * headers and maps every section through FileChannel; nothing is decoded
+ * until asked, so opening costs the same for 10 or 10^7 edges and an id,
+ * an endpoint or an attribute is read straight from the mapping. A column
+ * holds one value type, a key whose values have several types gets one
+ * column per type. Each section is mapped separately and must stay under
+ * 2 GB.
+ *
+ * Serialized values are read back only as the boxed primitives, String,
+ * arrays of allowed components and the common java.util collections, plus
+ * the classes named, comma separated, by the system property
+ * {@value #ALLOW_PROPERTY}; any other class in a value fails the read
+ * before it is loaded, and FileSinkBinary stores such values as their
+ * toString().
+ */
+public class BinaryGraphFile implements Closeable {
+
+	public static final String ALLOW_PROPERTY = "csce867.graph.binaryClasses";
+
+	static final int MAGIC = 0x47534246; // "GSBF"
+	static final int VERSION = 1;
+
+	static final int NODE_IDS = 0, EDGE_IDS = 1, NODE_HASH = 2, EDGE_HASH = 3, ENDPOINTS = 4, INCIDENCE = 5,
+			ATTRIBUTES = 6, SECTIONS = 7;
+	static final int TRAILER = SECTIONS * 16 + 16;
+
+	static final byte GRAPH = 0, NODE = 1, EDGE = 2;
+	static final byte T_INT = 0, T_LONG = 1, T_FLOAT = 2, T_DOUBLE = 3, T_BOOLEAN = 4, T_STRING = 5,
+			T_OBJECT = 6;
+
+	/** One typed attribute column. */
+	static final class Column {
+		final byte kind;
+		final byte type;
+		final String key;
+		final ByteBuffer data;
+		final int count;
+		final int values;
+
+		Column(byte kind, byte type, String key, ByteBuffer data, int count) {
+			this.kind = kind;
+			this.type = type;
+			this.key = key;
+			this.data = data;
+			this.count = count;
+			values = 8 * ((count + 63) >>> 6);
+		}
+
+		boolean has(int i) {
+			return (data.getLong(8 * (i >>> 6)) & (1L << i)) != 0;
+		}
+
+		Object get(int i) {
+			switch (type) {
+			case T_INT:
+				return data.getInt(values + 4 * i);
+			case T_LONG:
+				return data.getLong(values + 8 * i);
+			case T_FLOAT:
+				return data.getFloat(values + 4 * i);
+			case T_DOUBLE:
+				return data.getDouble(values + 8 * i);
+			case T_BOOLEAN:
+				return (data.getLong(values + 8 * (i >>> 6)) & (1L << i)) != 0;
+			case T_STRING:
+				return new String(bytesAt(data, values + 4, i), StandardCharsets.UTF_8);
+			default:
+				return deserialize(bytesAt(data, values + 4, i));
+			}
+		}
+	}
+
+	private static final Set<String> ALLOWED = new HashSet<String>(Arrays.asList("java.lang.String",
+			"java.lang.Boolean", "java.lang.Character", "java.lang.Number", "java.lang.Byte", "java.lang.Short",
+			"java.lang.Integer", "java.lang.Long", "java.lang.Float", "java.lang.Double", "java.util.ArrayList",
+			"java.util.LinkedList", "java.util.Arrays$ArrayList", "java.util.HashMap", "java.util.LinkedHashMap",
+			"java.util.TreeMap", "java.util.HashSet", "java.util.LinkedHashSet", "java.util.TreeSet"));
+
+	static {
+		String extra = System.getProperty(ALLOW_PROPERTY);
+		if (extra != null)
+			for (String name : extra.split(","))
+				if (!name.trim().isEmpty())
+					ALLOWED.add(name.trim());
+	}
+
+	private final RandomAccessFile file;
+	private final int nodeCount, edgeCount;
+	private final ByteBuffer nodeIds, edgeIds, nodeHash, edgeHash, endpoints, incidence;
+	private final List<Column> columns = new ArrayList<Column>();
+	private final HashMap<String, List<Column>> nodeColumns = new HashMap<String, List<Column>>();
+	private final HashMap<String, List<Column>> edgeColumns = new HashMap<String, List<Column>>();
+	private final HashMap<String, List<Column>> graphColumns = new HashMap<String, List<Column>>();
+
+	/** Maps the snapshot at path. */
+	public static BinaryGraphFile open(String path) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(path, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			long size = channel.size();
+			if (size < TRAILER)
+				throw new IOException(path + " is not a binary graph file");
+			ByteBuffer trailer = ByteBuffer.allocate(TRAILER);
+			channel.read(trailer, size - TRAILER);
+			ByteBuffer[] sections = new ByteBuffer[SECTIONS];
+			for (int s = 0; s < SECTIONS; s++) {
+				long offset = trailer.getLong(16 * s), length = trailer.getLong(16 * s + 8);
+				if (length > Integer.MAX_VALUE)
+					throw new IOException("section " + s + " of " + path + " is larger than 2 GB");
+				sections[s] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+			}
+			return new BinaryGraphFile(file, trailer, sections);
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+	}
+
+	/** A snapshot held in memory, e.g. read from a stream. */
+	public static BinaryGraphFile wrap(byte[] bytes) throws IOException {
+		ByteBuffer all = ByteBuffer.wrap(bytes);
+		if (bytes.length < TRAILER)
+			throw new IOException("not a binary graph file");
+		ByteBuffer trailer = ByteBuffer.wrap(bytes, bytes.length - TRAILER, TRAILER).slice();
+		ByteBuffer[] sections = new ByteBuffer[SECTIONS];
+		for (int s = 0; s < SECTIONS; s++) {
+			int offset = (int) trailer.getLong(16 * s), length = (int) trailer.getLong(16 * s + 8);
+			all.limit(offset + length).position(offset);
+			sections[s] = all.slice();
+			all.clear();
+		}
+		return new BinaryGraphFile(null, trailer, sections);
+	}
+
+	private BinaryGraphFile(RandomAccessFile file, ByteBuffer trailer, ByteBuffer[] sections) throws IOException {
+		this.file = file;
+		int t = SECTIONS * 16;
+		if (trailer.getInt(t + 12) != MAGIC)
+			throw new IOException("not a binary graph file");
+		int version = trailer.getInt(t + 8);
+		if (version != VERSION)
+			throw new IOException("unsupported binary graph file version " + version);
+		nodeCount = trailer.getInt(t);
+		edgeCount = trailer.getInt(t + 4);
+		nodeIds = sections[NODE_IDS];
+		edgeIds = sections[EDGE_IDS];
+		nodeHash = sections[NODE_HASH];
+		edgeHash = sections[EDGE_HASH];
+		endpoints = sections[ENDPOINTS];
+		incidence = sections[INCIDENCE];
+		readColumns(sections[ATTRIBUTES]);
+	}
+
+	private void readColumns(ByteBuffer section) {
+		int n = section.getInt(0);
+		int p = 4;
+		for (int c = 0; c < n; c++) {
+			byte kind = section.get(p), type = section.get(p + 1);
+			int keyLength = section.getInt(p + 2);
+			byte[] key = new byte[keyLength];
+			for (int k = 0; k < keyLength; k++)
+				key[k] = section.get(p + 6 + k);
+			p += 6 + keyLength;
+			long length = section.getLong(p);
+			p += 8;
+			section.limit(p + (int) length).position(p);
+			ByteBuffer data = section.slice();
+			section.clear();
+			p += (int) length;
+			int count = kind == GRAPH ? 1 : kind == NODE ? nodeCount : edgeCount;
+			Column column = new Column(kind, type, new String(key, StandardCharsets.UTF_8), data, count);
+			columns.add(column);
+			HashMap<String, List<Column>> byKey = kind == GRAPH ? graphColumns
+					: kind == NODE ? nodeColumns : edgeColumns;
+			List<Column> list = byKey.get(column.key);
+			if (list == null)
+				byKey.put(column.key, list = new ArrayList<Column>(1));
+			list.add(column);
+		}
+	}
+
+	public void close() throws IOException {
+		if (file != null)
+			file.close();
+	}
+
+	// structure
+
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	public String getNodeId(int node) {
+		checkIndex(node, nodeCount);
+		return new String(bytesAt(nodeIds, 4, node), StandardCharsets.UTF_8);
+	}
+
+	public String getEdgeId(int edge) {
+		checkIndex(edge, edgeCount);
+		return new String(bytesAt(edgeIds, 4, edge), StandardCharsets.UTF_8);
+	}
+
+	/** Index of the node, -1 when there is none. */
+	public int getNodeIndex(String id) {
+		return lookup(nodeHash, nodeIds, id);
+	}
+
+	public int getEdgeIndex(String id) {
+		return lookup(edgeHash, edgeIds, id);
+	}
+
+	public int getSourceIndex(int edge) {
+		checkIndex(edge, edgeCount);
+		return endpoints.getInt(4 * edge);
+	}
+
+	public int getTargetIndex(int edge) {
+		checkIndex(edge, edgeCount);
+		return endpoints.getInt(4 * edgeCount + 4 * edge);
+	}
+
+	public boolean isDirected(int edge) {
+		checkIndex(edge, edgeCount);
+		return (endpoints.getLong(8 * edgeCount + 8 * (edge >>> 6)) & (1L << edge)) != 0;
+	}
+
+	public int getDegree(int node) {
+		checkIndex(node, nodeCount);
+		return incidence.getInt(4 * node + 4) - incidence.getInt(4 * node);
+	}
+
+	/** i-th edge incident to node, in the order they were written. */
+	public int getIncidentEdge(int node, int i) {
+		if (i < 0 || i >= getDegree(node))
+			throw new IndexOutOfBoundsException("Node " + node + " has no edge " + i);
+		return incidence.getInt(4 * (nodeCount + 1) + 4 * (incidence.getInt(4 * node) + i));
+	}
+
+	// attributes
+
+	public Object getGraphAttribute(String key) {
+		return value(graphColumns, key, 0);
+	}
+
+	public Object getNodeAttribute(int node, String key) {
+		checkIndex(node, nodeCount);
+		return value(nodeColumns, key, node);
+	}
+
+	public Object getEdgeAttribute(int edge, String key) {
+		checkIndex(edge, edgeCount);
+		return value(edgeColumns, key, edge);
+	}
+
+	/** Keys stored for graph, node or edge attributes. */
+	public List<String> getGraphAttributeKeys() {
+		return new ArrayList<String>(graphColumns.keySet());
+	}
+
+	public List<String> getNodeAttributeKeys() {
+		return new ArrayList<String>(nodeColumns.keySet());
+	}
+
+	public List<String> getEdgeAttributeKeys() {
+		return new ArrayList<String>(edgeColumns.keySet());
+	}
+
+	private static Object value(HashMap<String, List<Column>> byKey, String key, int i) {
+		List<Column> list = byKey.get(key);
+		if (list != null)
+			for (Column c : list)
+				if (c.has(i))
+					return c.get(i);
+		return null;
+	}
+
+	/**
+	 * Sends the whole snapshot to the sinks of source, in the order of a
+	 * replay: graph attributes, every node with its attributes, every edge
+	 * with its attributes, columns in file order per element.
+	 */
+	void replay(SourceBase source, String sourceId) {
+		for (Column c : columns)
+			if (c.kind == GRAPH && c.has(0))
+				source.sendGraphAttributeAdded(sourceId, c.key, c.get(0));
+		for (int i = 0; i < nodeCount; i++) {
+			String id = getNodeId(i);
+			source.sendNodeAdded(sourceId, id);
+			for (Column c : columns)
+				if (c.kind == NODE && c.has(i))
+					source.sendNodeAttributeAdded(sourceId, id, c.key, c.get(i));
+		}
+		for (int i = 0; i < edgeCount; i++) {
+			String id = getEdgeId(i);
+			source.sendEdgeAdded(sourceId, id, getNodeId(getSourceIndex(i)), getNodeId(getTargetIndex(i)),
+					isDirected(i));
+			for (Column c : columns)
+				if (c.kind == EDGE && c.has(i))
+					source.sendEdgeAttributeAdded(sourceId, id, c.key, c.get(i));
+		}
+	}
+
+	/** Loads the snapshot into sink, e.g. an empty graph. */
+	public void replay(Sink sink) {
+		SourceBase source = new SourceBase("binary-replay") {
+		};
+		source.addSink(sink);
+		replay(source, "binary-replay");
+	}
+
+	// encoding helpers
+
+	private static void checkIndex(int index, int count) {
+		if (index < 0 || index >= count)
+			throw new IndexOutOfBoundsException("Element " + index + " does not exist");
+	}
+
+	/** Bytes of entry i of a table whose int[] offsets start at base. */
+	static byte[] bytesAt(ByteBuffer table, int base, int i) {
+		int count = table.getInt(base - 4);
+		int blob = base + 4 * (count + 1);
+		int from = table.getInt(base + 4 * i), to = table.getInt(base + 4 * i + 4);
+		byte[] bytes = new byte[to - from];
+		for (int k = 0; k < bytes.length; k++)
+			bytes[k] = table.get(blob + from + k);
+		return bytes;
+	}
+
+	static int spread(int h) {
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private static int lookup(ByteBuffer hash, ByteBuffer table, String id) {
+		int slots = hash.getInt(0);
+		if (slots == 0)
+			return -1;
+		byte[] key = id.getBytes(StandardCharsets.UTF_8);
+		int count = table.getInt(0);
+		int blob = 4 + 4 * (count + 1);
+		int mask = slots - 1;
+		for (int s = spread(id.hashCode()) & mask;; s = (s + 1) & mask) {
+			int v = hash.getInt(4 + 4 * s);
+			if (v == 0)
+				return -1;
+			int from = table.getInt(4 + 4 * (v - 1)), to = table.getInt(4 + 4 * v);
+			if (to - from == key.length && sameBytes(table, blob + from, key))
+				return v - 1;
+		}
+	}
+
+	private static boolean sameBytes(ByteBuffer table, int p, byte[] key) {
+		for (int k = 0; k < key.length; k++)
+			if (table.get(p + k) != key[k])
+				return false;
+		return true;
+	}
+
+	/** True if a class of that name, as ObjectStreamClass gives it, may be read. */
+	static boolean allows(String name) {
+		int dims = 0;
+		while (dims < name.length() && name.charAt(dims) == '[')
+			dims++;
+		if (dims == 0)
+			return ALLOWED.contains(name);
+		String component = name.substring(dims);
+		if (component.length() == 1)
+			return "ZBCSIJFD".indexOf(component.charAt(0)) >= 0;
+		return component.startsWith("L") && component.endsWith(";")
+				&& ALLOWED.contains(component.substring(1, component.length() - 1));
+	}
+
+	/**
+	 * True if value and everything it holds (array elements, collection
+	 * elements, map keys and values) can be stored serialized and read back.
+	 */
+	static boolean storable(Object value) {
+		if (value == null)
+			return true;
+		Class<?> type = value.getClass();
+		if (!(value instanceof Serializable) || !allows(type.getName()))
+			return false;
+		if (type.isArray()) {
+			if (!type.getComponentType().isPrimitive())
+				for (int i = 0, n = Array.getLength(value); i < n; i++)
+					if (!storable(Array.get(value, i)))
+						return false;
+		} else if (value instanceof Collection) {
+			for (Object o : (Collection<?>) value)
+				if (!storable(o))
+					return false;
+		} else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+				if (!storable(entry.getKey()) || !storable(entry.getValue()))
+					return false;
+		}
+		return true;
+	}
+
+	private static Object deserialize(byte[] bytes) {
+		try {
+			ObjectInputStream in = new ObjectInput(new ByteArrayInputStream(bytes));
+			try {
+				return in.readObject();
+			} finally {
+				in.close();
+			}
+		} catch (InvalidClassException e) {
+			throw new IllegalStateException("attribute class not allowed: " + e.classname, e);
+		} catch (IOException e) {
+			throw new IllegalStateException("corrupt attribute value", e);
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException("attribute class not found: " + e.getMessage(), e);
+		}
+	}
+
+	/** An object stream resolving allowed classes only, and no proxy. */
+	private static final class ObjectInput extends ObjectInputStream {
+
+		ObjectInput(InputStream in) throws IOException {
+			super(in);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+			if (!allows(desc.getName()))
+				throw new InvalidClassException(desc.getName(), "not an allowed attribute class");
+			return super.resolveClass(desc);
+		}
+
+		@Override
+		protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+			throw new InvalidClassException("proxy", "not an allowed attribute class");
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package csce867.graph;
+
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.AbstractElement.AttributeChangeEvent;
+
+/**
+ * Edge facade of a {@link CompactGraph}: the graph and the current index,
+ * nothing else. The index is updated by the graph when the edge is moved
+ * and set to -1 when it is removed.
+ */
+public class CompactEdge extends CompactElement implements Edge {
+
+	CompactEdge(CompactGraph graph, int index) {
+		super(graph, index, graph.edgeIds);
+	}
+
+	@Override
+	AttributeTable attributes() {
+		return graph.edgeAttributes;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[%s%s%s]", getId(), getSourceNode(), isDirected() ? "->" : "--", getTargetNode());
+	}
+
+	public boolean isDirected() {
+		return graph.edgeDirected.get(live());
+	}
+
+	public boolean isLoop() {
+		int e = live();
+		return graph.edgeSource[e] == graph.edgeTarget[e];
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T getNode0() {
+		return (T) graph.node(graph.edgeSource[live()]);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T getNode1() {
+		return (T) graph.node(graph.edgeTarget[live()]);
+	}
+
+	public <T extends Node> T getSourceNode() {
+		return getNode0();
+	}
+
+	public <T extends Node> T getTargetNode() {
+		return getNode1();
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T getOpposite(Node node) {
+		int e = live();
+		int s = graph.edgeSource[e], t = graph.edgeTarget[e];
+		if (node instanceof CompactNode && ((CompactNode) node).graph == graph) {
+			int n = ((CompactNode) node).live();
+			if (n == s)
+				return (T) graph.node(t);
+			if (n == t)
+				return (T) graph.node(s);
+		}
+		return null;
+	}
+
+	@Override
+	protected void attributeChanged(AttributeChangeEvent event, String attribute, Object oldValue,
+			Object newValue) {
+		graph.edgeAttributeChanged(index, event, attribute, oldValue, newValue);
+	}
+}
@@ -0,0 +1,163 @@
+package csce867.graph;
+
+import java.util.Collection;
+
+/**
+ * What CompactNode and CompactEdge share: the graph, the current index,
+ * the id cached on first use, and the attribute hooks reading the graph's
+ * {@link AttributeTable} for the element kind.
+ *
+ * A facade also remembers the graph generation and the id table it was
+ * made in. CompactGraph.clear() only starts a new generation, so a facade
+ * of an older one detaches itself when next used, reading its id from the
+ * old table, which nothing changes any more.
+ *
+ * Numeric attributes have a fast path. getNumber() reads a column value
+ * without boxing, and the setNumber() overloads give the key a column of
+ * that type on first use and write into it without boxing as long as no
+ * attribute sink is attached to the graph (with sinks the change goes
+ * through addAttribute() so the events carry the values). hasNumber() and
+ * hasAttribute(key, Class) answer from the column type, other Object
+ * getters see the boxed value.
+ */
+abstract class CompactElement extends FacadeElement {
+
+	final CompactGraph graph;
+	private final int generation;
+	private final IdTable ids;
+	int index;
+	private String id;
+
+	CompactElement(CompactGraph graph, int index, IdTable ids) {
+		this.graph = graph;
+		this.generation = graph.generation;
+		this.ids = ids;
+		this.index = index;
+	}
+
+	abstract AttributeTable attributes();
+
+	/** Called by the graph just before the element leaves it. */
+	void detach() {
+		getId();
+		index = -1;
+	}
+
+	/** Current index, -1 once removed or once the graph was cleared. */
+	final int live() {
+		if (generation != graph.generation && index >= 0)
+			detach();
+		return index;
+	}
+
+	public String getId() {
+		if (id == null)
+			id = ids.get(index);
+		return id;
+	}
+
+	public int getIndex() {
+		return live();
+	}
+
+	// numeric fast path
+
+	@Override
+	public double getNumber(String key) {
+		NumberColumn c = attributes().column(key);
+		if (c != null && c.has(live()))
+			return c.getDouble(live());
+		return super.getNumber(key);
+	}
+
+	@Override
+	public boolean hasNumber(String key) {
+		NumberColumn c = attributes().column(key);
+		if (c != null && c.has(live()))
+			return true;
+		return super.hasNumber(key);
+	}
+
+	@Override
+	public boolean hasAttribute(String key, Class<?> clazz) {
+		NumberColumn c = attributes().column(key);
+		if (c != null && c.has(live()))
+			return clazz.isAssignableFrom(c.type());
+		return super.hasAttribute(key, clazz);
+	}
+
+	/** Stores value as a Double attribute, unboxed in the key's column. */
+	public void setNumber(String key, double value) {
+		NumberColumn c = attributes().column(key, Double.class);
+		if (c instanceof NumberColumn.DoubleColumn && quiet()) {
+			attributes().evict(live(), key);
+			((NumberColumn.DoubleColumn) c).setDouble(live(), value);
+		} else {
+			addAttribute(key, value);
+		}
+	}
+
+	/** Stores value as a Long attribute, unboxed in the key's column. */
+	public void setNumber(String key, long value) {
+		NumberColumn c = attributes().column(key, Long.class);
+		if (c instanceof NumberColumn.LongColumn && quiet()) {
+			attributes().evict(live(), key);
+			((NumberColumn.LongColumn) c).setLong(live(), value);
+		} else {
+			addAttribute(key, value);
+		}
+	}
+
+	/** Stores value as an Integer attribute, unboxed in the key's column. */
+	public void setNumber(String key, int value) {
+		NumberColumn c = attributes().column(key, Integer.class);
+		if (c instanceof NumberColumn.IntColumn && quiet()) {
+			attributes().evict(live(), key);
+			((NumberColumn.IntColumn) c).setInt(live(), value);
+		} else {
+			addAttribute(key, value);
+		}
+	}
+
+	private boolean quiet() {
+		if (live() < 0)
+			throw new IllegalStateException("element was removed from its graph");
+		return !graph.hasAttributeSinks();
+	}
+
+	// attributes live in the graph, keyed by index
+
+	@Override
+	protected Object attributeValue(String key) {
+		return attributes().value(live(), key);
+	}
+
+	@Override
+	protected boolean containsAttribute(String key) {
+		return attributes().contains(live(), key);
+	}
+
+	@Override
+	protected Object putAttribute(String key, Object value) {
+		return attributes().put(live(), key, value);
+	}
+
+	@Override
+	protected Object deleteAttribute(String key) {
+		return attributes().delete(live(), key);
+	}
+
+	@Override
+	protected Collection<String> attributeKeys() {
+		return attributes().keys(live());
+	}
+
+	public int getAttributeCount() {
+		return live() < 0 ? 0 : attributes().count(live());
+	}
+
+	@Override
+	protected boolean nullAttributesAreErrors() {
+		return graph.nullAttributesAreErrors();
+	}
+}
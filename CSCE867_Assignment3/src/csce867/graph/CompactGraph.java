@@ -0,0 +1,1223 @@
+package csce867.graph;
+
+import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.EdgeFactory;
+import org.graphstream.graph.EdgeRejectedException;
+import org.graphstream.graph.ElementNotFoundException;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.IdAlreadyInUseException;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.NodeFactory;
+import org.graphstream.graph.implementations.AbstractElement.AttributeChangeEvent;
+import org.graphstream.stream.AttributeSink;
+import org.graphstream.stream.ElementSink;
+import org.graphstream.stream.GraphParseException;
+import org.graphstream.stream.Replayable;
+import org.graphstream.stream.Sink;
+import org.graphstream.stream.SourceBase.ElementType;
+import org.graphstream.stream.file.FileSink;
+import org.graphstream.stream.file.FileSinkFactory;
+import org.graphstream.stream.file.FileSource;
+import org.graphstream.stream.file.FileSourceFactory;
+import org.graphstream.ui.layout.Layout;
+import org.graphstream.ui.layout.Layouts;
+import org.graphstream.ui.swingViewer.GraphRenderer;
+import org.graphstream.ui.view.Viewer;
+import org.graphstream.util.GraphListeners;
+
+/**
+ * A single graph (at most one edge between two nodes, loops allowed) with
+ * the same dense index contract as SingleGraph: node and edge indices run
+ * from 0 to count - 1 and removing an element moves the last one into the
+ * freed index.
+ *
+ * Nothing is stored per element as an object. Ids sit in a packed
+ * {@link IdTable}, edge endpoints in int columns, incidence lists in a
+ * {@link CsrAdjacency} and the directed flags in a BitSet. Attributes are
+ * kept per element kind in an {@link AttributeTable}, keys interned once
+ * graph-wide in a {@link KeyDictionary}. The Node and Edge
+ * objects handed to callers are small facades (graph + index) created on
+ * first use and cached weakly in a {@link FacadeCache}, so code that only
+ * works with indices never allocates them and a facade nobody holds does
+ * not cost anything. Facades follow their element when indices are swapped
+ * and keep their id after the element is removed.
+ *
+ * Events, strict checking and auto-creation behave as in AbstractGraph, the
+ * library's GraphListeners doing the event bookkeeping.
+ *
+ * With {@link #setStableIndices(boolean)} on, removal leaves the freed
+ * index empty instead, so indices held by a caller stay valid: the ids and
+ * attributes of the element are dropped and its edges are only marked
+ * removed, their entries in the incidence lists of the other endpoints
+ * being purged the next time those lists are read, or all at once by the
+ * next rebuild. Removing a node costs its degree, whatever the degree of
+ * its neighbours. {@link #compactIndices()} closes the holes when the
+ * caller allows indices to move. While there are holes, indices run up to
+ * {@link #getNodeIndexLimit()} rather than getNodeCount(), which code
+ * sizing arrays by the count (gs-core's algorithms) does not expect.
+ *
+ * {@link #setEdgePairIndex(boolean, boolean)} adds a graph-wide
+ * {@link EdgePairIndex} so that the lookups by node pair (getEdgeBetween,
+ * getEdgeToward/From, removeEdge(from, to) and the single graph check of
+ * addEdge) no longer walk an incidence list, at 24 to 48 bytes per edge.
+ *
+ * clear() only starts a new generation over fresh tables; facades of the
+ * old one find out and detach themselves when next used.
+ *
+ * Reading from several threads at once, e.g. a parallel {@link #nodes()}
+ * stream, is safe; changes need a single thread and no concurrent reader.
+ */
+public class CompactGraph extends FacadeElement implements Graph {
+
+	public static final int DEFAULT_NODE_CAPACITY = 128;
+	public static final int DEFAULT_EDGE_CAPACITY = 1024;
+
+	private final String id;
+	private final GraphListeners listeners;
+	private final GraphReplayController replayController;
+
+	private boolean strictChecking;
+	private boolean autoCreate;
+	private boolean nullAttributesAreErrors;
+	private double step;
+	private boolean attributeSinksAttached;
+	private boolean stableIndices;
+	private final int nodeCapacity;
+	private final int edgeCapacity;
+
+	/** bumped by clear(), see CompactElement */
+	int generation;
+
+	IdTable nodeIds;
+	IdTable edgeIds;
+	int[] edgeSource;
+	int[] edgeTarget;
+	BitSet edgeDirected;
+	/** edges removed with stable indices whose index is still empty */
+	BitSet removedEdges;
+	CsrAdjacency adjacency;
+	/** null unless enabled, see setEdgePairIndex */
+	EdgePairIndex pairIndex;
+	private boolean pairIndexBloom;
+
+	FacadeCache<CompactNode> nodeFacades;
+	FacadeCache<CompactEdge> edgeFacades;
+
+	final KeyDictionary keyDictionary = new KeyDictionary();
+	AttributeTable nodeAttributes;
+	AttributeTable edgeAttributes;
+	private HashMap<String, Object> graphAttributes;
+
+	public CompactGraph(String id, boolean strictChecking, boolean autoCreate, int initialNodeCapacity,
+			int initialEdgeCapacity) {
+		this.id = id;
+		this.strictChecking = strictChecking;
+		this.autoCreate = autoCreate;
+		nodeCapacity = Math.max(initialNodeCapacity, 1);
+		edgeCapacity = Math.max(initialEdgeCapacity, 1);
+		allocate();
+		listeners = new GraphListeners(this);
+		replayController = new GraphReplayController(this);
+	}
+
+	public CompactGraph(String id, boolean strictChecking, boolean autoCreate) {
+		this(id, strictChecking, autoCreate, DEFAULT_NODE_CAPACITY, DEFAULT_EDGE_CAPACITY);
+	}
+
+	public CompactGraph(String id) {
+		this(id, true, false);
+	}
+
+	/** Fresh, empty tables at the initial capacities. */
+	private void allocate() {
+		nodeIds = new IdTable(nodeCapacity);
+		edgeIds = new IdTable(edgeCapacity);
+		edgeSource = new int[edgeCapacity];
+		edgeTarget = new int[edgeCapacity];
+		edgeDirected = new BitSet();
+		removedEdges = new BitSet();
+		adjacency = new CsrAdjacency(nodeCapacity, edgeCapacity);
+		nodeFacades = new FacadeCache<CompactNode>();
+		edgeFacades = new FacadeCache<CompactEdge>();
+		nodeAttributes = new AttributeTable(keyDictionary, nodeCapacity);
+		edgeAttributes = new AttributeTable(keyDictionary, edgeCapacity);
+		if (pairIndex != null)
+			pairIndex = new EdgePairIndex(edgeCapacity, pairIndexBloom);
+	}
+
+	// Index level access, no facade is created
+
+	public int getNodeIndex(String nodeId) {
+		return nodeIds.indexOf(nodeId);
+	}
+
+	public int getEdgeIndex(String edgeId) {
+		return edgeIds.indexOf(edgeId);
+	}
+
+	public int getSourceIndex(int edge) {
+		checkEdge(edge);
+		return edgeSource[edge];
+	}
+
+	public int getTargetIndex(int edge) {
+		checkEdge(edge);
+		return edgeTarget[edge];
+	}
+
+	public boolean isDirected(int edge) {
+		checkEdge(edge);
+		return edgeDirected.get(edge);
+	}
+
+	public int getDegree(int node) {
+		checkNode(node);
+		purge(node);
+		return adjacency.degree(node);
+	}
+
+	/** i-th edge incident to node, in no particular order. */
+	public int getIncidentEdge(int node, int i) {
+		checkNode(node);
+		purge(node);
+		if (i < 0 || i >= adjacency.degree(node))
+			throw new IndexOutOfBoundsException("Node " + node + " has no edge " + i);
+		return adjacency.get(node, i);
+	}
+
+	/** Index of the edge between the two nodes in any direction, or -1. */
+	public int getEdgeBetweenIndex(int node1, int node2) {
+		checkNode(node1);
+		checkNode(node2);
+		return edgeBetween(node1, node2);
+	}
+
+	/**
+	 * Folds the delta buffer into the CSR arrays now instead of waiting for
+	 * it to cross its threshold, e.g. after a bulk load.
+	 */
+	public void compact() {
+		adjacency.rebuild(nodeIds.size(), edgeIds.size(), edgeSource, edgeTarget, removedEdges);
+		nodeFacades.expunge();
+		edgeFacades.expunge();
+	}
+
+	// Index stability
+
+	/**
+	 * Whether removing an element leaves its index empty (on) or moves the
+	 * last element into it (off, the SingleGraph contract and the default).
+	 * Turning it off closes the holes, see {@link #compactIndices()}.
+	 */
+	public void setStableIndices(boolean on) {
+		if (stableIndices && !on)
+			compactIndices();
+		stableIndices = on;
+	}
+
+	public boolean hasStableIndices() {
+		return stableIndices;
+	}
+
+	// Edge pair index
+
+	/**
+	 * Indexes (or stops indexing) the edges by their pair of endpoints,
+	 * optionally behind a Bloom filter that answers most absent pairs
+	 * without touching the table: worth it when most lookups miss, as in
+	 * link prediction.
+	 */
+	public void setEdgePairIndex(boolean on, boolean bloomFilter) {
+		pairIndexBloom = bloomFilter;
+		pairIndex = on ? buildPairIndex() : null;
+	}
+
+	public boolean hasEdgePairIndex() {
+		return pairIndex != null;
+	}
+
+	private EdgePairIndex buildPairIndex() {
+		EdgePairIndex index = new EdgePairIndex(Math.max(edgeIds.live(), edgeCapacity), pairIndexBloom);
+		for (int e = 0; e < edgeIds.size(); e++)
+			if (!edgeIds.isDead(e))
+				index.put(edgeSource[e], edgeTarget[e], e);
+		return index;
+	}
+
+	/** Bound of the node indices, the node count plus the empty indices. */
+	public int getNodeIndexLimit() {
+		return nodeIds.size();
+	}
+
+	public int getEdgeIndexLimit() {
+		return edgeIds.size();
+	}
+
+	/** Whether a node is at index, false for the indices left empty. */
+	public boolean hasNode(int index) {
+		return index >= 0 && index < nodeIds.size() && !nodeIds.isDead(index);
+	}
+
+	public boolean hasEdge(int index) {
+		return index >= 0 && index < edgeIds.size() && !edgeIds.isDead(index);
+	}
+
+	/**
+	 * Renumbers the nodes and edges from 0 without holes, keeping their
+	 * order, and rebuilds the incidence lists. Facades follow their element,
+	 * indices held elsewhere are void.
+	 */
+	public void compactIndices() {
+		if (nodeIds.live() == nodeIds.size() && edgeIds.live() == edgeIds.size())
+			return;
+		int[] nodeMoved = nodeIds.squeeze();
+		for (int u = 0; u < nodeMoved.length; u++) {
+			int to = nodeMoved[u];
+			if (to >= 0 && to != u) {
+				nodeAttributes.move(u, to);
+				CompactNode moved = nodeFacades.move(u, to);
+				if (moved != null)
+					moved.index = to;
+			}
+		}
+		int[] edgeMoved = edgeIds.squeeze();
+		for (int e = 0; e < edgeMoved.length; e++) {
+			int to = edgeMoved[e];
+			if (to < 0)
+				continue;
+			edgeSource[to] = nodeMoved[edgeSource[e]];
+			edgeTarget[to] = nodeMoved[edgeTarget[e]];
+			if (to != e) {
+				edgeDirected.set(to, edgeDirected.get(e));
+				edgeAttributes.move(e, to);
+				CompactEdge moved = edgeFacades.move(e, to);
+				if (moved != null)
+					moved.index = to;
+			}
+		}
+		edgeDirected.clear(edgeIds.size(), Math.max(edgeIds.size(), edgeMoved.length));
+		removedEdges.clear();
+		if (pairIndex != null)
+			pairIndex = buildPairIndex();
+		compact();
+	}
+
+	/** Drops the removed edges still listed by node u. */
+	void purge(int u) {
+		if (adjacency.stale[u] != 0)
+			adjacency.purge(u, removedEdges);
+	}
+
+	/** Approximate bytes of the structure, ids and facade/attribute tables. */
+	public long footprint() {
+		return nodeIds.footprint() + edgeIds.footprint() + adjacency.footprint()
+				+ 8L * edgeSource.length + edgeDirected.size() / 8
+				+ nodeFacades.footprint() + edgeFacades.footprint()
+				+ nodeAttributes.footprint() + edgeAttributes.footprint()
+				+ (pairIndex == null ? 0 : pairIndex.footprint());
+	}
+
+	int edgeBetween(int u, int v) {
+		EdgePairIndex index = pairIndex;
+		if (index != null)
+			return index.get(u, v);
+		purge(u);
+		purge(v);
+		int a = u, b = v;
+		if (adjacency.degree(b) < adjacency.degree(a)) {
+			a = v;
+			b = u;
+		}
+		CsrAdjacency adj = adjacency;
+		int s = adj.start[a], end = s + adj.length[a];
+		for (int p = s; p < end; p++) {
+			int e = adj.csr[p];
+			if (opposite(e, a) == b)
+				return e;
+		}
+		for (int cell = adj.deltaHead[a]; cell >= 0; cell = adj.deltaNext[cell]) {
+			int e = adj.deltaEdge[cell];
+			if (opposite(e, a) == b)
+				return e;
+		}
+		return -1;
+	}
+
+	int opposite(int edge, int node) {
+		int s = edgeSource[edge];
+		return s == node ? edgeTarget[edge] : s;
+	}
+
+	void checkNode(int index) {
+		if (!hasNode(index))
+			throw new IndexOutOfBoundsException("Node " + index + " does not exist");
+	}
+
+	void checkEdge(int index) {
+		if (!hasEdge(index))
+			throw new IndexOutOfBoundsException("Edge " + index + " does not exist");
+	}
+
+	// facades are looked up under the cache's lock so that readers on
+	// several threads (parallel streams) still share one facade per element
+
+	CompactNode node(int index) {
+		FacadeCache<CompactNode> cache = nodeFacades;
+		synchronized (cache) {
+			CompactNode n = cache.get(index);
+			if (n == null)
+				cache.put(index, n = new CompactNode(this, index));
+			return n;
+		}
+	}
+
+	CompactEdge edge(int index) {
+		FacadeCache<CompactEdge> cache = edgeFacades;
+		synchronized (cache) {
+			CompactEdge e = cache.get(index);
+			if (e == null)
+				cache.put(index, e = new CompactEdge(this, index));
+			return e;
+		}
+	}
+
+	// Element attributes, in one AttributeTable per element kind
+
+	boolean hasAttributeSinks() {
+		return attributeSinksAttached;
+	}
+
+	/**
+	 * Numeric value of key on a node without creating its facade or boxing
+	 * when the key has a column (see {@link CompactNode#setNumber(String, double)}).
+	 */
+	public double getNodeNumber(int node, String key) {
+		checkNode(node);
+		NumberColumn c = nodeAttributes.column(key);
+		if (c != null && c.has(node))
+			return c.getDouble(node);
+		return node(node).getNumber(key);
+	}
+
+	public void setNodeNumber(int node, String key, double value) {
+		checkNode(node);
+		NumberColumn c = nodeAttributes.column(key, Double.class);
+		if (c instanceof NumberColumn.DoubleColumn && !attributeSinksAttached) {
+			nodeAttributes.evict(node, key);
+			((NumberColumn.DoubleColumn) c).setDouble(node, value);
+		} else {
+			node(node).setNumber(key, value);
+		}
+	}
+
+	/** Same as {@link #getNodeNumber(int, String)} for an edge. */
+	public double getEdgeNumber(int edge, String key) {
+		checkEdge(edge);
+		NumberColumn c = edgeAttributes.column(key);
+		if (c != null && c.has(edge))
+			return c.getDouble(edge);
+		return edge(edge).getNumber(key);
+	}
+
+	public void setEdgeNumber(int edge, String key, double value) {
+		checkEdge(edge);
+		NumberColumn c = edgeAttributes.column(key, Double.class);
+		if (c instanceof NumberColumn.DoubleColumn && !attributeSinksAttached) {
+			edgeAttributes.evict(edge, key);
+			((NumberColumn.DoubleColumn) c).setDouble(edge, value);
+		} else {
+			edge(edge).setNumber(key, value);
+		}
+	}
+
+	void nodeAttributeChanged(int index, AttributeChangeEvent event, String attribute, Object oldValue,
+			Object newValue) {
+		listeners.sendAttributeChangedEvent(nodeIds.get(index), ElementType.NODE, attribute, event, oldValue,
+				newValue);
+	}
+
+	void edgeAttributeChanged(int index, AttributeChangeEvent event, String attribute, Object oldValue,
+			Object newValue) {
+		listeners.sendAttributeChangedEvent(edgeIds.get(index), ElementType.EDGE, attribute, event, oldValue,
+				newValue);
+	}
+
+	// FacadeElement, the graph's own attributes
+
+	public String getId() {
+		return id;
+	}
+
+	public int getIndex() {
+		return 0;
+	}
+
+	@Override
+	protected Object attributeValue(String key) {
+		return graphAttributes == null ? null : graphAttributes.get(key);
+	}
+
+	@Override
+	protected boolean containsAttribute(String key) {
+		return graphAttributes != null && graphAttributes.containsKey(key);
+	}
+
+	@Override
+	protected Object putAttribute(String key, Object value) {
+		if (graphAttributes == null)
+			graphAttributes = new HashMap<String, Object>(4);
+		return graphAttributes.put(key, value);
+	}
+
+	@Override
+	protected Object deleteAttribute(String key) {
+		return graphAttributes == null ? null : graphAttributes.remove(key);
+	}
+
+	@Override
+	protected Collection<String> attributeKeys() {
+		if (graphAttributes == null)
+			return Collections.emptyList();
+		return new ArrayList<String>(graphAttributes.keySet());
+	}
+
+	public int getAttributeCount() {
+		return graphAttributes == null ? 0 : graphAttributes.size();
+	}
+
+	@Override
+	protected void attributeChanged(AttributeChangeEvent event, String attribute, Object oldValue,
+			Object newValue) {
+		listeners.sendAttributeChangedEvent(id, ElementType.GRAPH, attribute, event, oldValue, newValue);
+	}
+
+	public boolean nullAttributesAreErrors() {
+		return nullAttributesAreErrors;
+	}
+
+	public void setNullAttributesAreErrors(boolean on) {
+		nullAttributesAreErrors = on;
+	}
+
+	// Graph settings
+
+	public boolean isStrict() {
+		return strictChecking;
+	}
+
+	public void setStrict(boolean on) {
+		strictChecking = on;
+	}
+
+	public boolean isAutoCreationEnabled() {
+		return autoCreate;
+	}
+
+	public void setAutoCreate(boolean on) {
+		autoCreate = on;
+	}
+
+	public double getStep() {
+		return step;
+	}
+
+	public void stepBegins(double time) {
+		listeners.sendStepBegins(time);
+		step = time;
+	}
+
+	/**
+	 * Elements are facades over the graph's arrays, so there is nothing a
+	 * factory could build. Always null.
+	 */
+	public NodeFactory<? extends Node> nodeFactory() {
+		return null;
+	}
+
+	public EdgeFactory<? extends Edge> edgeFactory() {
+		return null;
+	}
+
+	public void setNodeFactory(NodeFactory<? extends Node> nf) {
+		throw new UnsupportedOperationException("CompactGraph does not use node factories");
+	}
+
+	public void setEdgeFactory(EdgeFactory<? extends Edge> ef) {
+		throw new UnsupportedOperationException("CompactGraph does not use edge factories");
+	}
+
+	// Structure
+
+	public int getNodeCount() {
+		return nodeIds.live();
+	}
+
+	public int getEdgeCount() {
+		return edgeIds.live();
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T getNode(String nodeId) {
+		int index = nodeIds.indexOf(nodeId);
+		return index < 0 ? null : (T) node(index);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T getNode(int index) throws IndexOutOfBoundsException {
+		checkNode(index);
+		return (T) node(index);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T getEdge(String edgeId) {
+		int index = edgeIds.indexOf(edgeId);
+		return index < 0 ? null : (T) edge(index);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T getEdge(int index) throws IndexOutOfBoundsException {
+		checkEdge(index);
+		return (T) edge(index);
+	}
+
+	public <T extends Node> Iterator<T> getNodeIterator() {
+		return new ElementIterator<T>(true);
+	}
+
+	public <T extends Edge> Iterator<T> getEdgeIterator() {
+		return new ElementIterator<T>(false);
+	}
+
+	public <T extends Node> Iterable<? extends T> getEachNode() {
+		return new Iterable<T>() {
+			public Iterator<T> iterator() {
+				return getNodeIterator();
+			}
+		};
+	}
+
+	public <T extends Edge> Iterable<? extends T> getEachEdge() {
+		return new Iterable<T>() {
+			public Iterator<T> iterator() {
+				return getEdgeIterator();
+			}
+		};
+	}
+
+	public <T extends Node> Collection<T> getNodeSet() {
+		return new AbstractCollection<T>() {
+			public Iterator<T> iterator() {
+				return getNodeIterator();
+			}
+
+			public int size() {
+				return getNodeCount();
+			}
+		};
+	}
+
+	public <T extends Edge> Collection<T> getEdgeSet() {
+		return new AbstractCollection<T>() {
+			public Iterator<T> iterator() {
+				return getEdgeIterator();
+			}
+
+			public int size() {
+				return getEdgeCount();
+			}
+		};
+	}
+
+	public Iterator<Node> iterator() {
+		return getNodeIterator();
+	}
+
+	// Streams, see GraphStreams
+
+	/**
+	 * Nodes in index order over a spliterator of the index range, SIZED
+	 * unless stable indices left holes, which are skipped.
+	 */
+	public <T extends Node> Stream<T> nodes() {
+		return stream(true, nodeIds.live() == nodeIds.size() ? null : i -> !nodeIds.isDead(i));
+	}
+
+	public <T extends Edge> Stream<T> edges() {
+		return stream(false, edgeIds.live() == edgeIds.size() ? null : i -> !edgeIds.isDead(i));
+	}
+
+	/**
+	 * Nodes whose value for key passes test, read from the attribute table
+	 * by index: the nodes rejected never get a facade.
+	 */
+	public <T extends Node> Stream<T> nodes(String key, Predicate<Object> test) {
+		return stream(true, i -> !nodeIds.isDead(i) && test.test(nodeAttributes.value(i, key)));
+	}
+
+	public <T extends Edge> Stream<T> edges(String key, Predicate<Object> test) {
+		return stream(false, i -> !edgeIds.isDead(i) && test.test(edgeAttributes.value(i, key)));
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> Stream<T> stream(boolean nodes, IntPredicate accept) {
+		IntFunction<T> element = nodes ? i -> (T) node(i) : i -> (T) edge(i);
+		IntSupplier bound = nodes ? nodeIds::size : edgeIds::size;
+		return StreamSupport.stream(new IndexSpliterator<T>(element, bound, accept), false);
+	}
+
+	private class ElementIterator<T> implements Iterator<T> {
+		final boolean nodes;
+		int next;
+		int last = -1;
+
+		ElementIterator(boolean nodes) {
+			this.nodes = nodes;
+		}
+
+		public boolean hasNext() {
+			IdTable ids = nodes ? nodeIds : edgeIds;
+			while (next < ids.size() && ids.isDead(next))
+				next++;
+			return next < ids.size();
+		}
+
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			last = next++;
+			return (T) (nodes ? node(last) : edge(last));
+		}
+
+		public void remove() {
+			if (last < 0)
+				throw new IllegalStateException();
+			// unless indices are stable, the last element moves into the
+			// freed index, visit it next
+			if (!stableIndices)
+				next = last;
+			if (nodes)
+				removeNodeAt(last);
+			else
+				removeEdgeAt(last);
+			last = -1;
+		}
+	}
+
+	// Mutation
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T addNode(String nodeId) throws IdAlreadyInUseException {
+		int index = nodeIds.indexOf(nodeId);
+		if (index >= 0) {
+			if (strictChecking)
+				throw new IdAlreadyInUseException("id \"" + nodeId + "\" already in use. Cannot create a node.");
+			return (T) node(index);
+		}
+		index = nodeIds.add(nodeId);
+		nodeAttributes.ensure(index + 1);
+		adjacency.addNode(index);
+		listeners.sendNodeAdded(nodeId);
+		return (T) node(index);
+	}
+
+	public <T extends Edge> T addEdge(String edgeId, String node1, String node2) {
+		return addEdge(edgeId, node1, node2, false);
+	}
+
+	public <T extends Edge> T addEdge(String edgeId, String from, String to, boolean directed) {
+		return addEdge(edgeId, nodeIds.indexOf(from), from, nodeIds.indexOf(to), to, directed);
+	}
+
+	public <T extends Edge> T addEdge(String edgeId, int index1, int index2) {
+		return addEdge(edgeId, index1, index2, false);
+	}
+
+	public <T extends Edge> T addEdge(String edgeId, int fromIndex, int toIndex, boolean directed) {
+		checkNode(fromIndex);
+		checkNode(toIndex);
+		return addEdge(edgeId, fromIndex, nodeIds.get(fromIndex), toIndex, nodeIds.get(toIndex), directed);
+	}
+
+	public <T extends Edge> T addEdge(String edgeId, Node node1, Node node2) {
+		return addEdge(edgeId, node1, node2, false);
+	}
+
+	public <T extends Edge> T addEdge(String edgeId, Node from, Node to, boolean directed) {
+		return addEdge(edgeId, indexOf(from), from.getId(), indexOf(to), to.getId(), directed);
+	}
+
+	/** Index of a node of this graph, -1 for foreign or removed nodes. */
+	private int indexOf(Node n) {
+		if (n instanceof CompactNode && ((CompactNode) n).graph == this)
+			return ((CompactNode) n).live();
+		return -1;
+	}
+
+	/**
+	 * Same checks and the same order as AbstractGraph.addEdge: duplicate id,
+	 * missing nodes (strict / auto-create), then the single graph rule.
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T extends Edge> T addEdge(String edgeId, int from, String fromId, int to, String toId,
+			boolean directed) {
+		int e = edgeIds.indexOf(edgeId);
+		if (e >= 0) {
+			if (strictChecking)
+				throw new IdAlreadyInUseException("id \"" + edgeId + "\" already in use. Cannot create an edge.");
+			if (edgeSource[e] == from && edgeTarget[e] == to)
+				return (T) edge(e);
+			return null;
+		}
+
+		if (from < 0 || to < 0) {
+			if (strictChecking)
+				throw new ElementNotFoundException("Cannot create edge %s[%s-%s%s]. Node '%s' does not exist.",
+						edgeId, fromId, directed ? ">" : "-", toId, from < 0 ? fromId : toId);
+			if (!autoCreate)
+				return null;
+			if (from < 0)
+				from = addNode(fromId).getIndex();
+			if (to < 0)
+				to = addNode(toId).getIndex();
+		}
+
+		if (edgeBetween(from, to) >= 0) {
+			if (strictChecking)
+				throw new EdgeRejectedException("Edge " + edgeId + " was rejected by node " + fromId);
+			return null;
+		}
+
+		e = edgeIds.add(edgeId);
+		if (e == edgeSource.length) {
+			int n = IdTable.grow(e);
+			edgeSource = Arrays.copyOf(edgeSource, n);
+			edgeTarget = Arrays.copyOf(edgeTarget, n);
+		}
+		edgeAttributes.ensure(e + 1);
+		edgeSource[e] = from;
+		edgeTarget[e] = to;
+		edgeDirected.set(e, directed);
+		adjacency.add(from, e);
+		if (to != from)
+			adjacency.add(to, e);
+		if (pairIndex != null)
+			pairIndex.put(from, to, e);
+		if (adjacency.needsRebuild())
+			compact();
+
+		listeners.sendEdgeAdded(edgeId, fromId, toId, directed);
+		return (T) edge(e);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T removeNode(String nodeId) throws ElementNotFoundException {
+		int index = nodeIds.indexOf(nodeId);
+		if (index < 0) {
+			if (strictChecking)
+				throw new ElementNotFoundException("Node \"" + nodeId + "\" not found. Cannot remove it.");
+			return null;
+		}
+		CompactNode n = node(index);
+		removeNode(index);
+		return (T) n;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T removeNode(int index) throws IndexOutOfBoundsException {
+		checkNode(index);
+		CompactNode n = node(index);
+		removeNodeAt(index);
+		return (T) n;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T removeNode(Node node) {
+		int index = indexOf(node);
+		if (index < 0) {
+			if (strictChecking && node != null)
+				throw new ElementNotFoundException("Node \"" + node.getId() + "\" not found. Cannot remove it.");
+			return null;
+		}
+		removeNodeAt(index);
+		return (T) node;
+	}
+
+	/**
+	 * The list of u is dropped in one go, so each incident edge is only taken
+	 * out of the list of its other endpoint, or just marked removed with
+	 * stable indices.
+	 */
+	private void removeNodeAt(int u) {
+		purge(u);
+		int[] incident = adjacency.list(u);
+		adjacency.drop(u);
+		if (stableIndices) {
+			for (int e : incident)
+				killEdge(e, u);
+		} else {
+			// highest index first: the edge moved into a freed index is never one still to remove
+			Arrays.sort(incident);
+			for (int i = incident.length - 1; i >= 0; i--)
+				removeEdgeAt(incident[i]);
+		}
+
+		listeners.sendNodeRemoved(nodeIds.get(u));
+
+		CompactNode gone = nodeFacades.take(u);
+		if (gone != null)
+			gone.detach();
+		if (stableIndices) {
+			nodeAttributes.clear(u);
+			nodeIds.kill(u);
+			return;
+		}
+		int last = nodeIds.size() - 1;
+		if (u != last) {
+			adjacency.moveNode(last, u);
+			for (int i = adjacency.degree(u) - 1; i >= 0; i--) {
+				int e = adjacency.get(u, i);
+				if (pairIndex != null) {
+					pairIndex.remove(edgeSource[e], edgeTarget[e]);
+					pairIndex.put(edgeSource[e] == last ? u : edgeSource[e],
+							edgeTarget[e] == last ? u : edgeTarget[e], e);
+				}
+				if (edgeSource[e] == last)
+					edgeSource[e] = u;
+				if (edgeTarget[e] == last)
+					edgeTarget[e] = u;
+			}
+			CompactNode moved = nodeFacades.move(last, u);
+			if (moved != null)
+				moved.index = u;
+			nodeAttributes.move(last, u);
+		} else {
+			nodeAttributes.clear(u);
+		}
+		nodeIds.removeSwap(u);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T removeEdge(String edgeId) throws ElementNotFoundException {
+		int index = edgeIds.indexOf(edgeId);
+		if (index < 0) {
+			if (strictChecking)
+				throw new ElementNotFoundException("Edge \"" + edgeId + "\" not found. Cannot remove it.");
+			return null;
+		}
+		CompactEdge e = edge(index);
+		removeEdgeAt(index);
+		return (T) e;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T removeEdge(int index) throws IndexOutOfBoundsException {
+		checkEdge(index);
+		CompactEdge e = edge(index);
+		removeEdgeAt(index);
+		return (T) e;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T removeEdge(Edge edge) {
+		if (edge instanceof CompactEdge && ((CompactEdge) edge).graph == this && ((CompactEdge) edge).live() >= 0)
+			removeEdgeAt(((CompactEdge) edge).index);
+		return (T) edge;
+	}
+
+	public <T extends Edge> T removeEdge(String from, String to) throws ElementNotFoundException {
+		int u = nodeIds.indexOf(from), v = nodeIds.indexOf(to);
+		if (u < 0 || v < 0) {
+			if (strictChecking)
+				throw new ElementNotFoundException("Cannot remove edge between \"%s\" and \"%s\". Node '%s' does not exist.",
+						from, to, u < 0 ? from : to);
+			return null;
+		}
+		return removeEdgeToward(u, v);
+	}
+
+	public <T extends Edge> T removeEdge(int fromIndex, int toIndex) {
+		checkNode(fromIndex);
+		checkNode(toIndex);
+		return removeEdgeToward(fromIndex, toIndex);
+	}
+
+	public <T extends Edge> T removeEdge(Node node1, Node node2) throws ElementNotFoundException {
+		int u = indexOf(node1), v = indexOf(node2);
+		if (u < 0 || v < 0) {
+			if (strictChecking)
+				throw new ElementNotFoundException("Cannot remove edge between \"%s\" and \"%s\".", node1, node2);
+			return null;
+		}
+		return removeEdgeToward(u, v);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T extends Edge> T removeEdgeToward(int u, int v) {
+		int e = edgeBetween(u, v);
+		if (e >= 0 && edgeDirected.get(e) && edgeSource[e] != u)
+			e = -1;
+		if (e < 0) {
+			if (strictChecking)
+				throw new ElementNotFoundException("There is no edge from \"%s\" to \"%s\". Cannot remove it.",
+						nodeIds.get(u), nodeIds.get(v));
+			return null;
+		}
+		CompactEdge edge = edge(e);
+		removeEdgeAt(e);
+		return (T) edge;
+	}
+
+	private void removeEdgeAt(int e) {
+		if (stableIndices) {
+			killEdge(e, -1);
+			return;
+		}
+		listeners.sendEdgeRemoved(edgeIds.get(e));
+
+		int s = edgeSource[e], t = edgeTarget[e];
+		adjacency.remove(s, e);
+		if (t != s)
+			adjacency.remove(t, e);
+		if (pairIndex != null)
+			pairIndex.remove(s, t);
+
+		CompactEdge gone = edgeFacades.take(e);
+		if (gone != null)
+			gone.detach();
+		int last = edgeIds.size() - 1;
+		if (e != last) {
+			int ls = edgeSource[last], lt = edgeTarget[last];
+			adjacency.replace(ls, last, e);
+			if (lt != ls)
+				adjacency.replace(lt, last, e);
+			if (pairIndex != null)
+				pairIndex.put(ls, lt, e);
+			edgeSource[e] = ls;
+			edgeTarget[e] = lt;
+			edgeDirected.set(e, edgeDirected.get(last));
+			CompactEdge moved = edgeFacades.move(last, e);
+			if (moved != null)
+				moved.index = e;
+			edgeAttributes.move(last, e);
+		} else {
+			edgeAttributes.clear(e);
+		}
+		edgeDirected.clear(last);
+		// no rebuild here, it would reorder lists that iterators are removing from
+		edgeIds.removeSwap(e);
+	}
+
+	/**
+	 * Removes e and leaves its index empty. The entries of the endpoints
+	 * other than dropped (whose list is going away) go stale.
+	 */
+	private void killEdge(int e, int dropped) {
+		listeners.sendEdgeRemoved(edgeIds.get(e));
+		int s = edgeSource[e], t = edgeTarget[e];
+		if (s != dropped)
+			adjacency.markStale(s);
+		if (t != s && t != dropped)
+			adjacency.markStale(t);
+		removedEdges.set(e);
+		if (pairIndex != null)
+			pairIndex.remove(s, t);
+		CompactEdge gone = edgeFacades.take(e);
+		if (gone != null)
+			gone.detach();
+		edgeAttributes.clear(e);
+		edgeDirected.clear(e);
+		edgeIds.kill(e);
+	}
+
+	/** Starts a new generation, nothing is walked. */
+	public void clear() {
+		listeners.sendGraphCleared();
+		generation++;
+		allocate();
+		graphAttributes = null;
+	}
+
+	// Sinks and sources, all handled by the library's GraphListeners
+
+	public Iterable<AttributeSink> attributeSinks() {
+		return listeners.attributeSinks();
+	}
+
+	public Iterable<ElementSink> elementSinks() {
+		return listeners.elementSinks();
+	}
+
+	public void addSink(Sink sink) {
+		listeners.addSink(sink);
+		sinksChanged();
+	}
+
+	public void removeSink(Sink sink) {
+		listeners.removeSink(sink);
+		sinksChanged();
+	}
+
+	public void addAttributeSink(AttributeSink sink) {
+		listeners.addAttributeSink(sink);
+		sinksChanged();
+	}
+
+	public void removeAttributeSink(AttributeSink sink) {
+		listeners.removeAttributeSink(sink);
+		sinksChanged();
+	}
+
+	public void addElementSink(ElementSink sink) {
+		listeners.addElementSink(sink);
+	}
+
+	public void removeElementSink(ElementSink sink) {
+		listeners.removeElementSink(sink);
+	}
+
+	public void clearElementSinks() {
+		listeners.clearElementSinks();
+	}
+
+	public void clearAttributeSinks() {
+		listeners.clearAttributeSinks();
+		sinksChanged();
+	}
+
+	public void clearSinks() {
+		listeners.clearSinks();
+		sinksChanged();
+	}
+
+	private void sinksChanged() {
+		attributeSinksAttached = listeners.attributeSinks().iterator().hasNext();
+	}
+
+	public Replayable.Controller getReplayController() {
+		return replayController;
+	}
+
+	public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+		listeners.edgeAttributeAdded(sourceId, timeId, edgeId, attribute, value);
+	}
+
+	public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute,
+			Object oldValue, Object newValue) {
+		listeners.edgeAttributeChanged(sourceId, timeId, edgeId, attribute, oldValue, newValue);
+	}
+
+	public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+		listeners.edgeAttributeRemoved(sourceId, timeId, edgeId, attribute);
+	}
+
+	public void graphAttributeAdded(String sourceId, long timeId, String attribute, Object value) {
+		listeners.graphAttributeAdded(sourceId, timeId, attribute, value);
+	}
+
+	public void graphAttributeChanged(String sourceId, long timeId, String attribute, Object oldValue,
+			Object newValue) {
+		listeners.graphAttributeChanged(sourceId, timeId, attribute, oldValue, newValue);
+	}
+
+	public void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+		listeners.graphAttributeRemoved(sourceId, timeId, attribute);
+	}
+
+	public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+		listeners.nodeAttributeAdded(sourceId, timeId, nodeId, attribute, value);
+	}
+
+	public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute,
+			Object oldValue, Object newValue) {
+		listeners.nodeAttributeChanged(sourceId, timeId, nodeId, attribute, oldValue, newValue);
+	}
+
+	public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+		listeners.nodeAttributeRemoved(sourceId, timeId, nodeId, attribute);
+	}
+
+	public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId,
+			boolean directed) {
+		listeners.edgeAdded(sourceId, timeId, edgeId, fromNodeId, toNodeId, directed);
+	}
+
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		listeners.edgeRemoved(sourceId, timeId, edgeId);
+	}
+
+	public void graphCleared(String sourceId, long timeId) {
+		listeners.graphCleared(sourceId, timeId);
+	}
+
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		listeners.nodeAdded(sourceId, timeId, nodeId);
+	}
+
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		listeners.nodeRemoved(sourceId, timeId, nodeId);
+	}
+
+	public void stepBegins(String sourceId, long timeId, double time) {
+		listeners.stepBegins(sourceId, timeId, time);
+	}
+
+	// I/O and display, as in AbstractGraph
+
+	public void read(String filename) throws IOException, GraphParseException, ElementNotFoundException {
+		FileSource input = FileSourceFactory.sourceFor(filename);
+		if (input == null)
+			throw new IOException("No source reader for " + filename);
+		input.addSink(this);
+		read(input, filename);
+		input.removeSink(this);
+	}
+
+	public void read(FileSource input, String filename) throws IOException, GraphParseException {
+		input.readAll(filename);
+	}
+
+	public void write(String filename) throws IOException {
+		FileSink output = FileSinkFactory.sinkFor(filename);
+		if (output == null)
+			throw new IOException("No sink writer for " + filename);
+		write(output, filename);
+	}
+
+	public void write(FileSink output, String filename) throws IOException {
+		output.writeAll(this, filename);
+	}
+
+	public Viewer display() {
+		return display(true);
+	}
+
+	public Viewer display(boolean autoLayout) {
+		Viewer viewer = new Viewer(new RingProxyPipe(this, true));
+		viewer.enableXYZfeedback(false);
+		GraphRenderer renderer = Viewer.newGraphRenderer();
+		viewer.addView(Viewer.DEFAULT_VIEW_ID, renderer);
+		if (autoLayout) {
+			Layout layout = Layouts.newLayoutAlgorithm();
+			viewer.enableAutoLayout(layout);
+		}
+		return viewer;
+	}
+}
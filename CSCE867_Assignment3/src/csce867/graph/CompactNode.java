@@ -0,0 +1,335 @@
+package csce867.graph;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.graphstream.graph.BreadthFirstIterator;
+import org.graphstream.graph.DepthFirstIterator;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.AbstractElement.AttributeChangeEvent;
+
+/**
+ * Node facade of a {@link CompactGraph}. Incident edges are read straight
+ * from the graph's CSR arrays. As in AdjacencyListNode, an undirected edge
+ * or a loop is both entering and leaving.
+ */
+public class CompactNode extends CompactElement implements Node {
+
+	private static final int ANY = 0, ENTERING = 1, LEAVING = 2;
+
+	CompactNode(CompactGraph graph, int index) {
+		super(graph, index, graph.nodeIds);
+	}
+
+	@Override
+	AttributeTable attributes() {
+		return graph.nodeAttributes;
+	}
+
+	public Graph getGraph() {
+		return graph;
+	}
+
+	private boolean matches(int e, int kind) {
+		if (kind == ANY || !graph.edgeDirected.get(e))
+			return true;
+		return kind == LEAVING ? graph.edgeSource[e] == index : graph.edgeTarget[e] == index;
+	}
+
+	/** The index, with the stale entries of the incident edge list dropped. */
+	private int listed() {
+		int u = live();
+		graph.purge(u);
+		return u;
+	}
+
+	private int count(int kind) {
+		int u = listed();
+		int degree = graph.adjacency.degree(u);
+		if (kind == ANY)
+			return degree;
+		int n = 0;
+		for (int i = 0; i < degree; i++)
+			if (matches(graph.adjacency.get(u, i), kind))
+				n++;
+		return n;
+	}
+
+	private int nth(int kind, int i) {
+		int u = listed();
+		int degree = graph.adjacency.degree(u);
+		if (kind == ANY) {
+			if (i < 0 || i >= degree)
+				throw new IndexOutOfBoundsException("Node " + getId() + " has no edge " + i);
+			return graph.adjacency.get(u, i);
+		}
+		for (int k = 0; k < degree; k++) {
+			int e = graph.adjacency.get(u, k);
+			if (matches(e, kind) && i-- == 0)
+				return e;
+		}
+		throw new IndexOutOfBoundsException("Node " + getId() + " has no such edge");
+	}
+
+	public int getDegree() {
+		return count(ANY);
+	}
+
+	public int getInDegree() {
+		return count(ENTERING);
+	}
+
+	public int getOutDegree() {
+		return count(LEAVING);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T getEdge(int i) {
+		return (T) graph.edge(nth(ANY, i));
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T getEnteringEdge(int i) {
+		return (T) graph.edge(nth(ENTERING, i));
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T getLeavingEdge(int i) {
+		return (T) graph.edge(nth(LEAVING, i));
+	}
+
+	// edges toward, from and between other nodes
+
+	private int indexOf(Node node) {
+		if (node instanceof CompactNode && ((CompactNode) node).graph == graph)
+			return ((CompactNode) node).live();
+		return -1;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T extends Edge> T locate(int other, int kind) {
+		if (other < 0)
+			return null;
+		int e = graph.edgeBetween(live(), other);
+		return e >= 0 && matches(e, kind) ? (T) graph.edge(e) : null;
+	}
+
+	public <T extends Edge> T getEdgeToward(Node node) {
+		return locate(indexOf(node), LEAVING);
+	}
+
+	public <T extends Edge> T getEdgeToward(String nodeId) {
+		return locate(graph.nodeIds.indexOf(nodeId), LEAVING);
+	}
+
+	public <T extends Edge> T getEdgeToward(int nodeIndex) {
+		graph.checkNode(nodeIndex);
+		return locate(nodeIndex, LEAVING);
+	}
+
+	public <T extends Edge> T getEdgeFrom(Node node) {
+		return locate(indexOf(node), ENTERING);
+	}
+
+	public <T extends Edge> T getEdgeFrom(String nodeId) {
+		return locate(graph.nodeIds.indexOf(nodeId), ENTERING);
+	}
+
+	public <T extends Edge> T getEdgeFrom(int nodeIndex) {
+		graph.checkNode(nodeIndex);
+		return locate(nodeIndex, ENTERING);
+	}
+
+	public <T extends Edge> T getEdgeBetween(Node node) {
+		return locate(indexOf(node), ANY);
+	}
+
+	public <T extends Edge> T getEdgeBetween(String nodeId) {
+		return locate(graph.nodeIds.indexOf(nodeId), ANY);
+	}
+
+	public <T extends Edge> T getEdgeBetween(int nodeIndex) {
+		graph.checkNode(nodeIndex);
+		return locate(nodeIndex, ANY);
+	}
+
+	public boolean hasEdgeToward(Node node) {
+		return getEdgeToward(node) != null;
+	}
+
+	public boolean hasEdgeToward(String nodeId) {
+		return getEdgeToward(nodeId) != null;
+	}
+
+	public boolean hasEdgeToward(int nodeIndex) {
+		return getEdgeToward(nodeIndex) != null;
+	}
+
+	public boolean hasEdgeFrom(Node node) {
+		return getEdgeFrom(node) != null;
+	}
+
+	public boolean hasEdgeFrom(String nodeId) {
+		return getEdgeFrom(nodeId) != null;
+	}
+
+	public boolean hasEdgeFrom(int nodeIndex) {
+		return getEdgeFrom(nodeIndex) != null;
+	}
+
+	public boolean hasEdgeBetween(Node node) {
+		return getEdgeBetween(node) != null;
+	}
+
+	public boolean hasEdgeBetween(String nodeId) {
+		return getEdgeBetween(nodeId) != null;
+	}
+
+	public boolean hasEdgeBetween(int nodeIndex) {
+		return getEdgeBetween(nodeIndex) != null;
+	}
+
+	// iterators and views
+
+	private class EdgeIterator<T extends Edge> implements Iterator<T> {
+		final int kind;
+		int position;
+		int last = -1;
+
+		EdgeIterator(int kind) {
+			this.kind = kind;
+		}
+
+		public boolean hasNext() {
+			int u = listed();
+			int degree = graph.adjacency.degree(u);
+			while (position < degree && !matches(graph.adjacency.get(u, position), kind))
+				position++;
+			return position < degree;
+		}
+
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			last = position;
+			return (T) graph.edge(graph.adjacency.get(index, position++));
+		}
+
+		public void remove() {
+			if (last < 0)
+				throw new IllegalStateException();
+			// removal, or the purge of a stale entry, fills the freed
+			// position with an entry not visited yet
+			graph.removeEdge(graph.adjacency.get(listed(), last));
+			position = last;
+			last = -1;
+		}
+	}
+
+	public <T extends Edge> Iterator<T> getEdgeIterator() {
+		return new EdgeIterator<T>(ANY);
+	}
+
+	public <T extends Edge> Iterator<T> getEnteringEdgeIterator() {
+		return new EdgeIterator<T>(ENTERING);
+	}
+
+	public <T extends Edge> Iterator<T> getLeavingEdgeIterator() {
+		return new EdgeIterator<T>(LEAVING);
+	}
+
+	public <T extends Node> Iterator<T> getNeighborNodeIterator() {
+		return new Iterator<T>() {
+			final Iterator<Edge> edges = getEdgeIterator();
+
+			public boolean hasNext() {
+				return edges.hasNext();
+			}
+
+			@SuppressWarnings("unchecked")
+			public T next() {
+				CompactEdge e = (CompactEdge) edges.next();
+				return (T) graph.node(graph.opposite(e.index, index));
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	public <T extends Node> Iterator<T> getBreadthFirstIterator() {
+		return new BreadthFirstIterator<T>(this);
+	}
+
+	public <T extends Node> Iterator<T> getBreadthFirstIterator(boolean directed) {
+		return new BreadthFirstIterator<T>(this, directed);
+	}
+
+	public <T extends Node> Iterator<T> getDepthFirstIterator() {
+		return new DepthFirstIterator<T>(this);
+	}
+
+	public <T extends Node> Iterator<T> getDepthFirstIterator(boolean directed) {
+		return new DepthFirstIterator<T>(this, directed);
+	}
+
+	public Iterator<Edge> iterator() {
+		return getEdgeIterator();
+	}
+
+	private <T extends Edge> Collection<T> view(final int kind) {
+		return new AbstractCollection<T>() {
+			public Iterator<T> iterator() {
+				return new EdgeIterator<T>(kind);
+			}
+
+			public int size() {
+				return count(kind);
+			}
+		};
+	}
+
+	private <T extends Edge> Iterable<T> each(final int kind) {
+		return new Iterable<T>() {
+			public Iterator<T> iterator() {
+				return new EdgeIterator<T>(kind);
+			}
+		};
+	}
+
+	public <T extends Edge> Iterable<T> getEachEdge() {
+		return each(ANY);
+	}
+
+	public <T extends Edge> Iterable<T> getEachEnteringEdge() {
+		return each(ENTERING);
+	}
+
+	public <T extends Edge> Iterable<T> getEachLeavingEdge() {
+		return each(LEAVING);
+	}
+
+	public <T extends Edge> Collection<T> getEdgeSet() {
+		return view(ANY);
+	}
+
+	public <T extends Edge> Collection<T> getEnteringEdgeSet() {
+		return view(ENTERING);
+	}
+
+	public <T extends Edge> Collection<T> getLeavingEdgeSet() {
+		return view(LEAVING);
+	}
+
+	@Override
+	protected void attributeChanged(AttributeChangeEvent event, String attribute, Object oldValue,
+			Object newValue) {
+		graph.nodeAttributeChanged(index, event, attribute, oldValue, newValue);
+	}
+}
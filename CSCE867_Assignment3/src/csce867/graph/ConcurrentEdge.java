@@ -0,0 +1,72 @@
+package csce867.graph;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+
+/**
+ * Edge handle of a {@link ConcurrentGraph}: the graph and the id, endpoints
+ * read from the graph's {@link CompactGraph} arrays in one read section.
+ */
+public class ConcurrentEdge extends ConcurrentElement implements Edge {
+
+	ConcurrentEdge(ConcurrentGraph graph, String id) {
+		super(graph, id);
+	}
+
+	@Override
+	boolean isNode() {
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[%s%s%s]", getId(), getSourceNode(), isDirected() ? "->" : "--", getTargetNode());
+	}
+
+	public boolean isDirected() {
+		return graph.read(() -> graph.structure().edgeDirected.get(index()));
+	}
+
+	public boolean isLoop() {
+		return graph.read(() -> {
+			CompactGraph g = graph.structure();
+			int e = index();
+			return g.edgeSource[e] == g.edgeTarget[e];
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T getNode0() {
+		return (T) graph.read(() -> graph.nodeAt(graph.structure().edgeSource[index()]));
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T getNode1() {
+		return (T) graph.read(() -> graph.nodeAt(graph.structure().edgeTarget[index()]));
+	}
+
+	public <T extends Node> T getSourceNode() {
+		return getNode0();
+	}
+
+	public <T extends Node> T getTargetNode() {
+		return getNode1();
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T getOpposite(final Node node) {
+		if (!(node instanceof ConcurrentNode) || ((ConcurrentNode) node).graph != graph)
+			return null;
+		return (T) graph.read(() -> {
+			CompactGraph g = graph.structure();
+			int e = index();
+			int n = graph.indexOf((ConcurrentNode) node);
+			int s = g.edgeSource[e], t = g.edgeTarget[e];
+			if (n == s)
+				return graph.nodeAt(t);
+			if (n == t)
+				return graph.nodeAt(s);
+			return null;
+		});
+	}
+}
@@ -0,0 +1,133 @@
+package csce867.graph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+import org.graphstream.graph.implementations.AbstractElement.AttributeChangeEvent;
+
+/**
+ * What ConcurrentNode and ConcurrentEdge share: the graph and the id. The
+ * index is looked up on each call, so a handle is never stale after an
+ * index swap. Attribute reads and writes go through the graph's striped
+ * locks; the compound FacadeElement operations (add, remove, clear) are
+ * done as one write so a concurrent reader sees either the old or the new
+ * state and the event matches it.
+ */
+abstract class ConcurrentElement extends FacadeElement {
+
+	final ConcurrentGraph graph;
+	private final String id;
+
+	ConcurrentElement(ConcurrentGraph graph, String id) {
+		this.graph = graph;
+		this.id = id;
+	}
+
+	abstract boolean isNode();
+
+	public String getId() {
+		return id;
+	}
+
+	public int getIndex() {
+		return graph.readInt(() -> graph.indexOf(this));
+	}
+
+	/** Current index, throwing once the element is gone; call inside a read section. */
+	int index() {
+		int index = graph.indexOf(this);
+		if (index < 0)
+			throw new IllegalStateException("element was removed from its graph");
+		return index;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof ConcurrentElement))
+			return false;
+		ConcurrentElement e = (ConcurrentElement) o;
+		return e.graph == graph && e.isNode() == isNode() && e.id.equals(id);
+	}
+
+	@Override
+	public int hashCode() {
+		return id.hashCode();
+	}
+
+	// attributes live in the graph, under the element's stripe
+
+	@Override
+	protected Object attributeValue(final String key) {
+		return graph.readAttributes(this, m -> m == null ? null : m.get(key));
+	}
+
+	@Override
+	protected boolean containsAttribute(final String key) {
+		return graph.readAttributes(this, m -> m != null && m.containsKey(key));
+	}
+
+	@Override
+	protected Object putAttribute(String key, Object value) {
+		Object old = attributeValue(key);
+		graph.writeAttribute(this, ConcurrentGraph.SET, key, value);
+		return old;
+	}
+
+	@Override
+	protected Object deleteAttribute(String key) {
+		Object old = attributeValue(key);
+		graph.writeAttribute(this, ConcurrentGraph.REMOVE, key, null);
+		return old;
+	}
+
+	@Override
+	protected Collection<String> attributeKeys() {
+		return graph.readAttributes(this,
+				m -> m == null ? Collections.<String> emptyList() : new ArrayList<String>(m.keySet()));
+	}
+
+	public int getAttributeCount() {
+		return graph.readAttributes(this, m -> m == null ? 0 : m.size());
+	}
+
+	@Override
+	protected boolean nullAttributesAreErrors() {
+		return graph.nullAttributesAreErrors();
+	}
+
+	@Override
+	protected void attributeChanged(AttributeChangeEvent event, String attribute, Object oldValue,
+			Object newValue) {
+		// sent by the graph while the write is held
+	}
+
+	@Override
+	public void addAttribute(String attribute, Object... values) {
+		Object value;
+		if (values.length == 0)
+			value = true;
+		else if (values.length == 1)
+			value = values[0];
+		else
+			value = values;
+		graph.writeAttribute(this, ConcurrentGraph.SET, attribute, value);
+	}
+
+	@Override
+	public void addAttributes(Map<String, Object> attributes) {
+		for (Map.Entry<String, Object> entry : attributes.entrySet())
+			graph.writeAttribute(this, ConcurrentGraph.SET, entry.getKey(), entry.getValue());
+	}
+
+	@Override
+	public void removeAttribute(String attribute) {
+		graph.writeAttribute(this, ConcurrentGraph.REMOVE, attribute, null);
+	}
+
+	@Override
+	public void clearAttributes() {
+		graph.writeAttribute(this, ConcurrentGraph.CLEAR, null, null);
+	}
+}
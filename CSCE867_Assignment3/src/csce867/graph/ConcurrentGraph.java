@@ -0,0 +1,1003 @@
+package csce867.graph;
+
+import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.EdgeFactory;
+import org.graphstream.graph.ElementNotFoundException;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.IdAlreadyInUseException;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.NodeFactory;
+import org.graphstream.graph.implementations.AbstractElement.AttributeChangeEvent;
+import org.graphstream.stream.AttributeSink;
+import org.graphstream.stream.ElementSink;
+import org.graphstream.stream.GraphParseException;
+import org.graphstream.stream.Replayable;
+import org.graphstream.stream.Sink;
+import org.graphstream.stream.SourceBase.ElementType;
+import org.graphstream.stream.file.FileSink;
+import org.graphstream.stream.file.FileSinkFactory;
+import org.graphstream.stream.file.FileSource;
+import org.graphstream.stream.file.FileSourceFactory;
+import org.graphstream.ui.layout.Layout;
+import org.graphstream.ui.layout.Layouts;
+import org.graphstream.ui.swingViewer.GraphRenderer;
+import org.graphstream.ui.view.Viewer;
+import org.graphstream.util.GraphListeners;
+
+/**
+ * Thread-safe single graph for many readers and a few writers, with the
+ * SingleGraph semantics of {@link CompactGraph}, which holds the structure.
+ *
+ * Locking:
+ * <ul>
+ * <li>the structure (ids, endpoints, incidence lists) is guarded by one
+ * StampedLock. Reads run as optimistic reads, no lock taken and validated
+ * afterwards; a read that overlapped a structural write, or tripped over
+ * the arrays being changed under it, is redone under the read lock. The
+ * optimistic pass only indexes arrays and probes the id tables, whose
+ * probes stop after one lap, so a torn read ends in a RuntimeException or
+ * a failed validation; lookups walking linked cells (the edge between two
+ * nodes) take the read lock. Adding and removing nodes and edges takes the
+ * write lock.</li>
+ * <li>element attributes are kept here, one map per element, under 64
+ * StampedLock stripes chosen by element index. An attribute write holds
+ * the structure read lock, so indices cannot move, and the write lock of
+ * its stripe, so writers of different elements run in parallel. Maps are
+ * copied on write and never changed once published: a read copies the map
+ * reference, optimistically on both locks, and looks into the map once
+ * they validated. The graph's own attributes are published the same way
+ * through a volatile field.</li>
+ * </ul>
+ *
+ * Nodes and edges handed out are handles holding the graph and the id, and
+ * resolve their index on each call: they follow index swaps, are equal when
+ * their ids are, and once their element is removed they see no attributes
+ * and throw IllegalStateException on structural calls. Iterators are
+ * weakly consistent, they never fail but may miss or repeat an element
+ * moved by a concurrent removal.
+ *
+ * Events go out after the change, structural ones under the write lock,
+ * attribute ones serialized on the listeners.
+ */
+public class ConcurrentGraph extends FacadeElement implements Graph {
+
+	private static final int STRIPES = 64;
+
+	private final String id;
+	private final CompactGraph structure;
+	private final StampedLock lock = new StampedLock();
+	private final StampedLock[] stripes = new StampedLock[STRIPES];
+	private final GraphListeners listeners;
+	private final GraphReplayController replayController;
+
+	private volatile boolean attributeSinksAttached;
+	private volatile boolean nullAttributesAreErrors;
+	private volatile double step;
+
+	/** one map per element index, null until the first attribute */
+	private Object[] nodeAttributes;
+	private Object[] edgeAttributes;
+	private volatile HashMap<String, Object> graphAttributes;
+
+	public ConcurrentGraph(String id, boolean strictChecking, boolean autoCreate, int initialNodeCapacity,
+			int initialEdgeCapacity) {
+		this.id = id;
+		structure = new CompactGraph(id, strictChecking, autoCreate, initialNodeCapacity, initialEdgeCapacity);
+		for (int i = 0; i < STRIPES; i++)
+			stripes[i] = new StampedLock();
+		nodeAttributes = new Object[Math.max(initialNodeCapacity, 1)];
+		edgeAttributes = new Object[Math.max(initialEdgeCapacity, 1)];
+		listeners = new GraphListeners(this);
+		replayController = new GraphReplayController(this);
+	}
+
+	public ConcurrentGraph(String id, boolean strictChecking, boolean autoCreate) {
+		this(id, strictChecking, autoCreate, CompactGraph.DEFAULT_NODE_CAPACITY, CompactGraph.DEFAULT_EDGE_CAPACITY);
+	}
+
+	public ConcurrentGraph(String id) {
+		this(id, true, false);
+	}
+
+	// Lock helpers
+
+	/** Runs reader optimistically, see the class comment for what it may do. */
+	<T> T read(Supplier<T> reader) {
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				T value = reader.get();
+				if (lock.validate(stamp))
+					return value;
+			} catch (RuntimeException e) {
+				// torn read, or a genuine error the locked pass throws again
+			}
+		}
+		return readLocked(reader);
+	}
+
+	/** Runs reader under the read lock, for reads that walk linked cells. */
+	<T> T readLocked(Supplier<T> reader) {
+		long stamp = lock.readLock();
+		try {
+			return reader.get();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	int readInt(IntSupplier reader) {
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				int value = reader.getAsInt();
+				if (lock.validate(stamp))
+					return value;
+			} catch (RuntimeException e) {
+				// as in read()
+			}
+		}
+		stamp = lock.readLock();
+		try {
+			return reader.getAsInt();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	<T> T write(Supplier<T> writer) {
+		long stamp = lock.writeLock();
+		try {
+			return writer.get();
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	private StampedLock stripe(int index) {
+		return stripes[index & (STRIPES - 1)];
+	}
+
+	@SuppressWarnings("unchecked")
+	private HashMap<String, Object> map(boolean node, int index) {
+		return (HashMap<String, Object>) (node ? nodeAttributes : edgeAttributes)[index];
+	}
+
+	int indexOf(ConcurrentElement e) {
+		return e.isNode() ? structure.nodeIds.indexOf(e.getId()) : structure.edgeIds.indexOf(e.getId());
+	}
+
+	/**
+	 * Applies reader to the attribute map of e (null when it has none or is
+	 * removed), after the locks validated, so reader never sees a map being
+	 * written.
+	 */
+	<T> T readAttributes(ConcurrentElement e, Function<HashMap<String, Object>, T> reader) {
+		return reader.apply(attributes(e));
+	}
+
+	/** The published attribute map of e, found optimistically on the structure lock and the stripe. */
+	private HashMap<String, Object> attributes(ConcurrentElement e) {
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				int index = indexOf(e);
+				if (index < 0) {
+					if (lock.validate(stamp))
+						return null;
+				} else {
+					StampedLock stripe = stripe(index);
+					long s = stripe.tryOptimisticRead();
+					if (s != 0) {
+						HashMap<String, Object> attributes = map(e.isNode(), index);
+						if (stripe.validate(s) && lock.validate(stamp))
+							return attributes;
+					}
+				}
+			} catch (RuntimeException ex) {
+				// index of a torn probe out of bounds, redo under the locks
+			}
+		}
+		stamp = lock.readLock();
+		try {
+			int index = indexOf(e);
+			if (index < 0)
+				return null;
+			StampedLock stripe = stripe(index);
+			long s = stripe.readLock();
+			try {
+				return map(e.isNode(), index);
+			} finally {
+				stripe.unlockRead(s);
+			}
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	static final int SET = 0, REMOVE = 1, CLEAR = 2;
+
+	/**
+	 * Sets or removes key on e, or clears all its attributes, publishing a
+	 * new map, and sends the events.
+	 */
+	void writeAttribute(ConcurrentElement e, int op, String key, Object value) {
+		long stamp = lock.readLock();
+		try {
+			int index = indexOf(e);
+			if (index < 0)
+				throw new IllegalStateException("element was removed from its graph");
+			StampedLock stripe = stripe(index);
+			long s = stripe.writeLock();
+			try {
+				Object[] maps = e.isNode() ? nodeAttributes : edgeAttributes;
+				HashMap<String, Object> attributes = map(e.isNode(), index);
+				if (op == CLEAR) {
+					if (attributes == null)
+						return;
+					maps[index] = null;
+					for (Map.Entry<String, Object> entry : attributes.entrySet())
+						attributeEvent(e, AttributeChangeEvent.REMOVE, entry.getKey(), entry.getValue(), null);
+				} else if (op == REMOVE) {
+					if (attributes != null && attributes.containsKey(key)) {
+						HashMap<String, Object> copy = new HashMap<String, Object>(attributes);
+						Object old = copy.remove(key);
+						maps[index] = copy;
+						attributeEvent(e, AttributeChangeEvent.REMOVE, key, old, null);
+					}
+				} else {
+					HashMap<String, Object> copy = attributes == null ? new HashMap<String, Object>(4)
+							: new HashMap<String, Object>(attributes);
+					AttributeChangeEvent event = copy.containsKey(key) ? AttributeChangeEvent.CHANGE
+							: AttributeChangeEvent.ADD;
+					Object old = copy.put(key, value);
+					maps[index] = copy;
+					attributeEvent(e, event, key, old, value);
+				}
+			} finally {
+				stripe.unlockWrite(s);
+			}
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	private void attributeEvent(ConcurrentElement e, AttributeChangeEvent event, String key, Object oldValue,
+			Object newValue) {
+		// without attribute sinks there is nobody to tell, and writers of
+		// different stripes do not meet on the listeners
+		if (!attributeSinksAttached)
+			return;
+		synchronized (listeners) {
+			listeners.sendAttributeChangedEvent(e.getId(), e.isNode() ? ElementType.NODE : ElementType.EDGE, key,
+					event, oldValue, newValue);
+		}
+	}
+
+	// Handles, by id; called inside a read or write section
+
+	ConcurrentNode nodeAt(int index) {
+		return new ConcurrentNode(this, structure.nodeIds.get(index));
+	}
+
+	ConcurrentEdge edgeAt(int index) {
+		return new ConcurrentEdge(this, structure.edgeIds.get(index));
+	}
+
+	CompactGraph structure() {
+		return structure;
+	}
+
+	// FacadeElement, the graph's own attributes, copied on write under the
+	// structure lock and read without it
+
+	public String getId() {
+		return id;
+	}
+
+	public int getIndex() {
+		return 0;
+	}
+
+	@Override
+	protected Object attributeValue(final String key) {
+		HashMap<String, Object> attributes = graphAttributes;
+		return attributes == null ? null : attributes.get(key);
+	}
+
+	@Override
+	protected boolean containsAttribute(final String key) {
+		HashMap<String, Object> attributes = graphAttributes;
+		return attributes != null && attributes.containsKey(key);
+	}
+
+	@Override
+	protected Object putAttribute(final String key, final Object value) {
+		return write(() -> {
+			HashMap<String, Object> copy = graphAttributes == null ? new HashMap<String, Object>(4)
+					: new HashMap<String, Object>(graphAttributes);
+			Object old = copy.put(key, value);
+			graphAttributes = copy;
+			return old;
+		});
+	}
+
+	@Override
+	protected Object deleteAttribute(final String key) {
+		return write(() -> {
+			if (graphAttributes == null || !graphAttributes.containsKey(key))
+				return null;
+			HashMap<String, Object> copy = new HashMap<String, Object>(graphAttributes);
+			Object old = copy.remove(key);
+			graphAttributes = copy;
+			return old;
+		});
+	}
+
+	@Override
+	protected Collection<String> attributeKeys() {
+		HashMap<String, Object> attributes = graphAttributes;
+		return attributes == null ? Collections.<String> emptyList() : new ArrayList<String>(attributes.keySet());
+	}
+
+	public int getAttributeCount() {
+		HashMap<String, Object> attributes = graphAttributes;
+		return attributes == null ? 0 : attributes.size();
+	}
+
+	@Override
+	protected void attributeChanged(AttributeChangeEvent event, String attribute, Object oldValue,
+			Object newValue) {
+		synchronized (listeners) {
+			listeners.sendAttributeChangedEvent(id, ElementType.GRAPH, attribute, event, oldValue, newValue);
+		}
+	}
+
+	public boolean nullAttributesAreErrors() {
+		return nullAttributesAreErrors;
+	}
+
+	public void setNullAttributesAreErrors(boolean on) {
+		nullAttributesAreErrors = on;
+	}
+
+	// Graph settings
+
+	public boolean isStrict() {
+		return read(() -> structure.isStrict());
+	}
+
+	public void setStrict(final boolean on) {
+		write(() -> {
+			structure.setStrict(on);
+			return null;
+		});
+	}
+
+	public boolean isAutoCreationEnabled() {
+		return read(() -> structure.isAutoCreationEnabled());
+	}
+
+	public void setAutoCreate(final boolean on) {
+		write(() -> {
+			structure.setAutoCreate(on);
+			return null;
+		});
+	}
+
+	/** See {@link CompactGraph#setEdgePairIndex(boolean, boolean)}. */
+	public void setEdgePairIndex(final boolean on, final boolean bloomFilter) {
+		write(() -> {
+			structure.setEdgePairIndex(on, bloomFilter);
+			return null;
+		});
+	}
+
+	public boolean hasEdgePairIndex() {
+		return read(() -> structure.hasEdgePairIndex());
+	}
+
+	public double getStep() {
+		return step;
+	}
+
+	public void stepBegins(final double time) {
+		write(() -> {
+			listeners.sendStepBegins(time);
+			step = time;
+			return null;
+		});
+	}
+
+	/** Elements are handles, there is nothing a factory could build. Always null. */
+	public NodeFactory<? extends Node> nodeFactory() {
+		return null;
+	}
+
+	public EdgeFactory<? extends Edge> edgeFactory() {
+		return null;
+	}
+
+	public void setNodeFactory(NodeFactory<? extends Node> nf) {
+		throw new UnsupportedOperationException("ConcurrentGraph does not use node factories");
+	}
+
+	public void setEdgeFactory(EdgeFactory<? extends Edge> ef) {
+		throw new UnsupportedOperationException("ConcurrentGraph does not use edge factories");
+	}
+
+	// Structure reads
+
+	public int getNodeCount() {
+		return readInt(() -> structure.getNodeCount());
+	}
+
+	public int getEdgeCount() {
+		return readInt(() -> structure.getEdgeCount());
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T getNode(final String nodeId) {
+		return (T) read(() -> structure.nodeIds.indexOf(nodeId) < 0 ? null : new ConcurrentNode(this, nodeId));
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T getNode(final int index) throws IndexOutOfBoundsException {
+		return (T) read(() -> {
+			structure.checkNode(index);
+			return nodeAt(index);
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T getEdge(final String edgeId) {
+		return (T) read(() -> structure.edgeIds.indexOf(edgeId) < 0 ? null : new ConcurrentEdge(this, edgeId));
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T getEdge(final int index) throws IndexOutOfBoundsException {
+		return (T) read(() -> {
+			structure.checkEdge(index);
+			return edgeAt(index);
+		});
+	}
+
+	public <T extends Node> Iterator<T> getNodeIterator() {
+		return new ElementIterator<T>(true);
+	}
+
+	public <T extends Edge> Iterator<T> getEdgeIterator() {
+		return new ElementIterator<T>(false);
+	}
+
+	public <T extends Node> Iterable<? extends T> getEachNode() {
+		return new Iterable<T>() {
+			public Iterator<T> iterator() {
+				return getNodeIterator();
+			}
+		};
+	}
+
+	public <T extends Edge> Iterable<? extends T> getEachEdge() {
+		return new Iterable<T>() {
+			public Iterator<T> iterator() {
+				return getEdgeIterator();
+			}
+		};
+	}
+
+	public <T extends Node> Collection<T> getNodeSet() {
+		return new AbstractCollection<T>() {
+			public Iterator<T> iterator() {
+				return getNodeIterator();
+			}
+
+			public int size() {
+				return getNodeCount();
+			}
+		};
+	}
+
+	public <T extends Edge> Collection<T> getEdgeSet() {
+		return new AbstractCollection<T>() {
+			public Iterator<T> iterator() {
+				return getEdgeIterator();
+			}
+
+			public int size() {
+				return getEdgeCount();
+			}
+		};
+	}
+
+	public Iterator<Node> iterator() {
+		return getNodeIterator();
+	}
+
+	private class ElementIterator<T> implements Iterator<T> {
+		final boolean nodes;
+		int next;
+		ConcurrentElement nextElement, last;
+
+		ElementIterator(boolean nodes) {
+			this.nodes = nodes;
+		}
+
+		public boolean hasNext() {
+			if (nextElement == null) {
+				final int i = next;
+				nextElement = read(() -> {
+					if (nodes)
+						return i < structure.getNodeCount() ? nodeAt(i) : null;
+					return i < structure.getEdgeCount() ? edgeAt(i) : null;
+				});
+			}
+			return nextElement != null;
+		}
+
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			last = nextElement;
+			nextElement = null;
+			next++;
+			return (T) last;
+		}
+
+		public void remove() {
+			if (last == null)
+				throw new IllegalStateException();
+			// the last element moves into the freed index, visit it next
+			next--;
+			nextElement = null;
+			if (nodes)
+				removeNode((Node) last);
+			else
+				removeEdge((Edge) last);
+			last = null;
+		}
+	}
+
+	// Mutation, under the write lock
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T addNode(final String nodeId) throws IdAlreadyInUseException {
+		return (T) write(() -> {
+			if (structure.nodeIds.indexOf(nodeId) < 0)
+				insertNode(nodeId);
+			else
+				structure.addNode(nodeId); // throws in strict mode
+			return new ConcurrentNode(this, nodeId);
+		});
+	}
+
+	private void insertNode(String nodeId) {
+		int index = structure.addNode(nodeId).getIndex();
+		if (index == nodeAttributes.length)
+			nodeAttributes = Arrays.copyOf(nodeAttributes, IdTable.grow(index));
+		nodeAttributes[index] = null;
+		listeners.sendNodeAdded(nodeId);
+	}
+
+	public <T extends Edge> T addEdge(String edgeId, String node1, String node2) {
+		return addEdge(edgeId, node1, node2, false);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T addEdge(final String edgeId, final String from, final String to,
+			final boolean directed) {
+		return (T) write(() -> {
+			if (!structure.isStrict() && structure.isAutoCreationEnabled()
+					&& structure.edgeIds.indexOf(edgeId) < 0) {
+				if (structure.nodeIds.indexOf(from) < 0)
+					insertNode(from);
+				if (structure.nodeIds.indexOf(to) < 0)
+					insertNode(to);
+			}
+			int before = structure.getEdgeCount();
+			return insertEdge(structure.addEdge(edgeId, from, to, directed), before);
+		});
+	}
+
+	public <T extends Edge> T addEdge(String edgeId, int index1, int index2) {
+		return addEdge(edgeId, index1, index2, false);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T addEdge(final String edgeId, final int fromIndex, final int toIndex,
+			final boolean directed) {
+		return (T) write(() -> {
+			int before = structure.getEdgeCount();
+			return insertEdge(structure.addEdge(edgeId, fromIndex, toIndex, directed), before);
+		});
+	}
+
+	public <T extends Edge> T addEdge(String edgeId, Node node1, Node node2) {
+		return addEdge(edgeId, node1, node2, false);
+	}
+
+	public <T extends Edge> T addEdge(String edgeId, Node from, Node to, boolean directed) {
+		return addEdge(edgeId, from.getId(), to.getId(), directed);
+	}
+
+	/**
+	 * Bookkeeping after the structure was asked for an edge: added is the
+	 * new edge, an existing one (non strict) or null when it was refused.
+	 */
+	private ConcurrentEdge insertEdge(Edge added, int edgesBefore) {
+		if (added == null)
+			return null;
+		if (structure.getEdgeCount() > edgesBefore) {
+			int index = added.getIndex();
+			if (index >= edgeAttributes.length)
+				edgeAttributes = Arrays.copyOf(edgeAttributes, IdTable.grow(index));
+			edgeAttributes[index] = null;
+			listeners.sendEdgeAdded(added.getId(), added.getNode0().getId(), added.getNode1().getId(),
+					added.isDirected());
+		}
+		return new ConcurrentEdge(this, added.getId());
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T removeNode(final String nodeId) throws ElementNotFoundException {
+		return (T) write(() -> {
+			int index = structure.nodeIds.indexOf(nodeId);
+			if (index < 0) {
+				if (structure.isStrict())
+					throw new ElementNotFoundException("Node \"" + nodeId + "\" not found. Cannot remove it.");
+				return null;
+			}
+			removeNodeAt(index);
+			return new ConcurrentNode(this, nodeId);
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T removeNode(final int index) throws IndexOutOfBoundsException {
+		return (T) write(() -> {
+			structure.checkNode(index);
+			ConcurrentNode n = nodeAt(index);
+			removeNodeAt(index);
+			return n;
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T removeNode(final Node node) {
+		return (T) write(() -> {
+			int index = node instanceof ConcurrentNode && ((ConcurrentNode) node).graph == this
+					? indexOf((ConcurrentNode) node) : -1;
+			if (index < 0) {
+				if (structure.isStrict() && node != null)
+					throw new ElementNotFoundException("Node \"" + node.getId() + "\" not found. Cannot remove it.");
+				return null;
+			}
+			removeNodeAt(index);
+			return node;
+		});
+	}
+
+	private void removeNodeAt(int u) {
+		CsrAdjacency adjacency = structure.adjacency;
+		while (adjacency.degree(u) > 0)
+			removeEdgeAt(adjacency.get(u, adjacency.degree(u) - 1));
+		listeners.sendNodeRemoved(structure.nodeIds.get(u));
+		int last = structure.getNodeCount() - 1;
+		structure.removeNode(u);
+		nodeAttributes[u] = nodeAttributes[last];
+		nodeAttributes[last] = null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T removeEdge(final String edgeId) throws ElementNotFoundException {
+		return (T) write(() -> {
+			int index = structure.edgeIds.indexOf(edgeId);
+			if (index < 0) {
+				if (structure.isStrict())
+					throw new ElementNotFoundException("Edge \"" + edgeId + "\" not found. Cannot remove it.");
+				return null;
+			}
+			removeEdgeAt(index);
+			return new ConcurrentEdge(this, edgeId);
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T removeEdge(final int index) throws IndexOutOfBoundsException {
+		return (T) write(() -> {
+			structure.checkEdge(index);
+			ConcurrentEdge e = edgeAt(index);
+			removeEdgeAt(index);
+			return e;
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T removeEdge(final Edge edge) {
+		return (T) write(() -> {
+			if (edge instanceof ConcurrentEdge && ((ConcurrentEdge) edge).graph == this) {
+				int index = indexOf((ConcurrentEdge) edge);
+				if (index >= 0)
+					removeEdgeAt(index);
+			}
+			return edge;
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T removeEdge(final String from, final String to) throws ElementNotFoundException {
+		return (T) write(() -> {
+			int u = structure.nodeIds.indexOf(from), v = structure.nodeIds.indexOf(to);
+			if (u < 0 || v < 0) {
+				if (structure.isStrict())
+					throw new ElementNotFoundException(
+							"Cannot remove edge between \"%s\" and \"%s\". Node '%s' does not exist.", from, to,
+							u < 0 ? from : to);
+				return null;
+			}
+			return removeEdgeToward(u, v);
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T removeEdge(final int fromIndex, final int toIndex) {
+		return (T) write(() -> {
+			structure.checkNode(fromIndex);
+			structure.checkNode(toIndex);
+			return removeEdgeToward(fromIndex, toIndex);
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T removeEdge(final Node node1, final Node node2) throws ElementNotFoundException {
+		return (T) write(() -> {
+			int u = node1 instanceof ConcurrentNode ? indexOf((ConcurrentNode) node1) : -1;
+			int v = node2 instanceof ConcurrentNode ? indexOf((ConcurrentNode) node2) : -1;
+			if (u < 0 || v < 0) {
+				if (structure.isStrict())
+					throw new ElementNotFoundException("Cannot remove edge between \"%s\" and \"%s\".", node1,
+							node2);
+				return null;
+			}
+			return removeEdgeToward(u, v);
+		});
+	}
+
+	private ConcurrentEdge removeEdgeToward(int u, int v) {
+		int e = structure.edgeBetween(u, v);
+		if (e >= 0 && structure.edgeDirected.get(e) && structure.edgeSource[e] != u)
+			e = -1;
+		if (e < 0) {
+			if (structure.isStrict())
+				throw new ElementNotFoundException("There is no edge from \"%s\" to \"%s\". Cannot remove it.",
+						structure.nodeIds.get(u), structure.nodeIds.get(v));
+			return null;
+		}
+		ConcurrentEdge edge = edgeAt(e);
+		removeEdgeAt(e);
+		return edge;
+	}
+
+	private void removeEdgeAt(int e) {
+		listeners.sendEdgeRemoved(structure.edgeIds.get(e));
+		int last = structure.getEdgeCount() - 1;
+		structure.removeEdge(e);
+		edgeAttributes[e] = edgeAttributes[last];
+		edgeAttributes[last] = null;
+	}
+
+	public void clear() {
+		write(() -> {
+			listeners.sendGraphCleared();
+			structure.clear();
+			Arrays.fill(nodeAttributes, null);
+			Arrays.fill(edgeAttributes, null);
+			graphAttributes = null;
+			return null;
+		});
+	}
+
+	// Sinks and sources, all handled by the library's GraphListeners
+
+	public Iterable<AttributeSink> attributeSinks() {
+		return listeners.attributeSinks();
+	}
+
+	public Iterable<ElementSink> elementSinks() {
+		return listeners.elementSinks();
+	}
+
+	public void addSink(Sink sink) {
+		synchronized (listeners) {
+			listeners.addSink(sink);
+			sinksChanged();
+		}
+	}
+
+	public void removeSink(Sink sink) {
+		synchronized (listeners) {
+			listeners.removeSink(sink);
+			sinksChanged();
+		}
+	}
+
+	public void addAttributeSink(AttributeSink sink) {
+		synchronized (listeners) {
+			listeners.addAttributeSink(sink);
+			sinksChanged();
+		}
+	}
+
+	public void removeAttributeSink(AttributeSink sink) {
+		synchronized (listeners) {
+			listeners.removeAttributeSink(sink);
+			sinksChanged();
+		}
+	}
+
+	public void addElementSink(ElementSink sink) {
+		synchronized (listeners) {
+			listeners.addElementSink(sink);
+		}
+	}
+
+	public void removeElementSink(ElementSink sink) {
+		synchronized (listeners) {
+			listeners.removeElementSink(sink);
+		}
+	}
+
+	public void clearElementSinks() {
+		synchronized (listeners) {
+			listeners.clearElementSinks();
+		}
+	}
+
+	public void clearAttributeSinks() {
+		synchronized (listeners) {
+			listeners.clearAttributeSinks();
+			sinksChanged();
+		}
+	}
+
+	public void clearSinks() {
+		synchronized (listeners) {
+			listeners.clearSinks();
+			sinksChanged();
+		}
+	}
+
+	private void sinksChanged() {
+		attributeSinksAttached = listeners.attributeSinks().iterator().hasNext();
+	}
+
+	boolean hasAttributeSinks() {
+		return attributeSinksAttached;
+	}
+
+	public Replayable.Controller getReplayController() {
+		return replayController;
+	}
+
+	public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+		listeners.edgeAttributeAdded(sourceId, timeId, edgeId, attribute, value);
+	}
+
+	public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute,
+			Object oldValue, Object newValue) {
+		listeners.edgeAttributeChanged(sourceId, timeId, edgeId, attribute, oldValue, newValue);
+	}
+
+	public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+		listeners.edgeAttributeRemoved(sourceId, timeId, edgeId, attribute);
+	}
+
+	public void graphAttributeAdded(String sourceId, long timeId, String attribute, Object value) {
+		listeners.graphAttributeAdded(sourceId, timeId, attribute, value);
+	}
+
+	public void graphAttributeChanged(String sourceId, long timeId, String attribute, Object oldValue,
+			Object newValue) {
+		listeners.graphAttributeChanged(sourceId, timeId, attribute, oldValue, newValue);
+	}
+
+	public void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+		listeners.graphAttributeRemoved(sourceId, timeId, attribute);
+	}
+
+	public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+		listeners.nodeAttributeAdded(sourceId, timeId, nodeId, attribute, value);
+	}
+
+	public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute,
+			Object oldValue, Object newValue) {
+		listeners.nodeAttributeChanged(sourceId, timeId, nodeId, attribute, oldValue, newValue);
+	}
+
+	public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+		listeners.nodeAttributeRemoved(sourceId, timeId, nodeId, attribute);
+	}
+
+	public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId,
+			boolean directed) {
+		listeners.edgeAdded(sourceId, timeId, edgeId, fromNodeId, toNodeId, directed);
+	}
+
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		listeners.edgeRemoved(sourceId, timeId, edgeId);
+	}
+
+	public void graphCleared(String sourceId, long timeId) {
+		listeners.graphCleared(sourceId, timeId);
+	}
+
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		listeners.nodeAdded(sourceId, timeId, nodeId);
+	}
+
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		listeners.nodeRemoved(sourceId, timeId, nodeId);
+	}
+
+	public void stepBegins(String sourceId, long timeId, double time) {
+		listeners.stepBegins(sourceId, timeId, time);
+	}
+
+	// I/O and display, as in AbstractGraph
+
+	public void read(String filename) throws IOException, GraphParseException, ElementNotFoundException {
+		FileSource input = FileSourceFactory.sourceFor(filename);
+		if (input == null)
+			throw new IOException("No source reader for " + filename);
+		input.addSink(this);
+		read(input, filename);
+		input.removeSink(this);
+	}
+
+	public void read(FileSource input, String filename) throws IOException, GraphParseException {
+		input.readAll(filename);
+	}
+
+	public void write(String filename) throws IOException {
+		FileSink output = FileSinkFactory.sinkFor(filename);
+		if (output == null)
+			throw new IOException("No sink writer for " + filename);
+		write(output, filename);
+	}
+
+	public void write(FileSink output, String filename) throws IOException {
+		output.writeAll(this, filename);
+	}
+
+	public Viewer display() {
+		return display(true);
+	}
+
+	public Viewer display(boolean autoLayout) {
+		Viewer viewer = new Viewer(new RingProxyPipe(this, true));
+		viewer.enableXYZfeedback(false);
+		GraphRenderer renderer = Viewer.newGraphRenderer();
+		viewer.addView(Viewer.DEFAULT_VIEW_ID, renderer);
+		if (autoLayout) {
+			Layout layout = Layouts.newLayoutAlgorithm();
+			viewer.enableAutoLayout(layout);
+		}
+		return viewer;
+	}
+}
@@ -0,0 +1,343 @@
+package csce867.graph;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.graphstream.graph.BreadthFirstIterator;
+import org.graphstream.graph.DepthFirstIterator;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+
+/**
+ * Node handle of a {@link ConcurrentGraph}. Every call is one read section
+ * over the graph's {@link CompactGraph} arrays, as in CompactNode an
+ * undirected edge or a loop is both entering and leaving.
+ */
+public class ConcurrentNode extends ConcurrentElement implements Node {
+
+	private static final int ANY = 0, ENTERING = 1, LEAVING = 2;
+
+	ConcurrentNode(ConcurrentGraph graph, String id) {
+		super(graph, id);
+	}
+
+	@Override
+	boolean isNode() {
+		return true;
+	}
+
+	public Graph getGraph() {
+		return graph;
+	}
+
+	private boolean matches(CompactGraph g, int u, int e, int kind) {
+		if (kind == ANY || !g.edgeDirected.get(e))
+			return true;
+		return kind == LEAVING ? g.edgeSource[e] == u : g.edgeTarget[e] == u;
+	}
+
+	private int count(final int kind) {
+		return graph.readInt(() -> {
+			CompactGraph g = graph.structure();
+			int u = index();
+			int degree = g.adjacency.degree(u);
+			if (kind == ANY)
+				return degree;
+			int n = 0;
+			for (int i = 0; i < degree; i++)
+				if (matches(g, u, g.adjacency.get(u, i), kind))
+					n++;
+			return n;
+		});
+	}
+
+	/** Position in u's list of the i-th edge of the kind, or -1. */
+	private int position(CompactGraph g, int u, int kind, int i) {
+		int degree = g.adjacency.degree(u);
+		if (kind == ANY)
+			return i >= 0 && i < degree ? i : -1;
+		for (int k = 0; k < degree; k++)
+			if (matches(g, u, g.adjacency.get(u, k), kind) && i-- == 0)
+				return k;
+		return -1;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T extends Edge> T nth(final int kind, final int i) {
+		return (T) graph.read(() -> {
+			CompactGraph g = graph.structure();
+			int u = index();
+			int p = position(g, u, kind, i);
+			if (p < 0)
+				throw new IndexOutOfBoundsException("Node " + getId() + " has no edge " + i);
+			return graph.edgeAt(g.adjacency.get(u, p));
+		});
+	}
+
+	public int getDegree() {
+		return count(ANY);
+	}
+
+	public int getInDegree() {
+		return count(ENTERING);
+	}
+
+	public int getOutDegree() {
+		return count(LEAVING);
+	}
+
+	public <T extends Edge> T getEdge(int i) {
+		return nth(ANY, i);
+	}
+
+	public <T extends Edge> T getEnteringEdge(int i) {
+		return nth(ENTERING, i);
+	}
+
+	public <T extends Edge> T getLeavingEdge(int i) {
+		return nth(LEAVING, i);
+	}
+
+	// edges toward, from and between other nodes
+
+	@SuppressWarnings("unchecked")
+	private <T extends Edge> T locate(final String otherId, final int otherIndex, final int kind) {
+		// edgeBetween walks the delta cells, not safe on a torn read
+		return (T) graph.readLocked(() -> {
+			CompactGraph g = graph.structure();
+			int u = index();
+			int v = otherId != null ? g.nodeIds.indexOf(otherId) : otherIndex;
+			if (otherId == null)
+				g.checkNode(v);
+			if (v < 0)
+				return null;
+			int e = g.edgeBetween(u, v);
+			return e >= 0 && matches(g, u, e, kind) ? graph.edgeAt(e) : null;
+		});
+	}
+
+	private <T extends Edge> T locate(Node node, int kind) {
+		if (!(node instanceof ConcurrentNode) || ((ConcurrentNode) node).graph != graph)
+			return null;
+		return locate(node.getId(), -1, kind);
+	}
+
+	public <T extends Edge> T getEdgeToward(Node node) {
+		return locate(node, LEAVING);
+	}
+
+	public <T extends Edge> T getEdgeToward(String nodeId) {
+		return locate(nodeId, -1, LEAVING);
+	}
+
+	public <T extends Edge> T getEdgeToward(int nodeIndex) {
+		return locate(null, nodeIndex, LEAVING);
+	}
+
+	public <T extends Edge> T getEdgeFrom(Node node) {
+		return locate(node, ENTERING);
+	}
+
+	public <T extends Edge> T getEdgeFrom(String nodeId) {
+		return locate(nodeId, -1, ENTERING);
+	}
+
+	public <T extends Edge> T getEdgeFrom(int nodeIndex) {
+		return locate(null, nodeIndex, ENTERING);
+	}
+
+	public <T extends Edge> T getEdgeBetween(Node node) {
+		return locate(node, ANY);
+	}
+
+	public <T extends Edge> T getEdgeBetween(String nodeId) {
+		return locate(nodeId, -1, ANY);
+	}
+
+	public <T extends Edge> T getEdgeBetween(int nodeIndex) {
+		return locate(null, nodeIndex, ANY);
+	}
+
+	public boolean hasEdgeToward(Node node) {
+		return getEdgeToward(node) != null;
+	}
+
+	public boolean hasEdgeToward(String nodeId) {
+		return getEdgeToward(nodeId) != null;
+	}
+
+	public boolean hasEdgeToward(int nodeIndex) {
+		return getEdgeToward(nodeIndex) != null;
+	}
+
+	public boolean hasEdgeFrom(Node node) {
+		return getEdgeFrom(node) != null;
+	}
+
+	public boolean hasEdgeFrom(String nodeId) {
+		return getEdgeFrom(nodeId) != null;
+	}
+
+	public boolean hasEdgeFrom(int nodeIndex) {
+		return getEdgeFrom(nodeIndex) != null;
+	}
+
+	public boolean hasEdgeBetween(Node node) {
+		return getEdgeBetween(node) != null;
+	}
+
+	public boolean hasEdgeBetween(String nodeId) {
+		return getEdgeBetween(nodeId) != null;
+	}
+
+	public boolean hasEdgeBetween(int nodeIndex) {
+		return getEdgeBetween(nodeIndex) != null;
+	}
+
+	// iterators and views, weakly consistent like the graph's
+
+	private class EdgeIterator<T extends Edge> implements Iterator<T> {
+		final int kind;
+		int position;
+		ConcurrentEdge next, last;
+
+		EdgeIterator(int kind) {
+			this.kind = kind;
+		}
+
+		public boolean hasNext() {
+			if (next == null) {
+				next = graph.read(() -> {
+					CompactGraph g = graph.structure();
+					int u = graph.indexOf(ConcurrentNode.this);
+					if (u < 0)
+						return null;
+					int degree = g.adjacency.degree(u);
+					int p = position;
+					while (p < degree && !matches(g, u, g.adjacency.get(u, p), kind))
+						p++;
+					position = p;
+					return p < degree ? graph.edgeAt(g.adjacency.get(u, p)) : null;
+				});
+			}
+			return next != null;
+		}
+
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			last = next;
+			next = null;
+			position++;
+			return (T) last;
+		}
+
+		public void remove() {
+			if (last == null)
+				throw new IllegalStateException();
+			// removal fills the freed position with an entry not visited yet
+			graph.removeEdge(last);
+			position--;
+			next = null;
+			last = null;
+		}
+	}
+
+	public <T extends Edge> Iterator<T> getEdgeIterator() {
+		return new EdgeIterator<T>(ANY);
+	}
+
+	public <T extends Edge> Iterator<T> getEnteringEdgeIterator() {
+		return new EdgeIterator<T>(ENTERING);
+	}
+
+	public <T extends Edge> Iterator<T> getLeavingEdgeIterator() {
+		return new EdgeIterator<T>(LEAVING);
+	}
+
+	public <T extends Node> Iterator<T> getNeighborNodeIterator() {
+		return new Iterator<T>() {
+			final Iterator<Edge> edges = getEdgeIterator();
+
+			public boolean hasNext() {
+				return edges.hasNext();
+			}
+
+			public T next() {
+				return edges.next().getOpposite(ConcurrentNode.this);
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	public <T extends Node> Iterator<T> getBreadthFirstIterator() {
+		return new BreadthFirstIterator<T>(this);
+	}
+
+	public <T extends Node> Iterator<T> getBreadthFirstIterator(boolean directed) {
+		return new BreadthFirstIterator<T>(this, directed);
+	}
+
+	public <T extends Node> Iterator<T> getDepthFirstIterator() {
+		return new DepthFirstIterator<T>(this);
+	}
+
+	public <T extends Node> Iterator<T> getDepthFirstIterator(boolean directed) {
+		return new DepthFirstIterator<T>(this, directed);
+	}
+
+	public Iterator<Edge> iterator() {
+		return getEdgeIterator();
+	}
+
+	private <T extends Edge> Collection<T> view(final int kind) {
+		return new AbstractCollection<T>() {
+			public Iterator<T> iterator() {
+				return new EdgeIterator<T>(kind);
+			}
+
+			public int size() {
+				return count(kind);
+			}
+		};
+	}
+
+	private <T extends Edge> Iterable<T> each(final int kind) {
+		return new Iterable<T>() {
+			public Iterator<T> iterator() {
+				return new EdgeIterator<T>(kind);
+			}
+		};
+	}
+
+	public <T extends Edge> Iterable<T> getEachEdge() {
+		return each(ANY);
+	}
+
+	public <T extends Edge> Iterable<T> getEachEnteringEdge() {
+		return each(ENTERING);
+	}
+
+	public <T extends Edge> Iterable<T> getEachLeavingEdge() {
+		return each(LEAVING);
+	}
+
+	public <T extends Edge> Collection<T> getEdgeSet() {
+		return view(ANY);
+	}
+
+	public <T extends Edge> Collection<T> getEnteringEdgeSet() {
+		return view(ENTERING);
+	}
+
+	public <T extends Edge> Collection<T> getLeavingEdgeSet() {
+		return view(LEAVING);
+	}
+}
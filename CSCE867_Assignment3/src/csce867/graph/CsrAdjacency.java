@@ -0,0 +1,300 @@
+package csce867.graph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Node to incident edge lists in primitive int arrays.
+ *
+ * The bulk of the lists lives in compressed sparse row form: node u owns
+ * csr[start[u] .. start[u] + length[u]). Edges added after the last rebuild
+ * go to a delta buffer, a pool of int linked list cells with one head per
+ * node. Removal from a CSR segment moves the segment's last entry into the
+ * hole, so segments stay packed; the unused tail is reclaimed by the next
+ * rebuild. The owner rebuilds when {@link #needsRebuild()} says the delta
+ * buffer or the dead CSR space has grown past half the live entries, which
+ * keeps add and remove amortized O(1).
+ *
+ * Entry order within a node is not stable, like SingleNode's neighbour map.
+ *
+ * Edges removed from a graph with stable indices are not taken out of the
+ * lists right away: the owner counts them as stale on their endpoints and
+ * {@link #purge(int, BitSet)} drops them the next time the node's list is
+ * read. A rebuild drops them all.
+ */
+final class CsrAdjacency {
+
+	static final int MIN_REBUILD = 4096;
+
+	int[] start;
+	int[] length;
+	int[] csr = new int[0];
+	int csrLive;
+
+	int[] deltaHead;
+	int[] deltaCount;
+	int[] deltaEdge;
+	int[] deltaNext;
+	int deltaUsed;
+	int deltaFree = -1;
+	int deltaLive;
+
+	/** removed edges still listed, per node and in all */
+	int[] stale;
+	int staleTotal;
+
+	CsrAdjacency(int nodeCapacity, int edgeCapacity) {
+		nodeCapacity = Math.max(nodeCapacity, 1);
+		start = new int[nodeCapacity];
+		length = new int[nodeCapacity];
+		deltaHead = new int[nodeCapacity];
+		deltaCount = new int[nodeCapacity];
+		stale = new int[nodeCapacity];
+		Arrays.fill(deltaHead, -1);
+		int cells = Math.min(Math.max(2 * edgeCapacity, 16), 2 * MIN_REBUILD);
+		deltaEdge = new int[cells];
+		deltaNext = new int[cells];
+	}
+
+	int degree(int u) {
+		return length[u] + deltaCount[u];
+	}
+
+	void ensureNodes(int capacity) {
+		if (capacity <= start.length)
+			return;
+		int n = Math.max(capacity, IdTable.grow(start.length));
+		int old = deltaHead.length;
+		start = Arrays.copyOf(start, n);
+		length = Arrays.copyOf(length, n);
+		deltaCount = Arrays.copyOf(deltaCount, n);
+		deltaHead = Arrays.copyOf(deltaHead, n);
+		stale = Arrays.copyOf(stale, n);
+		Arrays.fill(deltaHead, old, n, -1);
+	}
+
+	/** Resets slot u for a freshly added node. */
+	void addNode(int u) {
+		ensureNodes(u + 1);
+		start[u] = 0;
+		length[u] = 0;
+		deltaHead[u] = -1;
+		deltaCount[u] = 0;
+		stale[u] = 0;
+	}
+
+	/** Moves the lists of node from into slot to, from must be empty afterwards. */
+	void moveNode(int from, int to) {
+		start[to] = start[from];
+		length[to] = length[from];
+		deltaHead[to] = deltaHead[from];
+		deltaCount[to] = deltaCount[from];
+		stale[to] = stale[from];
+		length[from] = 0;
+		deltaHead[from] = -1;
+		deltaCount[from] = 0;
+		stale[from] = 0;
+	}
+
+	void add(int u, int edge) {
+		int cell = deltaFree;
+		if (cell >= 0) {
+			deltaFree = deltaNext[cell];
+		} else {
+			if (deltaUsed == deltaEdge.length) {
+				deltaEdge = Arrays.copyOf(deltaEdge, IdTable.grow(deltaUsed));
+				deltaNext = Arrays.copyOf(deltaNext, deltaEdge.length);
+			}
+			cell = deltaUsed++;
+		}
+		deltaEdge[cell] = edge;
+		deltaNext[cell] = deltaHead[u];
+		deltaHead[u] = cell;
+		deltaCount[u]++;
+		deltaLive++;
+	}
+
+	/** i-th incident edge of u, CSR entries first then the delta chain. */
+	int get(int u, int i) {
+		int len = length[u];
+		if (i < len)
+			return csr[start[u] + i];
+		int cell = deltaHead[u];
+		for (i -= len; i > 0; i--)
+			cell = deltaNext[cell];
+		return deltaEdge[cell];
+	}
+
+	/** All entries of u, in get() order. */
+	int[] list(int u) {
+		int len = length[u];
+		int[] all = new int[len + deltaCount[u]];
+		System.arraycopy(csr, start[u], all, 0, len);
+		for (int cell = deltaHead[u]; cell >= 0; cell = deltaNext[cell])
+			all[len++] = deltaEdge[cell];
+		return all;
+	}
+
+	boolean remove(int u, int edge) {
+		int s = start[u], end = s + length[u];
+		for (int p = s; p < end; p++) {
+			if (csr[p] == edge) {
+				csr[p] = csr[end - 1];
+				length[u]--;
+				csrLive--;
+				return true;
+			}
+		}
+		int prev = -1;
+		for (int cell = deltaHead[u]; cell >= 0; prev = cell, cell = deltaNext[cell]) {
+			if (deltaEdge[cell] == edge) {
+				if (prev < 0)
+					deltaHead[u] = deltaNext[cell];
+				else
+					deltaNext[prev] = deltaNext[cell];
+				deltaNext[cell] = deltaFree;
+				deltaFree = cell;
+				deltaCount[u]--;
+				deltaLive--;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	void markStale(int u) {
+		stale[u]++;
+		staleTotal++;
+	}
+
+	/**
+	 * Drops the removed edges from the list of u, each one replaced by the
+	 * segment's last entry as remove() does.
+	 */
+	void purge(int u, BitSet removed) {
+		int s = start[u], end = s + length[u];
+		for (int p = s; p < end;) {
+			if (removed.get(csr[p])) {
+				csr[p] = csr[--end];
+				csrLive--;
+			} else {
+				p++;
+			}
+		}
+		length[u] = end - s;
+		int prev = -1;
+		for (int cell = deltaHead[u]; cell >= 0;) {
+			int next = deltaNext[cell];
+			if (removed.get(deltaEdge[cell])) {
+				if (prev < 0)
+					deltaHead[u] = next;
+				else
+					deltaNext[prev] = next;
+				deltaNext[cell] = deltaFree;
+				deltaFree = cell;
+				deltaCount[u]--;
+				deltaLive--;
+			} else {
+				prev = cell;
+			}
+			cell = next;
+		}
+		staleTotal -= stale[u];
+		stale[u] = 0;
+	}
+
+	/** Empties the list of u at once, for a node being removed. */
+	void drop(int u) {
+		csrLive -= length[u];
+		length[u] = 0;
+		for (int cell = deltaHead[u]; cell >= 0;) {
+			int next = deltaNext[cell];
+			deltaNext[cell] = deltaFree;
+			deltaFree = cell;
+			deltaLive--;
+			cell = next;
+		}
+		deltaHead[u] = -1;
+		deltaCount[u] = 0;
+		staleTotal -= stale[u];
+		stale[u] = 0;
+	}
+
+	/** Renames edge oldEdge to newEdge in the list of u (edge index swap). */
+	void replace(int u, int oldEdge, int newEdge) {
+		int s = start[u], end = s + length[u];
+		for (int p = s; p < end; p++) {
+			if (csr[p] == oldEdge) {
+				csr[p] = newEdge;
+				return;
+			}
+		}
+		for (int cell = deltaHead[u]; cell >= 0; cell = deltaNext[cell]) {
+			if (deltaEdge[cell] == oldEdge) {
+				deltaEdge[cell] = newEdge;
+				return;
+			}
+		}
+	}
+
+	boolean needsRebuild() {
+		int live = csrLive + deltaLive;
+		int threshold = Math.max(MIN_REBUILD, live / 2);
+		return deltaLive > threshold || csr.length - csrLive > threshold || staleTotal > threshold;
+	}
+
+	/**
+	 * Rebuilds the CSR arrays from the edge endpoint columns and empties the
+	 * delta buffer. A loop is listed once, like in SingleNode. The removed
+	 * edges, if any, are left out.
+	 */
+	void rebuild(int nodeCount, int edgeCount, int[] source, int[] target, BitSet removed) {
+		boolean holes = !removed.isEmpty();
+		int[] deg = new int[nodeCount];
+		for (int e = 0; e < edgeCount; e++) {
+			if (holes && removed.get(e))
+				continue;
+			deg[source[e]]++;
+			if (target[e] != source[e])
+				deg[target[e]]++;
+		}
+		int total = 0;
+		for (int u = 0; u < nodeCount; u++) {
+			start[u] = total;
+			total += deg[u];
+		}
+		int[] fresh = new int[total];
+		Arrays.fill(length, 0, nodeCount, 0);
+		for (int e = 0; e < edgeCount; e++) {
+			if (holes && removed.get(e))
+				continue;
+			int a = source[e], b = target[e];
+			fresh[start[a] + length[a]++] = e;
+			if (b != a)
+				fresh[start[b] + length[b]++] = e;
+		}
+		csr = fresh;
+		csrLive = total;
+		Arrays.fill(deltaHead, 0, nodeCount, -1);
+		Arrays.fill(deltaCount, 0, nodeCount, 0);
+		Arrays.fill(stale, 0, nodeCount, 0);
+		staleTotal = 0;
+		resetDelta();
+	}
+
+	/** Empties the delta pool, giving back what a bulk load made it grow to. */
+	private void resetDelta() {
+		if (deltaEdge.length > 2 * MIN_REBUILD) {
+			deltaEdge = new int[2 * MIN_REBUILD];
+			deltaNext = new int[2 * MIN_REBUILD];
+		}
+		deltaUsed = 0;
+		deltaFree = -1;
+		deltaLive = 0;
+	}
+
+	long footprint() {
+		return 4L * (start.length + length.length + deltaHead.length + deltaCount.length + stale.length + csr.length
+				+ deltaEdge.length + deltaNext.length);
+	}
+}
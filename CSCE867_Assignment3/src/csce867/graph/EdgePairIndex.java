@@ -0,0 +1,186 @@
+package csce867.graph;
+
+/**
+ * Graph-wide map from a pair of node indices to the index of the edge
+ * between them, so that getEdgeBetween, the single graph check of addEdge
+ * and removeEdge(from, to) cost one probe instead of a walk of the shorter
+ * incidence list. A single graph has at most one edge per pair whatever
+ * its direction, so the pair is packed unordered, the smaller index in the
+ * high half of a long; the caller checks the direction on the edge found.
+ *
+ * Keys and values sit in two parallel primitive arrays probed linearly,
+ * kept at most half full, removal shifting entries back rather than
+ * leaving tombstones (as in {@link IdTable}).
+ *
+ * The optional Bloom filter answers most absent pairs from one long of a
+ * bit array an eighth the size of the key array, which stays in cache
+ * when the table does not. Bits are never cleared on removal, the filter
+ * is rebuilt instead once the removals since the last build outnumber the
+ * pairs present.
+ */
+final class EdgePairIndex {
+
+	private static final int MIN_SLOTS = 16;
+
+	private long[] keys;
+	/** edge index + 1, 0 is an empty slot */
+	private int[] edges;
+	private int mask;
+	private int size;
+
+	private long[] bloom;
+	private int bloomMask;
+	private int removedSinceBuild;
+
+	EdgePairIndex(int capacity, boolean bloomFilter) {
+		int n = MIN_SLOTS;
+		while (n < capacity * 2)
+			n <<= 1;
+		keys = new long[n];
+		edges = new int[n];
+		mask = n - 1;
+		if (bloomFilter)
+			bloom = new long[n / 8];
+		bloomMask = n / 8 - 1;
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean hasBloomFilter() {
+		return bloom != null;
+	}
+
+	static long pair(int u, int v) {
+		return u < v ? (long) u << 32 | v : (long) v << 32 | u;
+	}
+
+	/** Edge between u and v in any direction, or -1. */
+	int get(int u, int v) {
+		long key = pair(u, v);
+		long h = mix(key);
+		long[] b = bloom;
+		if (b != null && (b[(int) h & bloomMask] & bits(h)) != bits(h))
+			return -1;
+		long[] k = keys;
+		int[] values = edges;
+		int m = mask;
+		for (int i = (int) h & m;; i = (i + 1) & m) {
+			int v2 = values[i];
+			if (v2 == 0)
+				return -1;
+			if (k[i] == key)
+				return v2 - 1;
+		}
+	}
+
+	/** Maps the pair to edge, replacing the edge it mapped to if any. */
+	void put(int u, int v, int edge) {
+		long key = pair(u, v);
+		long h = mix(key);
+		int i = (int) h & mask;
+		for (; edges[i] != 0; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				edges[i] = edge + 1;
+				return;
+			}
+		}
+		keys[i] = key;
+		edges[i] = edge + 1;
+		if (bloom != null)
+			bloom[(int) h & bloomMask] |= bits(h);
+		if (++size * 2 > keys.length)
+			rehash(keys.length << 1);
+	}
+
+	void remove(int u, int v) {
+		long key = pair(u, v);
+		int i = (int) mix(key) & mask;
+		for (; edges[i] != 0; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				deleteSlot(i);
+				size--;
+				if (bloom != null && ++removedSinceBuild > size && removedSinceBuild > MIN_SLOTS)
+					rebuildBloom();
+				return;
+			}
+		}
+	}
+
+	/** Bytes held by the table and the filter. */
+	long footprint() {
+		return 12L * keys.length + (bloom == null ? 0 : 8L * bloom.length);
+	}
+
+	/** Backward shift deletion, see IdTable.deleteSlot. */
+	private void deleteSlot(int hole) {
+		int j = hole;
+		for (;;) {
+			j = (j + 1) & mask;
+			if (edges[j] == 0)
+				break;
+			int home = (int) mix(keys[j]) & mask;
+			boolean stays = hole <= j ? (home > hole && home <= j) : (home > hole || home <= j);
+			if (!stays) {
+				keys[hole] = keys[j];
+				edges[hole] = edges[j];
+				hole = j;
+			}
+		}
+		edges[hole] = 0;
+	}
+
+	private void rehash(int n) {
+		long[] oldKeys = keys;
+		int[] oldEdges = edges;
+		long[] freshKeys = new long[n];
+		int[] freshEdges = new int[n];
+		int m = n - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldEdges[j] == 0)
+				continue;
+			int i = (int) mix(oldKeys[j]) & m;
+			while (freshEdges[i] != 0)
+				i = (i + 1) & m;
+			freshKeys[i] = oldKeys[j];
+			freshEdges[i] = oldEdges[j];
+		}
+		// a reader racing the switch (ConcurrentGraph's optimistic reads)
+		// sees at worst a wrong miss or an index error, and redoes the read
+		edges = freshEdges;
+		keys = freshKeys;
+		mask = m;
+		if (bloom != null)
+			rebuildBloom();
+	}
+
+	private void rebuildBloom() {
+		long[] b = new long[keys.length / 8];
+		int bm = b.length - 1;
+		for (int j = 0; j < keys.length; j++) {
+			if (edges[j] == 0)
+				continue;
+			long h = mix(keys[j]);
+			b[(int) h & bm] |= bits(h);
+		}
+		bloomMask = bm;
+		bloom = b;
+		removedSinceBuild = 0;
+	}
+
+	/** Two bits of one long, picked by the high bits of the hash. */
+	private static long bits(long h) {
+		return 1L << (h >>> 52) | 1L << (h >>> 58);
+	}
+
+	/** The finalizer of MurmurHash3, spreads both halves over all bits. */
+	private static long mix(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb53cd4a9be83L;
+		key ^= key >>> 33;
+		return key;
+	}
+}
@@ -0,0 +1,188 @@
+package csce867.graph;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Off-heap records of fixed-width numeric attributes, one record per
+ * element, for the elements built by {@link ArenaNodeFactory} and
+ * {@link ArenaEdgeFactory}. The keys are declared up front with
+ * {@link #column(String, Class)}; each has a single box type (Double, Long
+ * or Integer, as in NumberColumn) and holds only values of that exact type,
+ * other values staying in the element's own map.
+ *
+ * A record is a presence bitmask followed by 8 bytes per column, and
+ * records are cut from direct ByteBuffer slabs of {@link #SLAB_RECORDS}, so
+ * the heap holds a few slab objects however many elements there are. Slots
+ * freed by removed elements are reused. {@link #reset()} frees every slot
+ * at once and starts a new generation: a handle from an older generation
+ * sees no record. {@link #release()} also drops the slabs, whose memory
+ * goes back to the system when the buffers are collected.
+ */
+public final class ElementArena {
+
+	public static final int SLAB_RECORDS = 1 << 16;
+
+	private static final int MAX_COLUMNS = 64;
+
+	private final HashMap<String, Integer> columns = new HashMap<String, Integer>();
+	private String[] keys = new String[0];
+	private Class<?>[] types = new Class<?>[0];
+	private int recordSize = 8;
+
+	private ByteBuffer[] slabs = new ByteBuffer[0];
+	private int used;
+	private int[] free = new int[16];
+	private int freeCount;
+	private int generation;
+
+	/**
+	 * Declares key as a column of type. Columns are fixed once the first
+	 * record is allocated.
+	 */
+	public ElementArena column(String key, Class<? extends Number> type) {
+		if (slabs.length > 0)
+			throw new IllegalStateException("columns are fixed once records are allocated");
+		if (type != Double.class && type != Long.class && type != Integer.class)
+			throw new IllegalArgumentException("no fixed-width column for " + type.getName());
+		if (columns.containsKey(key))
+			throw new IllegalArgumentException("column " + key + " already declared");
+		if (keys.length == MAX_COLUMNS)
+			throw new IllegalArgumentException("at most " + MAX_COLUMNS + " columns");
+		columns.put(key, keys.length);
+		keys = Arrays.copyOf(keys, keys.length + 1);
+		types = Arrays.copyOf(types, types.length + 1);
+		keys[keys.length - 1] = key;
+		types[types.length - 1] = type;
+		recordSize += 8;
+		return this;
+	}
+
+	public int getColumnCount() {
+		return keys.length;
+	}
+
+	/** Records in use. */
+	public int getLiveCount() {
+		return used - freeCount;
+	}
+
+	/** Bytes of the slabs, outside the heap. */
+	public long getOffHeapBytes() {
+		return (long) slabs.length * SLAB_RECORDS * recordSize;
+	}
+
+	int generation() {
+		return generation;
+	}
+
+	/** Column of key, -1 if it has none. */
+	int columnOf(String key) {
+		Integer c = columns.get(key);
+		return c == null ? -1 : c;
+	}
+
+	String key(int column) {
+		return keys[column];
+	}
+
+	boolean accepts(int column, Object value) {
+		return value != null && value.getClass() == types[column];
+	}
+
+	// records
+
+	int allocate() {
+		int slot;
+		if (freeCount > 0) {
+			slot = free[--freeCount];
+		} else {
+			slot = used++;
+			int slab = slot / SLAB_RECORDS;
+			if (slab == slabs.length) {
+				slabs = Arrays.copyOf(slabs, slab + 1);
+				slabs[slab] = ByteBuffer.allocateDirect(SLAB_RECORDS * recordSize).order(ByteOrder.nativeOrder());
+			}
+		}
+		slab(slot).putLong(offset(slot), 0L);
+		return slot;
+	}
+
+	void free(int slot) {
+		if (freeCount == free.length)
+			free = Arrays.copyOf(free, 2 * freeCount);
+		free[freeCount++] = slot;
+	}
+
+	/** Frees every record, the slabs are kept for the next ones. */
+	public void reset() {
+		used = 0;
+		freeCount = 0;
+		generation++;
+	}
+
+	/** Frees every record and drops the slabs. */
+	public void release() {
+		reset();
+		slabs = new ByteBuffer[0];
+		free = new int[16];
+	}
+
+	long presence(int slot) {
+		return slab(slot).getLong(offset(slot));
+	}
+
+	boolean has(int slot, int column) {
+		return (presence(slot) & (1L << column)) != 0;
+	}
+
+	/** Boxed value of a present column, in the column's type. */
+	Object get(int slot, int column) {
+		ByteBuffer b = slab(slot);
+		int at = offset(slot) + 8 + 8 * column;
+		Class<?> type = types[column];
+		if (type == Double.class)
+			return b.getDouble(at);
+		if (type == Long.class)
+			return b.getLong(at);
+		return (int) b.getLong(at);
+	}
+
+	double getDouble(int slot, int column) {
+		ByteBuffer b = slab(slot);
+		int at = offset(slot) + 8 + 8 * column;
+		return types[column] == Double.class ? b.getDouble(at) : b.getLong(at);
+	}
+
+	/** Stores a value accepted by {@link #accepts(int, Object)}. */
+	void set(int slot, int column, Object value) {
+		ByteBuffer b = slab(slot);
+		int base = offset(slot);
+		int at = base + 8 + 8 * column;
+		if (value instanceof Double)
+			b.putDouble(at, (Double) value);
+		else
+			b.putLong(at, ((Number) value).longValue());
+		b.putLong(base, b.getLong(base) | 1L << column);
+	}
+
+	void clear(int slot, int column) {
+		ByteBuffer b = slab(slot);
+		int base = offset(slot);
+		b.putLong(base, b.getLong(base) & ~(1L << column));
+	}
+
+	void clear(int slot) {
+		slab(slot).putLong(offset(slot), 0L);
+	}
+
+	private ByteBuffer slab(int slot) {
+		return slabs[slot / SLAB_RECORDS];
+	}
+
+	private int offset(int slot) {
+		return (slot % SLAB_RECORDS) * recordSize;
+	}
+}
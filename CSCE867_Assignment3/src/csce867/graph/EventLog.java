@@ -0,0 +1,227 @@
+package csce867.graph;
+
+import java.util.Arrays;
+
+import org.graphstream.stream.Sink;
+import org.graphstream.stream.SourceBase;
+
+/**
+ * Graph events recorded in order, one op code and a fixed number of
+ * arguments per event, to be sent again later from another thread. Source
+ * ids and time ids are not kept; a replay sends under its own.
+ */
+final class EventLog {
+
+	static final byte NODE_ADDED = 0, NODE_REMOVED = 1, EDGE_ADDED = 2, EDGE_REMOVED = 3, GRAPH_CLEARED = 4,
+			STEP_BEGINS = 5, GRAPH_ATTR_ADDED = 6, GRAPH_ATTR_CHANGED = 7, GRAPH_ATTR_REMOVED = 8,
+			NODE_ATTR_ADDED = 9, NODE_ATTR_CHANGED = 10, NODE_ATTR_REMOVED = 11, EDGE_ATTR_ADDED = 12,
+			EDGE_ATTR_CHANGED = 13, EDGE_ATTR_REMOVED = 14;
+
+	private byte[] ops = new byte[64];
+	/** argument offset of each event */
+	private int[] starts = new int[64];
+	private Object[] args = new Object[256];
+	private int size, argCount;
+
+	int size() {
+		return size;
+	}
+
+	byte op(int event) {
+		return ops[event];
+	}
+
+	private void add(byte op, Object... values) {
+		if (size == ops.length) {
+			ops = Arrays.copyOf(ops, size * 2);
+			starts = Arrays.copyOf(starts, size * 2);
+		}
+		if (argCount + values.length > args.length)
+			args = Arrays.copyOf(args, Math.max(args.length * 2, argCount + values.length));
+		ops[size] = op;
+		starts[size++] = argCount;
+		System.arraycopy(values, 0, args, argCount, values.length);
+		argCount += values.length;
+	}
+
+	/** Index of the first stepBegins at or after from, -1 if none. */
+	int nextStep(int from) {
+		for (int i = from; i < size; i++)
+			if (ops[i] == STEP_BEGINS)
+				return i;
+		return -1;
+	}
+
+	/** Sends events [from, to) to the sinks of source. */
+	void replay(SourceBase source, String sourceId, int from, int to) {
+		for (int i = from; i < to; i++)
+			send(source, sourceId, i);
+	}
+
+	private void send(SourceBase source, String sourceId, int i) {
+		int a = starts[i];
+		switch (ops[i]) {
+		case NODE_ADDED:
+			source.sendNodeAdded(sourceId, (String) args[a]);
+			break;
+		case NODE_REMOVED:
+			source.sendNodeRemoved(sourceId, (String) args[a]);
+			break;
+		case EDGE_ADDED:
+			source.sendEdgeAdded(sourceId, (String) args[a], (String) args[a + 1], (String) args[a + 2],
+					(Boolean) args[a + 3]);
+			break;
+		case EDGE_REMOVED:
+			source.sendEdgeRemoved(sourceId, (String) args[a]);
+			break;
+		case GRAPH_CLEARED:
+			source.sendGraphCleared(sourceId);
+			break;
+		case STEP_BEGINS:
+			source.sendStepBegins(sourceId, (Double) args[a]);
+			break;
+		case GRAPH_ATTR_ADDED:
+			source.sendGraphAttributeAdded(sourceId, (String) args[a], args[a + 1]);
+			break;
+		case GRAPH_ATTR_CHANGED:
+			source.sendGraphAttributeChanged(sourceId, (String) args[a], args[a + 1], args[a + 2]);
+			break;
+		case GRAPH_ATTR_REMOVED:
+			source.sendGraphAttributeRemoved(sourceId, (String) args[a]);
+			break;
+		case NODE_ATTR_ADDED:
+			source.sendNodeAttributeAdded(sourceId, (String) args[a], (String) args[a + 1], args[a + 2]);
+			break;
+		case NODE_ATTR_CHANGED:
+			source.sendNodeAttributeChanged(sourceId, (String) args[a], (String) args[a + 1], args[a + 2],
+					args[a + 3]);
+			break;
+		case NODE_ATTR_REMOVED:
+			source.sendNodeAttributeRemoved(sourceId, (String) args[a], (String) args[a + 1]);
+			break;
+		case EDGE_ATTR_ADDED:
+			source.sendEdgeAttributeAdded(sourceId, (String) args[a], (String) args[a + 1], args[a + 2]);
+			break;
+		case EDGE_ATTR_CHANGED:
+			source.sendEdgeAttributeChanged(sourceId, (String) args[a], (String) args[a + 1], args[a + 2],
+					args[a + 3]);
+			break;
+		default:
+			source.sendEdgeAttributeRemoved(sourceId, (String) args[a], (String) args[a + 1]);
+		}
+	}
+
+	/**
+	 * Sends events [from, to) with every run of node and edge additions
+	 * committed to graph as one {@link GraphBatch}; the attribute events met
+	 * during a run are sent after its commit, any other event ends the run.
+	 */
+	void replayBatched(SourceBase source, String sourceId, BatchSingleGraph graph, int from, int to) {
+		GraphBatch batch = null;
+		int[] deferred = new int[16];
+		int deferredCount = 0;
+		for (int i = from; i < to; i++) {
+			int a = starts[i];
+			byte op = ops[i];
+			if (op == NODE_ADDED || op == EDGE_ADDED) {
+				if (batch == null)
+					batch = graph.batch();
+				if (op == NODE_ADDED)
+					batch.addNode((String) args[a]);
+				else
+					batch.addEdge((String) args[a], (String) args[a + 1], (String) args[a + 2],
+							(Boolean) args[a + 3]);
+			} else if (batch != null && op >= GRAPH_ATTR_ADDED) {
+				if (deferredCount == deferred.length)
+					deferred = Arrays.copyOf(deferred, deferredCount * 2);
+				deferred[deferredCount++] = i;
+			} else {
+				if (batch != null) {
+					batch.commit();
+					batch = null;
+					for (int k = 0; k < deferredCount; k++)
+						send(source, sourceId, deferred[k]);
+					deferredCount = 0;
+				}
+				send(source, sourceId, i);
+			}
+		}
+		if (batch != null) {
+			batch.commit();
+			for (int k = 0; k < deferredCount; k++)
+				send(source, sourceId, deferred[k]);
+		}
+	}
+
+	/** Sink appending to {@link #log}, which the owner swaps between uses. */
+	static final class Recorder implements Sink {
+		EventLog log;
+		boolean finished;
+
+		public void graphAttributeAdded(String sourceId, long timeId, String attribute, Object value) {
+			log.add(GRAPH_ATTR_ADDED, attribute, value);
+		}
+
+		public void graphAttributeChanged(String sourceId, long timeId, String attribute, Object oldValue,
+				Object newValue) {
+			log.add(GRAPH_ATTR_CHANGED, attribute, oldValue, newValue);
+		}
+
+		public void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+			log.add(GRAPH_ATTR_REMOVED, attribute);
+		}
+
+		public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute,
+				Object value) {
+			log.add(NODE_ATTR_ADDED, nodeId, attribute, value);
+		}
+
+		public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute,
+				Object oldValue, Object newValue) {
+			log.add(NODE_ATTR_CHANGED, nodeId, attribute, oldValue, newValue);
+		}
+
+		public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+			log.add(NODE_ATTR_REMOVED, nodeId, attribute);
+		}
+
+		public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute,
+				Object value) {
+			log.add(EDGE_ATTR_ADDED, edgeId, attribute, value);
+		}
+
+		public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute,
+				Object oldValue, Object newValue) {
+			log.add(EDGE_ATTR_CHANGED, edgeId, attribute, oldValue, newValue);
+		}
+
+		public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+			log.add(EDGE_ATTR_REMOVED, edgeId, attribute);
+		}
+
+		public void nodeAdded(String sourceId, long timeId, String nodeId) {
+			log.add(NODE_ADDED, nodeId);
+		}
+
+		public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+			log.add(NODE_REMOVED, nodeId);
+		}
+
+		public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId,
+				boolean directed) {
+			log.add(EDGE_ADDED, edgeId, fromNodeId, toNodeId, directed);
+		}
+
+		public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+			log.add(EDGE_REMOVED, edgeId);
+		}
+
+		public void graphCleared(String sourceId, long timeId) {
+			log.add(GRAPH_CLEARED);
+		}
+
+		public void stepBegins(String sourceId, long timeId, double step) {
+			log.add(STEP_BEGINS, step);
+		}
+	}
+}
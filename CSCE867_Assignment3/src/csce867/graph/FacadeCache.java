@@ -0,0 +1,152 @@
+package csce867.graph;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * Index to facade map holding the facades weakly. A facade stays the one
+ * and only object for its element while somebody references it, and costs
+ * nothing once it is dropped, so a bulk load through addEdge() does not pin
+ * one object per edge. Open addressing on the int index, linear probing,
+ * backward shift deletion as in IdTable.
+ */
+final class FacadeCache<F> {
+
+	private static final class Ref<F> extends WeakReference<F> {
+		int key;
+
+		Ref(F referent, int key, ReferenceQueue<? super F> queue) {
+			super(referent, queue);
+			this.key = key;
+		}
+	}
+
+	private final ReferenceQueue<F> queue = new ReferenceQueue<F>();
+	private Ref<F>[] slots = newSlots(16);
+	private int size;
+
+	private static <F> Ref<F>[] newSlots(int n) {
+		@SuppressWarnings("unchecked")
+		Ref<F>[] slots = (Ref<F>[]) new Ref<?>[n];
+		return slots;
+	}
+
+	private static int spread(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	int size() {
+		return size;
+	}
+
+	F get(int key) {
+		expunge();
+		int slot = slotOf(key);
+		return slot < 0 ? null : slots[slot].get();
+	}
+
+	void put(int key, F facade) {
+		expunge();
+		int slot = slotOf(key);
+		if (slot >= 0) {
+			slots[slot].clear();
+			deleteSlot(slot);
+		}
+		if (2 * (size + 1) > slots.length)
+			rehash(2 * slots.length);
+		insert(new Ref<F>(facade, key, queue));
+	}
+
+	/** Removes the facade of key from the map and returns it, if still alive. */
+	F take(int key) {
+		expunge();
+		int slot = slotOf(key);
+		if (slot < 0)
+			return null;
+		Ref<F> ref = slots[slot];
+		deleteSlot(slot);
+		F facade = ref.get();
+		ref.clear();
+		return facade;
+	}
+
+	/** Re-keys the facade of from under to and returns it, if still alive. */
+	F move(int from, int to) {
+		expunge();
+		int slot = slotOf(from);
+		if (slot < 0)
+			return null;
+		Ref<F> ref = slots[slot];
+		deleteSlot(slot);
+		F facade = ref.get();
+		if (facade == null) {
+			ref.clear();
+			return null;
+		}
+		ref.key = to;
+		insert(ref);
+		return facade;
+	}
+
+	long footprint() {
+		return 4L * slots.length + 32L * size;
+	}
+
+	private int slotOf(int key) {
+		int mask = slots.length - 1;
+		for (int i = spread(key) & mask;; i = (i + 1) & mask) {
+			Ref<F> ref = slots[i];
+			if (ref == null)
+				return -1;
+			if (ref.key == key)
+				return i;
+		}
+	}
+
+	private void insert(Ref<F> ref) {
+		int mask = slots.length - 1;
+		int i = spread(ref.key) & mask;
+		while (slots[i] != null)
+			i = (i + 1) & mask;
+		slots[i] = ref;
+		size++;
+	}
+
+	private void deleteSlot(int hole) {
+		int mask = slots.length - 1;
+		slots[hole] = null;
+		size--;
+		for (int i = (hole + 1) & mask; slots[i] != null; i = (i + 1) & mask) {
+			int home = spread(slots[i].key) & mask;
+			if (((i - home) & mask) >= ((i - hole) & mask)) {
+				slots[hole] = slots[i];
+				slots[i] = null;
+				hole = i;
+			}
+		}
+	}
+
+	private void rehash(int n) {
+		Ref<F>[] old = slots;
+		slots = newSlots(n);
+		size = 0;
+		for (Ref<F> ref : old)
+			if (ref != null)
+				insert(ref);
+	}
+
+	/** Drops the slots of facades the collector has reclaimed. */
+	void expunge() {
+		for (Reference<? extends F> r; (r = queue.poll()) != null;) {
+			@SuppressWarnings("unchecked")
+			Ref<F> ref = (Ref<F>) r;
+			int slot = slotOf(ref.key);
+			if (slot >= 0 && slots[slot] == ref)
+				deleteSlot(slot);
+		}
+		if (slots.length > 16 && 8 * size < slots.length)
+			rehash(Math.max(16, Integer.highestOneBit(4 * size)));
+	}
+}
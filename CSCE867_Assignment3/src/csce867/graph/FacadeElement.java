@@ -0,0 +1,229 @@
+package csce867.graph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.graphstream.graph.CompoundAttribute;
+import org.graphstream.graph.Element;
+import org.graphstream.graph.NullAttributeException;
+import org.graphstream.graph.implementations.AbstractElement.AttributeChangeEvent;
+
+/**
+ * Element implementation for graphs that do not keep one heap object with
+ * its own HashMap per element. Subclasses only say where an attribute value
+ * lives; every typed getter, has*() test, null-attribute check and change
+ * event follows AbstractElement exactly so callers (and
+ * SingleGraph_TSL_Tests) cannot tell the difference.
+ */
+public abstract class FacadeElement implements Element {
+
+	/** Raw value stored under key, or null. */
+	protected abstract Object attributeValue(String key);
+
+	protected abstract boolean containsAttribute(String key);
+
+	/** Stores value under key and returns the previous value. */
+	protected abstract Object putAttribute(String key, Object value);
+
+	/** Drops key and returns the previous value. */
+	protected abstract Object deleteAttribute(String key);
+
+	/** Snapshot of the keys, safe to iterate while attributes change. */
+	protected abstract Collection<String> attributeKeys();
+
+	protected abstract boolean nullAttributesAreErrors();
+
+	protected abstract void attributeChanged(AttributeChangeEvent event, String attribute, Object oldValue,
+			Object newValue);
+
+	@Override
+	public String toString() {
+		return getId();
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> T getAttribute(String key) {
+		T value = (T) attributeValue(key);
+		if (value == null && nullAttributesAreErrors())
+			throw new NullAttributeException(key);
+		return value;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> T getFirstAttributeOf(String... keys) {
+		for (String key : keys) {
+			Object o = attributeValue(key);
+			if (o != null)
+				return (T) o;
+		}
+		if (nullAttributesAreErrors())
+			throw new NullAttributeException();
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> T getAttribute(String key, Class<T> clazz) {
+		Object o = attributeValue(key);
+		if (o != null && clazz.isInstance(o))
+			return (T) o;
+		if (nullAttributesAreErrors())
+			throw new NullAttributeException(key);
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> T getFirstAttributeOf(Class<T> clazz, String... keys) {
+		for (String key : keys) {
+			Object o = attributeValue(key);
+			if (o != null && clazz.isInstance(o))
+				return (T) o;
+		}
+		if (nullAttributesAreErrors())
+			throw new NullAttributeException();
+		return null;
+	}
+
+	public CharSequence getLabel(String key) {
+		Object o = attributeValue(key);
+		if (o instanceof CharSequence)
+			return o.toString();
+		if (nullAttributesAreErrors())
+			throw new NullAttributeException(key);
+		return null;
+	}
+
+	public double getNumber(String key) {
+		Object o = attributeValue(key);
+		if (o != null) {
+			if (o instanceof Number)
+				return ((Number) o).doubleValue();
+			if (o instanceof CharSequence) {
+				try {
+					return Double.parseDouble(o.toString());
+				} catch (NumberFormatException e) {
+				}
+			}
+		}
+		if (nullAttributesAreErrors())
+			throw new NullAttributeException(key);
+		return Double.NaN;
+	}
+
+	@SuppressWarnings("unchecked")
+	public ArrayList<? extends Number> getVector(String key) {
+		Object o = attributeValue(key);
+		if (o instanceof ArrayList)
+			return (ArrayList<? extends Number>) o;
+		if (nullAttributesAreErrors())
+			throw new NullAttributeException(key);
+		return null;
+	}
+
+	public Object[] getArray(String key) {
+		Object o = attributeValue(key);
+		if (o instanceof Object[])
+			return (Object[]) o;
+		if (nullAttributesAreErrors())
+			throw new NullAttributeException(key);
+		return null;
+	}
+
+	public HashMap<?, ?> getHash(String key) {
+		Object o = attributeValue(key);
+		if (o instanceof HashMap<?, ?>)
+			return (HashMap<?, ?>) o;
+		if (o instanceof CompoundAttribute)
+			return ((CompoundAttribute) o).toHashMap();
+		if (nullAttributesAreErrors())
+			throw new NullAttributeException(key);
+		return null;
+	}
+
+	public boolean hasAttribute(String key) {
+		return containsAttribute(key);
+	}
+
+	public boolean hasAttribute(String key, Class<?> clazz) {
+		Object o = attributeValue(key);
+		return o != null && clazz.isInstance(o);
+	}
+
+	public boolean hasLabel(String key) {
+		return attributeValue(key) instanceof CharSequence;
+	}
+
+	public boolean hasNumber(String key) {
+		return attributeValue(key) instanceof Number;
+	}
+
+	public boolean hasVector(String key) {
+		return attributeValue(key) instanceof ArrayList<?>;
+	}
+
+	public boolean hasArray(String key) {
+		return attributeValue(key) instanceof Object[];
+	}
+
+	public boolean hasHash(String key) {
+		Object o = attributeValue(key);
+		return o instanceof HashMap<?, ?> || o instanceof CompoundAttribute;
+	}
+
+	public Iterator<String> getAttributeKeyIterator() {
+		return attributeKeys().iterator();
+	}
+
+	public Iterable<String> getEachAttributeKey() {
+		return attributeKeys();
+	}
+
+	public Collection<String> getAttributeKeySet() {
+		return Collections.unmodifiableCollection(attributeKeys());
+	}
+
+	public void clearAttributes() {
+		for (String key : attributeKeys()) {
+			attributeChanged(AttributeChangeEvent.REMOVE, key, attributeValue(key), null);
+			deleteAttribute(key);
+		}
+	}
+
+	public void addAttribute(String attribute, Object... values) {
+		Object value;
+		if (values.length == 0)
+			value = true;
+		else if (values.length == 1)
+			value = values[0];
+		else
+			value = values;
+
+		AttributeChangeEvent event = containsAttribute(attribute) ? AttributeChangeEvent.CHANGE
+				: AttributeChangeEvent.ADD;
+		Object oldValue = putAttribute(attribute, value);
+		attributeChanged(event, attribute, oldValue, value);
+	}
+
+	public void changeAttribute(String attribute, Object... values) {
+		addAttribute(attribute, values);
+	}
+
+	public void setAttribute(String attribute, Object... values) {
+		addAttribute(attribute, values);
+	}
+
+	public void addAttributes(Map<String, Object> attributes) {
+		for (Map.Entry<String, Object> entry : attributes.entrySet())
+			addAttribute(entry.getKey(), entry.getValue());
+	}
+
+	public void removeAttribute(String attribute) {
+		if (containsAttribute(attribute)) {
+			attributeChanged(AttributeChangeEvent.REMOVE, attribute, attributeValue(attribute), null);
+			deleteAttribute(attribute);
+		}
+	}
+}
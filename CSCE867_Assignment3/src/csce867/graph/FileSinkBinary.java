@@ -0,0 +1,535 @@
+package csce867.graph;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Element;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.stream.file.FileSink;
+
+/**
+ * Writes a graph as a {@link BinaryGraphFile} snapshot: id tables with
+ * their hash tables, endpoint columns, CSR incidence lists and one typed
+ * column per attribute key and value type. Integer, Long, Float, Double,
+ * Boolean and String values keep their type; other values made only of
+ * the classes BinaryGraphFile reads back (see
+ * {@link BinaryGraphFile#ALLOW_PROPERTY}) are stored serialized; anything
+ * else is stored as its toString(), which is what FileSinkDGS writes for
+ * it. Elements are written in iteration order with dense indices, so the
+ * holes a CompactGraph with stable indices leaves are closed in the file.
+ *
+ * The format is a snapshot, not an event log. writeAll() writes the graph
+ * as it is; used as a sink between begin() and end(), the events are
+ * applied to an internal {@link CompactGraph} and its final state is
+ * written by end(), steps included only as the graph they lead to. The
+ * factories know nothing of this format, so pass an instance to
+ * Graph.write(FileSink, String) and a {@link FileSourceBinary} to
+ * Graph.read(FileSource, String). Character Writers cannot carry binary
+ * data and are refused.
+ */
+public class FileSinkBinary implements FileSink {
+
+	private CompactGraph pending;
+	private OutputStream pendingOutput;
+	private boolean closeOutput;
+
+	// whole graph
+
+	public void writeAll(Graph graph, String fileName) throws IOException {
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16);
+		try {
+			write(graph, out);
+		} finally {
+			out.close();
+		}
+	}
+
+	public void writeAll(Graph graph, OutputStream stream) throws IOException {
+		write(graph, stream);
+		stream.flush();
+	}
+
+	public void writeAll(Graph graph, Writer writer) throws IOException {
+		throw new IOException("the binary graph format cannot be written to a character Writer");
+	}
+
+	// streaming, buffered into a graph written at end()
+
+	public void begin(String fileName) throws IOException {
+		begin(new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16));
+		closeOutput = true;
+	}
+
+	public void begin(OutputStream stream) throws IOException {
+		if (pending != null)
+			throw new IOException("cannot call begin() twice without calling end() before");
+		pending = new CompactGraph("binary-sink", false, true);
+		pendingOutput = stream;
+		closeOutput = false;
+	}
+
+	public void begin(Writer writer) throws IOException {
+		throw new IOException("the binary graph format cannot be written to a character Writer");
+	}
+
+	public void flush() throws IOException {
+		if (pendingOutput != null)
+			pendingOutput.flush();
+	}
+
+	public void end() throws IOException {
+		if (pending == null)
+			return;
+		try {
+			write(pending, pendingOutput);
+			pendingOutput.flush();
+		} finally {
+			if (closeOutput)
+				pendingOutput.close();
+			pending = null;
+			pendingOutput = null;
+		}
+	}
+
+	public void graphAttributeAdded(String sourceId, long timeId, String attribute, Object value) {
+		if (pending != null)
+			pending.addAttribute(attribute, value);
+	}
+
+	public void graphAttributeChanged(String sourceId, long timeId, String attribute, Object oldValue,
+			Object newValue) {
+		if (pending != null)
+			pending.changeAttribute(attribute, newValue);
+	}
+
+	public void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+		if (pending != null)
+			pending.removeAttribute(attribute);
+	}
+
+	public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+		if (pending != null)
+			pending.getNode(nodeId).addAttribute(attribute, value);
+	}
+
+	public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute,
+			Object oldValue, Object newValue) {
+		if (pending != null)
+			pending.getNode(nodeId).changeAttribute(attribute, newValue);
+	}
+
+	public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+		if (pending != null)
+			pending.getNode(nodeId).removeAttribute(attribute);
+	}
+
+	public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+		if (pending != null)
+			pending.getEdge(edgeId).addAttribute(attribute, value);
+	}
+
+	public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute,
+			Object oldValue, Object newValue) {
+		if (pending != null)
+			pending.getEdge(edgeId).changeAttribute(attribute, newValue);
+	}
+
+	public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+		if (pending != null)
+			pending.getEdge(edgeId).removeAttribute(attribute);
+	}
+
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		if (pending != null)
+			pending.addNode(nodeId);
+	}
+
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		if (pending != null)
+			pending.removeNode(nodeId);
+	}
+
+	public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId,
+			boolean directed) {
+		if (pending != null)
+			pending.addEdge(edgeId, fromNodeId, toNodeId, directed);
+	}
+
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		if (pending != null)
+			pending.removeEdge(edgeId);
+	}
+
+	public void graphCleared(String sourceId, long timeId) {
+		if (pending != null)
+			pending.clear();
+	}
+
+	public void stepBegins(String sourceId, long timeId, double step) {
+	}
+
+	// encoding
+
+	/** Writes graph to out in the layout described by {@link BinaryGraphFile}. */
+	static void write(Graph graph, OutputStream out) throws IOException {
+		Node[] nodes = new Node[graph.getNodeCount()];
+		Edge[] edges = new Edge[graph.getEdgeCount()];
+		int n = 0, m = 0;
+		for (Node node : graph.getEachNode())
+			nodes[n++] = node;
+		for (Edge edge : graph.getEachEdge())
+			edges[m++] = edge;
+		int[] nodeAt = positions(nodes), edgeAt = positions(edges);
+		Output o = new Output(out);
+		long[] offsets = new long[BinaryGraphFile.SECTIONS];
+		long[] lengths = new long[BinaryGraphFile.SECTIONS];
+
+		byte[][] nodeIds = new byte[n][];
+		int[] nodeHashes = new int[n];
+		for (int i = 0; i < n; i++) {
+			String id = nodes[i].getId();
+			nodeIds[i] = id.getBytes(StandardCharsets.UTF_8);
+			nodeHashes[i] = id.hashCode();
+		}
+		byte[][] edgeIds = new byte[m][];
+		int[] edgeHashes = new int[m];
+		for (int i = 0; i < m; i++) {
+			String id = edges[i].getId();
+			edgeIds[i] = id.getBytes(StandardCharsets.UTF_8);
+			edgeHashes[i] = id.hashCode();
+		}
+
+		offsets[BinaryGraphFile.NODE_IDS] = o.position;
+		o.table(nodeIds);
+		offsets[BinaryGraphFile.EDGE_IDS] = o.position;
+		o.table(edgeIds);
+		offsets[BinaryGraphFile.NODE_HASH] = o.position;
+		o.hash(nodeHashes);
+		offsets[BinaryGraphFile.EDGE_HASH] = o.position;
+		o.hash(edgeHashes);
+		nodeIds = edgeIds = null;
+
+		offsets[BinaryGraphFile.ENDPOINTS] = o.position;
+		long[] directed = new long[(m + 63) >>> 6];
+		for (int i = 0; i < m; i++)
+			o.putInt(nodeAt[edges[i].getNode0().getIndex()]);
+		for (int i = 0; i < m; i++) {
+			Edge e = edges[i];
+			o.putInt(nodeAt[e.getNode1().getIndex()]);
+			if (e.isDirected())
+				directed[i >>> 6] |= 1L << i;
+		}
+		for (long bits : directed)
+			o.putLong(bits);
+
+		offsets[BinaryGraphFile.INCIDENCE] = o.position;
+		int total = 0;
+		o.putInt(0);
+		for (int i = 0; i < n; i++)
+			o.putInt(total += nodes[i].getDegree());
+		for (int i = 0; i < n; i++)
+			for (Edge e : nodes[i].getEachEdge())
+				o.putInt(edgeAt[e.getIndex()]);
+
+		offsets[BinaryGraphFile.ATTRIBUTES] = o.position;
+		LinkedHashMap<String, ColumnBuilder> columns = new LinkedHashMap<String, ColumnBuilder>();
+		collect(columns, BinaryGraphFile.GRAPH, graph, 0, 1);
+		for (int i = 0; i < n; i++)
+			collect(columns, BinaryGraphFile.NODE, nodes[i], i, n);
+		for (int i = 0; i < m; i++)
+			collect(columns, BinaryGraphFile.EDGE, edges[i], i, m);
+		o.putInt(columns.size());
+		for (ColumnBuilder c : columns.values())
+			c.write(o);
+
+		for (int s = 0; s < BinaryGraphFile.SECTIONS; s++)
+			lengths[s] = (s + 1 < BinaryGraphFile.SECTIONS ? offsets[s + 1] : o.position) - offsets[s];
+		for (int s = 0; s < BinaryGraphFile.SECTIONS; s++) {
+			o.putLong(offsets[s]);
+			o.putLong(lengths[s]);
+		}
+		o.putInt(n);
+		o.putInt(m);
+		o.putInt(BinaryGraphFile.VERSION);
+		o.putInt(BinaryGraphFile.MAGIC);
+		o.flush();
+	}
+
+	/** Dense position of each element by its graph index, -1 in the holes. */
+	private static int[] positions(Element[] elements) {
+		int limit = 0;
+		for (Element e : elements)
+			limit = Math.max(limit, e.getIndex() + 1);
+		int[] at = new int[limit];
+		Arrays.fill(at, -1);
+		for (int i = 0; i < elements.length; i++)
+			at[elements[i].getIndex()] = i;
+		return at;
+	}
+
+	private static void collect(LinkedHashMap<String, ColumnBuilder> columns, byte kind, Element e, int index,
+			int count) throws IOException {
+		for (String key : e.getAttributeKeySet()) {
+			Object value = e.getAttribute(key);
+			if (value == null)
+				continue;
+			byte type = typeOf(value);
+			if (type == BinaryGraphFile.T_OBJECT)
+				value = serialize(value);
+			String name = kind + ":" + type + ":" + key;
+			ColumnBuilder c = columns.get(name);
+			if (c == null)
+				columns.put(name, c = new ColumnBuilder(kind, type, key, count));
+			c.set(index, value);
+		}
+	}
+
+	private static byte typeOf(Object value) {
+		if (value instanceof Integer)
+			return BinaryGraphFile.T_INT;
+		if (value instanceof Long)
+			return BinaryGraphFile.T_LONG;
+		if (value instanceof Float)
+			return BinaryGraphFile.T_FLOAT;
+		if (value instanceof Double)
+			return BinaryGraphFile.T_DOUBLE;
+		if (value instanceof Boolean)
+			return BinaryGraphFile.T_BOOLEAN;
+		if (value instanceof String)
+			return BinaryGraphFile.T_STRING;
+		return BinaryGraphFile.storable(value) ? BinaryGraphFile.T_OBJECT : BinaryGraphFile.T_STRING;
+	}
+
+	private static byte[] serialize(Object value) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(value);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	private static final byte[] EMPTY = new byte[0];
+
+	/** Values of one (kind, type, key) column, dense by element index. */
+	private static final class ColumnBuilder {
+		final byte kind, type;
+		final String key;
+		final int count;
+		final long[] present;
+		long[] longs;
+		double[] doubles;
+		byte[][] blobs;
+
+		ColumnBuilder(byte kind, byte type, String key, int count) {
+			this.kind = kind;
+			this.type = type;
+			this.key = key;
+			this.count = count;
+			present = new long[(count + 63) >>> 6];
+			switch (type) {
+			case BinaryGraphFile.T_INT:
+			case BinaryGraphFile.T_LONG:
+				longs = new long[count];
+				break;
+			case BinaryGraphFile.T_FLOAT:
+			case BinaryGraphFile.T_DOUBLE:
+				doubles = new double[count];
+				break;
+			case BinaryGraphFile.T_BOOLEAN:
+				longs = new long[present.length];
+				break;
+			default:
+				blobs = new byte[count][];
+			}
+		}
+
+		void set(int i, Object value) {
+			present[i >>> 6] |= 1L << i;
+			switch (type) {
+			case BinaryGraphFile.T_INT:
+			case BinaryGraphFile.T_LONG:
+				longs[i] = ((Number) value).longValue();
+				break;
+			case BinaryGraphFile.T_FLOAT:
+			case BinaryGraphFile.T_DOUBLE:
+				doubles[i] = ((Number) value).doubleValue();
+				break;
+			case BinaryGraphFile.T_BOOLEAN:
+				if ((Boolean) value)
+					longs[i >>> 6] |= 1L << i;
+				break;
+			case BinaryGraphFile.T_STRING:
+				blobs[i] = value.toString().getBytes(StandardCharsets.UTF_8);
+				break;
+			default:
+				blobs[i] = (byte[]) value;
+			}
+		}
+
+		void write(Output o) throws IOException {
+			byte[] name = key.getBytes(StandardCharsets.UTF_8);
+			o.putByte(kind);
+			o.putByte(type);
+			o.putInt(name.length);
+			o.putBytes(name);
+			o.putLong(length());
+			for (long bits : present)
+				o.putLong(bits);
+			switch (type) {
+			case BinaryGraphFile.T_INT:
+				for (long v : longs)
+					o.putInt((int) v);
+				break;
+			case BinaryGraphFile.T_LONG:
+				for (long v : longs)
+					o.putLong(v);
+				break;
+			case BinaryGraphFile.T_FLOAT:
+				for (double v : doubles)
+					o.putFloat((float) v);
+				break;
+			case BinaryGraphFile.T_DOUBLE:
+				for (double v : doubles)
+					o.putDouble(v);
+				break;
+			case BinaryGraphFile.T_BOOLEAN:
+				for (long bits : longs)
+					o.putLong(bits);
+				break;
+			default:
+				o.table(blobs);
+			}
+		}
+
+		/** Bytes of presence bits and values, written ahead of them. */
+		long length() {
+			long bits = 8L * present.length;
+			switch (type) {
+			case BinaryGraphFile.T_INT:
+			case BinaryGraphFile.T_FLOAT:
+				return bits + 4L * count;
+			case BinaryGraphFile.T_LONG:
+			case BinaryGraphFile.T_DOUBLE:
+				return bits + 8L * count;
+			case BinaryGraphFile.T_BOOLEAN:
+				return bits + 8L * longs.length;
+			default:
+				long length = bits + 4 + 4L * (count + 1);
+				for (int i = 0; i < count; i++)
+					if (blobs[i] == null)
+						blobs[i] = EMPTY;
+					else
+						length += blobs[i].length;
+				return length;
+			}
+		}
+	}
+
+	/** Big endian buffered output that counts its position. */
+	static final class Output {
+		private final OutputStream out;
+		private final byte[] buffer = new byte[1 << 16];
+		private int used;
+		long position;
+
+		Output(OutputStream out) {
+			this.out = out;
+		}
+
+		private void room(int bytes) throws IOException {
+			if (used + bytes > buffer.length)
+				flush();
+		}
+
+		void putByte(int v) throws IOException {
+			room(1);
+			buffer[used++] = (byte) v;
+			position++;
+		}
+
+		void putInt(int v) throws IOException {
+			room(4);
+			buffer[used++] = (byte) (v >>> 24);
+			buffer[used++] = (byte) (v >>> 16);
+			buffer[used++] = (byte) (v >>> 8);
+			buffer[used++] = (byte) v;
+			position += 4;
+		}
+
+		void putLong(long v) throws IOException {
+			putInt((int) (v >>> 32));
+			putInt((int) v);
+		}
+
+		void putFloat(float v) throws IOException {
+			putInt(Float.floatToRawIntBits(v));
+		}
+
+		void putDouble(double v) throws IOException {
+			putLong(Double.doubleToRawLongBits(v));
+		}
+
+		void putBytes(byte[] bytes) throws IOException {
+			if (bytes.length > buffer.length) {
+				flush();
+				out.write(bytes);
+			} else {
+				room(bytes.length);
+				System.arraycopy(bytes, 0, buffer, used, bytes.length);
+				used += bytes.length;
+			}
+			position += bytes.length;
+		}
+
+		/** A string/blob table: int count, int[count + 1] offsets, bytes. */
+		void table(byte[][] entries) throws IOException {
+			putInt(entries.length);
+			long offset = 0;
+			putInt(0);
+			for (byte[] e : entries) {
+				offset += e.length;
+				if (offset > Integer.MAX_VALUE)
+					throw new IOException("string table larger than 2 GB");
+				putInt((int) offset);
+			}
+			for (byte[] e : entries)
+				putBytes(e);
+		}
+
+		/** Open addressing table of index + 1 for the given id hashes. */
+		void hash(int[] hashes) throws IOException {
+			int slots = 0;
+			if (hashes.length > 0) {
+				slots = 16;
+				while (slots < hashes.length * 2)
+					slots <<= 1;
+			}
+			int[] table = new int[slots];
+			int mask = slots - 1;
+			for (int i = 0; i < hashes.length; i++) {
+				int s = BinaryGraphFile.spread(hashes[i]) & mask;
+				while (table[s] != 0)
+					s = (s + 1) & mask;
+				table[s] = i + 1;
+			}
+			putInt(slots);
+			for (int v : table)
+				putInt(v);
+		}
+
+		void flush() throws IOException {
+			out.write(buffer, 0, used);
+			used = 0;
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package csce867.graph;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URL;
+
+import org.graphstream.stream.SourceBase;
+import org.graphstream.stream.file.FileSource;
+
+/**
+ * Reads a {@link BinaryGraphFile} snapshot as graph events. Files are
+ * mapped, streams and URLs are read into memory first. A snapshot has no
+ * steps, so nextEvents() and nextStep() send the whole graph at once and
+ * return false. For lookups without building a graph, open the file with
+ * {@link BinaryGraphFile#open(String)} instead.
+ */
+public class FileSourceBinary extends SourceBase implements FileSource {
+
+	private BinaryGraphFile pending;
+	private boolean sent;
+
+	public FileSourceBinary() {
+		this("binary-" + System.currentTimeMillis());
+	}
+
+	public FileSourceBinary(String sourceId) {
+		super(sourceId);
+	}
+
+	public void readAll(String fileName) throws IOException {
+		begin(fileName);
+		nextEvents();
+		end();
+	}
+
+	public void readAll(URL url) throws IOException {
+		begin(url);
+		nextEvents();
+		end();
+	}
+
+	public void readAll(InputStream stream) throws IOException {
+		begin(stream);
+		nextEvents();
+		end();
+	}
+
+	public void readAll(Reader reader) throws IOException {
+		throw new IOException("the binary graph format cannot be read from a character Reader");
+	}
+
+	public void begin(String fileName) throws IOException {
+		open(BinaryGraphFile.open(fileName));
+	}
+
+	public void begin(URL url) throws IOException {
+		InputStream stream = url.openStream();
+		try {
+			begin(stream);
+		} finally {
+			stream.close();
+		}
+	}
+
+	public void begin(InputStream stream) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1 << 16];
+		for (int r; (r = stream.read(buffer)) >= 0;)
+			bytes.write(buffer, 0, r);
+		open(BinaryGraphFile.wrap(bytes.toByteArray()));
+	}
+
+	public void begin(Reader reader) throws IOException {
+		throw new IOException("the binary graph format cannot be read from a character Reader");
+	}
+
+	private void open(BinaryGraphFile file) throws IOException {
+		if (pending != null) {
+			file.close();
+			throw new IOException("cannot call begin() twice without calling end() before");
+		}
+		pending = file;
+		sent = false;
+	}
+
+	public boolean nextEvents() throws IOException {
+		if (pending != null && !sent) {
+			sent = true;
+			pending.replay(this, sourceId);
+		}
+		return false;
+	}
+
+	public boolean nextStep() throws IOException {
+		return nextEvents();
+	}
+
+	public void end() throws IOException {
+		if (pending != null) {
+			pending.close();
+			pending = null;
+		}
+	}
+}
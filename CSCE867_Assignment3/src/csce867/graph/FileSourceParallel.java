@@ -0,0 +1,428 @@
+package csce867.graph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.GZIPInputStream;
+
+import org.graphstream.stream.SourceBase;
+import org.graphstream.stream.file.FileSource;
+import org.graphstream.stream.file.FileSourceDGS;
+import org.graphstream.stream.file.FileSourceDOT;
+import org.graphstream.stream.file.FileSourceFactory;
+import org.graphstream.stream.file.FileSourceGML;
+
+/**
+ * Reads DGS, GML and DOT files with the parsing spread over a ForkJoinPool
+ * and the events sent, in file order, on the calling thread.
+ *
+ * A DGS file is a list of one-line events, so it is cut into chunks at line
+ * ends outside quoted strings and comments, each chunk is parsed by its own
+ * FileSourceDGS into an {@link EventLog}, and the logs are replayed in
+ * chunk order. Parsing is the gs-core parser's, so values, ids and steps
+ * come out exactly as Graph.read() gives them, only parse errors report
+ * lines relative to their chunk. At most two chunks per pool thread are in
+ * flight, so memory stays bounded on files of any size.
+ *
+ * GML and DOT blocks nest and have no safe cut point; they are parsed by
+ * one pool task into logs of {@link #getChunkSize()} events while the
+ * calling thread sends the previous log, which overlaps parsing with the
+ * graph's inserts but does not scale further.
+ *
+ * When the only element sink is a {@link BatchSingleGraph}, each run of
+ * nodeAdded/edgeAdded events between other structural events goes into one
+ * {@link GraphBatch}, and the attribute events of the run follow its commit;
+ * the graph ends up the same, its own sinks see the run's nodes and edges
+ * before their attributes.
+ *
+ * Like the gs-core sources, readAll() sends to the sinks already attached.
+ */
+public class FileSourceParallel extends SourceBase implements FileSource {
+
+	/** Characters per DGS chunk, events per GML/DOT log. */
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+	private static final String CHUNK_HEADER = "DGS004\nnull 0 0\n";
+
+	private final ForkJoinPool pool;
+	private final int chunkSize;
+
+	private Reader reader;
+	private String format;
+	private final ArrayDeque<ForkJoinTask<EventLog>> inFlight = new ArrayDeque<ForkJoinTask<EventLog>>();
+	private final Splitter splitter = new Splitter();
+	/** events of the log being sent by nextStep(), and where it stopped */
+	private EventLog current;
+	private int currentPosition;
+	private FileSource pipelined;
+	private EventLog.Recorder pipelineRecorder;
+
+	public FileSourceParallel() {
+		this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+	}
+
+	public FileSourceParallel(ForkJoinPool pool, int chunkSize) {
+		super("parallel-" + System.currentTimeMillis());
+		if (chunkSize < 1)
+			throw new IllegalArgumentException("chunk size must be positive: " + chunkSize);
+		this.pool = pool;
+		this.chunkSize = chunkSize;
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	// FileSource
+
+	public void readAll(String fileName) throws IOException {
+		begin(fileName);
+		while (nextEvents())
+			;
+		end();
+	}
+
+	public void readAll(URL url) throws IOException {
+		begin(url);
+		while (nextEvents())
+			;
+		end();
+	}
+
+	public void readAll(InputStream stream) throws IOException {
+		begin(stream);
+		while (nextEvents())
+			;
+		end();
+	}
+
+	public void readAll(Reader reader) throws IOException {
+		begin(reader);
+		while (nextEvents())
+			;
+		end();
+	}
+
+	/** Opens fileName, the format chosen from its extension or content as Graph.read() does. */
+	public void begin(String fileName) throws IOException {
+		String name = fileName.toLowerCase();
+		if (name.endsWith(".dgs") || name.endsWith(".dgsz"))
+			open(dgsReader(new FileInputStream(fileName)), "dgs");
+		else if (name.endsWith(".gml"))
+			open(utf8(new FileInputStream(fileName)), "gml");
+		else if (name.endsWith(".dot") || name.endsWith(".gv"))
+			open(utf8(new FileInputStream(fileName)), "dot");
+		else {
+			FileSource source = FileSourceFactory.sourceFor(fileName);
+			if (source == null)
+				throw new IOException("no file source for " + fileName);
+			open(null, "other");
+			startPipeline(source);
+			source.begin(fileName);
+		}
+	}
+
+	public void begin(URL url) throws IOException {
+		begin(url.openStream());
+	}
+
+	/** A stream is read as DGS, gzipped or not. */
+	public void begin(InputStream stream) throws IOException {
+		open(dgsReader(stream), "dgs");
+	}
+
+	/** A Reader is read as DGS. */
+	public void begin(Reader reader) throws IOException {
+		open(reader instanceof BufferedReader ? reader : new BufferedReader(reader), "dgs");
+	}
+
+	private void open(Reader reader, String format) throws IOException {
+		if (this.format != null)
+			throw new IOException("cannot call begin() twice without calling end() before");
+		this.reader = reader;
+		this.format = format;
+		current = null;
+		splitter.reset();
+		if (format.equals("dgs"))
+			splitter.header(reader);
+		else if (format.equals("gml"))
+			startPipeline(new FileSourceGML());
+		else if (format.equals("dot"))
+			startPipeline(new FileSourceDOT());
+	}
+
+	private void startPipeline(FileSource source) throws IOException {
+		pipelined = source;
+		pipelineRecorder = new EventLog.Recorder();
+		pipelined.addSink(pipelineRecorder);
+		if (reader != null)
+			pipelined.begin(reader);
+	}
+
+	/** Sends the events of the next chunk, false once the file is done. */
+	public boolean nextEvents() throws IOException {
+		EventLog log = current != null ? current : nextLog();
+		if (log == null)
+			return false;
+		send(log, currentPosition, log.size());
+		current = null;
+		currentPosition = 0;
+		return true;
+	}
+
+	/**
+	 * Sends the events up to and including the next stepBegins, false once
+	 * the file is done.
+	 */
+	public boolean nextStep() throws IOException {
+		while (true) {
+			if (current == null) {
+				current = nextLog();
+				currentPosition = 0;
+				if (current == null)
+					return false;
+			}
+			int step = current.nextStep(currentPosition);
+			int to = step < 0 ? current.size() : step + 1;
+			send(current, currentPosition, to);
+			currentPosition = to;
+			if (currentPosition == current.size())
+				current = null;
+			if (step >= 0)
+				return true;
+		}
+	}
+
+	public void end() throws IOException {
+		// a pipelined parser may still be running, let it stop before its end()
+		for (ForkJoinTask<EventLog> task : inFlight)
+			if (pipelined != null)
+				task.quietlyJoin();
+			else
+				task.cancel(true);
+		inFlight.clear();
+		current = null;
+		try {
+			if (pipelined != null)
+				pipelined.end();
+			if (reader != null)
+				reader.close();
+		} finally {
+			pipelined = null;
+			pipelineRecorder = null;
+			reader = null;
+			format = null;
+		}
+	}
+
+	// chunks
+
+	/**
+	 * Returns the next log in file order, or null, and refills the window
+	 * before returning so the pool parses while the caller sends.
+	 */
+	private EventLog nextLog() throws IOException {
+		fill();
+		ForkJoinTask<EventLog> head = inFlight.poll();
+		if (head == null)
+			return null;
+		EventLog log;
+		try {
+			log = head.join();
+		} catch (RuntimeException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw e;
+		}
+		fill();
+		return log;
+	}
+
+	private void fill() throws IOException {
+		int window = 2 * pool.getParallelism();
+		while (inFlight.size() < window) {
+			ForkJoinTask<EventLog> task = submitNext();
+			if (task == null)
+				break;
+			inFlight.add(task);
+		}
+	}
+
+	private ForkJoinTask<EventLog> submitNext() throws IOException {
+		if (pipelined != null) {
+			// one task at a time: the parser keeps state between logs
+			if (!inFlight.isEmpty())
+				return null;
+			final FileSource source = pipelined;
+			final EventLog.Recorder recorder = pipelineRecorder;
+			if (recorder.finished)
+				return null;
+			return pool.submit(() -> {
+				recorder.log = new EventLog();
+				try {
+					while (recorder.log.size() < chunkSize)
+						if (!source.nextEvents()) {
+							recorder.finished = true;
+							break;
+						}
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+				return recorder.log;
+			});
+		}
+		final String chunk = splitter.next(reader, chunkSize);
+		if (chunk == null)
+			return null;
+		return pool.submit(() -> parseDgs(chunk));
+	}
+
+	static EventLog parseDgs(String chunk) {
+		FileSourceDGS source = new FileSourceDGS();
+		EventLog.Recorder recorder = new EventLog.Recorder();
+		recorder.log = new EventLog();
+		source.addSink(recorder);
+		try {
+			source.readAll(new StringReader(CHUNK_HEADER + chunk));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		return recorder.log;
+	}
+
+	// delivery
+
+	private void send(EventLog log, int from, int to) {
+		BatchSingleGraph target = batchTarget();
+		if (target == null)
+			log.replay(this, sourceId, from, to);
+		else
+			log.replayBatched(this, sourceId, target, from, to);
+	}
+
+	private BatchSingleGraph batchTarget() {
+		if (eltsSinks.size() == 1 && eltsSinks.get(0) instanceof BatchSingleGraph)
+			return (BatchSingleGraph) eltsSinks.get(0);
+		return null;
+	}
+
+	// input
+
+	private static Reader dgsReader(InputStream in) throws IOException {
+		InputStream buffered = new BufferedInputStream(in, 1 << 16);
+		buffered.mark(2);
+		int b0 = buffered.read(), b1 = buffered.read();
+		buffered.reset();
+		if (b0 == 0x1f && b1 == 0x8b)
+			buffered = new GZIPInputStream(buffered, 1 << 16);
+		return utf8(buffered);
+	}
+
+	private static Reader utf8(InputStream in) {
+		return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+	}
+
+	/**
+	 * Cuts DGS text at line ends that are outside quoted strings and
+	 * comments. Every chunk starts at the beginning of a line, so the scan
+	 * of a chunk starts outside any string.
+	 */
+	static final class Splitter {
+		private char[] carry = new char[0];
+		private int carried;
+		private boolean eof;
+
+		void reset() {
+			carry = new char[0];
+			carried = 0;
+			eof = false;
+		}
+
+		/** Checks and drops the two DGS header lines. */
+		void header(Reader reader) throws IOException {
+			String magic = line(reader);
+			if (magic == null || !magic.startsWith("DGS"))
+				throw new IOException("bad magic header, 'DGS' expected");
+			if (!magic.startsWith("DGS003") && !magic.startsWith("DGS004"))
+				throw new IOException("bad version \"" + magic + "\"");
+			line(reader);
+		}
+
+		private static String line(Reader reader) throws IOException {
+			StringBuilder sb = new StringBuilder();
+			int c;
+			while ((c = reader.read()) >= 0 && c != '\n')
+				if (c != '\r')
+					sb.append((char) c);
+			return c < 0 && sb.length() == 0 ? null : sb.toString();
+		}
+
+		/** The next chunk of about size characters, null at the end. */
+		String next(Reader reader, int size) throws IOException {
+			char[] buffer = Arrays.copyOf(carry, Math.max(size, carried) + 1);
+			int length = carried;
+			while (true) {
+				while (!eof && length < buffer.length) {
+					int r = reader.read(buffer, length, buffer.length - length);
+					if (r < 0)
+						eof = true;
+					else
+						length += r;
+				}
+				if (eof) {
+					carried = 0;
+					carry = new char[0];
+					return length == 0 ? null : new String(buffer, 0, length);
+				}
+				int cut = lastSafeLineEnd(buffer, length);
+				if (cut > 0) {
+					carried = length - cut;
+					carry = Arrays.copyOfRange(buffer, cut, length);
+					return new String(buffer, 0, cut);
+				}
+				// one event longer than the buffer
+				buffer = Arrays.copyOf(buffer, buffer.length * 2);
+			}
+		}
+
+		/** Position after the last '\n' that ends an event, 0 if none. */
+		static int lastSafeLineEnd(char[] text, int length) {
+			int last = 0;
+			char quote = 0;
+			boolean comment = false;
+			for (int i = 0; i < length; i++) {
+				char c = text[i];
+				if (quote != 0) {
+					if (c == '\\')
+						i++;
+					else if (c == quote)
+						quote = 0;
+				} else if (comment) {
+					if (c == '\n') {
+						comment = false;
+						last = i + 1;
+					}
+				} else if (c == '\n') {
+					last = i + 1;
+				} else if (c == '"' || c == '\'') {
+					quote = c;
+				} else if (c == '#' && (i == 0 || Character.isWhitespace(text[i - 1]))) {
+					// a color value follows '=', ':', ',' or a bracket
+					comment = true;
+				}
+			}
+			return last;
+		}
+	}
+}
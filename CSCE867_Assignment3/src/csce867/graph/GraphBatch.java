@@ -0,0 +1,286 @@
+package csce867.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.graphstream.graph.EdgeRejectedException;
+import org.graphstream.graph.ElementNotFoundException;
+import org.graphstream.graph.IdAlreadyInUseException;
+import org.graphstream.graph.implementations.AbstractEdge;
+import org.graphstream.graph.implementations.AbstractNode;
+import org.graphstream.stream.ElementSink;
+
+/**
+ * Nodes and edges queued for a {@link BatchSingleGraph} and added in one
+ * {@link #commit()}. Queuing does nothing but copy the arguments; commit
+ * then
+ * <ol>
+ * <li>validates the whole batch against the graph once: ids already in use,
+ * ids repeated in the batch and edge endpoints, with the graph's strict and
+ * auto-create settings,</li>
+ * <li>grows the graph's arrays and maps to their final size,</li>
+ * <li>adds the nodes, then the edges on their resolved endpoint nodes, with
+ * the graph's element sinks detached,</li>
+ * <li>sends the nodeAdded and edgeAdded events of everything it added to
+ * those sinks in one burst, nodes first, the order a replay uses.</li>
+ * </ol>
+ *
+ * The outcome is the one of the same addNode()/addEdge() calls in queue
+ * order, explicit nodes first, except that the batch is all or nothing in
+ * strict mode: the first error is thrown before the graph changes (a
+ * rejected edge undoes what was already added). Nodes created by
+ * auto-creation come after the queued nodes, in the order edges name them.
+ *
+ * Index pairs name nodes by their index once the queued nodes are in, so
+ * the i-th new node of a batch opened on a graph of n nodes is n + i. They
+ * are checked at commit and out of range indices throw
+ * IndexOutOfBoundsException whatever the strict setting, as
+ * addEdge(String, int, int) does.
+ *
+ * A batch commits once.
+ */
+public class GraphBatch {
+
+	private final BatchSingleGraph graph;
+	private boolean committed;
+
+	private final ArrayList<String> nodeIds = new ArrayList<String>();
+
+	private int edgeCount;
+	private String[] edgeIds = new String[16];
+	/** endpoint ids, null for an edge queued by index */
+	private String[] fromIds = new String[16];
+	private String[] toIds = new String[16];
+	private int[] fromIdx = new int[16];
+	private int[] toIdx = new int[16];
+	private boolean[] directed = new boolean[16];
+
+	GraphBatch(BatchSingleGraph graph) {
+		this.graph = graph;
+	}
+
+	public GraphBatch addNode(String id) {
+		checkOpen();
+		nodeIds.add(id);
+		return this;
+	}
+
+	public GraphBatch addNodes(String... ids) {
+		checkOpen();
+		nodeIds.ensureCapacity(nodeIds.size() + ids.length);
+		for (String id : ids)
+			nodeIds.add(id);
+		return this;
+	}
+
+	public GraphBatch addEdge(String id, String from, String to, boolean directed) {
+		checkOpen();
+		grow(1);
+		put(id, from, to, -1, -1, directed);
+		return this;
+	}
+
+	public GraphBatch addEdge(String id, String from, String to) {
+		return addEdge(id, from, to, false);
+	}
+
+	public GraphBatch addEdge(String id, int from, int to, boolean directed) {
+		checkOpen();
+		grow(1);
+		put(id, null, null, from, to, directed);
+		return this;
+	}
+
+	public GraphBatch addEdge(String id, int from, int to) {
+		return addEdge(id, from, to, false);
+	}
+
+	public GraphBatch addEdges(String[] ids, String[] from, String[] to, boolean directed) {
+		checkOpen();
+		checkLengths(ids.length, from.length, to.length);
+		grow(ids.length);
+		for (int i = 0; i < ids.length; i++)
+			put(ids[i], from[i], to[i], -1, -1, directed);
+		return this;
+	}
+
+	public GraphBatch addEdges(String[] ids, int[] from, int[] to, boolean directed) {
+		checkOpen();
+		checkLengths(ids.length, from.length, to.length);
+		grow(ids.length);
+		for (int i = 0; i < ids.length; i++)
+			put(ids[i], null, null, from[i], to[i], directed);
+		return this;
+	}
+
+	public int getNodeCount() {
+		return nodeIds.size();
+	}
+
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * Adds the batch to the graph and notifies its element sinks.
+	 *
+	 * @throws IdAlreadyInUseException
+	 *             in strict mode, for an id in use or repeated in the batch
+	 * @throws ElementNotFoundException
+	 *             in strict mode, for an edge endpoint that neither exists
+	 *             nor is queued
+	 * @throws EdgeRejectedException
+	 *             in strict mode, for a second edge between two nodes
+	 * @throws IndexOutOfBoundsException
+	 *             for an index pair naming no node
+	 */
+	public void commit() {
+		checkOpen();
+		committed = true;
+
+		// 1. validation, nothing is changed until it is through
+
+		int baseNodes = graph.getNodeCount();
+		HashSet<String> newNodes = new HashSet<String>(capacity(nodeIds.size()));
+		ArrayList<String> added = new ArrayList<String>(nodeIds.size());
+		for (String id : nodeIds) {
+			if (graph.getNode(id) != null || newNodes.contains(id)) {
+				if (graph.isStrict())
+					throw new IdAlreadyInUseException("id \"" + id + "\" already in use. Cannot create a node.");
+				continue;
+			}
+			newNodes.add(id);
+			added.add(id);
+		}
+		int indexedNodes = baseNodes + added.size();
+
+		HashSet<String> newEdges = new HashSet<String>(capacity(edgeCount));
+		boolean[] keep = new boolean[edgeCount];
+		int kept = 0;
+		for (int i = 0; i < edgeCount; i++) {
+			String id = edgeIds[i];
+			if (graph.getEdge(id) != null || newEdges.contains(id)) {
+				if (graph.isStrict())
+					throw new IdAlreadyInUseException("id \"" + id + "\" already in use. Cannot create an edge.");
+				continue;
+			}
+			if (fromIds[i] == null) {
+				checkIndex(fromIdx[i], indexedNodes);
+				checkIndex(toIdx[i], indexedNodes);
+			} else {
+				String missing = missingEndpoint(fromIds[i], newNodes);
+				if (missing == null)
+					missing = missingEndpoint(toIds[i], newNodes);
+				if (missing != null) {
+					if (graph.isStrict())
+						throw new ElementNotFoundException("Cannot create edge %s[%s-%s%s]. Node '%s' does not exist.",
+								id, fromIds[i], directed[i] ? ">" : "-", toIds[i], missing);
+					if (!graph.isAutoCreationEnabled())
+						continue;
+					autoCreate(fromIds[i], newNodes, added);
+					autoCreate(toIds[i], newNodes, added);
+				}
+			}
+			newEdges.add(id);
+			keep[i] = true;
+			kept++;
+		}
+
+		// 2. apply with the element sinks detached, then replay to them
+
+		ArrayList<ElementSink> sinks = new ArrayList<ElementSink>();
+		for (ElementSink sink : graph.elementSinks())
+			sinks.add(sink);
+		graph.clearElementSinks();
+
+		AbstractEdge[] edges = new AbstractEdge[kept];
+		int inserted = 0, applied = 0;
+		try {
+			graph.ensureCapacity(baseNodes + added.size(), graph.getEdgeCount() + kept);
+			for (; inserted < added.size(); inserted++)
+				graph.insertNode(added.get(inserted));
+
+			for (int i = 0; i < edgeCount; i++) {
+				if (!keep[i])
+					continue;
+				AbstractNode src, dst;
+				if (fromIds[i] == null) {
+					src = graph.getNode(fromIdx[i]);
+					dst = graph.getNode(toIdx[i]);
+				} else {
+					src = graph.getNode(fromIds[i]);
+					dst = graph.getNode(toIds[i]);
+				}
+				AbstractEdge edge = graph.addResolvedEdge(edgeIds[i], src, dst, directed[i]);
+				if (edge != null)
+					edges[applied++] = edge;
+			}
+		} catch (RuntimeException e) {
+			for (int i = applied - 1; i >= 0; i--)
+				graph.removeEdge(edges[i]);
+			for (int i = inserted - 1; i >= 0; i--)
+				graph.removeNode(added.get(i));
+			throw e;
+		} finally {
+			for (ElementSink sink : sinks)
+				graph.addElementSink(sink);
+		}
+
+		if (!sinks.isEmpty())
+			graph.sendBatch(sinks, added, edges, applied);
+	}
+
+	private String missingEndpoint(String nodeId, HashSet<String> newNodes) {
+		if (graph.getNode(nodeId) != null || newNodes.contains(nodeId))
+			return null;
+		return nodeId;
+	}
+
+	private static void autoCreate(String nodeId, HashSet<String> newNodes, ArrayList<String> added) {
+		if (newNodes.add(nodeId))
+			added.add(nodeId);
+	}
+
+	private static void checkIndex(int index, int nodeCount) {
+		if (index < 0 || index >= nodeCount)
+			throw new IndexOutOfBoundsException("Node " + index + " does not exist");
+	}
+
+	private static void checkLengths(int ids, int from, int to) {
+		if (from != ids || to != ids)
+			throw new IllegalArgumentException("edge arrays differ in length: " + ids + ", " + from + ", " + to);
+	}
+
+	private static int capacity(int entries) {
+		return Math.max(entries * 4 / 3 + 1, 16);
+	}
+
+	private void checkOpen() {
+		if (committed)
+			throw new IllegalStateException("batch already committed");
+	}
+
+	private void put(String id, String from, String to, int fromIndex, int toIndex, boolean dir) {
+		int i = edgeCount++;
+		edgeIds[i] = id;
+		fromIds[i] = from;
+		toIds[i] = to;
+		fromIdx[i] = fromIndex;
+		toIdx[i] = toIndex;
+		directed[i] = dir;
+	}
+
+	private void grow(int more) {
+		int need = edgeCount + more;
+		if (need <= edgeIds.length)
+			return;
+		int cap = Math.max(need, edgeIds.length * 2);
+		edgeIds = Arrays.copyOf(edgeIds, cap);
+		fromIds = Arrays.copyOf(fromIds, cap);
+		toIds = Arrays.copyOf(toIds, cap);
+		fromIdx = Arrays.copyOf(fromIdx, cap);
+		toIdx = Arrays.copyOf(toIdx, cap);
+		directed = Arrays.copyOf(directed, cap);
+	}
+}
@@ -0,0 +1,755 @@
+package csce867.graph;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.Sink;
+import org.graphstream.stream.file.FileSinkDGS;
+import org.graphstream.stream.file.FileSourceDGS;
+
+/**
+ * Append-only journal of a graph's events in a directory, written in the
+ * background. Attach it with graph.addSink(journal); each event is copied
+ * into a ring buffer and the calling thread goes on. Values other than
+ * strings, booleans and boxed numbers are formatted as DGS on the calling
+ * thread, so later changes to an array or collection the graph still holds
+ * do not reach the journal. A writer thread takes everything queued at
+ * once, formats it through FileSinkDGS and appends it to the current
+ * segment as one frame, then flushes and forces the file once for the
+ * whole group, so under load one fsync covers many events. A full ring
+ * blocks the producers until the writer frees space.
+ *
+ * Segments are DGS files, segment-N.dgs, closed and replaced once they pass
+ * the segment size. Each group is preceded by a DGS comment line, "#frame"
+ * with its length in bytes and CRC-32, so that a group cut by a crash is
+ * told apart from a string value holding a newline. Every few closed
+ * segments a compaction thread replays the latest snapshot and those
+ * segments into a SingleGraph, writes it as snapshot-N.dgs (the state after
+ * segment N) and deletes what it replaces. {@link #recover(String, Sink)}
+ * rebuilds a graph from the latest snapshot and the segments after it,
+ * each read up to its first incomplete or damaged frame; a new journal on
+ * the same directory goes on after the last segment there.
+ *
+ * flush() waits until what was sent before it is on disk. The counters
+ * (stalls and stalled time of the producers, flush count and latency from
+ * the oldest queued event to its fsync, events written, segments and
+ * compactions) are cumulative since construction.
+ */
+public class GraphJournal implements Sink, Closeable {
+
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+	public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+	public static final int DEFAULT_SEGMENTS_PER_COMPACTION = 8;
+
+	private static final String SEGMENT = "segment-", SNAPSHOT = "snapshot-", SUFFIX = ".dgs";
+	private static final String FRAME = "#frame ";
+	/** What FileSinkDGS writes at the start of a file, each segment's first bytes. */
+	private static final byte[] HEADER = header();
+	/** A ring slot holding an event already formatted as a DGS line. */
+	private static final byte LINE = -1;
+
+	/** Formats events whose values are not immutable, on the thread sending them. */
+	private static final ThreadLocal<DgsText> FORMATTER = new ThreadLocal<DgsText>() {
+		@Override
+		protected DgsText initialValue() {
+			return new DgsText();
+		}
+	};
+
+	private final File directory;
+	private final long segmentBytes;
+	private final int segmentsPerCompaction;
+	private final boolean force;
+
+	// ring, guarded by lock; slots in [tail, head) belong to the writer
+	private final Object lock = new Object();
+	private final int mask;
+	private final byte[] ops;
+	private final Object[] args;
+	private final double[] steps;
+	private long head, tail, taken;
+	private long pendingSince;
+	private boolean closing, rotateRequested;
+	private Throwable failure;
+
+	// writer thread state
+	private final Thread writer;
+	private final ExecutorService compactor;
+	private DgsText segment;
+	private FileOutputStream segmentFile;
+	private long segmentNumber;
+	private int sealedSinceCompaction;
+	private long timeId;
+
+	// metrics
+	private volatile long stalls, stallNanos, flushes, lastFlushNanos, maxFlushNanos, totalFlushNanos,
+			eventsWritten, segmentsWritten, compactions;
+
+	public GraphJournal(String directory) throws IOException {
+		this(directory, DEFAULT_CAPACITY, DEFAULT_SEGMENT_BYTES, DEFAULT_SEGMENTS_PER_COMPACTION, true);
+	}
+
+	/**
+	 * @param capacity
+	 *            events the ring holds, rounded up to a power of two
+	 * @param segmentBytes
+	 *            size after which a segment is closed
+	 * @param segmentsPerCompaction
+	 *            closed segments that trigger a compaction, 0 for never
+	 * @param force
+	 *            fsync every group; false leaves it to the OS
+	 */
+	public GraphJournal(String directory, int capacity, long segmentBytes, int segmentsPerCompaction, boolean force)
+			throws IOException {
+		if (capacity < 1 || segmentBytes < 1 || segmentsPerCompaction < 0)
+			throw new IllegalArgumentException("capacity and segment size must be positive");
+		this.directory = new File(directory);
+		if (!this.directory.isDirectory() && !this.directory.mkdirs())
+			throw new IOException("cannot create journal directory " + directory);
+		this.segmentBytes = segmentBytes;
+		this.segmentsPerCompaction = segmentsPerCompaction;
+		this.force = force;
+		int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+		mask = size - 1;
+		ops = new byte[size];
+		args = new Object[4 * size];
+		steps = new double[size];
+
+		List<Long> existing = numbers(this.directory, SEGMENT);
+		List<Long> snapshots = numbers(this.directory, SNAPSHOT);
+		long last = Math.max(existing.isEmpty() ? 0 : existing.get(existing.size() - 1),
+				snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1));
+		openSegment(last + 1);
+
+		compactor = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "graph-journal-compactor");
+			t.setDaemon(true);
+			return t;
+		});
+		writer = new Thread(this::writeLoop, "graph-journal-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	// metrics
+
+	/** Events queued and not yet on disk. */
+	public int getPendingEvents() {
+		synchronized (lock) {
+			return (int) (head - tail);
+		}
+	}
+
+	public int getCapacity() {
+		return mask + 1;
+	}
+
+	/** Times a producer found the ring full, and the time it waited. */
+	public long getStallCount() {
+		return stalls;
+	}
+
+	public long getStallNanos() {
+		return stallNanos;
+	}
+
+	/** Groups written, and the time from the oldest event of a group to its fsync. */
+	public long getFlushCount() {
+		return flushes;
+	}
+
+	public long getLastFlushNanos() {
+		return lastFlushNanos;
+	}
+
+	public long getMaxFlushNanos() {
+		return maxFlushNanos;
+	}
+
+	public long getTotalFlushNanos() {
+		return totalFlushNanos;
+	}
+
+	public long getEventsWritten() {
+		return eventsWritten;
+	}
+
+	public long getSegmentsWritten() {
+		return segmentsWritten;
+	}
+
+	public long getCompactionCount() {
+		return compactions;
+	}
+
+	// control
+
+	/** Waits until every event sent before the call is on disk. */
+	public void flush() throws IOException {
+		synchronized (lock) {
+			long target = head;
+			try {
+				while (tail < target && failure == null)
+					lock.wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("interrupted while flushing the journal", e);
+			}
+			checkFailure();
+		}
+	}
+
+	/**
+	 * Closes the current segment and compacts every closed segment now,
+	 * waiting for the compaction.
+	 */
+	public void compact() throws IOException {
+		flush();
+		final long upTo;
+		synchronized (lock) {
+			rotateRequested = true;
+			lock.notifyAll();
+			try {
+				while (rotateRequested && failure == null)
+					lock.wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("interrupted while compacting the journal", e);
+			}
+			checkFailure();
+			upTo = segmentNumber - 1;
+		}
+		try {
+			compactor.submit(() -> {
+				compactUpTo(upTo);
+				return null;
+			}).get();
+		} catch (Exception e) {
+			throw new IOException("journal compaction failed", e);
+		}
+	}
+
+	/** Writes what is queued, closes the segment and stops the threads. */
+	public void close() throws IOException {
+		synchronized (lock) {
+			if (closing)
+				return;
+			closing = true;
+			lock.notifyAll();
+		}
+		try {
+			writer.join();
+			compactor.shutdown();
+			compactor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted while closing the journal", e);
+		}
+		synchronized (lock) {
+			checkFailure();
+		}
+	}
+
+	private void checkFailure() throws IOException {
+		if (failure != null)
+			throw new IOException("journal writer failed", failure);
+	}
+
+	// producers
+
+	private void put(byte op, Object a0, Object a1, Object a2, Object a3, double step) {
+		synchronized (lock) {
+			if (closing)
+				throw new IllegalStateException("journal is closed");
+			if (failure != null)
+				throw new IllegalStateException("journal writer failed", failure);
+			if (head - tail > mask) {
+				stalls++;
+				long started = System.nanoTime();
+				try {
+					while (head - tail > mask && failure == null)
+						lock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("interrupted while the journal was full", e);
+				} finally {
+					stallNanos += System.nanoTime() - started;
+				}
+				if (failure != null)
+					throw new IllegalStateException("journal writer failed", failure);
+			}
+			if (head == taken)
+				pendingSince = System.nanoTime();
+			int s = (int) head & mask;
+			ops[s] = op;
+			args[4 * s] = a0;
+			args[4 * s + 1] = a1;
+			args[4 * s + 2] = a2;
+			args[4 * s + 3] = a3;
+			steps[s] = step;
+			if (head++ == tail)
+				lock.notifyAll();
+		}
+	}
+
+	/** True for the values a later change of the graph cannot reach. */
+	private static boolean immutable(Object value) {
+		return value == null || value instanceof String || value instanceof Boolean || value instanceof Character
+				|| value instanceof Integer || value instanceof Long || value instanceof Double
+				|| value instanceof Float || value instanceof Short || value instanceof Byte;
+	}
+
+	public void graphAttributeAdded(String sourceId, long timeId, String attribute, Object value) {
+		if (immutable(value))
+			put(EventLog.GRAPH_ATTR_ADDED, attribute, value, null, null, 0);
+		else {
+			DgsText f = FORMATTER.get();
+			f.dgs.graphAttributeAdded(sourceId, timeId, attribute, value);
+			put(LINE, f.take(), null, null, null, 0);
+		}
+	}
+
+	public void graphAttributeChanged(String sourceId, long timeId, String attribute, Object oldValue,
+			Object newValue) {
+		if (immutable(newValue))
+			put(EventLog.GRAPH_ATTR_CHANGED, attribute, null, newValue, null, 0);
+		else {
+			DgsText f = FORMATTER.get();
+			f.dgs.graphAttributeChanged(sourceId, timeId, attribute, null, newValue);
+			put(LINE, f.take(), null, null, null, 0);
+		}
+	}
+
+	public void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+		put(EventLog.GRAPH_ATTR_REMOVED, attribute, null, null, null, 0);
+	}
+
+	public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+		if (immutable(value))
+			put(EventLog.NODE_ATTR_ADDED, nodeId, attribute, value, null, 0);
+		else {
+			DgsText f = FORMATTER.get();
+			f.dgs.nodeAttributeAdded(sourceId, timeId, nodeId, attribute, value);
+			put(LINE, f.take(), null, null, null, 0);
+		}
+	}
+
+	public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute,
+			Object oldValue, Object newValue) {
+		if (immutable(newValue))
+			put(EventLog.NODE_ATTR_CHANGED, nodeId, attribute, null, newValue, 0);
+		else {
+			DgsText f = FORMATTER.get();
+			f.dgs.nodeAttributeChanged(sourceId, timeId, nodeId, attribute, null, newValue);
+			put(LINE, f.take(), null, null, null, 0);
+		}
+	}
+
+	public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+		put(EventLog.NODE_ATTR_REMOVED, nodeId, attribute, null, null, 0);
+	}
+
+	public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+		if (immutable(value))
+			put(EventLog.EDGE_ATTR_ADDED, edgeId, attribute, value, null, 0);
+		else {
+			DgsText f = FORMATTER.get();
+			f.dgs.edgeAttributeAdded(sourceId, timeId, edgeId, attribute, value);
+			put(LINE, f.take(), null, null, null, 0);
+		}
+	}
+
+	public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute,
+			Object oldValue, Object newValue) {
+		if (immutable(newValue))
+			put(EventLog.EDGE_ATTR_CHANGED, edgeId, attribute, null, newValue, 0);
+		else {
+			DgsText f = FORMATTER.get();
+			f.dgs.edgeAttributeChanged(sourceId, timeId, edgeId, attribute, null, newValue);
+			put(LINE, f.take(), null, null, null, 0);
+		}
+	}
+
+	public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+		put(EventLog.EDGE_ATTR_REMOVED, edgeId, attribute, null, null, 0);
+	}
+
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		put(EventLog.NODE_ADDED, nodeId, null, null, null, 0);
+	}
+
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		put(EventLog.NODE_REMOVED, nodeId, null, null, null, 0);
+	}
+
+	public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId,
+			boolean directed) {
+		put(EventLog.EDGE_ADDED, edgeId, fromNodeId, toNodeId, directed, 0);
+	}
+
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		put(EventLog.EDGE_REMOVED, edgeId, null, null, null, 0);
+	}
+
+	public void graphCleared(String sourceId, long timeId) {
+		put(EventLog.GRAPH_CLEARED, null, null, null, null, 0);
+	}
+
+	public void stepBegins(String sourceId, long timeId, double step) {
+		put(EventLog.STEP_BEGINS, null, null, null, null, step);
+	}
+
+	// writer thread
+
+	private void writeLoop() {
+		try {
+			while (true) {
+				long from, to, since;
+				boolean rotate;
+				synchronized (lock) {
+					while (head == tail && !closing && !rotateRequested)
+						lock.wait();
+					if (head == tail && closing)
+						break;
+					from = tail;
+					to = head;
+					taken = to;
+					since = pendingSince;
+					rotate = rotateRequested;
+				}
+				if (to > from) {
+					for (long i = from; i < to; i++)
+						write((int) i & mask);
+					writeFrame(segment.take());
+					if (force)
+						segmentFile.getChannel().force(false);
+					long latency = System.nanoTime() - since;
+					flushes++;
+					lastFlushNanos = latency;
+					totalFlushNanos += latency;
+					if (latency > maxFlushNanos)
+						maxFlushNanos = latency;
+					eventsWritten += to - from;
+				}
+				if (rotate || segmentFile.getChannel().position() >= segmentBytes)
+					rotate();
+				synchronized (lock) {
+					tail = to;
+					if (rotate)
+						rotateRequested = false;
+					lock.notifyAll();
+				}
+			}
+			closeSegment();
+		} catch (Throwable e) {
+			synchronized (lock) {
+				failure = e;
+				lock.notifyAll();
+			}
+		}
+	}
+
+	private void write(int s) {
+		Object a0 = args[4 * s], a1 = args[4 * s + 1], a2 = args[4 * s + 2], a3 = args[4 * s + 3];
+		args[4 * s] = args[4 * s + 1] = args[4 * s + 2] = args[4 * s + 3] = null;
+		String id = "journal";
+		long t = timeId++;
+		switch (ops[s]) {
+		case LINE:
+			segment.append((String) a0);
+			break;
+		case EventLog.NODE_ADDED:
+			segment.dgs.nodeAdded(id, t, (String) a0);
+			break;
+		case EventLog.NODE_REMOVED:
+			segment.dgs.nodeRemoved(id, t, (String) a0);
+			break;
+		case EventLog.EDGE_ADDED:
+			segment.dgs.edgeAdded(id, t, (String) a0, (String) a1, (String) a2, (Boolean) a3);
+			break;
+		case EventLog.EDGE_REMOVED:
+			segment.dgs.edgeRemoved(id, t, (String) a0);
+			break;
+		case EventLog.GRAPH_CLEARED:
+			segment.dgs.graphCleared(id, t);
+			break;
+		case EventLog.STEP_BEGINS:
+			segment.dgs.stepBegins(id, t, steps[s]);
+			break;
+		case EventLog.GRAPH_ATTR_ADDED:
+			segment.dgs.graphAttributeAdded(id, t, (String) a0, a1);
+			break;
+		case EventLog.GRAPH_ATTR_CHANGED:
+			segment.dgs.graphAttributeChanged(id, t, (String) a0, a1, a2);
+			break;
+		case EventLog.GRAPH_ATTR_REMOVED:
+			segment.dgs.graphAttributeRemoved(id, t, (String) a0);
+			break;
+		case EventLog.NODE_ATTR_ADDED:
+			segment.dgs.nodeAttributeAdded(id, t, (String) a0, (String) a1, a2);
+			break;
+		case EventLog.NODE_ATTR_CHANGED:
+			segment.dgs.nodeAttributeChanged(id, t, (String) a0, (String) a1, a2, a3);
+			break;
+		case EventLog.NODE_ATTR_REMOVED:
+			segment.dgs.nodeAttributeRemoved(id, t, (String) a0, (String) a1);
+			break;
+		case EventLog.EDGE_ATTR_ADDED:
+			segment.dgs.edgeAttributeAdded(id, t, (String) a0, (String) a1, a2);
+			break;
+		case EventLog.EDGE_ATTR_CHANGED:
+			segment.dgs.edgeAttributeChanged(id, t, (String) a0, (String) a1, a2, a3);
+			break;
+		default:
+			segment.dgs.edgeAttributeRemoved(id, t, (String) a0, (String) a1);
+		}
+	}
+
+	private void openSegment(long number) throws IOException {
+		segmentNumber = number;
+		segmentFile = new FileOutputStream(file(SEGMENT, number));
+		segment = new DgsText();
+		segmentFile.write(HEADER);
+	}
+
+	private void closeSegment() throws IOException {
+		segment.dgs.end();
+		String rest = segment.take();
+		if (!rest.isEmpty())
+			writeFrame(rest);
+		if (force)
+			segmentFile.getChannel().force(false);
+		segmentFile.close();
+		segmentsWritten++;
+	}
+
+	/** Appends a group to the segment after its frame line. */
+	private void writeFrame(String group) throws IOException {
+		byte[] bytes = group.getBytes(StandardCharsets.UTF_8);
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 0, bytes.length);
+		segmentFile.write((FRAME + bytes.length + " " + Long.toHexString(crc.getValue()) + "\n")
+				.getBytes(StandardCharsets.UTF_8));
+		segmentFile.write(bytes);
+	}
+
+	private void rotate() throws IOException {
+		closeSegment();
+		final long sealed = segmentNumber;
+		openSegment(sealed + 1);
+		if (segmentsPerCompaction > 0 && ++sealedSinceCompaction >= segmentsPerCompaction) {
+			sealedSinceCompaction = 0;
+			compactor.submit(() -> {
+				try {
+					compactUpTo(sealed);
+				} catch (Throwable e) {
+					synchronized (lock) {
+						failure = e;
+						lock.notifyAll();
+					}
+				}
+				return null;
+			});
+		}
+	}
+
+	// compaction and recovery, on closed segments only
+
+	private void compactUpTo(long upTo) throws IOException {
+		if (!numbers(directory, SNAPSHOT).isEmpty() && latest(directory, SNAPSHOT) >= upTo)
+			return;
+		SingleGraph graph = new SingleGraph("journal", false, true);
+		replay(directory, upTo, graph);
+		File tmp = new File(directory, SNAPSHOT + upTo + ".tmp");
+		new FileSinkDGS().writeAll(graph, tmp.getPath());
+		RandomAccessFile written = new RandomAccessFile(tmp, "rw");
+		try {
+			written.getChannel().force(true);
+		} finally {
+			written.close();
+		}
+		File snapshot = file(SNAPSHOT, upTo);
+		if (!tmp.renameTo(snapshot))
+			throw new IOException("cannot rename " + tmp + " to " + snapshot);
+		for (long n : numbers(directory, SNAPSHOT))
+			if (n < upTo)
+				file(SNAPSHOT, n).delete();
+		for (long n : numbers(directory, SEGMENT))
+			if (n <= upTo)
+				file(SEGMENT, n).delete();
+		compactions++;
+	}
+
+	/**
+	 * Sends the journal in directory to sink: the latest snapshot, then
+	 * every segment after it in order.
+	 */
+	public static void recover(String directory, Sink sink) throws IOException {
+		replay(new File(directory), Long.MAX_VALUE, sink);
+	}
+
+	private static void replay(File directory, long upTo, Sink sink) throws IOException {
+		long start = 0;
+		List<Long> snapshots = numbers(directory, SNAPSHOT);
+		for (long n : snapshots)
+			if (n <= upTo)
+				start = n;
+		if (start > 0)
+			replayFile(new File(directory, SNAPSHOT + start + SUFFIX), false, sink);
+		for (long n : numbers(directory, SEGMENT))
+			if (n > start && n <= upTo)
+				replayFile(new File(directory, SEGMENT + n + SUFFIX), true, sink);
+	}
+
+	/**
+	 * Replays a DGS file; a segment only up to its first frame that is cut
+	 * short or does not match its checksum.
+	 */
+	private static void replayFile(File file, boolean framed, Sink sink) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		InputStream in = new FileInputStream(file);
+		try {
+			byte[] buffer = new byte[1 << 16];
+			for (int r; (r = in.read(buffer)) >= 0;)
+				bytes.write(buffer, 0, r);
+		} finally {
+			in.close();
+		}
+		byte[] data = bytes.toByteArray();
+		int end = framed ? framedLength(data) : data.length;
+		if (end == 0)
+			return;
+		FileSourceDGS source = new FileSourceDGS();
+		source.addSink(sink);
+		source.readAll(new StringReader(new String(data, 0, end, StandardCharsets.UTF_8)));
+		source.removeSink(sink);
+	}
+
+	/** Bytes of a segment up to the end of its last complete frame, 0 if the header is cut. */
+	private static int framedLength(byte[] data) throws IOException {
+		if (data.length < HEADER.length)
+			return 0;
+		for (int i = 0; i < HEADER.length; i++)
+			if (data[i] != HEADER[i])
+				throw new IOException("not a journal segment");
+		int p = HEADER.length;
+		CRC32 crc = new CRC32();
+		while (true) {
+			int eol = p;
+			while (eol < data.length && data[eol] != '\n')
+				eol++;
+			if (eol == data.length)
+				return p;
+			String line = new String(data, p, eol - p, StandardCharsets.UTF_8);
+			if (!line.startsWith(FRAME))
+				return p;
+			String[] frame = line.substring(FRAME.length()).split(" ");
+			long length, sum;
+			try {
+				if (frame.length != 2)
+					return p;
+				length = Long.parseLong(frame[0]);
+				sum = Long.parseLong(frame[1], 16);
+			} catch (NumberFormatException e) {
+				return p;
+			}
+			if (length < 0 || length > data.length - eol - 1)
+				return p;
+			crc.reset();
+			crc.update(data, eol + 1, (int) length);
+			if (crc.getValue() != sum)
+				return p;
+			p = eol + 1 + (int) length;
+		}
+	}
+
+	/** A FileSinkDGS writing into a string, which take() hands out and empties. */
+	private static final class DgsText {
+		final StringWriter text = new StringWriter();
+		final FileSinkDGS dgs = new FileSinkDGS();
+
+		DgsText() {
+			try {
+				dgs.begin(text);
+				take();
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		void append(String line) {
+			flush();
+			text.append(line);
+		}
+
+		String take() {
+			flush();
+			String s = text.toString();
+			text.getBuffer().setLength(0);
+			return s;
+		}
+
+		private void flush() {
+			try {
+				dgs.flush();
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	private File file(String prefix, long number) {
+		return new File(directory, prefix + number + SUFFIX);
+	}
+
+	private static byte[] header() {
+		StringWriter text = new StringWriter();
+		try {
+			FileSinkDGS dgs = new FileSinkDGS();
+			dgs.begin(text);
+			dgs.flush();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return text.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static long latest(File directory, String prefix) {
+		List<Long> numbers = numbers(directory, prefix);
+		return numbers.isEmpty() ? 0 : numbers.get(numbers.size() - 1);
+	}
+
+	/** Sorted numbers of the prefix-N.dgs files in directory. */
+	private static List<Long> numbers(File directory, String prefix) {
+		ArrayList<Long> numbers = new ArrayList<Long>();
+		String[] names = directory.list();
+		if (names != null)
+			for (String name : names)
+				if (name.startsWith(prefix) && name.endsWith(SUFFIX)) {
+					try {
+						numbers.add(Long.parseLong(name.substring(prefix.length(), name.length() - SUFFIX.length())));
+					} catch (NumberFormatException e) {
+						// not ours
+					}
+				}
+		Collections.sort(numbers);
+		return numbers;
+	}
+}
@@ -0,0 +1,232 @@
+package csce867.graph;
+
+import java.lang.management.ManagementFactory;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.graphstream.graph.Element;
+import org.graphstream.graph.Graph;
+
+/**
+ * Counters and latency histograms of the calls made through a
+ * {@link MeteredGraph}, one set per operation; getAttribute, setAttribute
+ * and removeAttribute are the graph's own attribute calls. Nothing is
+ * attached to the graph, so a CompactGraph keeps its unboxed attribute
+ * path while metered. Disabled, the metered graph checks one volatile flag
+ * per call and records nothing.
+ *
+ * The element and attribute counts are read from the graph when asked,
+ * without locking, so on a graph changed by another thread they are
+ * estimates.
+ */
+public class GraphMetrics implements GraphMetricsMXBean {
+
+	static final int ADD_NODE = 0, REMOVE_NODE = 1, ADD_EDGE = 2, REMOVE_EDGE = 3, GET_NODE = 4, GET_EDGE = 5,
+			GET_ATTRIBUTE = 6, SET_ATTRIBUTE = 7, REMOVE_ATTRIBUTE = 8, CLEAR = 9, READ = 10, WRITE = 11,
+			OPERATIONS = 12;
+
+	static final String[] NAMES = { "addNode", "removeNode", "addEdge", "removeEdge", "getNode", "getEdge",
+			"getAttribute", "setAttribute", "removeAttribute", "clear", "read", "write" };
+
+	private static final int SAMPLE = 1024;
+	/** percentiles standing for the mean and the max in micros() */
+	private static final int MEAN = -1, MAX = -2;
+
+	private final Graph graph;
+	volatile boolean enabled;
+	private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS];
+	private final AtomicLongArray errors = new AtomicLongArray(OPERATIONS);
+	private final ConcurrentHashMap<String, AtomicLong> errorTypes = new ConcurrentHashMap<String, AtomicLong>();
+	private ObjectName registered;
+
+	GraphMetrics(Graph graph) {
+		this.graph = graph;
+		for (int i = 0; i < OPERATIONS; i++)
+			latencies[i] = new LatencyHistogram();
+	}
+
+	// recording, called by MeteredGraph
+
+	void done(int op, long started) {
+		latencies[op].record(System.nanoTime() - started);
+	}
+
+	void failed(int op, long started, RuntimeException e) {
+		latencies[op].record(System.nanoTime() - started);
+		errors.incrementAndGet(op);
+		String type = e.getClass().getSimpleName();
+		AtomicLong n = errorTypes.get(type);
+		if (n == null) {
+			AtomicLong created = new AtomicLong();
+			n = errorTypes.putIfAbsent(type, created);
+			if (n == null)
+				n = created;
+		}
+		n.incrementAndGet();
+	}
+
+	// control
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean on) {
+		enabled = on;
+	}
+
+	public void reset() {
+		for (int i = 0; i < OPERATIONS; i++) {
+			latencies[i].reset();
+			errors.set(i, 0);
+		}
+		errorTypes.clear();
+	}
+
+	/**
+	 * Registers these metrics with the platform MBean server under
+	 * csce867.graph:type=GraphMetrics,name=&lt;name&gt;.
+	 */
+	public synchronized ObjectName register(String name) throws JMException {
+		unregister();
+		ObjectName objectName = new ObjectName("csce867.graph:type=GraphMetrics,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		registered = objectName;
+		return objectName;
+	}
+
+	public synchronized void unregister() throws JMException {
+		if (registered == null)
+			return;
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if (server.isRegistered(registered))
+			server.unregisterMBean(registered);
+		registered = null;
+	}
+
+	// Java side
+
+	/** Histogram of an operation by name, e.g. "addEdge". */
+	public LatencyHistogram getLatency(String operation) {
+		return latencies[op(operation)];
+	}
+
+	public long getCallCount(String operation) {
+		return latencies[op(operation)].getCount();
+	}
+
+	public long getErrorCount(String operation) {
+		return errors.get(op(operation));
+	}
+
+	private static int op(String operation) {
+		for (int i = 0; i < OPERATIONS; i++)
+			if (NAMES[i].equals(operation))
+				return i;
+		throw new IllegalArgumentException("no such operation: " + operation);
+	}
+
+	// JMX
+
+	public int getNodeCount() {
+		return graph.getNodeCount();
+	}
+
+	public int getEdgeCount() {
+		return graph.getEdgeCount();
+	}
+
+	public TreeMap<String, Long> getCalls() {
+		TreeMap<String, Long> map = new TreeMap<String, Long>();
+		for (int i = 0; i < OPERATIONS; i++)
+			map.put(NAMES[i], latencies[i].getCount());
+		return map;
+	}
+
+	public TreeMap<String, Long> getErrors() {
+		TreeMap<String, Long> map = new TreeMap<String, Long>();
+		for (int i = 0; i < OPERATIONS; i++)
+			map.put(NAMES[i], errors.get(i));
+		return map;
+	}
+
+	public TreeMap<String, Long> getErrorsByType() {
+		TreeMap<String, Long> map = new TreeMap<String, Long>();
+		for (String type : errorTypes.keySet())
+			map.put(type, errorTypes.get(type).get());
+		return map;
+	}
+
+	private TreeMap<String, Double> micros(double percentile) {
+		TreeMap<String, Double> map = new TreeMap<String, Double>();
+		for (int i = 0; i < OPERATIONS; i++) {
+			LatencyHistogram h = latencies[i];
+			double nanos = percentile == MEAN ? h.getMean()
+					: percentile == MAX ? h.getMax() : h.getValueAtPercentile(percentile);
+			map.put(NAMES[i], nanos / 1000);
+		}
+		return map;
+	}
+
+	public TreeMap<String, Double> getMeanMicros() {
+		return micros(MEAN);
+	}
+
+	public TreeMap<String, Double> getP50Micros() {
+		return micros(50);
+	}
+
+	public TreeMap<String, Double> getP99Micros() {
+		return micros(99);
+	}
+
+	public TreeMap<String, Double> getP999Micros() {
+		return micros(99.9);
+	}
+
+	public TreeMap<String, Double> getMaxMicros() {
+		return micros(MAX);
+	}
+
+	/** {mean, max} attribute count over evenly spaced elements, NaN if the graph changed under us. */
+	private double[] sampleAttributes(boolean nodes) {
+		try {
+			int n = nodes ? graph.getNodeCount() : graph.getEdgeCount();
+			int step = Math.max(1, n / SAMPLE);
+			long total = 0;
+			int max = 0, seen = 0;
+			for (int i = 0; i < n; i += step) {
+				Element e = nodes ? graph.getNode(i) : graph.getEdge(i);
+				int c = e.getAttributeCount();
+				total += c;
+				max = Math.max(max, c);
+				seen++;
+			}
+			return new double[] { seen == 0 ? 0 : (double) total / seen, max };
+		} catch (RuntimeException e) {
+			return new double[] { Double.NaN, -1 };
+		}
+	}
+
+	public double getMeanNodeAttributeCount() {
+		return sampleAttributes(true)[0];
+	}
+
+	public double getMeanEdgeAttributeCount() {
+		return sampleAttributes(false)[0];
+	}
+
+	public int getMaxNodeAttributeCount() {
+		return (int) sampleAttributes(true)[1];
+	}
+
+	public int getMaxEdgeAttributeCount() {
+		return (int) sampleAttributes(false)[1];
+	}
+}
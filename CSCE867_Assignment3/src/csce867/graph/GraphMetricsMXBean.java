@@ -0,0 +1,46 @@
+package csce867.graph;
+
+import java.util.Map;
+
+/**
+ * JMX view of a {@link GraphMetrics}. Maps are keyed by operation name
+ * (addNode, removeEdge, getAttribute, ...); latencies are in microseconds.
+ */
+public interface GraphMetricsMXBean {
+
+	boolean isEnabled();
+
+	void setEnabled(boolean enabled);
+
+	void reset();
+
+	int getNodeCount();
+
+	int getEdgeCount();
+
+	Map<String, Long> getCalls();
+
+	Map<String, Long> getErrors();
+
+	/** Errors by exception class simple name, all operations together. */
+	Map<String, Long> getErrorsByType();
+
+	Map<String, Double> getMeanMicros();
+
+	Map<String, Double> getP50Micros();
+
+	Map<String, Double> getP99Micros();
+
+	Map<String, Double> getP999Micros();
+
+	Map<String, Double> getMaxMicros();
+
+	/** Attributes per node and per edge, sampled over at most 1024 elements. */
+	double getMeanNodeAttributeCount();
+
+	double getMeanEdgeAttributeCount();
+
+	int getMaxNodeAttributeCount();
+
+	int getMaxEdgeAttributeCount();
+}
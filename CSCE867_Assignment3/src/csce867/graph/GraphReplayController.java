@@ -0,0 +1,50 @@
+package csce867.graph;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.stream.Replayable;
+import org.graphstream.stream.SourceBase;
+
+/**
+ * Replays the current content of any Graph to the sinks attached to this
+ * controller, the same sequence AbstractGraph's own controller produces:
+ * graph attributes, then every node with its attributes, then every edge
+ * with its attributes. Graphs that do not extend AbstractGraph hand one of
+ * these out from getReplayController().
+ */
+public class GraphReplayController extends SourceBase implements Replayable.Controller {
+
+	private final Graph graph;
+	private long replayId;
+
+	public GraphReplayController(Graph graph) {
+		super(graph.getId() + "replay");
+		this.graph = graph;
+	}
+
+	public void replay() {
+		replay(String.format("%s-replay-%x", graph.getId(), replayId++));
+	}
+
+	public void replay(String sourceId) {
+		for (String key : graph.getAttributeKeySet())
+			sendGraphAttributeAdded(sourceId, key, graph.getAttribute(key));
+
+		for (int i = 0; i < graph.getNodeCount(); i++) {
+			Node node = graph.getNode(i);
+			String nodeId = node.getId();
+			sendNodeAdded(sourceId, nodeId);
+			for (String key : node.getAttributeKeySet())
+				sendNodeAttributeAdded(sourceId, nodeId, key, node.getAttribute(key));
+		}
+
+		for (int i = 0; i < graph.getEdgeCount(); i++) {
+			Edge edge = graph.getEdge(i);
+			String edgeId = edge.getId();
+			sendEdgeAdded(sourceId, edgeId, edge.getNode0().getId(), edge.getNode1().getId(), edge.isDirected());
+			for (String key : edge.getAttributeKeySet())
+				sendEdgeAttributeAdded(sourceId, edgeId, key, edge.getAttribute(key));
+		}
+	}
+}
@@ -0,0 +1,534 @@
+package csce867.graph;
+
+import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.EdgeFactory;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.NodeFactory;
+import org.graphstream.graph.implementations.AbstractElement.AttributeChangeEvent;
+import org.graphstream.stream.AttributeSink;
+import org.graphstream.stream.ElementSink;
+import org.graphstream.stream.Replayable;
+import org.graphstream.stream.Sink;
+import org.graphstream.stream.file.FileSink;
+import org.graphstream.stream.file.FileSinkFactory;
+import org.graphstream.stream.file.FileSource;
+import org.graphstream.ui.layout.Layout;
+import org.graphstream.ui.layout.Layouts;
+import org.graphstream.ui.swingViewer.GraphRenderer;
+import org.graphstream.ui.view.Viewer;
+
+/**
+ * A graph as it was when {@link SnapshotMirror#snapshot()} was called:
+ * read-only, never changing, and safe to read from any number of threads
+ * while the live graph goes on. Iterators, BFS and DFS, the traversal
+ * helpers and file sinks all run on it as on the live graph, with the same
+ * ids, indices, attributes and step.
+ *
+ * Every change (adding or removing elements or attributes, strictness,
+ * factories, events sent to it as a sink, reading a file into it) throws
+ * UnsupportedOperationException. Sinks may be added; as nothing changes they
+ * never hear anything, but the replay controller sends the whole snapshot,
+ * which is how one is copied into a mutable graph. Only
+ * nullAttributesAreErrors, a setting of the view, may be changed.
+ */
+public class GraphSnapshot extends FacadeElement implements Graph {
+
+	private final String id;
+	// shared with the mirror and with mirrors continuing from this snapshot
+	final PersistentArray nodes, edges;
+	private final int nodeCount, edgeCount;
+	final PersistentIdMap nodeIds, edgeIds;
+	final HashMap<String, Object> attributes;
+	private final double step;
+	private final long number;
+	private volatile boolean nullAttributesAreErrors;
+
+	GraphSnapshot(String id, PersistentArray nodes, int nodeCount, PersistentArray edges, int edgeCount,
+			PersistentIdMap nodeIds, PersistentIdMap edgeIds, HashMap<String, Object> attributes, double step,
+			long number) {
+		this.id = id;
+		this.nodes = nodes;
+		this.nodeCount = nodeCount;
+		this.edges = edges;
+		this.edgeCount = edgeCount;
+		this.nodeIds = nodeIds;
+		this.edgeIds = edgeIds;
+		this.attributes = attributes;
+		this.step = step;
+		this.number = number;
+	}
+
+	static UnsupportedOperationException readOnly() {
+		return new UnsupportedOperationException("graph snapshots are read-only");
+	}
+
+	/** Position of this snapshot among those of its mirror, from 0. */
+	public long getSnapshotNumber() {
+		return number;
+	}
+
+	// records, by index
+
+	SnapshotNode nodeAt(int index) {
+		return new SnapshotNode(this, index, (SnapshotMirror.NodeRecord) nodes.get(index));
+	}
+
+	SnapshotEdge edgeAt(int index) {
+		return new SnapshotEdge(this, index, (SnapshotMirror.EdgeRecord) edges.get(index));
+	}
+
+	SnapshotMirror.EdgeRecord edgeRecord(int index) {
+		return (SnapshotMirror.EdgeRecord) edges.get(index);
+	}
+
+	int nodeIndex(String nodeId) {
+		return nodeIds.get(nodeId);
+	}
+
+	void checkNode(int index) {
+		if (index < 0 || index >= nodeCount)
+			throw new IndexOutOfBoundsException("Node " + index + " does not exist");
+	}
+
+	private void checkEdge(int index) {
+		if (index < 0 || index >= edgeCount)
+			throw new IndexOutOfBoundsException("Edge " + index + " does not exist");
+	}
+
+	// FacadeElement, the graph's own attributes
+
+	public String getId() {
+		return id;
+	}
+
+	public int getIndex() {
+		return 0;
+	}
+
+	@Override
+	protected Object attributeValue(String key) {
+		return attributes == null ? null : attributes.get(key);
+	}
+
+	@Override
+	protected boolean containsAttribute(String key) {
+		return attributes != null && attributes.containsKey(key);
+	}
+
+	@Override
+	protected Object putAttribute(String key, Object value) {
+		throw readOnly();
+	}
+
+	@Override
+	protected Object deleteAttribute(String key) {
+		throw readOnly();
+	}
+
+	@Override
+	protected Collection<String> attributeKeys() {
+		return attributes == null ? Collections.<String> emptyList() : attributes.keySet();
+	}
+
+	public int getAttributeCount() {
+		return attributes == null ? 0 : attributes.size();
+	}
+
+	@Override
+	protected void attributeChanged(AttributeChangeEvent event, String attribute, Object oldValue,
+			Object newValue) {
+	}
+
+	@Override
+	public void removeAttribute(String attribute) {
+		throw readOnly();
+	}
+
+	@Override
+	public void clearAttributes() {
+		throw readOnly();
+	}
+
+	public boolean nullAttributesAreErrors() {
+		return nullAttributesAreErrors;
+	}
+
+	public void setNullAttributesAreErrors(boolean on) {
+		nullAttributesAreErrors = on;
+	}
+
+	// settings, fixed
+
+	public boolean isStrict() {
+		return true;
+	}
+
+	public void setStrict(boolean on) {
+		throw readOnly();
+	}
+
+	public boolean isAutoCreationEnabled() {
+		return false;
+	}
+
+	public void setAutoCreate(boolean on) {
+		throw readOnly();
+	}
+
+	public double getStep() {
+		return step;
+	}
+
+	/** Nothing is ever built in a snapshot. Always null. */
+	public NodeFactory<? extends Node> nodeFactory() {
+		return null;
+	}
+
+	public EdgeFactory<? extends Edge> edgeFactory() {
+		return null;
+	}
+
+	public void setNodeFactory(NodeFactory<? extends Node> nf) {
+		throw readOnly();
+	}
+
+	public void setEdgeFactory(EdgeFactory<? extends Edge> ef) {
+		throw readOnly();
+	}
+
+	// structure reads
+
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T getNode(String nodeId) {
+		int index = nodeIds.get(nodeId);
+		return index < 0 ? null : (T) nodeAt(index);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T getNode(int index) throws IndexOutOfBoundsException {
+		checkNode(index);
+		return (T) nodeAt(index);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T getEdge(String edgeId) {
+		int index = edgeIds.get(edgeId);
+		return index < 0 ? null : (T) edgeAt(index);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T getEdge(int index) throws IndexOutOfBoundsException {
+		checkEdge(index);
+		return (T) edgeAt(index);
+	}
+
+	private class ElementIterator<T> implements Iterator<T> {
+		final boolean nodes;
+		int next;
+
+		ElementIterator(boolean nodes) {
+			this.nodes = nodes;
+		}
+
+		public boolean hasNext() {
+			return next < (nodes ? nodeCount : edgeCount);
+		}
+
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			return (T) (nodes ? nodeAt(next++) : edgeAt(next++));
+		}
+
+		public void remove() {
+			throw readOnly();
+		}
+	}
+
+	public <T extends Node> Iterator<T> getNodeIterator() {
+		return new ElementIterator<T>(true);
+	}
+
+	public <T extends Edge> Iterator<T> getEdgeIterator() {
+		return new ElementIterator<T>(false);
+	}
+
+	public <T extends Node> Iterable<? extends T> getEachNode() {
+		return new Iterable<T>() {
+			public Iterator<T> iterator() {
+				return getNodeIterator();
+			}
+		};
+	}
+
+	public <T extends Edge> Iterable<? extends T> getEachEdge() {
+		return new Iterable<T>() {
+			public Iterator<T> iterator() {
+				return getEdgeIterator();
+			}
+		};
+	}
+
+	public <T extends Node> Collection<T> getNodeSet() {
+		return new AbstractCollection<T>() {
+			public Iterator<T> iterator() {
+				return getNodeIterator();
+			}
+
+			public int size() {
+				return nodeCount;
+			}
+		};
+	}
+
+	public <T extends Edge> Collection<T> getEdgeSet() {
+		return new AbstractCollection<T>() {
+			public Iterator<T> iterator() {
+				return getEdgeIterator();
+			}
+
+			public int size() {
+				return edgeCount;
+			}
+		};
+	}
+
+	public Iterator<Node> iterator() {
+		return getNodeIterator();
+	}
+
+	// changes, refused
+
+	public void clear() {
+		throw readOnly();
+	}
+
+	public <T extends Node> T addNode(String nodeId) {
+		throw readOnly();
+	}
+
+	public <T extends Node> T removeNode(String nodeId) {
+		throw readOnly();
+	}
+
+	public <T extends Node> T removeNode(int index) {
+		throw readOnly();
+	}
+
+	public <T extends Node> T removeNode(Node node) {
+		throw readOnly();
+	}
+
+	public <T extends Edge> T addEdge(String edgeId, String node1, String node2) {
+		throw readOnly();
+	}
+
+	public <T extends Edge> T addEdge(String edgeId, String from, String to, boolean directed) {
+		throw readOnly();
+	}
+
+	public <T extends Edge> T addEdge(String edgeId, int index1, int index2) {
+		throw readOnly();
+	}
+
+	public <T extends Edge> T addEdge(String edgeId, int fromIndex, int toIndex, boolean directed) {
+		throw readOnly();
+	}
+
+	public <T extends Edge> T addEdge(String edgeId, Node node1, Node node2) {
+		throw readOnly();
+	}
+
+	public <T extends Edge> T addEdge(String edgeId, Node from, Node to, boolean directed) {
+		throw readOnly();
+	}
+
+	public <T extends Edge> T removeEdge(String edgeId) {
+		throw readOnly();
+	}
+
+	public <T extends Edge> T removeEdge(String from, String to) {
+		throw readOnly();
+	}
+
+	public <T extends Edge> T removeEdge(int index) {
+		throw readOnly();
+	}
+
+	public <T extends Edge> T removeEdge(int fromIndex, int toIndex) {
+		throw readOnly();
+	}
+
+	public <T extends Edge> T removeEdge(Node node1, Node node2) {
+		throw readOnly();
+	}
+
+	public <T extends Edge> T removeEdge(Edge edge) {
+		throw readOnly();
+	}
+
+	public void stepBegins(double time) {
+		throw readOnly();
+	}
+
+	// sinks, which never hear anything
+
+	public Iterable<AttributeSink> attributeSinks() {
+		return Collections.<AttributeSink> emptyList();
+	}
+
+	public Iterable<ElementSink> elementSinks() {
+		return Collections.<ElementSink> emptyList();
+	}
+
+	public void addSink(Sink sink) {
+	}
+
+	public void removeSink(Sink sink) {
+	}
+
+	public void addAttributeSink(AttributeSink sink) {
+	}
+
+	public void removeAttributeSink(AttributeSink sink) {
+	}
+
+	public void addElementSink(ElementSink sink) {
+	}
+
+	public void removeElementSink(ElementSink sink) {
+	}
+
+	public void clearElementSinks() {
+	}
+
+	public void clearAttributeSinks() {
+	}
+
+	public void clearSinks() {
+	}
+
+	/** Sends the whole snapshot to the controller's sinks. */
+	public Replayable.Controller getReplayController() {
+		return new GraphReplayController(this);
+	}
+
+	public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+		throw readOnly();
+	}
+
+	public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute,
+			Object oldValue, Object newValue) {
+		throw readOnly();
+	}
+
+	public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+		throw readOnly();
+	}
+
+	public void graphAttributeAdded(String sourceId, long timeId, String attribute, Object value) {
+		throw readOnly();
+	}
+
+	public void graphAttributeChanged(String sourceId, long timeId, String attribute, Object oldValue,
+			Object newValue) {
+		throw readOnly();
+	}
+
+	public void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+		throw readOnly();
+	}
+
+	public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+		throw readOnly();
+	}
+
+	public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute,
+			Object oldValue, Object newValue) {
+		throw readOnly();
+	}
+
+	public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+		throw readOnly();
+	}
+
+	public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId,
+			boolean directed) {
+		throw readOnly();
+	}
+
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		throw readOnly();
+	}
+
+	public void graphCleared(String sourceId, long timeId) {
+		throw readOnly();
+	}
+
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		throw readOnly();
+	}
+
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		throw readOnly();
+	}
+
+	public void stepBegins(String sourceId, long timeId, double time) {
+		throw readOnly();
+	}
+
+	// I/O and display
+
+	public void read(String filename) {
+		throw readOnly();
+	}
+
+	public void read(FileSource input, String filename) {
+		throw readOnly();
+	}
+
+	public void write(String filename) throws IOException {
+		FileSink output = FileSinkFactory.sinkFor(filename);
+		if (output == null)
+			throw new IOException("No sink writer for " + filename);
+		write(output, filename);
+	}
+
+	public void write(FileSink output, String filename) throws IOException {
+		output.writeAll(this, filename);
+	}
+
+	public Viewer display() {
+		return display(true);
+	}
+
+	public Viewer display(boolean autoLayout) {
+		Viewer viewer = new Viewer(new RingProxyPipe(this, true));
+		viewer.enableXYZfeedback(false);
+		GraphRenderer renderer = Viewer.newGraphRenderer();
+		viewer.addView(Viewer.DEFAULT_VIEW_ID, renderer);
+		if (autoLayout) {
+			Layout layout = Layouts.newLayoutAlgorithm();
+			viewer.enableAutoLayout(layout);
+		}
+		return viewer;
+	}
+}
@@ -0,0 +1,55 @@
+package csce867.graph;
+
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+
+/**
+ * Streams of the nodes and edges of any Graph, in index order, over
+ * spliterators that address the elements by index: nothing is copied, the
+ * size is known, and .parallel() splits the index range. A CompactGraph
+ * answers from its own tables (see {@link CompactGraph#nodes()}), other
+ * graphs through getNode(int) and getEdge(int).
+ *
+ * The attribute filters are evaluated lazily, element by element, as the
+ * stream pulls; the predicate sees null for elements without the key. As
+ * with the graph's iterators, the graph must not change while a stream
+ * runs.
+ */
+public final class GraphStreams {
+
+	private GraphStreams() {
+	}
+
+	public static <T extends Node> Stream<T> nodes(Graph graph) {
+		if (graph instanceof CompactGraph)
+			return ((CompactGraph) graph).nodes();
+		return StreamSupport.stream(new IndexSpliterator<T>(i -> graph.<T> getNode(i), graph::getNodeCount, null),
+				false);
+	}
+
+	public static <T extends Edge> Stream<T> edges(Graph graph) {
+		if (graph instanceof CompactGraph)
+			return ((CompactGraph) graph).edges();
+		return StreamSupport.stream(new IndexSpliterator<T>(i -> graph.<T> getEdge(i), graph::getEdgeCount, null),
+				false);
+	}
+
+	/** Nodes whose value for key passes test. */
+	public static <T extends Node> Stream<T> nodes(Graph graph, String key, Predicate<Object> test) {
+		if (graph instanceof CompactGraph)
+			return ((CompactGraph) graph).nodes(key, test);
+		return GraphStreams.<T> nodes(graph).filter(n -> test.test(n.getAttribute(key)));
+	}
+
+	/** Edges whose value for key passes test. */
+	public static <T extends Edge> Stream<T> edges(Graph graph, String key, Predicate<Object> test) {
+		if (graph instanceof CompactGraph)
+			return ((CompactGraph) graph).edges(key, test);
+		return GraphStreams.<T> edges(graph).filter(e -> test.test(e.getAttribute(key)));
+	}
+}
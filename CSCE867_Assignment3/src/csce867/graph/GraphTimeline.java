@@ -0,0 +1,397 @@
+package csce867.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.GraphReplay;
+import org.graphstream.stream.Sink;
+import org.graphstream.stream.Source;
+import org.graphstream.stream.SourceBase;
+
+/**
+ * The events of a dynamic graph, recorded so that its state at any time can
+ * be had without replaying from the start as gs-core's Timeline does. Every
+ * checkpointEvents events, and at the first step checkpointTime or more
+ * after the last checkpoint, the state is kept as a {@link GraphSnapshot};
+ * seeking to a time starts from the last checkpoint at or before it and
+ * replays only the events after it.
+ *
+ * Checkpoints come from a {@link SnapshotMirror} fed the same events, so
+ * one costs O(1) to take and keeps only what changed since the previous
+ * one. {@link #snapshotAt(double)} continues a checkpoint in a mirror of its
+ * own and costs the tail alone; {@link #seek(double, Sink)} and
+ * {@link #play(double, double, Sink)} send the checkpoint's content and
+ * then the tail to a sink.
+ *
+ * Time is the value of stepBegins. The state at time t holds every event
+ * before the first step later than t; events before the first step belong
+ * to every time, and a step back in time counts as the latest step so far.
+ * Events are recorded from one thread: attach the timeline with begin(), or
+ * as a sink of a file source, or replay a journal into it with
+ * GraphJournal.recover. Once recording stops any number of threads may
+ * seek at once, and the methods taking several times or windows spread
+ * them over a ForkJoinPool.
+ */
+public class GraphTimeline implements Sink {
+
+	public static final int DEFAULT_CHECKPOINT_EVENTS = 1 << 16;
+
+	private final String id;
+	private final int checkpointEvents;
+	private final double checkpointTime;
+	private final ForkJoinPool pool;
+
+	private final EventLog log = new EventLog();
+	private final EventLog.Recorder recorder = new EventLog.Recorder();
+	private final SnapshotMirror mirror;
+	private Source source;
+
+	// time index: the event index and time of each stepBegins
+	private int[] stepEvents = new int[16];
+	private double[] stepTimes = new double[16];
+	private int steps;
+
+	// checkpoint k is the state before event checkpointAt[k]
+	private int[] checkpointAt = new int[16];
+	private GraphSnapshot[] checkpoints = new GraphSnapshot[16];
+	private int checkpointCount;
+	// time of the step the last time checkpoint was taken at
+	private double lastCheckpointTime;
+
+	// metrics
+	private final AtomicLong seeks = new AtomicLong(), replayed = new AtomicLong();
+
+	public GraphTimeline(String id) {
+		this(id, DEFAULT_CHECKPOINT_EVENTS, Double.POSITIVE_INFINITY);
+	}
+
+	public GraphTimeline(String id, int checkpointEvents, double checkpointTime) {
+		this(id, checkpointEvents, checkpointTime, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param checkpointEvents
+	 *            events between checkpoints
+	 * @param checkpointTime
+	 *            graph time between checkpoints, infinite for none
+	 */
+	public GraphTimeline(String id, int checkpointEvents, double checkpointTime, ForkJoinPool pool) {
+		if (checkpointEvents <= 0)
+			throw new IllegalArgumentException("checkpointEvents must be positive");
+		this.id = id;
+		this.checkpointEvents = checkpointEvents;
+		this.checkpointTime = checkpointTime;
+		this.pool = pool;
+		recorder.log = log;
+		mirror = new SnapshotMirror(id);
+		checkpoint();
+	}
+
+	// recording
+
+	/** Records the events of source from now on. */
+	public void begin(Source source) {
+		end();
+		this.source = source;
+		source.addSink(this);
+	}
+
+	/** Records the current content of graph, then its events from now on. */
+	public void begin(Graph graph) {
+		GraphReplay replay = new GraphReplay(id + "-begin");
+		replay.addSink(this);
+		replay.replay(graph);
+		replay.removeSink(this);
+		begin((Source) graph);
+	}
+
+	/** Stops recording; what was recorded can still be sought. */
+	public void end() {
+		if (source != null)
+			source.removeSink(this);
+		source = null;
+	}
+
+	private void checkpoint() {
+		if (checkpointCount == checkpointAt.length) {
+			checkpointAt = Arrays.copyOf(checkpointAt, checkpointCount * 2);
+			checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+		}
+		checkpointAt[checkpointCount] = log.size();
+		checkpoints[checkpointCount++] = mirror.snapshot();
+	}
+
+	private void recorded() {
+		if (log.size() - checkpointAt[checkpointCount - 1] >= checkpointEvents)
+			checkpoint();
+	}
+
+	// seeking
+
+	/** Events in the state at time. */
+	private int position(double time) {
+		int lo = 0, hi = steps;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (stepTimes[mid] > time)
+				hi = mid;
+			else
+				lo = mid + 1;
+		}
+		return lo < steps ? stepEvents[lo] : log.size();
+	}
+
+	/** The last checkpoint at or before event position. */
+	private int checkpointBefore(int position) {
+		int lo = 0, hi = checkpointCount - 1;
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (checkpointAt[mid] <= position)
+				lo = mid;
+			else
+				hi = mid - 1;
+		}
+		return lo;
+	}
+
+	/**
+	 * Sends sink events [from, to) from source. Sinks drop events whose time
+	 * id they have seen from a source id, so each seek sends under an id of
+	 * its own, and the content and the tail through the same source.
+	 */
+	private void replay(SourceBase source, String sourceId, int from, int to) {
+		log.replay(source, sourceId, from, to);
+		replayed.addAndGet(to - from);
+	}
+
+	private String nextSourceId() {
+		return String.format("%s-seek-%x", id, seeks.incrementAndGet());
+	}
+
+	/** The state at time, read-only; costs the events after the checkpoint. */
+	public GraphSnapshot snapshotAt(double time) {
+		String sourceId = nextSourceId();
+		int position = position(time);
+		int k = checkpointBefore(position);
+		if (checkpointAt[k] == position)
+			return checkpoints[k];
+		SnapshotMirror continued = new SnapshotMirror(checkpoints[k]);
+		SourceBase source = new SourceBase(sourceId) {
+		};
+		source.addSink(continued);
+		replay(source, sourceId, checkpointAt[k], position);
+		return continued.snapshot();
+	}
+
+	/** Sends sink the events building the state at time. */
+	public void seek(double time, Sink sink) {
+		seek(time, sink, nextSourceId());
+	}
+
+	private SourceBase seek(double time, Sink sink, String sourceId) {
+		int position = position(time);
+		int k = checkpointBefore(position);
+		GraphSnapshot checkpoint = checkpoints[k];
+		GraphReplayController source = new GraphReplayController(checkpoint);
+		source.addSink(sink);
+		source.replay(sourceId);
+		if (checkpoint.getStep() != 0)
+			source.sendStepBegins(sourceId, checkpoint.getStep());
+		replay(source, sourceId, checkpointAt[k], position);
+		return source;
+	}
+
+	/** The state at time in a new SingleGraph. */
+	public Graph graphAt(double time) {
+		Graph graph = new SingleGraph(id, false, false);
+		seek(time, graph);
+		return graph;
+	}
+
+	/** Sends sink the state at from, then the events up to time to. */
+	public void play(double from, double to, Sink sink) {
+		String sourceId = nextSourceId();
+		SourceBase source = seek(from, sink, sourceId);
+		int start = position(from), end = position(to);
+		if (end > start)
+			replay(source, sourceId, start, end);
+	}
+
+	/** The states at each time, built in parallel. */
+	public List<GraphSnapshot> snapshotsAt(double... times) {
+		List<ForkJoinTask<GraphSnapshot>> tasks = new ArrayList<ForkJoinTask<GraphSnapshot>>(times.length);
+		for (double time : times)
+			tasks.add(pool.submit(() -> snapshotAt(time)));
+		List<GraphSnapshot> states = new ArrayList<GraphSnapshot>(times.length);
+		for (ForkJoinTask<GraphSnapshot> task : tasks)
+			states.add(task.join());
+		return states;
+	}
+
+	/** Plays window i, from[i] to to[i], into sinks[i], the windows in parallel. */
+	public void play(double[] from, double[] to, Sink[] sinks) {
+		if (from.length != to.length || from.length != sinks.length)
+			throw new IllegalArgumentException("one start, end and sink per window");
+		List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(sinks.length);
+		for (int i = 0; i < sinks.length; i++) {
+			int window = i;
+			tasks.add(pool.submit(() -> play(from[window], to[window], sinks[window])));
+		}
+		for (ForkJoinTask<?> task : tasks)
+			task.join();
+	}
+
+	// metrics
+
+	public String getId() {
+		return id;
+	}
+
+	public int getEventCount() {
+		return log.size();
+	}
+
+	public int getStepCount() {
+		return steps;
+	}
+
+	public int getCheckpointCount() {
+		return checkpointCount;
+	}
+
+	/** Time of the first and of the last step, NaN before any. */
+	public double getStartTime() {
+		return steps == 0 ? Double.NaN : stepTimes[0];
+	}
+
+	public double getEndTime() {
+		return steps == 0 ? Double.NaN : stepTimes[steps - 1];
+	}
+
+	public long getSeekCount() {
+		return seeks.get();
+	}
+
+	/** Events replayed after checkpoints by every seek so far. */
+	public long getReplayedEventCount() {
+		return replayed.get();
+	}
+
+	// events, recorded
+
+	public void graphAttributeAdded(String sourceId, long timeId, String attribute, Object value) {
+		recorder.graphAttributeAdded(sourceId, timeId, attribute, value);
+		mirror.graphAttributeAdded(sourceId, timeId, attribute, value);
+		recorded();
+	}
+
+	public void graphAttributeChanged(String sourceId, long timeId, String attribute, Object oldValue,
+			Object newValue) {
+		recorder.graphAttributeChanged(sourceId, timeId, attribute, oldValue, newValue);
+		mirror.graphAttributeChanged(sourceId, timeId, attribute, oldValue, newValue);
+		recorded();
+	}
+
+	public void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+		recorder.graphAttributeRemoved(sourceId, timeId, attribute);
+		mirror.graphAttributeRemoved(sourceId, timeId, attribute);
+		recorded();
+	}
+
+	public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+		recorder.nodeAttributeAdded(sourceId, timeId, nodeId, attribute, value);
+		mirror.nodeAttributeAdded(sourceId, timeId, nodeId, attribute, value);
+		recorded();
+	}
+
+	public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute,
+			Object oldValue, Object newValue) {
+		recorder.nodeAttributeChanged(sourceId, timeId, nodeId, attribute, oldValue, newValue);
+		mirror.nodeAttributeChanged(sourceId, timeId, nodeId, attribute, oldValue, newValue);
+		recorded();
+	}
+
+	public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+		recorder.nodeAttributeRemoved(sourceId, timeId, nodeId, attribute);
+		mirror.nodeAttributeRemoved(sourceId, timeId, nodeId, attribute);
+		recorded();
+	}
+
+	public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+		recorder.edgeAttributeAdded(sourceId, timeId, edgeId, attribute, value);
+		mirror.edgeAttributeAdded(sourceId, timeId, edgeId, attribute, value);
+		recorded();
+	}
+
+	public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute,
+			Object oldValue, Object newValue) {
+		recorder.edgeAttributeChanged(sourceId, timeId, edgeId, attribute, oldValue, newValue);
+		mirror.edgeAttributeChanged(sourceId, timeId, edgeId, attribute, oldValue, newValue);
+		recorded();
+	}
+
+	public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+		recorder.edgeAttributeRemoved(sourceId, timeId, edgeId, attribute);
+		mirror.edgeAttributeRemoved(sourceId, timeId, edgeId, attribute);
+		recorded();
+	}
+
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		recorder.nodeAdded(sourceId, timeId, nodeId);
+		mirror.nodeAdded(sourceId, timeId, nodeId);
+		recorded();
+	}
+
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		recorder.nodeRemoved(sourceId, timeId, nodeId);
+		mirror.nodeRemoved(sourceId, timeId, nodeId);
+		recorded();
+	}
+
+	public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId,
+			boolean directed) {
+		recorder.edgeAdded(sourceId, timeId, edgeId, fromNodeId, toNodeId, directed);
+		mirror.edgeAdded(sourceId, timeId, edgeId, fromNodeId, toNodeId, directed);
+		recorded();
+	}
+
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		recorder.edgeRemoved(sourceId, timeId, edgeId);
+		mirror.edgeRemoved(sourceId, timeId, edgeId);
+		recorded();
+	}
+
+	public void graphCleared(String sourceId, long timeId) {
+		recorder.graphCleared(sourceId, timeId);
+		mirror.graphCleared(sourceId, timeId);
+		recorded();
+	}
+
+	public void stepBegins(String sourceId, long timeId, double step) {
+		double time = steps > 0 ? Math.max(step, stepTimes[steps - 1]) : step;
+		// a time checkpoint is the state just before the step, the whole of
+		// the time before it
+		if (steps == 0)
+			lastCheckpointTime = time;
+		else if (time - lastCheckpointTime >= checkpointTime) {
+			if (checkpointAt[checkpointCount - 1] < log.size())
+				checkpoint();
+			lastCheckpointTime = time;
+		}
+		if (steps == stepEvents.length) {
+			stepEvents = Arrays.copyOf(stepEvents, steps * 2);
+			stepTimes = Arrays.copyOf(stepTimes, steps * 2);
+		}
+		stepEvents[steps] = log.size();
+		stepTimes[steps++] = time;
+		recorder.stepBegins(sourceId, timeId, step);
+		mirror.stepBegins(sourceId, timeId, step);
+		recorded();
+	}
+}
@@ -0,0 +1,328 @@
+package csce867.graph;
+
+import java.util.Arrays;
+
+/**
+ * Dense table of element ids, index i holding the id of the element with
+ * index i. Ids are packed back to back in one byte arena (a varint char
+ * count followed by the chars in the 1-3 byte encoding of modified UTF-8)
+ * and found through an open-addressing int table, so a table entry costs a
+ * few bytes instead of a String, a char[] and a HashMap node.
+ *
+ * Lookups hash with String.hashCode() so the query side uses the value the
+ * String already caches; the arena side is only hashed when the table grows
+ * or an entry is removed.
+ *
+ * Removal follows the SingleGraph index contract: the last id moves into
+ * the freed index. For graphs that keep indices stable, {@link #kill(int)}
+ * leaves a hole instead (start -1), and {@link #squeeze()} closes the holes
+ * later in one pass.
+ */
+final class IdTable {
+
+	private static final int MIN_SLOTS = 16;
+
+	private byte[] arena;
+	private int arenaUsed;
+	private int garbage;
+
+	private int[] start;
+	private int size;
+	private int dead;
+
+	/** index + 1, 0 is an empty slot */
+	private int[] slots;
+	private int mask;
+
+	IdTable(int capacity) {
+		capacity = Math.max(capacity, 1);
+		start = new int[capacity];
+		arena = new byte[capacity * 8];
+		int n = MIN_SLOTS;
+		while (n < capacity * 2)
+			n <<= 1;
+		slots = new int[n];
+		mask = n - 1;
+	}
+
+	/** Index bound, holes included. */
+	int size() {
+		return size;
+	}
+
+	/** Ids actually in the table. */
+	int live() {
+		return size - dead;
+	}
+
+	boolean isDead(int index) {
+		return start[index] < 0;
+	}
+
+	int indexOf(String id) {
+		// the table is read once and probed at most once around, so that an
+		// optimistic reader racing a rehash (ConcurrentGraph) always stops
+		int[] table = slots;
+		int m = table.length - 1;
+		int i = spread(id.hashCode()) & m;
+		int v;
+		for (int probes = 0; probes <= m && (v = table[i]) != 0; probes++) {
+			if (equalsAt(v - 1, id))
+				return v - 1;
+			i = (i + 1) & m;
+		}
+		return -1;
+	}
+
+	/**
+	 * Appends id at index size(). The caller has already checked that the
+	 * id is not present.
+	 */
+	int add(String id) {
+		if (size == start.length)
+			start = Arrays.copyOf(start, grow(size));
+		if ((size + 1) * 2 > slots.length)
+			rehash(slots.length << 1);
+		int index = size++;
+		start[index] = append(id);
+		int i = spread(id.hashCode()) & mask;
+		while (slots[i] != 0)
+			i = (i + 1) & mask;
+		slots[i] = index + 1;
+		return index;
+	}
+
+	String get(int index) {
+		if (index < 0 || index >= size || start[index] < 0)
+			throw new IndexOutOfBoundsException("Id " + index + " does not exist");
+		int p = start[index];
+		int len = lengthAt(p);
+		p += varIntSize(len);
+		if (len > arena.length - p)
+			throw new IndexOutOfBoundsException("Id " + index + " read while it was written");
+		char[] chars = new char[len];
+		for (int k = 0; k < len; k++) {
+			int c = decode(arena, p);
+			p += c >>> 16;
+			c &= 0xFFFF;
+			chars[k] = (char) c;
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Removes the id at index and moves the last id into its place.
+	 */
+	void removeSwap(int index) {
+		int last = size - 1;
+		deleteSlot(slotOf(index));
+		garbage += encodedLength(index);
+		if (index != last) {
+			slots[slotOf(last)] = index + 1;
+			start[index] = start[last];
+		}
+		size--;
+		if (garbage > 4096 && garbage > arenaUsed / 2)
+			compactArena();
+	}
+
+	/**
+	 * Removes the id at index and leaves the index empty, the other ids keep
+	 * theirs.
+	 */
+	void kill(int index) {
+		deleteSlot(slotOf(index));
+		garbage += encodedLength(index);
+		start[index] = -1;
+		dead++;
+		if (garbage > 4096 && garbage > arenaUsed / 2)
+			compactArena();
+	}
+
+	/**
+	 * Closes the holes left by kill(), keeping the order of the remaining
+	 * ids. Returns the new index of every old one, -1 for the holes.
+	 */
+	int[] squeeze() {
+		int[] moved = new int[size];
+		int n = 0;
+		for (int index = 0; index < size; index++) {
+			if (start[index] < 0) {
+				moved[index] = -1;
+			} else {
+				start[n] = start[index];
+				moved[index] = n++;
+			}
+		}
+		size = n;
+		dead = 0;
+		rehash(slots.length);
+		return moved;
+	}
+
+	/** Bytes held by the arena and the tables, for footprint reports. */
+	long footprint() {
+		return arena.length + 4L * start.length + 4L * slots.length;
+	}
+
+	private int slotOf(int index) {
+		int i = spread(hashAt(index)) & mask;
+		while (slots[i] != index + 1)
+			i = (i + 1) & mask;
+		return i;
+	}
+
+	/** Backward shift deletion, keeps probe chains intact without tombstones. */
+	private void deleteSlot(int hole) {
+		int j = hole;
+		for (;;) {
+			j = (j + 1) & mask;
+			int v = slots[j];
+			if (v == 0)
+				break;
+			int home = spread(hashAt(v - 1)) & mask;
+			boolean stays = hole <= j ? (home > hole && home <= j) : (home > hole || home <= j);
+			if (!stays) {
+				slots[hole] = v;
+				hole = j;
+			}
+		}
+		slots[hole] = 0;
+	}
+
+	private void rehash(int n) {
+		int[] fresh = new int[n];
+		int m = n - 1;
+		for (int index = 0; index < size; index++) {
+			if (start[index] < 0)
+				continue;
+			int i = spread(hashAt(index)) & m;
+			while (fresh[i] != 0)
+				i = (i + 1) & m;
+			fresh[i] = index + 1;
+		}
+		slots = fresh;
+		mask = m;
+	}
+
+	private void compactArena() {
+		byte[] fresh = new byte[Math.max(arena.length / 2, (arenaUsed - garbage) * 5 / 4 + 16)];
+		int used = 0;
+		for (int index = 0; index < size; index++) {
+			if (start[index] < 0)
+				continue;
+			int len = encodedLength(index);
+			System.arraycopy(arena, start[index], fresh, used, len);
+			start[index] = used;
+			used += len;
+		}
+		arena = fresh;
+		arenaUsed = used;
+		garbage = 0;
+	}
+
+	private int append(String id) {
+		int len = id.length();
+		if (arenaUsed + 5 + len * 3 > arena.length)
+			arena = Arrays.copyOf(arena, Math.max(grow(arena.length), arenaUsed + 5 + len * 3));
+		int p = arenaUsed;
+		int v = len;
+		while (v >= 0x80) {
+			arena[p++] = (byte) (v | 0x80);
+			v >>>= 7;
+		}
+		arena[p++] = (byte) v;
+		for (int k = 0; k < len; k++) {
+			char c = id.charAt(k);
+			if (c < 0x80) {
+				arena[p++] = (byte) c;
+			} else if (c < 0x800) {
+				arena[p++] = (byte) (0xC0 | (c >> 6));
+				arena[p++] = (byte) (0x80 | (c & 0x3F));
+			} else {
+				arena[p++] = (byte) (0xE0 | (c >> 12));
+				arena[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				arena[p++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		int at = arenaUsed;
+		arenaUsed = p;
+		return at;
+	}
+
+	private boolean equalsAt(int index, String id) {
+		int p = start[index];
+		int len = lengthAt(p);
+		p += varIntSize(len);
+		if (len != id.length())
+			return false;
+		for (int k = 0; k < len; k++) {
+			int c = decode(arena, p);
+			p += c >>> 16;
+			c &= 0xFFFF;
+			if (c != id.charAt(k))
+				return false;
+		}
+		return true;
+	}
+
+	/** String.hashCode() of the id at index, computed from the arena. */
+	private int hashAt(int index) {
+		int p = start[index];
+		int len = lengthAt(p);
+		p += varIntSize(len);
+		int h = 0;
+		for (int k = 0; k < len; k++) {
+			int c = decode(arena, p);
+			p += c >>> 16;
+			c &= 0xFFFF;
+			h = 31 * h + c;
+		}
+		return h;
+	}
+
+	private int encodedLength(int index) {
+		int p = start[index];
+		int len = lengthAt(p);
+		p += varIntSize(len);
+		for (int k = 0; k < len; k++)
+			p += decode(arena, p) >>> 16;
+		return p - start[index];
+	}
+
+	private int lengthAt(int p) {
+		int len = 0, shift = 0, b;
+		do {
+			b = arena[p++];
+			len |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return len;
+	}
+
+	private static int varIntSize(int v) {
+		int n = 1;
+		while ((v >>>= 7) != 0)
+			n++;
+		return n;
+	}
+
+	/** Char at p in the low 16 bits, number of bytes it used above them. */
+	private static int decode(byte[] a, int p) {
+		int c = a[p] & 0xFF;
+		if (c < 0x80)
+			return c | 1 << 16;
+		if ((c & 0xE0) == 0xC0)
+			return ((c & 0x1F) << 6 | (a[p + 1] & 0x3F)) | 2 << 16;
+		return ((c & 0x0F) << 12 | (a[p + 1] & 0x3F) << 6 | (a[p + 2] & 0x3F)) | 3 << 16;
+	}
+
+	private static int spread(int h) {
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	static int grow(int n) {
+		return Math.max(16, n + (n >> 1));
+	}
+}
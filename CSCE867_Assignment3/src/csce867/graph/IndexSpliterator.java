@@ -0,0 +1,79 @@
+package csce867.graph;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+
+/**
+ * Spliterator over the elements at indices [from, to) of a graph, split by
+ * halving the range. The bound is read from the graph when the traversal
+ * starts (late binding), nothing is copied. Without a filter it is SIZED
+ * and SUBSIZED; with one, the indices it rejects never have their element
+ * looked up, and the size is only an upper bound.
+ */
+final class IndexSpliterator<T> implements Spliterator<T> {
+
+	private final IntFunction<T> element;
+	private final IntSupplier bound;
+	private final IntPredicate accept;
+	private int from;
+	private int to;
+
+	IndexSpliterator(IntFunction<T> element, IntSupplier bound, IntPredicate accept) {
+		this(element, bound, accept, 0, -1);
+	}
+
+	private IndexSpliterator(IntFunction<T> element, IntSupplier bound, IntPredicate accept, int from, int to) {
+		this.element = element;
+		this.bound = bound;
+		this.accept = accept;
+		this.from = from;
+		this.to = to;
+	}
+
+	private int to() {
+		if (to < 0)
+			to = bound.getAsInt();
+		return to;
+	}
+
+	public boolean tryAdvance(Consumer<? super T> action) {
+		int end = to();
+		while (from < end) {
+			int i = from++;
+			if (accept == null || accept.test(i)) {
+				action.accept(element.apply(i));
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public void forEachRemaining(Consumer<? super T> action) {
+		int end = to(), i = from;
+		from = end;
+		for (; i < end; i++)
+			if (accept == null || accept.test(i))
+				action.accept(element.apply(i));
+	}
+
+	public Spliterator<T> trySplit() {
+		int end = to(), mid = (from + end) >>> 1;
+		if (mid <= from)
+			return null;
+		Spliterator<T> prefix = new IndexSpliterator<T>(element, bound, accept, from, mid);
+		from = mid;
+		return prefix;
+	}
+
+	public long estimateSize() {
+		return to() - from;
+	}
+
+	public int characteristics() {
+		int c = ORDERED | DISTINCT | NONNULL;
+		return accept == null ? c | SIZED | SUBSIZED : c;
+	}
+}
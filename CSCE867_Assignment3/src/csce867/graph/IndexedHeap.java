@@ -0,0 +1,135 @@
+package csce867.graph;
+
+import java.util.Arrays;
+
+/**
+ * Min-heap of node indices keyed by double, 4-ary so that a sift down
+ * compares children lying in one cache line, with the position of every
+ * node kept for decrease-key.
+ *
+ * Nodes are marked seen with the current epoch instead of clearing the
+ * per-node arrays, so {@link #reset()} costs nothing and a query only pays
+ * for the nodes it reaches. The caller keeps its own per-node values
+ * (distances) and trusts them only for seen nodes.
+ */
+final class IndexedHeap {
+
+	private static final int ARITY = 4;
+
+	private int[] nodes;
+	private double[] keys;
+	private int size;
+
+	/** heap position of a seen node, -1 once popped */
+	private final int[] position;
+	private final int[] epochOf;
+	private int epoch = 1;
+
+	IndexedHeap(int capacity) {
+		nodes = new int[Math.max(capacity, 16)];
+		keys = new double[nodes.length];
+		position = new int[capacity];
+		epochOf = new int[capacity];
+	}
+
+	int capacity() {
+		return position.length;
+	}
+
+	/** Empties the heap and forgets every node seen. */
+	void reset() {
+		size = 0;
+		if (++epoch == 0) {
+			Arrays.fill(epochOf, 0);
+			epoch = 1;
+		}
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean seen(int v) {
+		return epochOf[v] == epoch;
+	}
+
+	/** Seen and popped. */
+	boolean popped(int v) {
+		return epochOf[v] == epoch && position[v] < 0;
+	}
+
+	/** Smallest key, +infinity when empty. */
+	double topKey() {
+		return size == 0 ? Double.POSITIVE_INFINITY : keys[0];
+	}
+
+	/**
+	 * Queues v with key, or lowers its key if queued. A popped node is
+	 * queued again (an inconsistent A* heuristic reopens nodes).
+	 */
+	void push(int v, double key) {
+		int p;
+		if (epochOf[v] == epoch && (p = position[v]) >= 0) {
+			if (key < keys[p])
+				up(p, v, key);
+			return;
+		}
+		epochOf[v] = epoch;
+		if (size == nodes.length) {
+			nodes = Arrays.copyOf(nodes, 2 * size);
+			keys = Arrays.copyOf(keys, 2 * size);
+		}
+		up(size++, v, key);
+	}
+
+	int pop() {
+		int top = nodes[0];
+		position[top] = -1;
+		int last = --size;
+		if (last > 0)
+			down(0, nodes[last], keys[last]);
+		return top;
+	}
+
+	private void up(int p, int v, double key) {
+		while (p > 0) {
+			int parent = (p - 1) / ARITY;
+			if (keys[parent] <= key)
+				break;
+			place(p, nodes[parent], keys[parent]);
+			p = parent;
+		}
+		place(p, v, key);
+	}
+
+	private void down(int p, int v, double key) {
+		for (;;) {
+			int first = p * ARITY + 1;
+			if (first >= size)
+				break;
+			int best = first;
+			double bestKey = keys[first];
+			for (int c = first + 1, end = Math.min(first + ARITY, size); c < end; c++) {
+				if (keys[c] < bestKey) {
+					best = c;
+					bestKey = keys[c];
+				}
+			}
+			if (bestKey >= key)
+				break;
+			place(p, nodes[best], bestKey);
+			p = best;
+		}
+		place(p, v, key);
+	}
+
+	private void place(int p, int v, double key) {
+		nodes[p] = v;
+		keys[p] = key;
+		position[v] = p;
+	}
+}
@@ -0,0 +1,83 @@
+package csce867.graph;
+
+import java.util.Arrays;
+
+/**
+ * Graph-wide dictionary of attribute keys. Every key string used on a node
+ * or an edge is given a small int id once; element storage only holds ids,
+ * so after the one lookup here (String.hashCode() is cached by the String)
+ * finding an attribute is a scan of a few ints.
+ *
+ * The dictionary also owns the root of the {@link AttributeShape} tree all
+ * elements of the graph share. Ids are never released, like interned
+ * strings, since key sets are small and stable in practice.
+ */
+final class KeyDictionary {
+
+	private String[] keys = new String[16];
+	private int size;
+
+	/** id + 1, 0 is an empty slot */
+	private int[] slots = new int[32];
+
+	private final AttributeShape empty = new AttributeShape(new int[0]);
+
+	int size() {
+		return size;
+	}
+
+	String key(int id) {
+		return keys[id];
+	}
+
+	AttributeShape emptyShape() {
+		return empty;
+	}
+
+	/** Id of key, or -1 if no element ever had it. */
+	int find(String key) {
+		int mask = slots.length - 1;
+		for (int i = spread(key.hashCode()) & mask;; i = (i + 1) & mask) {
+			int v = slots[i];
+			if (v == 0)
+				return -1;
+			if (key.equals(keys[v - 1]))
+				return v - 1;
+		}
+	}
+
+	/** Id of key, assigning the next one if the key is new. */
+	int intern(String key) {
+		int id = find(key);
+		if (id >= 0)
+			return id;
+		if (size == keys.length)
+			keys = Arrays.copyOf(keys, 2 * size);
+		id = size++;
+		keys[id] = key;
+		if (2 * size > slots.length)
+			rehash(2 * slots.length);
+		else
+			insert(id);
+		return id;
+	}
+
+	private static int spread(int h) {
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private void insert(int id) {
+		int mask = slots.length - 1;
+		int i = spread(keys[id].hashCode()) & mask;
+		while (slots[i] != 0)
+			i = (i + 1) & mask;
+		slots[i] = id + 1;
+	}
+
+	private void rehash(int n) {
+		slots = new int[n];
+		for (int id = 0; id < size; id++)
+			insert(id);
+	}
+}
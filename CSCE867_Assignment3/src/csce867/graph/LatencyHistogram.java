@@ -0,0 +1,87 @@
+package csce867.graph;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe histogram of nanosecond latencies with log-linear buckets, in
+ * the manner of HdrHistogram: values under 32 are exact, above that each
+ * power of two is split in 32 buckets, so any value is known within about
+ * 3%. Values are capped at 2^40 ns (about 18 minutes). All buckets are
+ * allocated up front, recording allocates nothing.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BITS = 5, SUB = 1 << SUB_BITS;
+	private static final int MAX_BITS = 40;
+	private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+	private static final int BUCKETS = ((MAX_BITS - SUB_BITS) << SUB_BITS) + 2 * SUB;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	static int bucket(long value) {
+		if (value < SUB)
+			return (int) Math.max(0, value);
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+		return (shift << SUB_BITS) + (int) (value >>> shift);
+	}
+
+	/** Largest value falling in bucket index. */
+	static long highestValue(int index) {
+		int shift = Math.max(0, (index >> SUB_BITS) - 1);
+		long lowest = (long) (index - (shift << SUB_BITS)) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+	public void record(long nanos) {
+		long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+		counts.incrementAndGet(bucket(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+		long m;
+		while (value > (m = max.get()) && !max.compareAndSet(m, value))
+			;
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+		long n = count.get();
+		return n == 0 ? 0 : (double) sum.get() / n;
+	}
+
+	/**
+	 * Value below which percentile percent of the recorded values fall, to
+	 * the precision of the buckets; 0 when empty.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long n = count.get();
+		if (n == 0)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank)
+				return Math.min(highestValue(i), max.get());
+		}
+		return max.get();
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++)
+			counts.set(i, 0);
+		count.set(0);
+		sum.set(0);
+		max.set(0);
+	}
+}
@@ -0,0 +1,828 @@
+package csce867.graph;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.EdgeFactory;
+import org.graphstream.graph.ElementNotFoundException;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.IdAlreadyInUseException;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.NodeFactory;
+import org.graphstream.stream.AttributeSink;
+import org.graphstream.stream.ElementSink;
+import org.graphstream.stream.GraphParseException;
+import org.graphstream.stream.Sink;
+import org.graphstream.stream.file.FileSink;
+import org.graphstream.stream.file.FileSource;
+import org.graphstream.ui.view.Viewer;
+
+/**
+ * Graph that forwards every call to another one and, while its
+ * {@link GraphMetrics} are enabled, times the structural calls (add, remove
+ * and get of nodes and edges, clear, read, write) and the graph attribute
+ * calls, counting the exceptions they throw, as CreateOneEdgeNoNodeStrict's
+ * ElementNotFoundException.
+ *
+ * Only calls on the graph itself are metered. Nodes and edges are the
+ * wrapped graph's own, so that they compare equal to what its iterators
+ * and sinks hand out, and calls made on them, element attribute reads and
+ * writes included, are neither timed nor counted. A node's getGraph() is
+ * the wrapped graph.
+ */
+public class MeteredGraph implements Graph {
+
+	private final Graph graph;
+	private final GraphMetrics metrics;
+
+	/** Meters graph, enabled. */
+	public MeteredGraph(Graph graph) {
+		this(graph, true);
+	}
+
+	public MeteredGraph(Graph graph, boolean enabled) {
+		this.graph = graph;
+		metrics = new GraphMetrics(graph);
+		metrics.setEnabled(enabled);
+	}
+
+	public GraphMetrics getMetrics() {
+		return metrics;
+	}
+
+	/** The graph calls are forwarded to. */
+	public Graph getGraph() {
+		return graph;
+	}
+
+	@Override
+	public String toString() {
+		return graph.toString();
+	}
+
+	// structure, timed
+
+	public <T extends Node> T addNode(String id) throws IdAlreadyInUseException {
+		if (!metrics.enabled)
+			return graph.addNode(id);
+		long started = System.nanoTime();
+		try {
+			T node = graph.addNode(id);
+			metrics.done(GraphMetrics.ADD_NODE, started);
+			return node;
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.ADD_NODE, started, e);
+			throw e;
+		}
+	}
+
+	public <T extends Node> T removeNode(String id) throws ElementNotFoundException {
+		if (!metrics.enabled)
+			return graph.removeNode(id);
+		long started = System.nanoTime();
+		try {
+			T node = graph.removeNode(id);
+			metrics.done(GraphMetrics.REMOVE_NODE, started);
+			return node;
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.REMOVE_NODE, started, e);
+			throw e;
+		}
+	}
+
+	public <T extends Node> T removeNode(int index) throws IndexOutOfBoundsException {
+		if (!metrics.enabled)
+			return graph.removeNode(index);
+		long started = System.nanoTime();
+		try {
+			T node = graph.removeNode(index);
+			metrics.done(GraphMetrics.REMOVE_NODE, started);
+			return node;
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.REMOVE_NODE, started, e);
+			throw e;
+		}
+	}
+
+	public <T extends Node> T removeNode(Node node) {
+		if (!metrics.enabled)
+			return graph.removeNode(node);
+		long started = System.nanoTime();
+		try {
+			T removed = graph.removeNode(node);
+			metrics.done(GraphMetrics.REMOVE_NODE, started);
+			return removed;
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.REMOVE_NODE, started, e);
+			throw e;
+		}
+	}
+
+	public <T extends Edge> T addEdge(String id, String node1, String node2) {
+		if (!metrics.enabled)
+			return graph.addEdge(id, node1, node2);
+		long started = System.nanoTime();
+		try {
+			T edge = graph.addEdge(id, node1, node2);
+			metrics.done(GraphMetrics.ADD_EDGE, started);
+			return edge;
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.ADD_EDGE, started, e);
+			throw e;
+		}
+	}
+
+	public <T extends Edge> T addEdge(String id, String from, String to, boolean directed) {
+		if (!metrics.enabled)
+			return graph.addEdge(id, from, to, directed);
+		long started = System.nanoTime();
+		try {
+			T edge = graph.addEdge(id, from, to, directed);
+			metrics.done(GraphMetrics.ADD_EDGE, started);
+			return edge;
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.ADD_EDGE, started, e);
+			throw e;
+		}
+	}
+
+	public <T extends Edge> T addEdge(String id, int index1, int index2) {
+		if (!metrics.enabled)
+			return graph.addEdge(id, index1, index2);
+		long started = System.nanoTime();
+		try {
+			T edge = graph.addEdge(id, index1, index2);
+			metrics.done(GraphMetrics.ADD_EDGE, started);
+			return edge;
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.ADD_EDGE, started, e);
+			throw e;
+		}
+	}
+
+	public <T extends Edge> T addEdge(String id, int fromIndex, int toIndex, boolean directed) {
+		if (!metrics.enabled)
+			return graph.addEdge(id, fromIndex, toIndex, directed);
+		long started = System.nanoTime();
+		try {
+			T edge = graph.addEdge(id, fromIndex, toIndex, directed);
+			metrics.done(GraphMetrics.ADD_EDGE, started);
+			return edge;
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.ADD_EDGE, started, e);
+			throw e;
+		}
+	}
+
+	public <T extends Edge> T addEdge(String id, Node node1, Node node2) {
+		if (!metrics.enabled)
+			return graph.addEdge(id, node1, node2);
+		long started = System.nanoTime();
+		try {
+			T edge = graph.addEdge(id, node1, node2);
+			metrics.done(GraphMetrics.ADD_EDGE, started);
+			return edge;
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.ADD_EDGE, started, e);
+			throw e;
+		}
+	}
+
+	public <T extends Edge> T addEdge(String id, Node from, Node to, boolean directed) {
+		if (!metrics.enabled)
+			return graph.addEdge(id, from, to, directed);
+		long started = System.nanoTime();
+		try {
+			T edge = graph.addEdge(id, from, to, directed);
+			metrics.done(GraphMetrics.ADD_EDGE, started);
+			return edge;
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.ADD_EDGE, started, e);
+			throw e;
+		}
+	}
+
+	public <T extends Edge> T removeEdge(String from, String to) throws ElementNotFoundException {
+		if (!metrics.enabled)
+			return graph.removeEdge(from, to);
+		long started = System.nanoTime();
+		try {
+			T edge = graph.removeEdge(from, to);
+			metrics.done(GraphMetrics.REMOVE_EDGE, started);
+			return edge;
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.REMOVE_EDGE, started, e);
+			throw e;
+		}
+	}
+
+	public <T extends Edge> T removeEdge(String id) throws ElementNotFoundException {
+		if (!metrics.enabled)
+			return graph.removeEdge(id);
+		long started = System.nanoTime();
+		try {
+			T edge = graph.removeEdge(id);
+			metrics.done(GraphMetrics.REMOVE_EDGE, started);
+			return edge;
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.REMOVE_EDGE, started, e);
+			throw e;
+		}
+	}
+
+	public <T extends Edge> T removeEdge(int index) throws IndexOutOfBoundsException {
+		if (!metrics.enabled)
+			return graph.removeEdge(index);
+		long started = System.nanoTime();
+		try {
+			T edge = graph.removeEdge(index);
+			metrics.done(GraphMetrics.REMOVE_EDGE, started);
+			return edge;
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.REMOVE_EDGE, started, e);
+			throw e;
+		}
+	}
+
+	public <T extends Edge> T removeEdge(int fromIndex, int toIndex) {
+		if (!metrics.enabled)
+			return graph.removeEdge(fromIndex, toIndex);
+		long started = System.nanoTime();
+		try {
+			T edge = graph.removeEdge(fromIndex, toIndex);
+			metrics.done(GraphMetrics.REMOVE_EDGE, started);
+			return edge;
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.REMOVE_EDGE, started, e);
+			throw e;
+		}
+	}
+
+	public <T extends Edge> T removeEdge(Node node1, Node node2) throws ElementNotFoundException {
+		if (!metrics.enabled)
+			return graph.removeEdge(node1, node2);
+		long started = System.nanoTime();
+		try {
+			T edge = graph.removeEdge(node1, node2);
+			metrics.done(GraphMetrics.REMOVE_EDGE, started);
+			return edge;
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.REMOVE_EDGE, started, e);
+			throw e;
+		}
+	}
+
+	public <T extends Edge> T removeEdge(Edge edge) {
+		if (!metrics.enabled)
+			return graph.removeEdge(edge);
+		long started = System.nanoTime();
+		try {
+			T removed = graph.removeEdge(edge);
+			metrics.done(GraphMetrics.REMOVE_EDGE, started);
+			return removed;
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.REMOVE_EDGE, started, e);
+			throw e;
+		}
+	}
+
+	public <T extends Node> T getNode(String id) {
+		if (!metrics.enabled)
+			return graph.getNode(id);
+		long started = System.nanoTime();
+		try {
+			T node = graph.getNode(id);
+			metrics.done(GraphMetrics.GET_NODE, started);
+			return node;
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.GET_NODE, started, e);
+			throw e;
+		}
+	}
+
+	public <T extends Node> T getNode(int index) throws IndexOutOfBoundsException {
+		if (!metrics.enabled)
+			return graph.getNode(index);
+		long started = System.nanoTime();
+		try {
+			T node = graph.getNode(index);
+			metrics.done(GraphMetrics.GET_NODE, started);
+			return node;
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.GET_NODE, started, e);
+			throw e;
+		}
+	}
+
+	public <T extends Edge> T getEdge(String id) {
+		if (!metrics.enabled)
+			return graph.getEdge(id);
+		long started = System.nanoTime();
+		try {
+			T edge = graph.getEdge(id);
+			metrics.done(GraphMetrics.GET_EDGE, started);
+			return edge;
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.GET_EDGE, started, e);
+			throw e;
+		}
+	}
+
+	public <T extends Edge> T getEdge(int index) throws IndexOutOfBoundsException {
+		if (!metrics.enabled)
+			return graph.getEdge(index);
+		long started = System.nanoTime();
+		try {
+			T edge = graph.getEdge(index);
+			metrics.done(GraphMetrics.GET_EDGE, started);
+			return edge;
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.GET_EDGE, started, e);
+			throw e;
+		}
+	}
+
+	public void clear() {
+		if (!metrics.enabled) {
+			graph.clear();
+			return;
+		}
+		long started = System.nanoTime();
+		try {
+			graph.clear();
+			metrics.done(GraphMetrics.CLEAR, started);
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.CLEAR, started, e);
+			throw e;
+		}
+	}
+
+	public void read(String filename) throws IOException, GraphParseException, ElementNotFoundException {
+		if (!metrics.enabled) {
+			graph.read(filename);
+			return;
+		}
+		long started = System.nanoTime();
+		try {
+			graph.read(filename);
+			metrics.done(GraphMetrics.READ, started);
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.READ, started, e);
+			throw e;
+		}
+	}
+
+	public void read(FileSource input, String filename) throws IOException, GraphParseException {
+		if (!metrics.enabled) {
+			graph.read(input, filename);
+			return;
+		}
+		long started = System.nanoTime();
+		try {
+			graph.read(input, filename);
+			metrics.done(GraphMetrics.READ, started);
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.READ, started, e);
+			throw e;
+		}
+	}
+
+	public void write(String filename) throws IOException {
+		if (!metrics.enabled) {
+			graph.write(filename);
+			return;
+		}
+		long started = System.nanoTime();
+		try {
+			graph.write(filename);
+			metrics.done(GraphMetrics.WRITE, started);
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.WRITE, started, e);
+			throw e;
+		}
+	}
+
+	public void write(FileSink output, String filename) throws IOException {
+		if (!metrics.enabled) {
+			graph.write(output, filename);
+			return;
+		}
+		long started = System.nanoTime();
+		try {
+			graph.write(output, filename);
+			metrics.done(GraphMetrics.WRITE, started);
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.WRITE, started, e);
+			throw e;
+		}
+	}
+
+	// graph attributes, timed
+
+	public <T> T getAttribute(String key) {
+		if (!metrics.enabled)
+			return graph.getAttribute(key);
+		long started = System.nanoTime();
+		try {
+			T value = graph.getAttribute(key);
+			metrics.done(GraphMetrics.GET_ATTRIBUTE, started);
+			return value;
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.GET_ATTRIBUTE, started, e);
+			throw e;
+		}
+	}
+
+	public <T> T getAttribute(String key, Class<T> clazz) {
+		if (!metrics.enabled)
+			return graph.getAttribute(key, clazz);
+		long started = System.nanoTime();
+		try {
+			T value = graph.getAttribute(key, clazz);
+			metrics.done(GraphMetrics.GET_ATTRIBUTE, started);
+			return value;
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.GET_ATTRIBUTE, started, e);
+			throw e;
+		}
+	}
+
+	public void addAttribute(String attribute, Object... values) {
+		if (!metrics.enabled) {
+			graph.addAttribute(attribute, values);
+			return;
+		}
+		long started = System.nanoTime();
+		try {
+			graph.addAttribute(attribute, values);
+			metrics.done(GraphMetrics.SET_ATTRIBUTE, started);
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.SET_ATTRIBUTE, started, e);
+			throw e;
+		}
+	}
+
+	public void changeAttribute(String attribute, Object... values) {
+		if (!metrics.enabled) {
+			graph.changeAttribute(attribute, values);
+			return;
+		}
+		long started = System.nanoTime();
+		try {
+			graph.changeAttribute(attribute, values);
+			metrics.done(GraphMetrics.SET_ATTRIBUTE, started);
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.SET_ATTRIBUTE, started, e);
+			throw e;
+		}
+	}
+
+	public void setAttribute(String attribute, Object... values) {
+		if (!metrics.enabled) {
+			graph.setAttribute(attribute, values);
+			return;
+		}
+		long started = System.nanoTime();
+		try {
+			graph.setAttribute(attribute, values);
+			metrics.done(GraphMetrics.SET_ATTRIBUTE, started);
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.SET_ATTRIBUTE, started, e);
+			throw e;
+		}
+	}
+
+	public void addAttributes(Map<String, Object> attributes) {
+		if (!metrics.enabled) {
+			graph.addAttributes(attributes);
+			return;
+		}
+		long started = System.nanoTime();
+		try {
+			graph.addAttributes(attributes);
+			metrics.done(GraphMetrics.SET_ATTRIBUTE, started);
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.SET_ATTRIBUTE, started, e);
+			throw e;
+		}
+	}
+
+	public void removeAttribute(String attribute) {
+		if (!metrics.enabled) {
+			graph.removeAttribute(attribute);
+			return;
+		}
+		long started = System.nanoTime();
+		try {
+			graph.removeAttribute(attribute);
+			metrics.done(GraphMetrics.REMOVE_ATTRIBUTE, started);
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.REMOVE_ATTRIBUTE, started, e);
+			throw e;
+		}
+	}
+
+	public void clearAttributes() {
+		if (!metrics.enabled) {
+			graph.clearAttributes();
+			return;
+		}
+		long started = System.nanoTime();
+		try {
+			graph.clearAttributes();
+			metrics.done(GraphMetrics.REMOVE_ATTRIBUTE, started);
+		} catch (RuntimeException e) {
+			metrics.failed(GraphMetrics.REMOVE_ATTRIBUTE, started, e);
+			throw e;
+		}
+	}
+
+	// everything else, forwarded
+
+	public String getId() {
+		return graph.getId();
+	}
+
+	public int getIndex() {
+		return graph.getIndex();
+	}
+
+	public <T> T getFirstAttributeOf(String... keys) {
+		return graph.getFirstAttributeOf(keys);
+	}
+
+	public <T> T getFirstAttributeOf(Class<T> clazz, String... keys) {
+		return graph.getFirstAttributeOf(clazz, keys);
+	}
+
+	public CharSequence getLabel(String key) {
+		return graph.getLabel(key);
+	}
+
+	public double getNumber(String key) {
+		return graph.getNumber(key);
+	}
+
+	public ArrayList<? extends Number> getVector(String key) {
+		return graph.getVector(key);
+	}
+
+	public Object[] getArray(String key) {
+		return graph.getArray(key);
+	}
+
+	public HashMap<?, ?> getHash(String key) {
+		return graph.getHash(key);
+	}
+
+	public boolean hasAttribute(String key) {
+		return graph.hasAttribute(key);
+	}
+
+	public boolean hasAttribute(String key, Class<?> clazz) {
+		return graph.hasAttribute(key, clazz);
+	}
+
+	public boolean hasLabel(String key) {
+		return graph.hasLabel(key);
+	}
+
+	public boolean hasNumber(String key) {
+		return graph.hasNumber(key);
+	}
+
+	public boolean hasVector(String key) {
+		return graph.hasVector(key);
+	}
+
+	public boolean hasArray(String key) {
+		return graph.hasArray(key);
+	}
+
+	public boolean hasHash(String key) {
+		return graph.hasHash(key);
+	}
+
+	public Iterator<String> getAttributeKeyIterator() {
+		return graph.getAttributeKeyIterator();
+	}
+
+	public Iterable<String> getEachAttributeKey() {
+		return graph.getEachAttributeKey();
+	}
+
+	public Collection<String> getAttributeKeySet() {
+		return graph.getAttributeKeySet();
+	}
+
+	public int getAttributeCount() {
+		return graph.getAttributeCount();
+	}
+
+	public NodeFactory<? extends Node> nodeFactory() {
+		return graph.nodeFactory();
+	}
+
+	public EdgeFactory<? extends Edge> edgeFactory() {
+		return graph.edgeFactory();
+	}
+
+	public boolean isStrict() {
+		return graph.isStrict();
+	}
+
+	public boolean isAutoCreationEnabled() {
+		return graph.isAutoCreationEnabled();
+	}
+
+	public boolean nullAttributesAreErrors() {
+		return graph.nullAttributesAreErrors();
+	}
+
+	public double getStep() {
+		return graph.getStep();
+	}
+
+	public void setNullAttributesAreErrors(boolean on) {
+		graph.setNullAttributesAreErrors(on);
+	}
+
+	public void setNodeFactory(NodeFactory<? extends Node> nf) {
+		graph.setNodeFactory(nf);
+	}
+
+	public void setEdgeFactory(EdgeFactory<? extends Edge> ef) {
+		graph.setEdgeFactory(ef);
+	}
+
+	public void setStrict(boolean on) {
+		graph.setStrict(on);
+	}
+
+	public void setAutoCreate(boolean on) {
+		graph.setAutoCreate(on);
+	}
+
+	public void stepBegins(double time) {
+		graph.stepBegins(time);
+	}
+
+	public int getNodeCount() {
+		return graph.getNodeCount();
+	}
+
+	public int getEdgeCount() {
+		return graph.getEdgeCount();
+	}
+
+	public <T extends Node> Iterator<T> getNodeIterator() {
+		return graph.getNodeIterator();
+	}
+
+	public <T extends Edge> Iterator<T> getEdgeIterator() {
+		return graph.getEdgeIterator();
+	}
+
+	public <T extends Node> Iterable<? extends T> getEachNode() {
+		return graph.getEachNode();
+	}
+
+	public <T extends Edge> Iterable<? extends T> getEachEdge() {
+		return graph.getEachEdge();
+	}
+
+	public <T extends Node> Collection<T> getNodeSet() {
+		return graph.getNodeSet();
+	}
+
+	public <T extends Edge> Collection<T> getEdgeSet() {
+		return graph.getEdgeSet();
+	}
+
+	public Iterator<Node> iterator() {
+		return graph.iterator();
+	}
+
+	public Viewer display() {
+		return graph.display();
+	}
+
+	public Viewer display(boolean autoLayout) {
+		return graph.display(autoLayout);
+	}
+
+	// source and sink
+
+	public Iterable<AttributeSink> attributeSinks() {
+		return graph.attributeSinks();
+	}
+
+	public Iterable<ElementSink> elementSinks() {
+		return graph.elementSinks();
+	}
+
+	public void addSink(Sink sink) {
+		graph.addSink(sink);
+	}
+
+	public void removeSink(Sink sink) {
+		graph.removeSink(sink);
+	}
+
+	public void addAttributeSink(AttributeSink sink) {
+		graph.addAttributeSink(sink);
+	}
+
+	public void removeAttributeSink(AttributeSink sink) {
+		graph.removeAttributeSink(sink);
+	}
+
+	public void addElementSink(ElementSink sink) {
+		graph.addElementSink(sink);
+	}
+
+	public void removeElementSink(ElementSink sink) {
+		graph.removeElementSink(sink);
+	}
+
+	public void clearElementSinks() {
+		graph.clearElementSinks();
+	}
+
+	public void clearAttributeSinks() {
+		graph.clearAttributeSinks();
+	}
+
+	public void clearSinks() {
+		graph.clearSinks();
+	}
+
+	public void graphAttributeAdded(String sourceId, long timeId, String attribute, Object value) {
+		graph.graphAttributeAdded(sourceId, timeId, attribute, value);
+	}
+
+	public void graphAttributeChanged(String sourceId, long timeId, String attribute, Object oldValue,
+			Object newValue) {
+		graph.graphAttributeChanged(sourceId, timeId, attribute, oldValue, newValue);
+	}
+
+	public void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+		graph.graphAttributeRemoved(sourceId, timeId, attribute);
+	}
+
+	public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+		graph.nodeAttributeAdded(sourceId, timeId, nodeId, attribute, value);
+	}
+
+	public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute,
+			Object oldValue, Object newValue) {
+		graph.nodeAttributeChanged(sourceId, timeId, nodeId, attribute, oldValue, newValue);
+	}
+
+	public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+		graph.nodeAttributeRemoved(sourceId, timeId, nodeId, attribute);
+	}
+
+	public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+		graph.edgeAttributeAdded(sourceId, timeId, edgeId, attribute, value);
+	}
+
+	public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute,
+			Object oldValue, Object newValue) {
+		graph.edgeAttributeChanged(sourceId, timeId, edgeId, attribute, oldValue, newValue);
+	}
+
+	public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+		graph.edgeAttributeRemoved(sourceId, timeId, edgeId, attribute);
+	}
+
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		graph.nodeAdded(sourceId, timeId, nodeId);
+	}
+
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		graph.nodeRemoved(sourceId, timeId, nodeId);
+	}
+
+	public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId,
+			boolean directed) {
+		graph.edgeAdded(sourceId, timeId, edgeId, fromNodeId, toNodeId, directed);
+	}
+
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		graph.edgeRemoved(sourceId, timeId, edgeId);
+	}
+
+	public void graphCleared(String sourceId, long timeId) {
+		graph.graphCleared(sourceId, timeId);
+	}
+
+	public void stepBegins(String sourceId, long timeId, double step) {
+		graph.stepBegins(sourceId, timeId, step);
+	}
+}
@@ -0,0 +1,520 @@
+package csce867.graph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.ElementNotFoundException;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.stream.Sink;
+
+/**
+ * Read-through cache of metrics derived from a graph's structure: the
+ * neighbour set of a node, the (weakly) connected component of a node, the
+ * number of components and the degree distribution. A miss computes the
+ * result from the graph and keeps it; the graph's events then drop only
+ * the entries they make wrong:
+ *
+ * - an edge added drops the neighbour sets of its two ends and merges their
+ * components when both are cached, an edge inside one component changes
+ * nothing there;
+ * - an edge removed drops the neighbour sets of its ends and their
+ * component, which may have split;
+ * - a node removed drops its own entries;
+ * - any structural event drops the degree distribution, and clear() all.
+ *
+ * Memory is bounded by a weight, roughly the ids held (members, neighbours
+ * and the edges walked to find them); past it the least recently used
+ * entries are evicted. Attribute events are ignored.
+ *
+ * Events never read the graph: the ends of removed edges come from the
+ * edges the cache walked. Misses compute outside the cache's lock and keep
+ * the result only if no structural event came in between, so queries from
+ * other threads do not deadlock with a ConcurrentGraph that sends its
+ * events under its own lock. Returned sets must not be modified.
+ */
+public class MetricsCache implements Sink {
+
+	public static final long DEFAULT_CAPACITY = 1 << 20;
+
+	private static final Object DEGREES = new Object();
+	private static final String[] NO_EDGES = new String[0];
+
+	private final Graph graph;
+	private final long capacity;
+	private boolean attached;
+
+	// guarded by this
+	private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<Object, Entry>(64, 0.75f, true);
+	/** component entry of every node in one */
+	private final HashMap<String, Entry> components = new HashMap<String, Entry>();
+	/** ends of the edges incident to nodes with a cached entry, and maybe a few more */
+	private final HashMap<String, String[]> endpoints = new HashMap<String, String[]>();
+	private long weight, edgeRefs;
+	private int componentEntries;
+	/** structural events seen, a computation is kept only if it did not move */
+	private volatile long version;
+
+	// metrics
+	private long hits, misses, evictions, invalidations;
+
+	public MetricsCache(Graph graph) {
+		this(graph, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity
+	 *            weight kept before evicting, about the number of ids held
+	 */
+	public MetricsCache(Graph graph, long capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("capacity must be positive");
+		this.graph = graph;
+		this.capacity = capacity;
+		graph.addSink(this);
+		attached = true;
+	}
+
+	public Graph getGraph() {
+		return graph;
+	}
+
+	/** Stops following the graph and drops every entry. */
+	public synchronized void detach() {
+		if (attached)
+			graph.removeSink(this);
+		attached = false;
+		clear();
+	}
+
+	/** Drops every entry; the counters are kept. */
+	public synchronized void clear() {
+		entries.clear();
+		components.clear();
+		endpoints.clear();
+		weight = edgeRefs = componentEntries = 0;
+		version++;
+	}
+
+	// metrics
+
+	public synchronized long getHitCount() {
+		return hits;
+	}
+
+	public synchronized long getMissCount() {
+		return misses;
+	}
+
+	/** hits / (hits + misses), 0 before the first query */
+	public synchronized double getHitRate() {
+		return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+	}
+
+	public synchronized long getEvictionCount() {
+		return evictions;
+	}
+
+	/** Entries dropped by events. */
+	public synchronized long getInvalidationCount() {
+		return invalidations;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized long getWeight() {
+		return weight;
+	}
+
+	public long getCapacity() {
+		return capacity;
+	}
+
+	// queries
+
+	/** Ids of the nodes sharing an edge with nodeId, in either direction. */
+	public Set<String> neighbours(String nodeId) {
+		Key key = new Key(nodeId);
+		long seen;
+		synchronized (this) {
+			Entry e = entries.get(key);
+			if (e != null) {
+				hits++;
+				return e.ids;
+			}
+			misses++;
+			seen = version;
+		}
+		Node node = node(nodeId);
+		LinkedHashSet<String> ids = new LinkedHashSet<String>();
+		ArrayList<String> walked = new ArrayList<String>();
+		for (Edge edge : node.getEachEdge()) {
+			ids.add(edge.getOpposite(node).getId());
+			walk(edge, walked);
+		}
+		Entry e = new Entry(key, Collections.unmodifiableSet(ids), walked);
+		synchronized (this) {
+			if (version == seen)
+				store(e);
+		}
+		return e.ids;
+	}
+
+	/** Ids of the nodes in the connected component of nodeId, edge directions ignored. */
+	public Set<String> component(String nodeId) {
+		long seen;
+		synchronized (this) {
+			Entry e = components.get(nodeId);
+			if (e != null) {
+				entries.get(e.key);
+				hits++;
+				return e.ids;
+			}
+			misses++;
+			seen = version;
+		}
+		Entry e = explore(node(nodeId));
+		synchronized (this) {
+			if (version == seen)
+				store(e);
+		}
+		return e.ids;
+	}
+
+	public boolean connected(String a, String b) {
+		node(b);
+		return component(a).contains(b);
+	}
+
+	/** Number of connected components, edge directions ignored. */
+	public int componentCount() {
+		long seen = version;
+		int n = graph.getNodeCount();
+		synchronized (this) {
+			if (version == seen && components.size() == n) {
+				hits++;
+				return componentEntries;
+			}
+			misses++;
+			seen = version;
+		}
+		ArrayList<Entry> found = new ArrayList<Entry>();
+		HashMap<String, Boolean> covered = new HashMap<String, Boolean>();
+		for (Node node : graph.getEachNode())
+			if (!covered.containsKey(node.getId())) {
+				Entry e = explore(node);
+				for (String id : e.ids)
+					covered.put(id, Boolean.TRUE);
+				found.add(e);
+			}
+		synchronized (this) {
+			if (version == seen)
+				for (Entry e : found)
+					store(e);
+		}
+		return found.size();
+	}
+
+	/** Number of nodes of each degree, indexed by degree. */
+	public int[] degreeDistribution() {
+		long seen;
+		synchronized (this) {
+			Entry e = entries.get(DEGREES);
+			if (e != null) {
+				hits++;
+				return e.counts.clone();
+			}
+			misses++;
+			seen = version;
+		}
+		int[] counts = new int[1];
+		for (Node node : graph.getEachNode()) {
+			int d = node.getDegree();
+			if (d >= counts.length)
+				counts = Arrays.copyOf(counts, Math.max(d + 1, 2 * counts.length));
+			counts[d]++;
+		}
+		int max = counts.length - 1;
+		while (max > 0 && counts[max] == 0)
+			max--;
+		counts = Arrays.copyOf(counts, max + 1);
+		synchronized (this) {
+			if (version == seen)
+				store(new Entry(DEGREES, counts));
+		}
+		return counts.clone();
+	}
+
+	private Node node(String id) {
+		Node node = graph.getNode(id);
+		if (node == null)
+			throw new ElementNotFoundException("Node \"%s\" not found.", id);
+		return node;
+	}
+
+	/** The component of start, with every edge of its nodes. */
+	private Entry explore(Node start) {
+		LinkedHashSet<String> ids = new LinkedHashSet<String>();
+		ArrayList<String> walked = new ArrayList<String>();
+		ArrayDeque<Node> queue = new ArrayDeque<Node>();
+		ids.add(start.getId());
+		queue.add(start);
+		while (!queue.isEmpty()) {
+			Node node = queue.poll();
+			for (Edge edge : node.getEachEdge()) {
+				Node other = edge.getOpposite(node);
+				if (ids.add(other.getId()))
+					queue.add(other);
+				if (edge.getNode0() == node)
+					walk(edge, walked);
+			}
+		}
+		return new Entry(null, Collections.unmodifiableSet(ids), walked);
+	}
+
+	private static void walk(Edge edge, List<String> walked) {
+		walked.add(edge.getId());
+		walked.add(edge.getNode0().getId());
+		walked.add(edge.getNode1().getId());
+	}
+
+	/**
+	 * One cached result: a neighbour set, a component (its own key) or the
+	 * degree counts, with the edges walked to compute it as id, end, end.
+	 */
+	private static final class Entry {
+		final Object key;
+		final Set<String> ids;
+		final int[] counts;
+		final String[] edges;
+		final long weight;
+
+		Entry(Object key, Set<String> ids, List<String> walked) {
+			this.key = key == null ? this : key;
+			this.ids = ids;
+			this.counts = null;
+			this.edges = walked.isEmpty() ? NO_EDGES : walked.toArray(new String[walked.size()]);
+			// a component is also in the node index
+			this.weight = 1 + (key == null ? 2 : 1) * ids.size() + edges.length / 3;
+		}
+
+		Entry(Object key, int[] counts) {
+			this.key = key;
+			this.ids = null;
+			this.counts = counts;
+			this.edges = NO_EDGES;
+			this.weight = 1 + counts.length;
+		}
+
+		boolean isComponent() {
+			return key == this;
+		}
+	}
+
+	/** Key of the neighbour set of a node. */
+	private static final class Key {
+		final String id;
+
+		Key(String id) {
+			this.id = id;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Key && ((Key) o).id.equals(id);
+		}
+
+		@Override
+		public int hashCode() {
+			return id.hashCode() * 31 + 7;
+		}
+	}
+
+	// bookkeeping, under the lock
+
+	private void store(Entry e) {
+		if (e.weight > capacity)
+			return;
+		Entry old = entries.remove(e.key);
+		if (old != null)
+			unlink(old);
+		if (e.isComponent())
+			for (String id : e.ids) {
+				Entry stale = components.get(id);
+				if (stale != null)
+					remove(stale);
+				components.put(id, e);
+			}
+		entries.put(e.key, e);
+		link(e);
+		Iterator<Entry> eldest = entries.values().iterator();
+		while (weight > capacity && eldest.hasNext()) {
+			Entry victim = eldest.next();
+			eldest.remove();
+			unlink(victim);
+			evictions++;
+		}
+		if (endpoints.size() > 2 * edgeRefs + 1024)
+			sweep();
+	}
+
+	private void link(Entry e) {
+		weight += e.weight;
+		edgeRefs += e.edges.length / 3;
+		if (e.isComponent())
+			componentEntries++;
+		for (int i = 0; i < e.edges.length; i += 3)
+			endpoints.put(e.edges[i], new String[] { e.edges[i + 1], e.edges[i + 2] });
+	}
+
+	/** Forgets an entry already out of the map. */
+	private void unlink(Entry e) {
+		weight -= e.weight;
+		edgeRefs -= e.edges.length / 3;
+		if (e.isComponent()) {
+			componentEntries--;
+			for (String id : e.ids)
+				if (components.get(id) == e)
+					components.remove(id);
+		}
+	}
+
+	private void remove(Entry e) {
+		if (entries.remove(e.key) != null)
+			unlink(e);
+	}
+
+	private void invalidate(Object key) {
+		Entry e = entries.remove(key);
+		if (e != null) {
+			unlink(e);
+			invalidations++;
+		}
+	}
+
+	private void invalidate(Entry component) {
+		if (component != null)
+			invalidate(component.key);
+	}
+
+	private void invalidateNode(String id) {
+		invalidate(new Key(id));
+		invalidate(components.get(id));
+	}
+
+	private boolean covered(String id) {
+		return components.containsKey(id) || entries.containsKey(new Key(id));
+	}
+
+	/** Drops the ends of edges no cached entry touches any more. */
+	private void sweep() {
+		Iterator<String[]> it = endpoints.values().iterator();
+		while (it.hasNext()) {
+			String[] ends = it.next();
+			if (!covered(ends[0]) && !covered(ends[1]))
+				it.remove();
+		}
+	}
+
+	private void merge(Entry a, Entry b, String edgeId, String from, String to) {
+		LinkedHashSet<String> ids = new LinkedHashSet<String>(a.ids);
+		ids.addAll(b.ids);
+		ArrayList<String> walked = new ArrayList<String>(a.edges.length + b.edges.length + 3);
+		Collections.addAll(walked, a.edges);
+		Collections.addAll(walked, b.edges);
+		Collections.addAll(walked, edgeId, from, to);
+		remove(a);
+		remove(b);
+		store(new Entry(null, Collections.unmodifiableSet(ids), walked));
+	}
+
+	// events, sent by the graph
+
+	public synchronized void nodeAdded(String sourceId, long timeId, String nodeId) {
+		version++;
+		invalidate(DEGREES);
+	}
+
+	public synchronized void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		version++;
+		invalidate(DEGREES);
+		invalidateNode(nodeId);
+	}
+
+	public synchronized void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId,
+			String toNodeId, boolean directed) {
+		version++;
+		invalidate(DEGREES);
+		invalidate(new Key(fromNodeId));
+		invalidate(new Key(toNodeId));
+		Entry a = components.get(fromNodeId), b = components.get(toNodeId);
+		if (a != null && b != null) {
+			if (a != b)
+				merge(a, b, edgeId, fromNodeId, toNodeId);
+		} else {
+			invalidate(a);
+			invalidate(b);
+		}
+		if (covered(fromNodeId) || covered(toNodeId))
+			endpoints.put(edgeId, new String[] { fromNodeId, toNodeId });
+	}
+
+	public synchronized void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		version++;
+		invalidate(DEGREES);
+		String[] ends = endpoints.remove(edgeId);
+		if (ends != null) {
+			invalidateNode(ends[0]);
+			invalidateNode(ends[1]);
+		}
+	}
+
+	public synchronized void graphCleared(String sourceId, long timeId) {
+		invalidations += entries.size();
+		clear();
+	}
+
+	public void graphAttributeAdded(String sourceId, long timeId, String attribute, Object value) {
+	}
+
+	public void graphAttributeChanged(String sourceId, long timeId, String attribute, Object oldValue,
+			Object newValue) {
+	}
+
+	public void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+	}
+
+	public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+	}
+
+	public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute,
+			Object oldValue, Object newValue) {
+	}
+
+	public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+	}
+
+	public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+	}
+
+	public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute,
+			Object oldValue, Object newValue) {
+	}
+
+	public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+	}
+
+	public void stepBegins(String sourceId, long timeId, double step) {
+	}
+}
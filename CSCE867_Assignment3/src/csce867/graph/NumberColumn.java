@@ -0,0 +1,226 @@
+package csce867.graph;
+
+import java.util.Arrays;
+
+/**
+ * Values of one numeric attribute key for every element of one kind, in a
+ * primitive array indexed by element index plus a presence bitmap. A column
+ * has a single box type (Double, Long or Integer) and only ever holds values
+ * of that exact type, so an attribute read back through getAttribute() is of
+ * the same class it was stored with. Arrays grow on demand up to the highest
+ * index written.
+ */
+abstract class NumberColumn {
+
+	private long[] present = new long[1];
+	private int count;
+
+	final boolean has(int i) {
+		int w = i >>> 6;
+		return i >= 0 && w < present.length && (present[w] & (1L << i)) != 0;
+	}
+
+	final int count() {
+		return count;
+	}
+
+	/** True when value can be stored here without changing its class. */
+	abstract boolean accepts(Object value);
+
+	abstract Class<?> type();
+
+	abstract double getDouble(int i);
+
+	/** Boxed value, only for Object callers and events. */
+	abstract Object get(int i);
+
+	/** Stores a value accepted by {@link #accepts(Object)}. */
+	abstract void set(int i, Object value);
+
+	abstract void copy(int from, int to);
+
+	abstract int capacity();
+
+	abstract void grow(int capacity);
+
+	final void ensure(int i) {
+		if (i >= capacity())
+			grow(Math.max(i + 1, IdTable.grow(capacity())));
+		int w = i >>> 6;
+		if (w >= present.length)
+			present = Arrays.copyOf(present, Math.max(w + 1, 2 * present.length));
+	}
+
+	final void mark(int i) {
+		ensure(i);
+		int w = i >>> 6;
+		if ((present[w] & (1L << i)) == 0) {
+			present[w] |= 1L << i;
+			count++;
+		}
+	}
+
+	final void remove(int i) {
+		if (has(i)) {
+			present[i >>> 6] &= ~(1L << i);
+			count--;
+		}
+	}
+
+	/** Moves the value of from into to, to was empty or is overwritten. */
+	final void move(int from, int to) {
+		if (has(from)) {
+			mark(to);
+			copy(from, to);
+			remove(from);
+		} else {
+			remove(to);
+		}
+	}
+
+	long footprint() {
+		return 8L * present.length;
+	}
+
+	static final class DoubleColumn extends NumberColumn {
+		private double[] values = new double[0];
+
+		boolean accepts(Object value) {
+			return value != null && value.getClass() == Double.class;
+		}
+
+		Class<?> type() {
+			return Double.class;
+		}
+
+		double getDouble(int i) {
+			return values[i];
+		}
+
+		Object get(int i) {
+			return values[i];
+		}
+
+		void set(int i, Object value) {
+			setDouble(i, (Double) value);
+		}
+
+		void setDouble(int i, double value) {
+			mark(i);
+			values[i] = value;
+		}
+
+		void copy(int from, int to) {
+			values[to] = values[from];
+		}
+
+		int capacity() {
+			return values.length;
+		}
+
+		void grow(int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+
+		@Override
+		long footprint() {
+			return super.footprint() + 8L * values.length;
+		}
+	}
+
+	static final class LongColumn extends NumberColumn {
+		private long[] values = new long[0];
+
+		boolean accepts(Object value) {
+			return value != null && value.getClass() == Long.class;
+		}
+
+		Class<?> type() {
+			return Long.class;
+		}
+
+		double getDouble(int i) {
+			return values[i];
+		}
+
+		long getLong(int i) {
+			return values[i];
+		}
+
+		Object get(int i) {
+			return values[i];
+		}
+
+		void set(int i, Object value) {
+			setLong(i, (Long) value);
+		}
+
+		void setLong(int i, long value) {
+			mark(i);
+			values[i] = value;
+		}
+
+		void copy(int from, int to) {
+			values[to] = values[from];
+		}
+
+		int capacity() {
+			return values.length;
+		}
+
+		void grow(int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+
+		@Override
+		long footprint() {
+			return super.footprint() + 8L * values.length;
+		}
+	}
+
+	static final class IntColumn extends NumberColumn {
+		private int[] values = new int[0];
+
+		boolean accepts(Object value) {
+			return value != null && value.getClass() == Integer.class;
+		}
+
+		Class<?> type() {
+			return Integer.class;
+		}
+
+		double getDouble(int i) {
+			return values[i];
+		}
+
+		Object get(int i) {
+			return values[i];
+		}
+
+		void set(int i, Object value) {
+			setInt(i, (Integer) value);
+		}
+
+		void setInt(int i, int value) {
+			mark(i);
+			values[i] = value;
+		}
+
+		void copy(int from, int to) {
+			values[to] = values[from];
+		}
+
+		int capacity() {
+			return values.length;
+		}
+
+		void grow(int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+
+		@Override
+		long footprint() {
+			return super.footprint() + 4L * values.length;
+		}
+	}
+}
@@ -0,0 +1,788 @@
+package csce867.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.graphstream.stream.SourceBase;
+import org.graphstream.ui.geom.Point3;
+import org.graphstream.ui.layout.Layout;
+
+/**
+ * Force-directed layout in the plane, Fruchterman-Reingold forces with a
+ * Barnes-Hut quadtree for the repulsion, computed in parallel in a
+ * ForkJoinPool. A drop-in for SpringBox: run java with
+ * -Dorg.graphstream.ui.layout=csce867.graph.ParallelLayout and
+ * Layouts.newLayoutAlgorithm(), hence display(), returns one.
+ *
+ * Positions, forces and edges are kept in primitive arrays indexed by a
+ * dense node (and edge) index, removals swapping the last element in. Each
+ * step sorts the nodes by Morton code (Arrays.parallelSort) and builds the
+ * quadtree over that order, every cell a range of it; the forces on the
+ * nodes, then their moves, are computed in chunks across the pool.
+ *
+ * Every node has a heat, the longest move it may make, adapted as in GEM:
+ * it grows while the node keeps going the same way, halves when the node
+ * turns back and otherwise cools a little. A node moving less than a
+ * hundredth of the spacing of the layout is at rest and no longer computed;
+ * a node that moves warms its neighbours up to half the distance it moved.
+ * So after a few changes (a node or edge added or removed, a node moved)
+ * only the nodes around them take part in the following steps, and the
+ * quadtree is rebuilt only once enough of the nodes have moved since it
+ * was built. shake() warms every node again.
+ *
+ * As in SpringBox, the layout follows layout.frozen on nodes, layout.weight
+ * on edges and layout.force, layout.quality and layout.stabilization-limit
+ * on the graph, and sends each move as an xyz attribute change. Events and
+ * compute() must come from one thread, as LayoutRunner does.
+ */
+public class ParallelLayout extends SourceBase implements Layout {
+
+	/** ideal edge length */
+	public static final double K = 1;
+
+	/** share of the spacing under which a node is at rest */
+	private static final double REST = 0.01;
+	/** heat factors when a node goes on the same way, turns back, or else */
+	private static final double SPEEDUP = 1.1, SLOWDOWN = 0.5, COOLING = 0.95;
+	private static final int LEAF = 8, GRAIN = 1024, LEVELS = 16;
+
+	private final ForkJoinPool pool;
+	private final Random random;
+
+	// nodes
+	private final HashMap<String, Integer> nodeIndex = new HashMap<String, Integer>();
+	private String[] nodeIds = new String[16];
+	private double[] x = new double[16], y = new double[16], fx = new double[16], fy = new double[16];
+	private double[] heat = new double[16], lastX = new double[16], lastY = new double[16];
+	private final BitSet frozen = new BitSet(), unplaced = new BitSet();
+	private int nodeCount;
+
+	// edges
+	private final HashMap<String, Integer> edgeIndex = new HashMap<String, Integer>();
+	private String[] edgeIds = new String[16];
+	private int[] source = new int[16], target = new int[16];
+	private double[] weight = new double[16];
+	private int edgeCount;
+
+	// adjacency, compressed rows rebuilt after structural changes
+	private int[] offset = new int[1], neighbour = new int[0];
+	private double[] neighbourWeight = new double[0];
+	private boolean adjacencyStale;
+
+	// quadtree; cell c covers order[cellStart[c], cellEnd[c]), its children
+	// are cells cellChild[c] .. cellChild[c] + cellChildren[c] - 1
+	private long[] keys = new long[16];
+	private int[] order = new int[16];
+	private double[] cellX = new double[64], cellY = new double[64], cellMass = new double[64],
+			cellSize = new double[64];
+	private int[] cellStart = new int[64], cellEnd = new int[64], cellChild = new int[64],
+			cellChildren = new int[64];
+	private int cellCount;
+	private boolean treeStale = true;
+	private int movedSinceTree;
+
+	// parameters
+	private double force = 1, quality = 0.5, theta = 0.75, stabilizationLimit = 0.9;
+	private boolean sendNodeInfos;
+
+	// state of the last step
+	private int steps, moved;
+	private long lastStepTime;
+	private double stabilization;
+	private double lowX, lowY, hiX, hiY;
+	/** typical distance between nodes, and the moves too short to count */
+	private double spacing = K, minHeat = REST * K, maxHeat = K;
+
+	public ParallelLayout() {
+		this(ForkJoinPool.commonPool(), new Random());
+	}
+
+	public ParallelLayout(ForkJoinPool pool, Random random) {
+		this.pool = pool;
+		this.random = random;
+	}
+
+	public String getLayoutAlgorithmName() {
+		return "ParallelBarnesHut";
+	}
+
+	public int getNodeMovedCount() {
+		return moved;
+	}
+
+	/** Share of the nodes that did not move in the last step. */
+	public double getStabilization() {
+		return stabilization;
+	}
+
+	public double getStabilizationLimit() {
+		return stabilizationLimit;
+	}
+
+	public Point3 getLowPoint() {
+		return new Point3(lowX, lowY, 0);
+	}
+
+	public Point3 getHiPoint() {
+		return new Point3(hiX, hiY, 0);
+	}
+
+	public int getSteps() {
+		return steps;
+	}
+
+	/** Duration of the last step in milliseconds. */
+	public long getLastStepTime() {
+		return lastStepTime;
+	}
+
+	public double getQuality() {
+		return quality;
+	}
+
+	public double getForce() {
+		return force;
+	}
+
+	public void setForce(double value) {
+		force = value;
+	}
+
+	public void setStabilizationLimit(double value) {
+		stabilizationLimit = value;
+	}
+
+	/** From 0, coarse, to 1, exact repulsion: the Barnes-Hut theta is 1.5 (1 - q). */
+	public void setQuality(double value) {
+		quality = Math.max(0, Math.min(1, value));
+		theta = 1.5 * (1 - quality);
+	}
+
+	/** Accepted for SpringBox compatibility; no per-node information is sent. */
+	public void setSendNodeInfos(boolean on) {
+		sendNodeInfos = on;
+	}
+
+	/** Nodes in the layout. */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/** Position of a node, or null if unknown or not placed yet. */
+	public double[] getPosition(String id) {
+		Integer i = nodeIndex.get(id);
+		if (i == null || unplaced.get(i))
+			return null;
+		return new double[] { x[i], y[i], 0 };
+	}
+
+	public void clear() {
+		nodeIndex.clear();
+		edgeIndex.clear();
+		frozen.clear();
+		unplaced.clear();
+		Arrays.fill(nodeIds, 0, nodeCount, null);
+		Arrays.fill(edgeIds, 0, edgeCount, null);
+		nodeCount = edgeCount = 0;
+		adjacencyStale = treeStale = true;
+		moved = 0;
+		stabilization = 0;
+		spacing = maxHeat = K;
+		minHeat = REST * K;
+	}
+
+	/** Warms every node up again, each pushed a little at random. */
+	public void shake() {
+		double h = initialHeat();
+		for (int i = 0; i < nodeCount; i++) {
+			x[i] += (random.nextDouble() - 0.5) * spacing;
+			y[i] += (random.nextDouble() - 0.5) * spacing;
+			heat[i] = h;
+		}
+		maxHeat = Math.max(maxHeat, h);
+		treeStale = true;
+	}
+
+	public void moveNode(String id, double x, double y, double z) {
+		Integer i = nodeIndex.get(id);
+		if (i == null)
+			return;
+		this.x[i] = x;
+		this.y[i] = y;
+		unplaced.clear(i);
+		warm(i, spacing);
+		if (adjacencyStale)
+			buildAdjacency();
+		for (int p = offset[i]; p < offset[i + 1]; p++)
+			warm(neighbour[p], spacing);
+		movedSinceTree++;
+	}
+
+	public void freezeNode(String id, boolean on) {
+		Integer i = nodeIndex.get(id);
+		if (i != null)
+			frozen.set(i, on);
+	}
+
+	private void warm(int i, double h) {
+		if (heat[i] < h)
+			heat[i] = h;
+	}
+
+	/** Heat of a node placed at random: a tenth of the side of the square the nodes fill. */
+	private double initialHeat() {
+		return Math.max(spacing, Math.sqrt(nodeCount) * spacing / 10);
+	}
+
+	// steps
+
+	public void compute() {
+		long started = System.currentTimeMillis();
+		if (adjacencyStale)
+			buildAdjacency();
+		if (!unplaced.isEmpty())
+			place();
+		int[] active = active();
+		if (active.length == 0) {
+			moved = 0;
+		} else {
+			if (treeStale || movedSinceTree > nodeCount / 16)
+				buildTree();
+			forces(active);
+			moved = move(active);
+			movedSinceTree += moved;
+			if (moved > 0)
+				send(active);
+		}
+		bounds();
+		spacing = Math.max(K, Math.max(hiX - lowX, hiY - lowY) / Math.sqrt(Math.max(1, nodeCount)));
+		minHeat = REST * spacing;
+		stabilization = nodeCount == 0 ? 1 : 1 - (double) moved / nodeCount;
+		steps++;
+		lastStepTime = System.currentTimeMillis() - started;
+	}
+
+	/** Places new nodes beside a placed neighbour, or at random in the square the nodes fill. */
+	private void place() {
+		double side = Math.sqrt(nodeCount) * spacing, cx = 0, cy = 0;
+		int placed = nodeCount - unplaced.cardinality();
+		if (placed > 0) {
+			for (int i = 0; i < nodeCount; i++)
+				if (!unplaced.get(i)) {
+					cx += x[i];
+					cy += y[i];
+				}
+			cx /= placed;
+			cy /= placed;
+		}
+		for (int i = unplaced.nextSetBit(0); i >= 0; i = unplaced.nextSetBit(i + 1)) {
+			int anchor = -1;
+			for (int p = offset[i]; p < offset[i + 1] && anchor < 0; p++)
+				if (!unplaced.get(neighbour[p]))
+					anchor = neighbour[p];
+			if (anchor >= 0) {
+				double a = random.nextDouble() * 2 * Math.PI;
+				x[i] = x[anchor] + spacing * Math.cos(a);
+				y[i] = y[anchor] + spacing * Math.sin(a);
+				heat[i] = 2 * spacing;
+				warm(anchor, spacing);
+			} else {
+				x[i] = cx + (random.nextDouble() - 0.5) * side;
+				y[i] = cy + (random.nextDouble() - 0.5) * side;
+				heat[i] = initialHeat();
+			}
+			maxHeat = Math.max(maxHeat, heat[i]);
+		}
+		unplaced.clear();
+		treeStale = true;
+	}
+
+	private int[] active() {
+		int[] active = new int[nodeCount];
+		int n = 0;
+		for (int i = 0; i < nodeCount; i++)
+			if (heat[i] >= minHeat && !frozen.get(i))
+				active[n++] = i;
+		return Arrays.copyOf(active, n);
+	}
+
+	private void forces(int[] active) {
+		double theta2 = theta * theta;
+		invokeChunks(active.length, (lo, hi) -> {
+			int[] stack = new int[4 * LEVELS + 8];
+			for (int a = lo; a < hi; a++) {
+				int i = active[a];
+				double xi = x[i], yi = y[i], sx = 0, sy = 0;
+				// repulsion, K^2 / d
+				int top = 0;
+				stack[top++] = 0;
+				while (top > 0) {
+					int c = stack[--top];
+					double dx = xi - cellX[c], dy = yi - cellY[c], d2 = dx * dx + dy * dy;
+					if (cellChildren[c] == 0) {
+						for (int p = cellStart[c]; p < cellEnd[c]; p++) {
+							int j = order[p];
+							if (j == i)
+								continue;
+							dx = xi - x[j];
+							dy = yi - y[j];
+							d2 = dx * dx + dy * dy;
+							if (d2 > 1e-18) {
+								sx += dx * K * K / d2;
+								sy += dy * K * K / d2;
+							}
+						}
+					} else if (cellSize[c] * cellSize[c] < theta2 * d2) {
+						double f = K * K * cellMass[c] / d2;
+						sx += dx * f;
+						sy += dy * f;
+					} else {
+						if (top + 4 > stack.length)
+							stack = Arrays.copyOf(stack, 2 * stack.length);
+						for (int k = 0; k < cellChildren[c]; k++)
+							stack[top++] = cellChild[c] + k;
+					}
+				}
+				// attraction, d^2 / K
+				for (int p = offset[i]; p < offset[i + 1]; p++) {
+					int j = neighbour[p];
+					double dx = x[j] - xi, dy = y[j] - yi, d = Math.sqrt(dx * dx + dy * dy);
+					sx += dx * d * neighbourWeight[p] / K;
+					sy += dy * d * neighbourWeight[p] / K;
+				}
+				fx[i] = sx;
+				fy[i] = sy;
+			}
+		});
+	}
+
+	/**
+	 * Moves every active node along its force, by at most its heat, and adapts
+	 * the heat; returns the number of nodes moving by minHeat or more, after
+	 * warming their neighbours. Halving what is passed on keeps two moving
+	 * neighbours from holding each other warm. fx keeps the length of each
+	 * move.
+	 */
+	private int move(int[] active) {
+		double f = force;
+		invokeChunks(active.length, (lo, hi) -> {
+			for (int a = lo; a < hi; a++) {
+				int i = active[a];
+				double len = Math.sqrt(fx[i] * fx[i] + fy[i] * fy[i]) * f;
+				double step = Math.min(len, heat[i]);
+				double ux = 0, uy = 0;
+				if (len > 0) {
+					ux = fx[i] * f / len;
+					uy = fy[i] * f / len;
+					x[i] += ux * step;
+					y[i] += uy * step;
+				}
+				double turn = ux * lastX[i] + uy * lastY[i];
+				if (step < minHeat)
+					heat[i] = 0;
+				else if (turn > 0.5)
+					heat[i] = Math.min(heat[i] * SPEEDUP, maxHeat);
+				else if (turn < -0.5)
+					heat[i] *= SLOWDOWN;
+				else
+					heat[i] *= COOLING;
+				lastX[i] = ux;
+				lastY[i] = uy;
+				fx[i] = step;
+			}
+		});
+		int n = 0;
+		for (int i : active) {
+			double step = fx[i];
+			if (step < minHeat)
+				continue;
+			n++;
+			for (int p = offset[i]; p < offset[i + 1]; p++)
+				if (!frozen.get(neighbour[p]))
+					warm(neighbour[p], step / 2);
+		}
+		return n;
+	}
+
+	private void send(int[] active) {
+		for (int i : active)
+			if (fx[i] >= minHeat) {
+				Object[] xyz = { x[i], y[i], 0.0 };
+				sendNodeAttributeChanged(sourceId, nodeIds[i], "xyz", xyz, xyz);
+			}
+	}
+
+	private void bounds() {
+		lowX = lowY = Double.POSITIVE_INFINITY;
+		hiX = hiY = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < nodeCount; i++) {
+			lowX = Math.min(lowX, x[i]);
+			lowY = Math.min(lowY, y[i]);
+			hiX = Math.max(hiX, x[i]);
+			hiY = Math.max(hiY, y[i]);
+		}
+		if (nodeCount == 0)
+			lowX = lowY = hiX = hiY = 0;
+	}
+
+	private interface ChunkBody {
+		void run(int from, int to);
+	}
+
+	/** Runs body over [0, n) cut in chunks of GRAIN, in the pool. */
+	private void invokeChunks(int n, ChunkBody body) {
+		if (n <= GRAIN || pool.getParallelism() == 1) {
+			body.run(0, n);
+			return;
+		}
+		ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(n / GRAIN + 1);
+		for (int lo = 0; lo < n; lo += GRAIN) {
+			final int from = lo, to = Math.min(n, lo + GRAIN);
+			tasks.add(ForkJoinTask.adapt(() -> body.run(from, to)));
+		}
+		if (ForkJoinTask.inForkJoinPool())
+			ForkJoinTask.invokeAll(tasks);
+		else
+			pool.invoke(new RecursiveAction() {
+				protected void compute() {
+					invokeAll(tasks);
+				}
+			});
+	}
+
+	// structure
+
+	private void buildAdjacency() {
+		int[] degree = new int[nodeCount + 1];
+		for (int e = 0; e < edgeCount; e++)
+			if (source[e] != target[e]) {
+				degree[source[e]]++;
+				degree[target[e]]++;
+			}
+		offset = new int[nodeCount + 1];
+		for (int i = 0; i < nodeCount; i++)
+			offset[i + 1] = offset[i] + degree[i];
+		neighbour = new int[offset[nodeCount]];
+		neighbourWeight = new double[offset[nodeCount]];
+		int[] next = Arrays.copyOf(offset, nodeCount);
+		for (int e = 0; e < edgeCount; e++) {
+			int u = source[e], v = target[e];
+			if (u == v)
+				continue;
+			neighbourWeight[next[u]] = weight[e];
+			neighbour[next[u]++] = v;
+			neighbourWeight[next[v]] = weight[e];
+			neighbour[next[v]++] = u;
+		}
+		adjacencyStale = false;
+	}
+
+	/** Sorts the nodes by Morton code and builds the quadtree over that order. */
+	private void buildTree() {
+		int n = nodeCount;
+		double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY, side = 0;
+		for (int i = 0; i < n; i++) {
+			x0 = Math.min(x0, x[i]);
+			y0 = Math.min(y0, y[i]);
+		}
+		for (int i = 0; i < n; i++)
+			side = Math.max(side, Math.max(x[i] - x0, y[i] - y0));
+		side = Math.max(side, 1e-9);
+		double scale = ((1 << LEVELS) - 1) / side;
+		if (keys.length < n) {
+			keys = new long[Math.max(n, 2 * keys.length)];
+			order = new int[keys.length];
+		}
+		for (int i = 0; i < n; i++)
+			keys[i] = (morton((int) ((x[i] - x0) * scale), (int) ((y[i] - y0) * scale)) << 32) | i;
+		if (pool.getParallelism() > 1 && n > GRAIN)
+			Arrays.parallelSort(keys, 0, n);
+		else
+			Arrays.sort(keys, 0, n);
+		for (int p = 0; p < n; p++)
+			order[p] = (int) keys[p];
+		cellCount = 1;
+		cell(0, 0, n, 0, side);
+		treeStale = false;
+		movedSinceTree = 0;
+	}
+
+	private static long morton(int qx, int qy) {
+		return spread(qx) | (spread(qy) << 1);
+	}
+
+	/** The 16 low bits of v on the even bits of the result. */
+	private static long spread(int v) {
+		long b = v & 0xffffL;
+		b = (b | (b << 8)) & 0x00ff00ffL;
+		b = (b | (b << 4)) & 0x0f0f0f0fL;
+		b = (b | (b << 2)) & 0x33333333L;
+		b = (b | (b << 1)) & 0x55555555L;
+		return b;
+	}
+
+	/** Quadrant of the node at p at level: the two bits of its code under the shared prefix. */
+	private int quadrant(int p, int level) {
+		return (int) (keys[p] >>> (32 + 2 * (LEVELS - 1 - level))) & 3;
+	}
+
+	/** Fills cell c with order[start, end) at level; its children get the next free cells. */
+	private void cell(int c, int start, int end, int level, double side) {
+		cellStart[c] = start;
+		cellEnd[c] = end;
+		cellSize[c] = side / (1 << level);
+		cellChildren[c] = 0;
+		if (end - start <= LEAF || level == LEVELS) {
+			double sx = 0, sy = 0;
+			for (int p = start; p < end; p++) {
+				sx += x[order[p]];
+				sy += y[order[p]];
+			}
+			cellX[c] = sx / (end - start);
+			cellY[c] = sy / (end - start);
+			cellMass[c] = end - start;
+			return;
+		}
+		// quadrant q holds order[bound[q], bound[q + 1])
+		int[] bound = new int[5];
+		bound[0] = start;
+		bound[4] = end;
+		for (int q = 1; q < 4; q++) {
+			int lo = bound[q - 1], hi = end;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (quadrant(mid, level) < q)
+					lo = mid + 1;
+				else
+					hi = mid;
+			}
+			bound[q] = lo;
+		}
+		int children = 0;
+		for (int q = 0; q < 4; q++)
+			if (bound[q] < bound[q + 1])
+				children++;
+		ensureCells(cellCount + children);
+		int first = cellCount;
+		cellCount += children;
+		cellChild[c] = first;
+		cellChildren[c] = children;
+		double sx = 0, sy = 0;
+		for (int q = 0, k = first; q < 4; q++) {
+			if (bound[q] == bound[q + 1])
+				continue;
+			cell(k, bound[q], bound[q + 1], level + 1, side);
+			sx += cellX[k] * cellMass[k];
+			sy += cellY[k] * cellMass[k];
+			k++;
+		}
+		cellMass[c] = end - start;
+		cellX[c] = sx / cellMass[c];
+		cellY[c] = sy / cellMass[c];
+	}
+
+	private void ensureCells(int n) {
+		if (n <= cellX.length)
+			return;
+		int size = Math.max(n, 2 * cellX.length);
+		cellX = Arrays.copyOf(cellX, size);
+		cellY = Arrays.copyOf(cellY, size);
+		cellMass = Arrays.copyOf(cellMass, size);
+		cellSize = Arrays.copyOf(cellSize, size);
+		cellStart = Arrays.copyOf(cellStart, size);
+		cellEnd = Arrays.copyOf(cellEnd, size);
+		cellChild = Arrays.copyOf(cellChild, size);
+		cellChildren = Arrays.copyOf(cellChildren, size);
+	}
+
+	private int addNode(String id) {
+		Integer known = nodeIndex.get(id);
+		if (known != null)
+			return known;
+		if (nodeCount == x.length) {
+			int size = 2 * nodeCount;
+			nodeIds = Arrays.copyOf(nodeIds, size);
+			x = Arrays.copyOf(x, size);
+			y = Arrays.copyOf(y, size);
+			fx = Arrays.copyOf(fx, size);
+			fy = Arrays.copyOf(fy, size);
+			heat = Arrays.copyOf(heat, size);
+			lastX = Arrays.copyOf(lastX, size);
+			lastY = Arrays.copyOf(lastY, size);
+		}
+		int i = nodeCount++;
+		nodeIds[i] = id;
+		nodeIndex.put(id, i);
+		x[i] = y[i] = heat[i] = lastX[i] = lastY[i] = 0;
+		frozen.clear(i);
+		unplaced.set(i);
+		adjacencyStale = treeStale = true;
+		return i;
+	}
+
+	/** Removes node i, the last node taking its index. Its edges must be gone. */
+	private void removeNodeAt(int i) {
+		int last = --nodeCount;
+		nodeIndex.remove(nodeIds[i]);
+		if (i != last) {
+			nodeIds[i] = nodeIds[last];
+			nodeIndex.put(nodeIds[i], i);
+			x[i] = x[last];
+			y[i] = y[last];
+			heat[i] = heat[last];
+			lastX[i] = lastX[last];
+			lastY[i] = lastY[last];
+			frozen.set(i, frozen.get(last));
+			unplaced.set(i, unplaced.get(last));
+			for (int e = 0; e < edgeCount; e++) {
+				if (source[e] == last)
+					source[e] = i;
+				if (target[e] == last)
+					target[e] = i;
+			}
+		}
+		nodeIds[last] = null;
+		frozen.clear(last);
+		unplaced.clear(last);
+		adjacencyStale = treeStale = true;
+	}
+
+	private void addEdge(String id, String from, String to) {
+		if (edgeIndex.containsKey(id))
+			return;
+		int u = addNode(from), v = addNode(to);
+		if (edgeCount == source.length) {
+			int size = 2 * edgeCount;
+			edgeIds = Arrays.copyOf(edgeIds, size);
+			source = Arrays.copyOf(source, size);
+			target = Arrays.copyOf(target, size);
+			weight = Arrays.copyOf(weight, size);
+		}
+		int e = edgeCount++;
+		edgeIds[e] = id;
+		edgeIndex.put(id, e);
+		source[e] = u;
+		target[e] = v;
+		weight[e] = 1;
+		warm(u, spacing);
+		warm(v, spacing);
+		adjacencyStale = true;
+	}
+
+	private void removeEdge(String id) {
+		Integer e = edgeIndex.remove(id);
+		if (e == null)
+			return;
+		warm(source[e], spacing);
+		warm(target[e], spacing);
+		int last = --edgeCount;
+		if (e != last) {
+			edgeIds[e] = edgeIds[last];
+			edgeIndex.put(edgeIds[e], e);
+			source[e] = source[last];
+			target[e] = target[last];
+			weight[e] = weight[last];
+		}
+		edgeIds[last] = null;
+		adjacencyStale = true;
+	}
+
+	// sink
+
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		addNode(nodeId);
+	}
+
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		Integer i = nodeIndex.get(nodeId);
+		if (i == null)
+			return;
+		// normally removed already by their own events
+		for (int e = edgeCount - 1; e >= 0; e--)
+			if (source[e] == i || target[e] == i)
+				removeEdge(edgeIds[e]);
+		removeNodeAt(i);
+	}
+
+	public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId,
+			boolean directed) {
+		addEdge(edgeId, fromNodeId, toNodeId);
+	}
+
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		removeEdge(edgeId);
+	}
+
+	public void graphCleared(String sourceId, long timeId) {
+		clear();
+	}
+
+	public void stepBegins(String sourceId, long timeId, double step) {
+	}
+
+	public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+		nodeAttributeChanged(sourceId, timeId, nodeId, attribute, null, value);
+	}
+
+	public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute,
+			Object oldValue, Object newValue) {
+		if (attribute.equals("layout.frozen"))
+			freezeNode(nodeId, newValue != null && !Boolean.FALSE.equals(newValue));
+	}
+
+	public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+		if (attribute.equals("layout.frozen"))
+			freezeNode(nodeId, false);
+	}
+
+	public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+		edgeAttributeChanged(sourceId, timeId, edgeId, attribute, null, value);
+	}
+
+	public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute,
+			Object oldValue, Object newValue) {
+		if (attribute.equals("layout.weight"))
+			setWeight(edgeId, newValue instanceof Number ? ((Number) newValue).doubleValue() : 1);
+	}
+
+	public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+		if (attribute.equals("layout.weight"))
+			setWeight(edgeId, 1);
+	}
+
+	private void setWeight(String edgeId, double w) {
+		Integer e = edgeIndex.get(edgeId);
+		if (e == null || weight[e] == w)
+			return;
+		weight[e] = w;
+		warm(source[e], spacing);
+		warm(target[e], spacing);
+		adjacencyStale = true;
+	}
+
+	public void graphAttributeAdded(String sourceId, long timeId, String attribute, Object value) {
+		graphAttributeChanged(sourceId, timeId, attribute, null, value);
+	}
+
+	public void graphAttributeChanged(String sourceId, long timeId, String attribute, Object oldValue,
+			Object newValue) {
+		if (!(newValue instanceof Number))
+			return;
+		double v = ((Number) newValue).doubleValue();
+		if (attribute.equals("layout.force"))
+			setForce(v);
+		else if (attribute.equals("layout.quality"))
+			setQuality(v);
+		else if (attribute.equals("layout.stabilization-limit"))
+			setStabilizationLimit(v);
+	}
+
+	public void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+	}
+}
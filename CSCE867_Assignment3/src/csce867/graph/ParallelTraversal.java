@@ -0,0 +1,410 @@
+package csce867.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+
+/**
+ * Breadth-first, depth-first and reachability queries over any Graph, run
+ * on node indices in a ForkJoinPool. Results are arrays of node indices
+ * (Graph.getNode(int)), or streams of nodes through {@link #nodes(int[])}.
+ *
+ * The adjacency of the graph is copied once into primitive arrays, in
+ * parallel, in the order the graph's own edge iterators give; the copy is
+ * reused by every query until {@link #refresh()}. The graph must not change
+ * while the copy is made, and queries see it as it was then.
+ *
+ * The orders agree exactly with the gs-core iterators on the same graph:
+ * {@link #breadthFirst(Node, boolean)} with BreadthFirstIterator, which
+ * follows leaving edges when directed and all edges otherwise, and
+ * {@link #depthFirst(Node, boolean)} with DepthFirstIterator, which follows
+ * leaving edges when directed and, as it does in gs-core 1.3, entering
+ * edges otherwise.
+ *
+ * Breadth-first search is level synchronous. Each frontier node is given
+ * its position in the frontier, and a newly reached node is claimed by the
+ * smallest (frontier position, edge position) pair that reaches it, an
+ * atomic minimum; the claiming chunks then append their nodes in chunk
+ * order, which is the order a sequential queue would have taken them in.
+ * Small frontiers are expanded on the calling thread.
+ *
+ * A depth-first order is inherently sequential and is walked on the calling
+ * thread, over the copied arrays. {@link #reachable(Node, boolean)} only
+ * needs the set and runs as a work-stealing closure over an atomic visited
+ * bitset.
+ */
+public class ParallelTraversal {
+
+	/** Nodes per task when copying the adjacency. */
+	static final int COPY_GRAIN = 4096;
+	/** Frontier edges below which a level is expanded sequentially. */
+	static final int SEQUENTIAL_FRONTIER = 8192;
+	/** Stack entries a closure task keeps before giving half away. */
+	static final int CLOSURE_GRAIN = 1024;
+
+	private static final int LEAVING = 0, ENTERING = 1, ALL = 2;
+
+	private final Graph graph;
+	private final ForkJoinPool pool;
+	private final Adjacency[] adjacency = new Adjacency[3];
+
+	public ParallelTraversal(Graph graph) {
+		this(graph, ForkJoinPool.commonPool());
+	}
+
+	public ParallelTraversal(Graph graph, ForkJoinPool pool) {
+		this.graph = graph;
+		this.pool = pool;
+	}
+
+	public Graph getGraph() {
+		return graph;
+	}
+
+	/** Drops the copied adjacency, the next query copies the graph again. */
+	public synchronized void refresh() {
+		Arrays.fill(adjacency, null);
+	}
+
+	// queries
+
+	/** Node indices in the order of new BreadthFirstIterator(start, directed). */
+	public int[] breadthFirst(Node start, boolean directed) {
+		Adjacency adj = adjacency(directed ? LEAVING : ALL);
+		return breadthFirst(adj, index(start, adj), Integer.MAX_VALUE, new int[adj.nodes]);
+	}
+
+	/**
+	 * Depth of every node, by index, in a breadth-first search from start,
+	 * -1 for the nodes not reached; BreadthFirstIterator.getDepthOf().
+	 */
+	public int[] breadthFirstDepths(Node start, boolean directed) {
+		Adjacency adj = adjacency(directed ? LEAVING : ALL);
+		int[] depth = new int[adj.nodes];
+		breadthFirst(adj, index(start, adj), Integer.MAX_VALUE, depth);
+		return depth;
+	}
+
+	/** Nodes at most k hops from start, start included, in breadth-first order. */
+	public int[] neighbourhood(Node start, int k, boolean directed) {
+		if (k < 0)
+			throw new IllegalArgumentException("negative hop count: " + k);
+		Adjacency adj = adjacency(directed ? LEAVING : ALL);
+		return breadthFirst(adj, index(start, adj), k, new int[adj.nodes]);
+	}
+
+	/** Node indices in the order of new DepthFirstIterator(start, directed). */
+	public int[] depthFirst(Node start, boolean directed) {
+		Adjacency adj = adjacency(directed ? LEAVING : ENTERING);
+		int n = adj.nodes;
+		int[] order = new int[n];
+		int[] stack = new int[n];
+		int[] cursor = new int[n];
+		boolean[] seen = new boolean[n];
+		int s = index(start, adj);
+		int size = 0, top = 0;
+		order[size++] = s;
+		seen[s] = true;
+		stack[top] = s;
+		cursor[top++] = adj.offset[s];
+		while (top > 0) {
+			int u = stack[top - 1];
+			int j = cursor[top - 1], end = adj.offset[u + 1];
+			while (j < end && seen[adj.target[j]])
+				j++;
+			if (j == end) {
+				top--;
+				continue;
+			}
+			cursor[top - 1] = j + 1;
+			int v = adj.target[j];
+			seen[v] = true;
+			order[size++] = v;
+			stack[top] = v;
+			cursor[top++] = adj.offset[v];
+		}
+		return Arrays.copyOf(order, size);
+	}
+
+	/**
+	 * Indices of the nodes reachable from start, start included, in
+	 * ascending order: leaving edges are followed when directed, all edges
+	 * otherwise.
+	 */
+	public int[] reachable(Node start, boolean directed) {
+		Adjacency adj = adjacency(directed ? LEAVING : ALL);
+		AtomicLongArray visited = new AtomicLongArray((adj.nodes + 63) >>> 6);
+		int s = index(start, adj);
+		mark(visited, s);
+		pool.invoke(new Closure(adj, visited, new int[] { s }, 1));
+		int count = 0;
+		for (int i = 0; i < visited.length(); i++)
+			count += Long.bitCount(visited.get(i));
+		int[] nodes = new int[count];
+		int size = 0;
+		for (int i = 0; i < visited.length(); i++) {
+			long word = visited.get(i);
+			while (word != 0) {
+				nodes[size++] = (i << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+		return nodes;
+	}
+
+	/** The nodes of an index array, in order. */
+	public Stream<Node> nodes(int[] indices) {
+		return Arrays.stream(indices).mapToObj(i -> graph.<Node> getNode(i));
+	}
+
+	private int index(Node start, Adjacency adj) {
+		int s = start.getIndex();
+		if (s < 0 || s >= adj.nodes || !graph.getNode(s).getId().equals(start.getId()))
+			throw new IllegalArgumentException("node " + start.getId() + " is not in graph " + graph.getId());
+		return s;
+	}
+
+	// breadth-first
+
+	private int[] breadthFirst(Adjacency adj, int start, int maxDepth, int[] depth) {
+		Arrays.fill(depth, -1);
+		int[] order = new int[adj.nodes];
+		AtomicLongArray claim = null;
+		depth[start] = 0;
+		order[0] = start;
+		int size = 1, levelStart = 0;
+		for (int level = 1; level <= maxDepth && levelStart < size; level++) {
+			int levelEnd = size;
+			long edges = 0;
+			for (int p = levelStart; p < levelEnd && edges < SEQUENTIAL_FRONTIER; p++)
+				edges += adj.offset[order[p] + 1] - adj.offset[order[p]];
+			if (edges < SEQUENTIAL_FRONTIER || pool.getParallelism() == 1) {
+				for (int p = levelStart; p < levelEnd; p++) {
+					int u = order[p];
+					for (int j = adj.offset[u], end = adj.offset[u + 1]; j < end; j++) {
+						int v = adj.target[j];
+						if (depth[v] == -1) {
+							depth[v] = level;
+							order[size++] = v;
+						}
+					}
+				}
+			} else {
+				if (claim == null) {
+					claim = new AtomicLongArray(adj.nodes);
+					for (int i = 0; i < adj.nodes; i++)
+						claim.set(i, Long.MAX_VALUE);
+				}
+				size = expand(adj, order, levelStart, levelEnd, depth, level, claim);
+			}
+			levelStart = levelEnd;
+		}
+		return size == order.length ? order : Arrays.copyOf(order, size);
+	}
+
+	/**
+	 * Appends the nodes first reached from order[from .. to) after them, in
+	 * sequential queue order, and returns the new size of order.
+	 */
+	private int expand(final Adjacency adj, final int[] order, final int from, final int to, final int[] depth,
+			final int level, final AtomicLongArray claim) {
+		int grain = Math.max(64, (to - from) / (4 * pool.getParallelism()));
+		final int chunks = (to - from + grain - 1) / grain;
+		final int[][] found = new int[chunks][];
+		final int[] count = new int[chunks];
+		// claim every unreached node for the smallest (position, edge) reaching it
+		invokeChunks(chunks, grain, from, to, (c, lo, hi) -> {
+			for (int p = lo; p < hi; p++) {
+				int u = order[p], base = adj.offset[u];
+				for (int j = base, end = adj.offset[u + 1]; j < end; j++) {
+					int v = adj.target[j];
+					if (depth[v] != -1)
+						continue;
+					long key = ((long) p << 32) | (j - base);
+					long current;
+					while (key < (current = claim.get(v)) && !claim.compareAndSet(v, current, key))
+						;
+				}
+			}
+		});
+		// each claimant lists its nodes, in key order within its chunk
+		invokeChunks(chunks, grain, from, to, (c, lo, hi) -> {
+			int[] mine = new int[16];
+			int n = 0;
+			for (int p = lo; p < hi; p++) {
+				int u = order[p], base = adj.offset[u];
+				for (int j = base, end = adj.offset[u + 1]; j < end; j++) {
+					int v = adj.target[j];
+					if (depth[v] == -1 && claim.get(v) == (((long) p << 32) | (j - base))) {
+						depth[v] = level;
+						if (n == mine.length)
+							mine = Arrays.copyOf(mine, 2 * n);
+						mine[n++] = v;
+					}
+				}
+			}
+			found[c] = mine;
+			count[c] = n;
+		});
+		int size = to;
+		for (int c = 0; c < chunks; c++) {
+			System.arraycopy(found[c], 0, order, size, count[c]);
+			size += count[c];
+		}
+		return size;
+	}
+
+	private interface ChunkBody {
+		void run(int chunk, int from, int to);
+	}
+
+	/** Runs body over [from, to) cut in chunks of grain, in the pool. */
+	private void invokeChunks(int chunks, int grain, int from, int to, ChunkBody body) {
+		ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(chunks);
+		for (int c = 0; c < chunks; c++) {
+			final int chunk = c, lo = from + c * grain, hi = Math.min(to, lo + grain);
+			tasks.add(ForkJoinTask.adapt(() -> body.run(chunk, lo, hi)));
+		}
+		if (ForkJoinTask.inForkJoinPool())
+			ForkJoinTask.invokeAll(tasks);
+		else
+			pool.invoke(new RecursiveAction() {
+				protected void compute() {
+					invokeAll(tasks);
+				}
+			});
+	}
+
+	// closure
+
+	private static boolean mark(AtomicLongArray bits, int v) {
+		int word = v >>> 6;
+		long bit = 1L << v;
+		long w;
+		do {
+			w = bits.get(word);
+			if ((w & bit) != 0)
+				return false;
+		} while (!bits.compareAndSet(word, w, w | bit));
+		return true;
+	}
+
+	/**
+	 * Depth-first closure from a stack of marked nodes. When the stack grows
+	 * past twice the grain and the pool is short of queued work, its older
+	 * half is forked off as a task of its own, for idle workers to steal.
+	 */
+	private static final class Closure extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Adjacency adj;
+		private final AtomicLongArray visited;
+		private int[] stack;
+		private int top;
+
+		Closure(Adjacency adj, AtomicLongArray visited, int[] stack, int top) {
+			this.adj = adj;
+			this.visited = visited;
+			this.stack = stack;
+			this.top = top;
+		}
+
+		protected void compute() {
+			ArrayList<Closure> forked = null;
+			while (top > 0) {
+				int u = stack[--top];
+				for (int j = adj.offset[u], end = adj.offset[u + 1]; j < end; j++) {
+					int v = adj.target[j];
+					if (!mark(visited, v))
+						continue;
+					if (top == stack.length)
+						stack = Arrays.copyOf(stack, Math.max(16, 2 * top));
+					stack[top++] = v;
+				}
+				if (top >= 2 * CLOSURE_GRAIN && getSurplusQueuedTaskCount() < 2) {
+					int half = top / 2;
+					Closure child = new Closure(adj, visited, Arrays.copyOf(stack, half), half);
+					System.arraycopy(stack, half, stack, 0, top - half);
+					top -= half;
+					child.fork();
+					if (forked == null)
+						forked = new ArrayList<Closure>();
+					forked.add(child);
+				}
+			}
+			if (forked != null)
+				for (Closure child : forked)
+					child.join();
+		}
+	}
+
+	// adjacency copy
+
+	/** Neighbour indices of node u in target[offset[u] .. offset[u + 1]), in iterator order. */
+	static final class Adjacency {
+		final int nodes;
+		final int[] offset;
+		final int[] target;
+
+		Adjacency(int nodes, int[] offset, int[] target) {
+			this.nodes = nodes;
+			this.offset = offset;
+			this.target = target;
+		}
+	}
+
+	private synchronized Adjacency adjacency(int kind) {
+		if (adjacency[kind] == null)
+			adjacency[kind] = copy(kind);
+		return adjacency[kind];
+	}
+
+	/**
+	 * Each chunk of nodes lists its neighbours into its own array, then the
+	 * chunks are laid end to end; the graph's iterators run once per node.
+	 */
+	private Adjacency copy(final int kind) {
+		final int n = graph.getNodeCount();
+		final int chunks = Math.max(1, (n + COPY_GRAIN - 1) / COPY_GRAIN);
+		final int[][] lists = new int[chunks][];
+		final int[] used = new int[chunks];
+		final int[] offset = new int[n + 1];
+		invokeChunks(chunks, COPY_GRAIN, 0, n, (c, lo, hi) -> {
+			int[] list = new int[Math.max(16, 2 * (hi - lo))];
+			int size = 0;
+			for (int u = lo; u < hi; u++) {
+				Node node = graph.getNode(u);
+				Iterator<Edge> edges = kind == LEAVING ? node.getLeavingEdgeIterator()
+						: kind == ENTERING ? node.getEnteringEdgeIterator() : node.getEdgeIterator();
+				int before = size;
+				while (edges.hasNext()) {
+					if (size == list.length)
+						list = Arrays.copyOf(list, 2 * size);
+					list[size++] = edges.next().getOpposite(node).getIndex();
+				}
+				// local degree for now, turned into an offset below
+				offset[u + 1] = size - before;
+			}
+			lists[c] = list;
+			used[c] = size;
+		});
+		int total = 0;
+		for (int c = 0; c < chunks; c++)
+			total += used[c];
+		final int[] target = new int[total];
+		for (int u = 0; u < n; u++)
+			offset[u + 1] += offset[u];
+		invokeChunks(chunks, COPY_GRAIN, 0, n, (c, lo, hi) -> System.arraycopy(lists[c], 0, target, offset[lo],
+				used[c]));
+		return new Adjacency(n, offset, target);
+	}
+}
@@ -0,0 +1,85 @@
+package csce867.graph;
+
+/**
+ * Array of objects indexed by int, kept as a 32-way trie so that a copy
+ * shares every trie node with the original: copying is O(1), and the first
+ * write to a slot after a copy clones only the nodes on its path, O(log32
+ * n). A write passes an edit token; nodes created under the same token are
+ * changed in place, so a writer that switches to a new token after each
+ * copy never changes what the copy sees.
+ *
+ * Not thread-safe; a copy whose token is retired is immutable and may be
+ * read by any thread once safely published.
+ */
+final class PersistentArray {
+
+	private static final int BITS = 5, WIDTH = 1 << BITS, MASK = WIDTH - 1;
+	private static final int MAX_SHIFT = 25;
+
+	private static final class Trie {
+		final Object edit;
+		final Object[] slots;
+
+		Trie(Object edit, Object[] slots) {
+			this.edit = edit;
+			this.slots = slots;
+		}
+	}
+
+	private Trie root;
+	/** bits of the index above the leaf level */
+	private int shift;
+
+	PersistentArray() {
+		root = new Trie(null, new Object[WIDTH]);
+	}
+
+	/** A copy sharing every node with other. */
+	PersistentArray(PersistentArray other) {
+		root = other.root;
+		shift = other.shift;
+	}
+
+	private int capacity() {
+		return 1 << (shift + BITS);
+	}
+
+	/** Value at i, null if never set or out of range. */
+	Object get(int i) {
+		if (i < 0 || i >= capacity())
+			return null;
+		Trie t = root;
+		for (int level = shift; level > 0; level -= BITS) {
+			t = (Trie) t.slots[(i >>> level) & MASK];
+			if (t == null)
+				return null;
+		}
+		return t.slots[i & MASK];
+	}
+
+	void set(int i, Object value, Object edit) {
+		if (i < 0)
+			throw new IndexOutOfBoundsException("index " + i);
+		while (i >= capacity()) {
+			if (shift == MAX_SHIFT)
+				throw new IndexOutOfBoundsException("index " + i);
+			Trie grown = new Trie(edit, new Object[WIDTH]);
+			grown.slots[0] = root;
+			root = grown;
+			shift += BITS;
+		}
+		Trie t = root = editable(root, edit);
+		for (int level = shift; level > 0; level -= BITS) {
+			int k = (i >>> level) & MASK;
+			Trie child = (Trie) t.slots[k];
+			child = child == null ? new Trie(edit, new Object[WIDTH]) : editable(child, edit);
+			t.slots[k] = child;
+			t = child;
+		}
+		t.slots[i & MASK] = value;
+	}
+
+	private static Trie editable(Trie t, Object edit) {
+		return t.edit == edit ? t : new Trie(edit, t.slots.clone());
+	}
+}
@@ -0,0 +1,119 @@
+package csce867.graph;
+
+/**
+ * Id to index map with O(1) copies: an open-addressing table (linear
+ * probing, tombstones) whose slots live in a {@link PersistentArray}, so a
+ * copy shares the table and a write after it clones one trie path. The
+ * table is rebuilt, into fresh nodes, when live entries and tombstones
+ * fill half of it.
+ */
+final class PersistentIdMap {
+
+	private static final int MIN_SLOTS = 16;
+
+	private static final class Slot {
+		final String id;
+		final int index;
+
+		Slot(String id, int index) {
+			this.id = id;
+			this.index = index;
+		}
+	}
+
+	private static final Slot TOMBSTONE = new Slot(null, -1);
+
+	private PersistentArray slots;
+	private int mask;
+	/** live entries, and slots ever used (live and tombstones) */
+	private int size, used;
+
+	PersistentIdMap() {
+		slots = new PersistentArray();
+		mask = MIN_SLOTS - 1;
+	}
+
+	PersistentIdMap(PersistentIdMap other) {
+		slots = new PersistentArray(other.slots);
+		mask = other.mask;
+		size = other.size;
+		used = other.used;
+	}
+
+	int size() {
+		return size;
+	}
+
+	private static int spread(int h) {
+		return (h ^ (h >>> 16)) * 0x9e3779b9;
+	}
+
+	/** Index of id, -1 if absent. */
+	int get(String id) {
+		for (int h = spread(id.hashCode()) & mask;; h = (h + 1) & mask) {
+			Slot s = (Slot) slots.get(h);
+			if (s == null)
+				return -1;
+			if (s != TOMBSTONE && s.id.equals(id))
+				return s.index;
+		}
+	}
+
+	void put(String id, int index, Object edit) {
+		int free = -1;
+		for (int h = spread(id.hashCode()) & mask;; h = (h + 1) & mask) {
+			Slot s = (Slot) slots.get(h);
+			if (s == null) {
+				if (free < 0) {
+					free = h;
+					used++;
+				}
+				break;
+			}
+			if (s == TOMBSTONE) {
+				if (free < 0)
+					free = h;
+			} else if (s.id.equals(id)) {
+				slots.set(h, new Slot(id, index), edit);
+				return;
+			}
+		}
+		slots.set(free, new Slot(id, index), edit);
+		size++;
+		if (2 * used > mask + 1)
+			rehash(edit);
+	}
+
+	void remove(String id, Object edit) {
+		for (int h = spread(id.hashCode()) & mask;; h = (h + 1) & mask) {
+			Slot s = (Slot) slots.get(h);
+			if (s == null)
+				return;
+			if (s != TOMBSTONE && s.id.equals(id)) {
+				slots.set(h, TOMBSTONE, edit);
+				size--;
+				return;
+			}
+		}
+	}
+
+	private void rehash(Object edit) {
+		int n = MIN_SLOTS;
+		while (n < 4 * size)
+			n <<= 1;
+		PersistentArray old = slots;
+		int oldSlots = mask + 1;
+		slots = new PersistentArray();
+		mask = n - 1;
+		used = size;
+		for (int i = 0; i < oldSlots; i++) {
+			Slot s = (Slot) old.get(i);
+			if (s != null && s != TOMBSTONE) {
+				int h = spread(s.id.hashCode()) & mask;
+				while (slots.get(h) != null)
+					h = (h + 1) & mask;
+				slots.set(h, s, edit);
+			}
+		}
+	}
+}
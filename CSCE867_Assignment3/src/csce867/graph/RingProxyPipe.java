@@ -0,0 +1,636 @@
+package csce867.graph;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.stream.ProxyPipe;
+import org.graphstream.stream.Replayable;
+import org.graphstream.stream.Sink;
+import org.graphstream.stream.Source;
+import org.graphstream.stream.SourceBase;
+
+/**
+ * A ProxyPipe, like ThreadProxyPipe, carrying the events of a source on one
+ * thread to sinks on another: the source's thread posts, the consumer's
+ * thread calls pump() and the events reach the pipe's sinks there, in
+ * order, with their source and time ids. It is built the same way and may
+ * replace it anywhere, including in new Viewer(pipe).
+ *
+ * The events go through a ring of preallocated slots (an op code, the
+ * source and time ids and up to four arguments each) instead of a message
+ * object per event in a locked list. A poster claims a sequence number with
+ * one atomic increment and publishes its slot with an ordered write (a
+ * volatile one under BLOCK, so that a sleeping consumer is seen), so
+ * posting takes no lock and several threads may post. pump() takes every
+ * published event at once and frees their slots with one write at the end
+ * of the batch; drainTo(sink, max) hands a batch straight to one sink,
+ * bypassing the pipe's sink list. One consumer pumps at a time: a pump()
+ * that finds another in progress returns, the other delivers the events.
+ *
+ * A full ring makes posters wait, and blockingPump() waits for events,
+ * according to the {@link WaitStrategy}. The counters (events, batches,
+ * producer stalls) are cumulative since construction.
+ */
+public class RingProxyPipe extends SourceBase implements ProxyPipe {
+
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+	/** The largest ring, so that its argument array stays indexable by an int. */
+	public static final int MAX_CAPACITY = 1 << 28;
+
+	/** How a full ring or an empty one is waited out. */
+	public enum WaitStrategy {
+		/** spin, lowest latency, burns a core */
+		SPIN,
+		/** spin yielding the processor */
+		YIELD,
+		/** sleep in short parks, no signalling between the threads */
+		PARK,
+		/** sleep on a condition signalled by the other side, the default */
+		BLOCK
+	}
+
+	private static final long PARK_NANOS = 50000;
+
+	private final WaitStrategy strategy;
+	private final int mask;
+	private final byte[] ops;
+	private final long[] times;
+	private final double[] steps;
+	/** source id and four arguments per slot */
+	private final Object[] args;
+	/** sequence + 1 of the event published in each slot */
+	private final AtomicLongArray published;
+	private final AtomicLong claimed = new AtomicLong();
+	/** first sequence not yet delivered, written by the pumping thread only */
+	private volatile long tail;
+	private final AtomicBoolean pumping = new AtomicBoolean();
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition(), notFull = lock.newCondition();
+	private volatile int consumersWaiting, producersWaiting;
+
+	private Source input;
+
+	// metrics
+	private final AtomicLong stalls = new AtomicLong();
+	private volatile long delivered, batches;
+
+	public RingProxyPipe() {
+		this(DEFAULT_CAPACITY, WaitStrategy.BLOCK);
+	}
+
+	public RingProxyPipe(Source input) {
+		this(input, false);
+	}
+
+	/**
+	 * Listens to input, first replaying its current state if replay is set.
+	 * The replay is posted before any consumer can pump, so the ring is
+	 * made large enough for it plus the default capacity.
+	 */
+	public RingProxyPipe(Source input, boolean replay) {
+		this(replay ? replayCapacity(input) : DEFAULT_CAPACITY, WaitStrategy.BLOCK);
+		init(input, replay);
+	}
+
+	/** Adds sink first, so that it gets the replay too. */
+	public RingProxyPipe(Source input, Sink sink, boolean replay) {
+		this(replay ? replayCapacity(input) : DEFAULT_CAPACITY, WaitStrategy.BLOCK);
+		addSink(sink);
+		init(input, replay);
+	}
+
+	/**
+	 * @param capacity
+	 *            events the ring holds, rounded up to a power of two, at
+	 *            most MAX_CAPACITY
+	 */
+	public RingProxyPipe(int capacity, WaitStrategy strategy) {
+		if (capacity < 1 || capacity > MAX_CAPACITY)
+			throw new IllegalArgumentException("capacity must be between 1 and " + MAX_CAPACITY);
+		if (strategy == null)
+			throw new NullPointerException("wait strategy");
+		this.strategy = strategy;
+		int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+		mask = size - 1;
+		ops = new byte[size];
+		times = new long[size];
+		steps = new double[size];
+		args = new Object[5 * size];
+		published = new AtomicLongArray(size);
+	}
+
+	/** Listens to source instead of the previous one, see init(Source, boolean). */
+	public void init(Source source) {
+		init(source, false);
+	}
+
+	/**
+	 * Stops listening to the previous source and listens to source. With
+	 * replay set, the elements and attributes it already has are posted
+	 * first, as ThreadProxyPipe does for a Replayable source; any other Graph
+	 * (our graphs do not declare Replayable) is replayed by a
+	 * GraphReplayController. Events posted and not yet pumped are kept. The
+	 * replay waits for room like any post, so a replay larger than the free
+	 * slots needs a consumer pumping on another thread.
+	 */
+	public void init(Source source, boolean replay) {
+		synchronized (this) {
+			if (input != null)
+				input.removeSink(this);
+			input = source;
+		}
+		if (source == null)
+			return;
+		source.addSink(this);
+		Replayable.Controller controller = replay ? replayController(source) : null;
+		if (controller != null) {
+			controller.addSink(this);
+			controller.replay();
+			controller.removeSink(this);
+		}
+	}
+
+	private static Replayable.Controller replayController(Source source) {
+		if (source instanceof Replayable)
+			return ((Replayable) source).getReplayController();
+		if (source instanceof Graph)
+			return new GraphReplayController((Graph) source);
+		return null;
+	}
+
+	/**
+	 * DEFAULT_CAPACITY plus the events of a replay of source, counted by a dry
+	 * run, at most MAX_CAPACITY.
+	 */
+	private static int replayCapacity(Source source) {
+		Replayable.Controller controller = replayController(source);
+		if (controller == null)
+			return DEFAULT_CAPACITY;
+		ReplayCounter counter = new ReplayCounter();
+		controller.addSink(counter);
+		controller.replay();
+		controller.removeSink(counter);
+		return (int) Math.min(MAX_CAPACITY, DEFAULT_CAPACITY + counter.events);
+	}
+
+	/** Counts the events it receives and keeps nothing of them. */
+	private static final class ReplayCounter implements Sink {
+
+		long events;
+
+		@Override
+		public void graphAttributeAdded(String sourceId, long timeId, String attribute, Object value) {
+			events++;
+		}
+
+		@Override
+		public void graphAttributeChanged(String sourceId, long timeId, String attribute, Object oldValue,
+				Object newValue) {
+			events++;
+		}
+
+		@Override
+		public void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+			events++;
+		}
+
+		@Override
+		public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+			events++;
+		}
+
+		@Override
+		public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute,
+				Object oldValue, Object newValue) {
+			events++;
+		}
+
+		@Override
+		public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+			events++;
+		}
+
+		@Override
+		public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+			events++;
+		}
+
+		@Override
+		public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute,
+				Object oldValue, Object newValue) {
+			events++;
+		}
+
+		@Override
+		public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+			events++;
+		}
+
+		@Override
+		public void nodeAdded(String sourceId, long timeId, String nodeId) {
+			events++;
+		}
+
+		@Override
+		public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+			events++;
+		}
+
+		@Override
+		public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId,
+				boolean directed) {
+			events++;
+		}
+
+		@Override
+		public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+			events++;
+		}
+
+		@Override
+		public void graphCleared(String sourceId, long timeId) {
+			events++;
+		}
+
+		@Override
+		public void stepBegins(String sourceId, long timeId, double step) {
+			events++;
+		}
+	}
+
+	/** Stops listening to the source. */
+	public synchronized void unregisterFromSource() {
+		if (input != null)
+			input.removeSink(this);
+		input = null;
+	}
+
+	public WaitStrategy getWaitStrategy() {
+		return strategy;
+	}
+
+	public int getCapacity() {
+		return mask + 1;
+	}
+
+	/** True if events are posted and not yet pumped. */
+	public boolean hasPostRemaining() {
+		long t = tail;
+		return published.get((int) t & mask) == t + 1;
+	}
+
+	/** Events posted and not yet delivered, including those being written. */
+	public int getPendingEvents() {
+		return (int) (claimed.get() - tail);
+	}
+
+	public long getDeliveredCount() {
+		return delivered;
+	}
+
+	/** Pumps that delivered at least one event. */
+	public long getBatchCount() {
+		return batches;
+	}
+
+	/** Times a poster found the ring full. */
+	public long getStallCount() {
+		return stalls.get();
+	}
+
+	// consumer
+
+	/** Delivers every event posted so far to the pipe's sinks. */
+	public void pump() {
+		drain(null, Integer.MAX_VALUE);
+	}
+
+	/** Waits for at least one event, then pumps. */
+	public void blockingPump() throws InterruptedException {
+		awaitEvents(-1);
+		pump();
+	}
+
+	/** Waits at most timeout milliseconds for an event, then pumps. */
+	public void blockingPump(long timeout) throws InterruptedException {
+		awaitEvents(TimeUnit.MILLISECONDS.toNanos(timeout));
+		pump();
+	}
+
+	/**
+	 * Delivers up to max posted events straight to sink rather than to the
+	 * pipe's sinks, and returns how many.
+	 */
+	public int drainTo(Sink sink, int max) {
+		if (sink == null)
+			throw new NullPointerException("sink");
+		return drain(sink, max);
+	}
+
+	private int drain(Sink sink, int max) {
+		if (!pumping.compareAndSet(false, true))
+			return 0;
+		long t = tail, start = t;
+		try {
+			while (t - start < max) {
+				int s = (int) t & mask;
+				if (published.get(s) != t + 1)
+					break;
+				t++;
+				deliver(s, sink);
+				if (((t - start) & 1023) == 0)
+					release(t);
+			}
+		} finally {
+			if (t > start) {
+				release(t);
+				delivered += t - start;
+				batches++;
+			}
+			pumping.set(false);
+		}
+		return (int) (t - start);
+	}
+
+	/** Hands the slots before t back to the posters. */
+	private void release(long t) {
+		tail = t;
+		if (producersWaiting > 0)
+			signal(notFull);
+	}
+
+	private void awaitEvents(long nanos) throws InterruptedException {
+		long deadline = System.nanoTime() + nanos;
+		for (int spins = 0; !hasPostRemaining(); spins++) {
+			long left = nanos < 0 ? Long.MAX_VALUE : deadline - System.nanoTime();
+			if (left <= 0)
+				return;
+			if (Thread.interrupted())
+				throw new InterruptedException();
+			if (strategy == WaitStrategy.BLOCK && spins > 100) {
+				lock.lock();
+				try {
+					consumersWaiting++;
+					if (!hasPostRemaining())
+						notEmpty.awaitNanos(Math.min(left, TimeUnit.MILLISECONDS.toNanos(100)));
+				} finally {
+					consumersWaiting--;
+					lock.unlock();
+				}
+			} else
+				idle(spins, left);
+		}
+	}
+
+	private void idle(int spins, long left) {
+		if (strategy == WaitStrategy.SPIN || spins < 100)
+			return; // busy spin, the caller checks again
+		if (strategy == WaitStrategy.YIELD)
+			Thread.yield();
+		else
+			LockSupport.parkNanos(Math.min(left, PARK_NANOS));
+	}
+
+	private void signal(Condition condition) {
+		lock.lock();
+		try {
+			condition.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void deliver(int s, Sink sink) {
+		int a = 5 * s;
+		String id = (String) args[a];
+		Object a0 = args[a + 1], a1 = args[a + 2], a2 = args[a + 3], a3 = args[a + 4];
+		args[a] = args[a + 1] = args[a + 2] = args[a + 3] = args[a + 4] = null;
+		long t = times[s];
+		if (sink == null)
+			send(ops[s], id, t, a0, a1, a2, a3, steps[s]);
+		else
+			send(sink, ops[s], id, t, a0, a1, a2, a3, steps[s]);
+	}
+
+	private void send(byte op, String id, long t, Object a0, Object a1, Object a2, Object a3, double step) {
+		switch (op) {
+		case EventLog.NODE_ADDED:
+			sendNodeAdded(id, t, (String) a0);
+			break;
+		case EventLog.NODE_REMOVED:
+			sendNodeRemoved(id, t, (String) a0);
+			break;
+		case EventLog.EDGE_ADDED:
+			sendEdgeAdded(id, t, (String) a0, (String) a1, (String) a2, (Boolean) a3);
+			break;
+		case EventLog.EDGE_REMOVED:
+			sendEdgeRemoved(id, t, (String) a0);
+			break;
+		case EventLog.GRAPH_CLEARED:
+			sendGraphCleared(id, t);
+			break;
+		case EventLog.STEP_BEGINS:
+			sendStepBegins(id, t, step);
+			break;
+		case EventLog.GRAPH_ATTR_ADDED:
+			sendGraphAttributeAdded(id, t, (String) a0, a1);
+			break;
+		case EventLog.GRAPH_ATTR_CHANGED:
+			sendGraphAttributeChanged(id, t, (String) a0, a1, a2);
+			break;
+		case EventLog.GRAPH_ATTR_REMOVED:
+			sendGraphAttributeRemoved(id, t, (String) a0);
+			break;
+		case EventLog.NODE_ATTR_ADDED:
+			sendNodeAttributeAdded(id, t, (String) a0, (String) a1, a2);
+			break;
+		case EventLog.NODE_ATTR_CHANGED:
+			sendNodeAttributeChanged(id, t, (String) a0, (String) a1, a2, a3);
+			break;
+		case EventLog.NODE_ATTR_REMOVED:
+			sendNodeAttributeRemoved(id, t, (String) a0, (String) a1);
+			break;
+		case EventLog.EDGE_ATTR_ADDED:
+			sendEdgeAttributeAdded(id, t, (String) a0, (String) a1, a2);
+			break;
+		case EventLog.EDGE_ATTR_CHANGED:
+			sendEdgeAttributeChanged(id, t, (String) a0, (String) a1, a2, a3);
+			break;
+		default:
+			sendEdgeAttributeRemoved(id, t, (String) a0, (String) a1);
+		}
+	}
+
+	private static void send(Sink sink, byte op, String id, long t, Object a0, Object a1, Object a2, Object a3,
+			double step) {
+		switch (op) {
+		case EventLog.NODE_ADDED:
+			sink.nodeAdded(id, t, (String) a0);
+			break;
+		case EventLog.NODE_REMOVED:
+			sink.nodeRemoved(id, t, (String) a0);
+			break;
+		case EventLog.EDGE_ADDED:
+			sink.edgeAdded(id, t, (String) a0, (String) a1, (String) a2, (Boolean) a3);
+			break;
+		case EventLog.EDGE_REMOVED:
+			sink.edgeRemoved(id, t, (String) a0);
+			break;
+		case EventLog.GRAPH_CLEARED:
+			sink.graphCleared(id, t);
+			break;
+		case EventLog.STEP_BEGINS:
+			sink.stepBegins(id, t, step);
+			break;
+		case EventLog.GRAPH_ATTR_ADDED:
+			sink.graphAttributeAdded(id, t, (String) a0, a1);
+			break;
+		case EventLog.GRAPH_ATTR_CHANGED:
+			sink.graphAttributeChanged(id, t, (String) a0, a1, a2);
+			break;
+		case EventLog.GRAPH_ATTR_REMOVED:
+			sink.graphAttributeRemoved(id, t, (String) a0);
+			break;
+		case EventLog.NODE_ATTR_ADDED:
+			sink.nodeAttributeAdded(id, t, (String) a0, (String) a1, a2);
+			break;
+		case EventLog.NODE_ATTR_CHANGED:
+			sink.nodeAttributeChanged(id, t, (String) a0, (String) a1, a2, a3);
+			break;
+		case EventLog.NODE_ATTR_REMOVED:
+			sink.nodeAttributeRemoved(id, t, (String) a0, (String) a1);
+			break;
+		case EventLog.EDGE_ATTR_ADDED:
+			sink.edgeAttributeAdded(id, t, (String) a0, (String) a1, a2);
+			break;
+		case EventLog.EDGE_ATTR_CHANGED:
+			sink.edgeAttributeChanged(id, t, (String) a0, (String) a1, a2, a3);
+			break;
+		default:
+			sink.edgeAttributeRemoved(id, t, (String) a0, (String) a1);
+		}
+	}
+
+	// producers
+
+	private void post(byte op, String sourceId, long timeId, Object a0, Object a1, Object a2, Object a3,
+			double step) {
+		long seq = claimed.getAndIncrement();
+		if (seq - tail > mask)
+			awaitSpace(seq);
+		int s = (int) seq & mask, a = 5 * s;
+		ops[s] = op;
+		times[s] = timeId;
+		steps[s] = step;
+		args[a] = sourceId;
+		args[a + 1] = a0;
+		args[a + 2] = a1;
+		args[a + 3] = a2;
+		args[a + 4] = a3;
+		// a blocked consumer is only woken if this store is seen before the
+		// waiter count is read, which takes a full volatile write
+		if (strategy == WaitStrategy.BLOCK)
+			published.set(s, seq + 1);
+		else
+			published.lazySet(s, seq + 1);
+		if (consumersWaiting > 0)
+			signal(notEmpty);
+	}
+
+	private void awaitSpace(long seq) {
+		stalls.incrementAndGet();
+		for (int spins = 0; seq - tail > mask; spins++) {
+			if (strategy == WaitStrategy.BLOCK && spins > 100) {
+				lock.lock();
+				try {
+					producersWaiting++;
+					if (seq - tail > mask)
+						notFull.awaitNanos(TimeUnit.MILLISECONDS.toNanos(100));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("interrupted while the pipe was full", e);
+				} finally {
+					producersWaiting--;
+					lock.unlock();
+				}
+			} else
+				idle(spins, Long.MAX_VALUE);
+		}
+	}
+
+	public void graphAttributeAdded(String sourceId, long timeId, String attribute, Object value) {
+		post(EventLog.GRAPH_ATTR_ADDED, sourceId, timeId, attribute, value, null, null, 0);
+	}
+
+	public void graphAttributeChanged(String sourceId, long timeId, String attribute, Object oldValue,
+			Object newValue) {
+		post(EventLog.GRAPH_ATTR_CHANGED, sourceId, timeId, attribute, oldValue, newValue, null, 0);
+	}
+
+	public void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+		post(EventLog.GRAPH_ATTR_REMOVED, sourceId, timeId, attribute, null, null, null, 0);
+	}
+
+	public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+		post(EventLog.NODE_ATTR_ADDED, sourceId, timeId, nodeId, attribute, value, null, 0);
+	}
+
+	public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute,
+			Object oldValue, Object newValue) {
+		post(EventLog.NODE_ATTR_CHANGED, sourceId, timeId, nodeId, attribute, oldValue, newValue, 0);
+	}
+
+	public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+		post(EventLog.NODE_ATTR_REMOVED, sourceId, timeId, nodeId, attribute, null, null, 0);
+	}
+
+	public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+		post(EventLog.EDGE_ATTR_ADDED, sourceId, timeId, edgeId, attribute, value, null, 0);
+	}
+
+	public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute,
+			Object oldValue, Object newValue) {
+		post(EventLog.EDGE_ATTR_CHANGED, sourceId, timeId, edgeId, attribute, oldValue, newValue, 0);
+	}
+
+	public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+		post(EventLog.EDGE_ATTR_REMOVED, sourceId, timeId, edgeId, attribute, null, null, 0);
+	}
+
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		post(EventLog.NODE_ADDED, sourceId, timeId, nodeId, null, null, null, 0);
+	}
+
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		post(EventLog.NODE_REMOVED, sourceId, timeId, nodeId, null, null, null, 0);
+	}
+
+	public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId,
+			boolean directed) {
+		post(EventLog.EDGE_ADDED, sourceId, timeId, edgeId, fromNodeId, toNodeId, directed, 0);
+	}
+
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		post(EventLog.EDGE_REMOVED, sourceId, timeId, edgeId, null, null, null, 0);
+	}
+
+	public void graphCleared(String sourceId, long timeId) {
+		post(EventLog.GRAPH_CLEARED, sourceId, timeId, null, null, null, null, 0);
+	}
+
+	public void stepBegins(String sourceId, long timeId, double step) {
+		post(EventLog.STEP_BEGINS, sourceId, timeId, null, null, null, null, step);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("ring pipe (%d pending of %d)", getPendingEvents(), getCapacity());
+	}
+}
@@ -0,0 +1,104 @@
+package csce867.graph;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The classes a {@link ShardWorker} deserializes: the boxed primitives,
+ * String, arrays of allowed components and the common java.util
+ * collections, plus those named, comma separated, by the system property
+ * {@value ShardWorker#ALLOW_PROPERTY} (pass it to launched workers as a JVM
+ * option). Anything else in a request ends the connection before the class is
+ * loaded, and {@link #check(Object)} refuses it on the coordinator first.
+ */
+final class ShardClassFilter {
+
+	private static final Set<String> ALLOWED = new HashSet<String>(Arrays.asList("java.lang.Object",
+			"java.lang.String", "java.lang.Boolean", "java.lang.Character", "java.lang.Number", "java.lang.Byte",
+			"java.lang.Short", "java.lang.Integer", "java.lang.Long", "java.lang.Float", "java.lang.Double",
+			"java.util.ArrayList", "java.util.LinkedList", "java.util.Arrays$ArrayList", "java.util.HashMap",
+			"java.util.LinkedHashMap", "java.util.TreeMap", "java.util.HashSet", "java.util.LinkedHashSet",
+			"java.util.TreeSet"));
+
+	static {
+		String extra = System.getProperty(ShardWorker.ALLOW_PROPERTY);
+		if (extra != null)
+			for (String name : extra.split(","))
+				if (!name.trim().isEmpty())
+					ALLOWED.add(name.trim());
+	}
+
+	private ShardClassFilter() {
+	}
+
+	/** True if a class of that name, as ObjectStreamClass gives it, may be read. */
+	static boolean allows(String name) {
+		int dims = 0;
+		while (dims < name.length() && name.charAt(dims) == '[')
+			dims++;
+		if (dims == 0)
+			return ALLOWED.contains(name);
+		String component = name.substring(dims);
+		if (component.length() == 1)
+			return "ZBCSIJFD".indexOf(component.charAt(0)) >= 0;
+		return component.startsWith("L") && component.endsWith(";")
+				&& ALLOWED.contains(component.substring(1, component.length() - 1));
+	}
+
+	/**
+	 * Throws IllegalArgumentException unless value and everything it holds
+	 * (array elements, collection elements, map keys and values) can be
+	 * sent to a worker.
+	 */
+	static void check(Object value) {
+		if (value == null)
+			return;
+		Class<?> type = value.getClass();
+		if (!(value instanceof Serializable) || !allows(type.getName()))
+			throw new IllegalArgumentException("attribute values of a ShardedGraph must be Serializable and of a class "
+					+ "the workers accept (see " + ShardWorker.ALLOW_PROPERTY + "), not " + type.getName());
+		if (type.isArray()) {
+			if (!type.getComponentType().isPrimitive())
+				for (int i = 0, n = Array.getLength(value); i < n; i++)
+					check(Array.get(value, i));
+		} else if (value instanceof Collection) {
+			for (Object o : (Collection<?>) value)
+				check(o);
+		} else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				check(entry.getKey());
+				check(entry.getValue());
+			}
+		}
+	}
+
+	/** An object stream resolving allowed classes only, and no proxy. */
+	static final class Input extends ObjectInputStream {
+
+		Input(InputStream in) throws IOException {
+			super(in);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+			if (!allows(desc.getName()))
+				throw new InvalidClassException(desc.getName(), "not accepted by a shard worker");
+			return super.resolveClass(desc);
+		}
+
+		@Override
+		protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+			throw new InvalidClassException("proxy", "not accepted by a shard worker");
+		}
+	}
+}
@@ -0,0 +1,149 @@
+package csce867.graph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Arrays;
+
+/**
+ * The coordinator's end of the connection to one {@link ShardWorker}.
+ * Requests are queued with {@link #send(int, Object...)}, which answers
+ * their position in the batch, sent with {@link #submit()} and their
+ * answers read back with {@link #receive()}; submitting every connection
+ * before receiving from any lets the workers run the batches in parallel.
+ *
+ * A request that failed on the worker keeps its exception, thrown by
+ * {@link #result(int)} or by {@link #failure()}. An I/O error breaks the
+ * connection for good.
+ */
+final class ShardConnection implements Closeable {
+
+	private static final Object[] NONE = new Object[0];
+
+	final int partition;
+	private final Socket socket;
+	private final ObjectOutputStream out;
+	private ObjectInputStream in;
+
+	private int pending, submitted, received;
+	private Object[] results = NONE;
+	private boolean[] failed = new boolean[0];
+	private IOException broken;
+
+	/** Connects and sends the worker's token, ahead of any object. */
+	ShardConnection(int partition, InetSocketAddress address, byte[] token) throws IOException {
+		this.partition = partition;
+		socket = new Socket(address.getAddress(), address.getPort());
+		socket.setTcpNoDelay(true);
+		socket.getOutputStream().write(token);
+		out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+		out.flush();
+	}
+
+	private IllegalStateException brokenError() {
+		return new IllegalStateException("connection to shard " + partition + " is broken", broken);
+	}
+
+	/** Queues a request, answers its position in the batch. */
+	int send(int op, Object... args) {
+		if (broken != null)
+			throw brokenError();
+		try {
+			out.writeByte(op);
+			out.writeByte(args.length);
+			for (Object a : args)
+				out.writeObject(a);
+		} catch (IOException e) {
+			broken = e;
+			throw brokenError();
+		}
+		return pending++;
+	}
+
+	boolean hasPending() {
+		return pending > 0;
+	}
+
+	/** Ends the batch and sends it. */
+	void submit() {
+		if (pending == 0 || submitted == pending)
+			return;
+		try {
+			out.writeByte(ShardWorker.END);
+			out.reset();
+			out.flush();
+			submitted = pending;
+		} catch (IOException e) {
+			broken = e;
+			throw brokenError();
+		}
+	}
+
+	/** Reads the answers of the submitted batch, which then ends. */
+	void receive() {
+		int n = submitted;
+		pending = submitted = received = 0;
+		if (n == 0)
+			return;
+		if (broken != null)
+			throw brokenError();
+		if (results.length < n) {
+			results = new Object[n];
+			failed = new boolean[n];
+		}
+		try {
+			if (in == null)
+				in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+			for (int i = 0; i < n; i++) {
+				failed[i] = in.readByte() != 0;
+				results[i] = in.readObject();
+			}
+			Arrays.fill(results, n, results.length, null);
+			received = n;
+		} catch (IOException e) {
+			broken = e;
+			throw brokenError();
+		} catch (ClassNotFoundException e) {
+			broken = new IOException(e);
+			throw brokenError();
+		}
+	}
+
+	/** Answer of the request at position i, or its exception. */
+	Object result(int i) {
+		if (failed[i])
+			throw rethrow(results[i]);
+		return results[i];
+	}
+
+	/** Exception of the first failed request of the batch, or null. */
+	RuntimeException failure() {
+		for (int i = 0; i < received; i++)
+			if (failed[i])
+				return rethrow(results[i]);
+		return null;
+	}
+
+	private RuntimeException rethrow(Object error) {
+		if (error instanceof RuntimeException)
+			return (RuntimeException) error;
+		return new IllegalStateException("shard " + partition + " failed", (Throwable) error);
+	}
+
+	/** One request in a batch of its own. */
+	Object call(int op, Object... args) {
+		int i = send(op, args);
+		submit();
+		receive();
+		return result(i);
+	}
+
+	public void close() throws IOException {
+		socket.close();
+	}
+}
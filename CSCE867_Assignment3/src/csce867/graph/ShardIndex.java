@@ -0,0 +1,84 @@
+package csce867.graph;
+
+import java.util.Arrays;
+
+/**
+ * The indices of one kind of element of a {@link ShardedGraph}, kept by the
+ * coordinator without the ids: for each index the partition of the element
+ * and its index there, and for each partition the way back. Three ints per
+ * element.
+ *
+ * It follows both sides of the SingleGraph index contract: a partition
+ * moves its last element into the index it frees, and so does the graph,
+ * so the coordinator replays each removal from the freed local index alone.
+ */
+final class ShardIndex {
+
+	private int size;
+	private int[] partitionOf = new int[16], localOf = new int[16];
+	private final int[] counts;
+	private final int[][] globalAt;
+
+	ShardIndex(int partitions) {
+		counts = new int[partitions];
+		globalAt = new int[partitions][16];
+	}
+
+	int size() {
+		return size;
+	}
+
+	/** Elements in partition p. */
+	int count(int p) {
+		return counts[p];
+	}
+
+	int partitionOf(int index) {
+		return partitionOf[index];
+	}
+
+	int localOf(int index) {
+		return localOf[index];
+	}
+
+	/** Index of the element with local index local in partition p. */
+	int indexOf(int p, int local) {
+		return local >= 0 && local < counts[p] ? globalAt[p][local] : -1;
+	}
+
+	/** Records an element appended to partition p, answers its index. */
+	int add(int p) {
+		if (size == partitionOf.length) {
+			int n = IdTable.grow(size);
+			partitionOf = Arrays.copyOf(partitionOf, n);
+			localOf = Arrays.copyOf(localOf, n);
+		}
+		int local = counts[p]++;
+		if (local == globalAt[p].length)
+			globalAt[p] = Arrays.copyOf(globalAt[p], IdTable.grow(local));
+		globalAt[p][local] = size;
+		partitionOf[size] = p;
+		localOf[size] = local;
+		return size++;
+	}
+
+	/** Records the removal of the element with local index local in partition p. */
+	void remove(int p, int local) {
+		int index = globalAt[p][local];
+		int moved = globalAt[p][--counts[p]];
+		globalAt[p][local] = moved;
+		localOf[moved] = local;
+		int last = --size;
+		if (index != last) {
+			int q = partitionOf[last];
+			partitionOf[index] = q;
+			localOf[index] = localOf[last];
+			globalAt[q][localOf[index]] = index;
+		}
+	}
+
+	void clear() {
+		size = 0;
+		Arrays.fill(counts, 0);
+	}
+}
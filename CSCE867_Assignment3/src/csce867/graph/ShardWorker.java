@@ -0,0 +1,564 @@
+package csce867.graph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+
+/**
+ * One partition of a {@link ShardedGraph}, serving its coordinator over a
+ * loopback socket. Run as a process (main prints the port it listens on,
+ * then serves one coordinator and exits when it hangs up) or on a thread
+ * of the coordinator's JVM.
+ *
+ * The partition holds:
+ * <ul>
+ * <li>the nodes it owns, those whose id hashes to it, with their
+ * attributes;</li>
+ * <li>the edge records it is home to, those whose id hashes to it:
+ * endpoints, direction and attributes;</li>
+ * <li>the adjacency of its nodes, a CompactGraph holding every edge with
+ * an endpoint here. The endpoint owned by another partition is a ghost
+ * node: a node of that CompactGraph with no attributes and no index, which
+ * goes away with its last edge.</li>
+ * </ul>
+ * Owned nodes and home edges have dense local indices (the last one moves
+ * into a freed index), which the coordinator maps to the indices of the
+ * whole graph.
+ *
+ * A coordinator first sends the worker's token, the {@value #TOKEN_LENGTH}
+ * random bytes it was started with; a connection that does not is dropped
+ * before anything is deserialized, and the worker waits for the next. The
+ * requests are then read through a class allowlist (see
+ * {@link #ALLOW_PROPERTY}). Requests come in batches: an op byte, its
+ * arguments as objects, and so on until {@link #END}. Each answer is a status byte and an object; they
+ * are collected in memory and sent when the batch ends, so a coordinator
+ * may write a batch of any size before reading.
+ */
+public final class ShardWorker implements Runnable {
+
+	static final int END = 0;
+	static final int COUNTS = 1, CLEAR = 2, IDS = 3, IDS_AT = 4;
+	static final int ADD_NODE = 10, HAS_NODE = 11, NODE_INDEX = 12, REMOVE_NODE = 13, DEGREE = 14,
+			INCIDENT = 15, NTH_EDGE = 16, EDGE_BETWEEN = 17, PROBE = 18;
+	static final int EDGE_INFO = 20, EDGE_INDEX = 21, PUT_EDGE = 22, DROP_EDGE = 23, LINK = 24, UNLINK = 25;
+	static final int GET_ATTR = 30, HAS_ATTR = 31, PUT_ATTR = 32, REMOVE_ATTR = 33, CLEAR_ATTRS = 34,
+			ATTR_KEYS = 35, ATTR_COUNT = 36;
+	static final int VISIT_BEGIN = 40, VISIT = 41;
+
+	/** Edge kinds of DEGREE, INCIDENT, NTH_EDGE and EDGE_BETWEEN, as in ConcurrentNode. */
+	static final int ANY = 0, ENTERING = 1, LEAVING = 2;
+
+	private static final int OK = 0, FAILED = 1;
+
+	/** Bytes of the token a coordinator opens its connection with. */
+	public static final int TOKEN_LENGTH = 32;
+
+	/**
+	 * System property naming, comma separated, the classes attribute values
+	 * may have besides the boxed primitives, String, arrays and the common
+	 * java.util collections.
+	 */
+	public static final String ALLOW_PROPERTY = "csce867.graph.shardClasses";
+
+	/** Milliseconds a new connection has to send the token. */
+	private static final int TOKEN_TIMEOUT = 5000;
+
+	private final ServerSocket server;
+	private final byte[] token;
+
+	private final KeyDictionary keys = new KeyDictionary();
+	private CompactGraph local;
+	private IdTable nodes;
+	private AttributeTable nodeAttributes;
+	private IdTable edges;
+	private String[] edgeFrom, edgeTo;
+	private BitSet edgeDirected;
+	private AttributeTable edgeAttributes;
+
+	// breadth-first visit, by owned index
+	private BitSet visited, queued;
+	private int[] frontier = new int[16];
+	private int frontierSize;
+
+	/** Listens on an ephemeral loopback port for the holder of token. */
+	public ShardWorker(byte[] token) throws IOException {
+		this(0, token);
+	}
+
+	public ShardWorker(int port, byte[] token) throws IOException {
+		if (token.length != TOKEN_LENGTH)
+			throw new IllegalArgumentException("a shard token has " + TOKEN_LENGTH + " bytes");
+		this.token = token.clone();
+		server = new ServerSocket(port, 1, InetAddress.getLoopbackAddress());
+		allocate();
+	}
+
+	/** A fresh random token. */
+	public static byte[] newToken() {
+		byte[] token = new byte[TOKEN_LENGTH];
+		new SecureRandom().nextBytes(token);
+		return token;
+	}
+
+	public int getPort() {
+		return server.getLocalPort();
+	}
+
+	private void allocate() {
+		local = new CompactGraph("shard", false, false);
+		nodes = new IdTable(CompactGraph.DEFAULT_NODE_CAPACITY);
+		nodeAttributes = new AttributeTable(keys, CompactGraph.DEFAULT_NODE_CAPACITY);
+		edges = new IdTable(CompactGraph.DEFAULT_EDGE_CAPACITY);
+		edgeFrom = new String[CompactGraph.DEFAULT_EDGE_CAPACITY];
+		edgeTo = new String[CompactGraph.DEFAULT_EDGE_CAPACITY];
+		edgeDirected = new BitSet();
+		edgeAttributes = new AttributeTable(keys, CompactGraph.DEFAULT_EDGE_CAPACITY);
+		visited = new BitSet();
+		queued = new BitSet();
+		frontierSize = 0;
+	}
+
+	/** Serves the first coordinator holding the token until it closes the connection. */
+	public void run() {
+		try (ServerSocket s = server) {
+			while (true) {
+				try (Socket socket = s.accept()) {
+					if (authenticated(socket)) {
+						socket.setTcpNoDelay(true);
+						serve(socket);
+						return;
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("shard worker failed", e);
+		}
+	}
+
+	private boolean authenticated(Socket socket) throws IOException {
+		byte[] sent = new byte[TOKEN_LENGTH];
+		socket.setSoTimeout(TOKEN_TIMEOUT);
+		try {
+			new DataInputStream(socket.getInputStream()).readFully(sent);
+		} catch (EOFException | SocketTimeoutException e) {
+			return false;
+		}
+		socket.setSoTimeout(0);
+		return MessageDigest.isEqual(token, sent);
+	}
+
+	private void serve(Socket socket) throws IOException {
+		OutputStream wire = new BufferedOutputStream(socket.getOutputStream(), 1 << 16);
+		ByteArrayOutputStream answers = new ByteArrayOutputStream(1 << 16);
+		ObjectOutputStream out = new ObjectOutputStream(answers);
+		ObjectInputStream in = new ShardClassFilter.Input(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+		out.flush();
+		answers.writeTo(wire);
+		wire.flush();
+		answers.reset();
+		while (true) {
+			int op;
+			try {
+				op = in.readByte();
+			} catch (EOFException e) {
+				return;
+			}
+			if (op == END) {
+				out.reset();
+				out.flush();
+				answers.writeTo(wire);
+				wire.flush();
+				answers.reset();
+				continue;
+			}
+			Object[] args = new Object[in.readUnsignedByte()];
+			try {
+				for (int i = 0; i < args.length; i++)
+					args[i] = in.readObject();
+			} catch (ClassNotFoundException e) {
+				throw new IOException(e);
+			}
+			Object answer;
+			int status = OK;
+			try {
+				answer = execute(op, args);
+			} catch (RuntimeException e) {
+				answer = e;
+				status = FAILED;
+			}
+			out.writeByte(status);
+			out.writeObject(answer);
+		}
+	}
+
+	// Ops
+
+	private Object execute(int op, Object[] a) {
+		switch (op) {
+		case COUNTS:
+			return new int[] { nodes.size(), edges.size() };
+		case CLEAR:
+			allocate();
+			return null;
+		case IDS:
+			return ids((Boolean) a[0] ? nodes : edges, (Integer) a[1], (Integer) a[2]);
+		case IDS_AT:
+			return ids((Boolean) a[0] ? nodes : edges, (int[]) a[1]);
+
+		case ADD_NODE:
+			return addNode((String) a[0]);
+		case HAS_NODE:
+			return nodes.indexOf((String) a[0]) >= 0;
+		case NODE_INDEX:
+			return nodes.indexOf((String) a[0]);
+		case REMOVE_NODE:
+			return removeNode((String) a[0]);
+		case DEGREE:
+			return degree(owned((String) a[0]), (Integer) a[1]);
+		case INCIDENT:
+			return incident(owned((String) a[0]), (Integer) a[1]);
+		case NTH_EDGE:
+			return nthEdge(owned((String) a[0]), (Integer) a[1], (Integer) a[2]);
+		case EDGE_BETWEEN:
+			return edgeBetween(owned((String) a[0]), (String) a[1], (Integer) a[2]);
+		case PROBE:
+			return probe((String) a[0], (String) a[1]);
+
+		case EDGE_INFO:
+			return edgeInfo((String) a[0]);
+		case EDGE_INDEX:
+			return edges.indexOf((String) a[0]);
+		case PUT_EDGE:
+			putEdge((String) a[0], (String) a[1], (String) a[2], (Boolean) a[3]);
+			return null;
+		case DROP_EDGE:
+			return dropEdge((String) a[0]);
+		case LINK:
+			link((String) a[0], (String) a[1], (String) a[2], (Boolean) a[3]);
+			return null;
+		case UNLINK:
+			unlink((String) a[0]);
+			return null;
+
+		case GET_ATTR:
+		case HAS_ATTR:
+		case PUT_ATTR:
+		case REMOVE_ATTR:
+		case CLEAR_ATTRS:
+		case ATTR_KEYS:
+		case ATTR_COUNT:
+			return attribute(op, (Boolean) a[0], (String) a[1], a.length > 2 ? (String) a[2] : null,
+					a.length > 3 ? a[3] : null);
+
+		case VISIT_BEGIN:
+			visited = new BitSet(nodes.size());
+			queued = new BitSet(nodes.size());
+			frontierSize = 0;
+			return null;
+		case VISIT:
+			return visit((String[]) a[0], (Boolean) a[1]);
+		}
+		throw new IllegalArgumentException("unknown op " + op);
+	}
+
+	private static String[] ids(IdTable table, int from, int count) {
+		int to = Math.min(table.size(), from + count);
+		String[] ids = new String[Math.max(0, to - from)];
+		for (int i = from; i < to; i++)
+			ids[i - from] = table.get(i);
+		return ids;
+	}
+
+	private static String[] ids(IdTable table, int[] indices) {
+		String[] ids = new String[indices.length];
+		for (int i = 0; i < indices.length; i++)
+			ids[i] = table.get(indices[i]);
+		return ids;
+	}
+
+	// owned nodes
+
+	private boolean addNode(String id) {
+		if (nodes.indexOf(id) >= 0)
+			return false;
+		int index = nodes.add(id);
+		nodeAttributes.ensure(index + 1);
+		local.addNode(id);
+		return true;
+	}
+
+	/**
+	 * Drops a node whose edges the coordinator has already removed. Answers
+	 * the index it freed, -1 if there was no such node.
+	 */
+	private int removeNode(String id) {
+		int u = nodes.indexOf(id);
+		if (u < 0)
+			return -1;
+		int last = nodes.size() - 1;
+		if (u != last)
+			nodeAttributes.move(last, u);
+		else
+			nodeAttributes.clear(u);
+		nodes.removeSwap(u);
+		local.removeNode(id);
+		return u;
+	}
+
+	/** Index in the adjacency of an owned node, throwing once it is gone. */
+	private int owned(String id) {
+		if (nodes.indexOf(id) < 0)
+			throw new IllegalStateException("element was removed from its graph");
+		return local.nodeIds.indexOf(id);
+	}
+
+	private boolean matches(int u, int e, int kind) {
+		if (kind == ANY || !local.edgeDirected.get(e))
+			return true;
+		return kind == LEAVING ? local.edgeSource[e] == u : local.edgeTarget[e] == u;
+	}
+
+	private int degree(int u, int kind) {
+		CsrAdjacency adjacency = local.adjacency;
+		int degree = adjacency.degree(u);
+		if (kind == ANY)
+			return degree;
+		int n = 0;
+		for (int i = 0; i < degree; i++)
+			if (matches(u, adjacency.get(u, i), kind))
+				n++;
+		return n;
+	}
+
+	/** Edge id, opposite node id, for each edge of the kind in list order. */
+	private String[] incident(int u, int kind) {
+		CsrAdjacency adjacency = local.adjacency;
+		int degree = adjacency.degree(u);
+		String[] pairs = new String[2 * degree];
+		int n = 0;
+		for (int i = 0; i < degree; i++) {
+			int e = adjacency.get(u, i);
+			if (matches(u, e, kind)) {
+				pairs[n++] = local.edgeIds.get(e);
+				pairs[n++] = local.nodeIds.get(local.opposite(e, u));
+			}
+		}
+		return n == pairs.length ? pairs : Arrays.copyOf(pairs, n);
+	}
+
+	private String nthEdge(int u, int kind, int i) {
+		CsrAdjacency adjacency = local.adjacency;
+		int degree = adjacency.degree(u);
+		for (int k = 0, seen = 0; k < degree; k++) {
+			int e = adjacency.get(u, k);
+			if (matches(u, e, kind) && seen++ == i)
+				return local.edgeIds.get(e);
+		}
+		throw new IndexOutOfBoundsException("Node " + local.nodeIds.get(u) + " has no edge " + i);
+	}
+
+	private String edgeBetween(int u, String other, int kind) {
+		int v = local.nodeIds.indexOf(other);
+		if (v < 0)
+			return null;
+		int e = local.edgeBetween(u, v);
+		return e >= 0 && matches(u, e, kind) ? local.edgeIds.get(e) : null;
+	}
+
+	/** Whether from is owned here, and the edge between it and to if any. */
+	private Object[] probe(String from, String to) {
+		if (nodes.indexOf(from) < 0)
+			return new Object[] { false, null };
+		return new Object[] { true, edgeBetween(local.nodeIds.indexOf(from), to, ANY) };
+	}
+
+	// home edge records
+
+	private Object[] edgeInfo(String id) {
+		int e = edges.indexOf(id);
+		return e < 0 ? null : new Object[] { edgeFrom[e], edgeTo[e], edgeDirected.get(e) };
+	}
+
+	private void putEdge(String id, String from, String to, boolean directed) {
+		int e = edges.add(id);
+		if (e == edgeFrom.length) {
+			int n = IdTable.grow(e);
+			edgeFrom = Arrays.copyOf(edgeFrom, n);
+			edgeTo = Arrays.copyOf(edgeTo, n);
+		}
+		edgeAttributes.ensure(e + 1);
+		edgeFrom[e] = from;
+		edgeTo[e] = to;
+		edgeDirected.set(e, directed);
+	}
+
+	/** Drops an edge record, answers the index it freed or -1. */
+	private int dropEdge(String id) {
+		int e = edges.indexOf(id);
+		if (e < 0)
+			return -1;
+		int last = edges.size() - 1;
+		if (e != last) {
+			edgeFrom[e] = edgeFrom[last];
+			edgeTo[e] = edgeTo[last];
+			edgeDirected.set(e, edgeDirected.get(last));
+			edgeAttributes.move(last, e);
+		} else {
+			edgeAttributes.clear(e);
+		}
+		edgeFrom[last] = edgeTo[last] = null;
+		edgeDirected.clear(last);
+		edges.removeSwap(e);
+		return e;
+	}
+
+	// adjacency, with ghosts for the endpoints owned elsewhere
+
+	private void link(String id, String from, String to, boolean directed) {
+		if (local.nodeIds.indexOf(from) < 0)
+			local.addNode(from);
+		if (local.nodeIds.indexOf(to) < 0)
+			local.addNode(to);
+		local.addEdge(id, from, to, directed);
+	}
+
+	private void unlink(String id) {
+		int e = local.edgeIds.indexOf(id);
+		if (e < 0)
+			return;
+		String from = local.nodeIds.get(local.edgeSource[e]), to = local.nodeIds.get(local.edgeTarget[e]);
+		local.removeEdge(e);
+		dropGhost(from);
+		dropGhost(to);
+	}
+
+	private void dropGhost(String id) {
+		if (nodes.indexOf(id) >= 0)
+			return;
+		int g = local.nodeIds.indexOf(id);
+		if (g >= 0 && local.adjacency.degree(g) == 0)
+			local.removeNode(g);
+	}
+
+	// attributes, of owned nodes or home edges
+
+	private Object attribute(int op, boolean node, String id, String key, Object value) {
+		int index = node ? nodes.indexOf(id) : edges.indexOf(id);
+		AttributeTable table = node ? nodeAttributes : edgeAttributes;
+		switch (op) {
+		case GET_ATTR:
+			return index < 0 ? null : table.value(index, key);
+		case HAS_ATTR:
+			return index >= 0 && table.contains(index, key);
+		case ATTR_KEYS:
+			return index < 0 ? new String[0] : table.keys(index).toArray(new String[0]);
+		case ATTR_COUNT:
+			return index < 0 ? 0 : table.count(index);
+		}
+		if (index < 0)
+			throw new IllegalStateException("element was removed from its graph");
+		if (op == PUT_ATTR) {
+			boolean had = table.contains(index, key);
+			return new Object[] { had, table.put(index, key, value) };
+		}
+		if (op == REMOVE_ATTR) {
+			if (!table.contains(index, key))
+				return null;
+			return new Object[] { true, table.delete(index, key) };
+		}
+		// CLEAR_ATTRS: key, old value, ... in key order
+		Collection<String> all = table.keys(index);
+		Object[] removed = new Object[2 * all.size()];
+		int n = 0;
+		for (String k : all) {
+			removed[n++] = k;
+			removed[n++] = table.delete(index, k);
+		}
+		return removed;
+	}
+
+	// breadth-first visit, one level per request
+
+	/**
+	 * Visits the owned nodes among ids and those queued by the previous
+	 * level, and expands them: neighbours owned here are queued for the
+	 * next level, the others are returned for the coordinator to route.
+	 * Answers the number of nodes visited and the remote neighbours.
+	 */
+	private Object[] visit(String[] ids, boolean directed) {
+		int[] level = Arrays.copyOf(frontier, frontierSize + ids.length);
+		int n = frontierSize;
+		for (String id : ids) {
+			int u = nodes.indexOf(id);
+			if (u >= 0)
+				level[n++] = u;
+		}
+		frontierSize = 0;
+		queued.clear();
+		LinkedHashSet<String> remote = new LinkedHashSet<String>();
+		int count = 0;
+		CsrAdjacency adjacency = local.adjacency;
+		for (int i = 0; i < n; i++) {
+			int u = level[i];
+			if (visited.get(u))
+				continue;
+			visited.set(u);
+			count++;
+			int x = local.nodeIds.indexOf(nodes.get(u));
+			for (int k = 0, degree = adjacency.degree(x); k < degree; k++) {
+				int e = adjacency.get(x, k);
+				if (directed && !matches(x, e, LEAVING))
+					continue;
+				String other = local.nodeIds.get(local.opposite(e, x));
+				int v = nodes.indexOf(other);
+				if (v < 0) {
+					remote.add(other);
+				} else if (!visited.get(v) && !queued.get(v)) {
+					queued.set(v);
+					if (frontierSize == frontier.length)
+						frontier = Arrays.copyOf(frontier, 2 * frontierSize);
+					frontier[frontierSize++] = v;
+				}
+			}
+		}
+		return new Object[] { count, remote.toArray(new String[remote.size()]) };
+	}
+
+	/**
+	 * Runs a worker process: reads its token in hexadecimal from the first
+	 * line of the standard input, listens on the loopback port given as
+	 * argument (default any free one), prints it on its own line, serves one
+	 * coordinator and exits.
+	 */
+	public static void main(String[] args) throws IOException {
+		String hex = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII)).readLine();
+		if (hex == null || hex.trim().length() != 2 * TOKEN_LENGTH)
+			throw new IOException("expected a " + TOKEN_LENGTH + " byte token in hexadecimal on the standard input");
+		byte[] token = new byte[TOKEN_LENGTH];
+		for (int i = 0; i < TOKEN_LENGTH; i++)
+			token[i] = (byte) Integer.parseInt(hex.trim().substring(2 * i, 2 * i + 2), 16);
+		ShardWorker worker = new ShardWorker(args.length > 0 ? Integer.parseInt(args[0]) : 0, token);
+		System.out.println(worker.getPort());
+		System.out.flush();
+		worker.run();
+	}
+}
@@ -0,0 +1,75 @@
+package csce867.graph;
+
+import static csce867.graph.ShardWorker.EDGE_INFO;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+
+/**
+ * Edge handle of a {@link ShardedGraph}: the graph and the id, endpoints
+ * read from the edge record at its home partition on each call.
+ */
+public class ShardedEdge extends ShardedElement implements Edge {
+
+	ShardedEdge(ShardedGraph graph, String id) {
+		super(graph, id);
+	}
+
+	@Override
+	boolean isNode() {
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		Object[] info = info();
+		return String.format("%s[%s%s%s]", getId(), info[0], (Boolean) info[2] ? "->" : "--", info[1]);
+	}
+
+	/** Source id, target id, directed. */
+	private Object[] info() {
+		Object[] info = (Object[]) graph.call(partition, EDGE_INFO, getId());
+		if (info == null)
+			throw new IllegalStateException("element was removed from its graph");
+		return info;
+	}
+
+	public boolean isDirected() {
+		return (Boolean) info()[2];
+	}
+
+	public boolean isLoop() {
+		Object[] info = info();
+		return info[0].equals(info[1]);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T getNode0() {
+		return (T) new ShardedNode(graph, (String) info()[0]);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T getNode1() {
+		return (T) new ShardedNode(graph, (String) info()[1]);
+	}
+
+	public <T extends Node> T getSourceNode() {
+		return getNode0();
+	}
+
+	public <T extends Node> T getTargetNode() {
+		return getNode1();
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T getOpposite(Node node) {
+		if (!(node instanceof ShardedNode) || ((ShardedNode) node).graph != graph)
+			return null;
+		Object[] info = info();
+		if (node.getId().equals(info[0]))
+			return (T) new ShardedNode(graph, (String) info[1]);
+		if (node.getId().equals(info[1]))
+			return (T) new ShardedNode(graph, (String) info[0]);
+		return null;
+	}
+}
@@ -0,0 +1,123 @@
+package csce867.graph;
+
+import static csce867.graph.ShardWorker.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+import org.graphstream.graph.implementations.AbstractElement.AttributeChangeEvent;
+
+/**
+ * What ShardedNode and ShardedEdge share: the graph, the id and the
+ * partition answering for the element, the owner of a node or the home of
+ * an edge. Every attribute call is one request to that partition; the
+ * compound FacadeElement operations (add, remove, clear) are one request
+ * each too, answering the old values for the events the graph sends.
+ */
+abstract class ShardedElement extends FacadeElement {
+
+	final ShardedGraph graph;
+	private final String id;
+	final int partition;
+
+	ShardedElement(ShardedGraph graph, String id) {
+		this.graph = graph;
+		this.id = id;
+		partition = graph.partition(id);
+	}
+
+	abstract boolean isNode();
+
+	public String getId() {
+		return id;
+	}
+
+	public int getIndex() {
+		return graph.indexOf(this);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof ShardedElement))
+			return false;
+		ShardedElement e = (ShardedElement) o;
+		return e.graph == graph && e.isNode() == isNode() && e.id.equals(id);
+	}
+
+	@Override
+	public int hashCode() {
+		return id.hashCode();
+	}
+
+	// attributes live in the element's partition
+
+	@Override
+	protected Object attributeValue(String key) {
+		return graph.readAttribute(this, GET_ATTR, key);
+	}
+
+	@Override
+	protected boolean containsAttribute(String key) {
+		return (Boolean) graph.readAttribute(this, HAS_ATTR, key);
+	}
+
+	@Override
+	protected Object putAttribute(String key, Object value) {
+		return graph.writeAttribute(this, PUT_ATTR, key, value);
+	}
+
+	@Override
+	protected Object deleteAttribute(String key) {
+		return graph.writeAttribute(this, REMOVE_ATTR, key, null);
+	}
+
+	@Override
+	protected Collection<String> attributeKeys() {
+		return new ArrayList<String>(Arrays.asList((String[]) graph.readAttribute(this, ATTR_KEYS, null)));
+	}
+
+	public int getAttributeCount() {
+		return (Integer) graph.readAttribute(this, ATTR_COUNT, null);
+	}
+
+	@Override
+	protected boolean nullAttributesAreErrors() {
+		return graph.nullAttributesAreErrors();
+	}
+
+	@Override
+	protected void attributeChanged(AttributeChangeEvent event, String attribute, Object oldValue,
+			Object newValue) {
+		// sent by the graph once the partition answered
+	}
+
+	@Override
+	public void addAttribute(String attribute, Object... values) {
+		Object value;
+		if (values.length == 0)
+			value = true;
+		else if (values.length == 1)
+			value = values[0];
+		else
+			value = values;
+		graph.writeAttribute(this, PUT_ATTR, attribute, value);
+	}
+
+	@Override
+	public void addAttributes(Map<String, Object> attributes) {
+		for (Map.Entry<String, Object> entry : attributes.entrySet())
+			graph.writeAttribute(this, PUT_ATTR, entry.getKey(), entry.getValue());
+	}
+
+	@Override
+	public void removeAttribute(String attribute) {
+		graph.writeAttribute(this, REMOVE_ATTR, attribute, null);
+	}
+
+	@Override
+	public void clearAttributes() {
+		graph.writeAttribute(this, CLEAR_ATTRS, null, null);
+	}
+}
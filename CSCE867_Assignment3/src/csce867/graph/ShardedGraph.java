@@ -0,0 +1,1236 @@
+package csce867.graph;
+
+import static csce867.graph.ShardWorker.*;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.EdgeFactory;
+import org.graphstream.graph.EdgeRejectedException;
+import org.graphstream.graph.ElementNotFoundException;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.IdAlreadyInUseException;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.NodeFactory;
+import org.graphstream.graph.implementations.AbstractElement.AttributeChangeEvent;
+import org.graphstream.stream.AttributeSink;
+import org.graphstream.stream.ElementSink;
+import org.graphstream.stream.GraphParseException;
+import org.graphstream.stream.Replayable;
+import org.graphstream.stream.Sink;
+import org.graphstream.stream.SourceBase.ElementType;
+import org.graphstream.stream.file.FileSink;
+import org.graphstream.stream.file.FileSinkFactory;
+import org.graphstream.stream.file.FileSource;
+import org.graphstream.stream.file.FileSourceFactory;
+import org.graphstream.ui.layout.Layout;
+import org.graphstream.ui.layout.Layouts;
+import org.graphstream.ui.swingViewer.GraphRenderer;
+import org.graphstream.ui.view.Viewer;
+import org.graphstream.util.GraphListeners;
+
+/**
+ * Single graph partitioned over {@link ShardWorker}s, each in its own JVM
+ * (see {@link #launch(String, int, String...)}), with the SingleGraph
+ * semantics of {@link CompactGraph}. This object is the coordinator: it
+ * holds no id nor attribute of an element, only the graph attributes, the
+ * sinks and a {@link ShardIndex} of each kind, three ints per element.
+ *
+ * A node lives in the partition its id hashes to; an edge record (its
+ * endpoints and attributes) in the one its id hashes to, and the edge in
+ * the adjacency of the partitions of both endpoints, where the endpoint
+ * owned elsewhere is a ghost node. So a node's degree, edges and
+ * neighbours are answered by its partition alone, and an edge or a node is
+ * found by id in one round trip. Indices follow the SingleGraph contract,
+ * an addition taking the next index and a removal moving the last element
+ * into the one it frees, whatever partitions they are in.
+ *
+ * Requests to the workers are batched: adding an edge is two round trips
+ * however many partitions it touches, the bulk methods
+ * ({@link #addNodes(String...)}, {@link #addEdges(String[], String[], String[], boolean)},
+ * {@link #getNodeAttributes(String, String...)}, ...) send one batch per
+ * partition for the whole array, and {@link #breadthFirstLevels(String, boolean, int)}
+ * expands every partition's part of a level in parallel, the workers
+ * exchanging only the neighbours they do not own.
+ *
+ * Nodes and edges handed out are handles holding the graph and the id,
+ * every call on them being a request to their partition; as in
+ * ConcurrentGraph they are equal when their ids are and throw
+ * IllegalStateException once their element is removed. Attribute values
+ * must be Serializable and of a class the workers accept, see
+ * {@link ShardWorker#ALLOW_PROPERTY}. Requests are serialized on the coordinator,
+ * so concurrent readers are safe; writers need the same care as with
+ * SingleGraph.
+ */
+public class ShardedGraph extends FacadeElement implements Graph, Closeable {
+
+	/** Ids fetched per request by the graph iterators. */
+	static final int CHUNK = 256;
+
+	private final String id;
+	private final ShardConnection[] shards;
+	private final Process[] processes;
+	private final ShardIndex nodeIndex, edgeIndex;
+	private final GraphListeners listeners;
+	private final GraphReplayController replayController;
+
+	private boolean strictChecking;
+	private boolean autoCreate;
+	private boolean nullAttributesAreErrors;
+	private double step;
+	private HashMap<String, Object> graphAttributes;
+
+	/**
+	 * Coordinator over workers already listening at the given addresses,
+	 * all started with token, which may hold a graph from an earlier
+	 * coordinator.
+	 */
+	public ShardedGraph(String id, boolean strictChecking, boolean autoCreate, byte[] token,
+			InetSocketAddress... workers) throws IOException {
+		this(id, strictChecking, autoCreate, token, workers, null);
+	}
+
+	private ShardedGraph(String id, boolean strictChecking, boolean autoCreate, byte[] token,
+			InetSocketAddress[] workers, Process[] processes) throws IOException {
+		if (workers.length == 0)
+			throw new IllegalArgumentException("a sharded graph needs at least one worker");
+		this.id = id;
+		this.strictChecking = strictChecking;
+		this.autoCreate = autoCreate;
+		this.processes = processes;
+		shards = new ShardConnection[workers.length];
+		nodeIndex = new ShardIndex(workers.length);
+		edgeIndex = new ShardIndex(workers.length);
+		try {
+			for (int p = 0; p < workers.length; p++)
+				shards[p] = new ShardConnection(p, workers[p], token);
+			int[] slot = new int[workers.length];
+			for (int p = 0; p < workers.length; p++)
+				slot[p] = shards[p].send(COUNTS);
+			round();
+			for (int p = 0; p < workers.length; p++) {
+				// what the workers already hold is numbered partition by partition
+				int[] counts = (int[]) shards[p].result(slot[p]);
+				for (int i = 0; i < counts[0]; i++)
+					nodeIndex.add(p);
+				for (int i = 0; i < counts[1]; i++)
+					edgeIndex.add(p);
+			}
+		} catch (IOException | RuntimeException e) {
+			close();
+			throw e;
+		}
+		listeners = new GraphListeners(this);
+		replayController = new GraphReplayController(this);
+	}
+
+	/**
+	 * Starts workers local worker processes, running this JVM's java with
+	 * its class path and the given options (e.g. "-Xmx8g"), and a strict
+	 * graph over them. They are handed a fresh token on their standard
+	 * input. {@link #close()} ends them.
+	 */
+	public static ShardedGraph launch(String id, int workers, String... jvmOptions) throws IOException {
+		byte[] token = ShardWorker.newToken();
+		StringBuilder hex = new StringBuilder();
+		for (byte b : token)
+			hex.append(String.format("%02x", b));
+		hex.append('\n');
+		Process[] processes = new Process[workers];
+		InetSocketAddress[] addresses = new InetSocketAddress[workers];
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		try {
+			for (int p = 0; p < workers; p++) {
+				List<String> command = new ArrayList<String>();
+				command.add(java);
+				command.addAll(Arrays.asList(jvmOptions));
+				command.add("-cp");
+				command.add(System.getProperty("java.class.path"));
+				command.add(ShardWorker.class.getName());
+				processes[p] = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+				OutputStream in = processes[p].getOutputStream();
+				in.write(hex.toString().getBytes(StandardCharsets.US_ASCII));
+				in.close();
+			}
+			// the workers start in parallel, each prints its port when listening
+			for (int p = 0; p < workers; p++) {
+				BufferedReader out = new BufferedReader(
+						new InputStreamReader(processes[p].getInputStream(), StandardCharsets.US_ASCII));
+				String port = out.readLine();
+				if (port == null)
+					throw new IOException("shard worker " + p + " exited before listening");
+				addresses[p] = new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(port.trim()));
+			}
+			return new ShardedGraph(id, true, false, token, addresses, processes);
+		} catch (IOException | RuntimeException e) {
+			for (Process process : processes)
+				if (process != null)
+					process.destroy();
+			throw e;
+		}
+	}
+
+	/**
+	 * Strict graph over workers on daemon threads of this JVM: the same
+	 * requests over the same sockets, without the processes. Meant for
+	 * tests and for measuring the cost of the protocol alone.
+	 */
+	public static ShardedGraph inProcess(String id, int workers) throws IOException {
+		byte[] token = ShardWorker.newToken();
+		InetSocketAddress[] addresses = new InetSocketAddress[workers];
+		for (int p = 0; p < workers; p++) {
+			ShardWorker worker = new ShardWorker(token);
+			Thread thread = new Thread(worker, "shard-" + p);
+			thread.setDaemon(true);
+			thread.start();
+			addresses[p] = new InetSocketAddress(InetAddress.getLoopbackAddress(), worker.getPort());
+		}
+		return new ShardedGraph(id, true, false, token, addresses, null);
+	}
+
+	/** Hangs up on the workers; those started by launch() exit. */
+	public void close() throws IOException {
+		IOException failure = null;
+		for (ShardConnection shard : shards) {
+			try {
+				if (shard != null)
+					shard.close();
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+		if (processes != null) {
+			for (Process process : processes) {
+				try {
+					if (!process.waitFor(5, TimeUnit.SECONDS))
+						process.destroy();
+				} catch (InterruptedException e) {
+					process.destroy();
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+		if (failure != null)
+			throw failure;
+	}
+
+	public int getWorkerCount() {
+		return shards.length;
+	}
+
+	// Partitioning and requests
+
+	/** Partition of a node id or an edge id. */
+	static int partition(String id, int partitions) {
+		int h = id.hashCode();
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		return (h & 0x7FFFFFFF) % partitions;
+	}
+
+	int partition(String id) {
+		return partition(id, shards.length);
+	}
+
+	private ShardConnection shard(String id) {
+		return shards[partition(id)];
+	}
+
+	synchronized Object call(int partition, int op, Object... args) {
+		return shards[partition].call(op, args);
+	}
+
+	/**
+	 * Sends the pending batch of every partition, then reads the answers of
+	 * all of them, and throws the first failure once all are read.
+	 */
+	private void round() {
+		for (ShardConnection shard : shards)
+			shard.submit();
+		RuntimeException failure = null;
+		for (ShardConnection shard : shards) {
+			try {
+				shard.receive();
+			} catch (RuntimeException e) {
+				if (failure == null)
+					failure = e;
+				continue;
+			}
+			if (failure == null)
+				failure = shard.failure();
+		}
+		if (failure != null)
+			throw failure;
+	}
+
+	/** Id of the node (or edge) with the given index. */
+	synchronized String idAt(boolean node, int index) {
+		ShardIndex indices = node ? nodeIndex : edgeIndex;
+		if (index < 0 || index >= indices.size())
+			throw new IndexOutOfBoundsException((node ? "Node " : "Edge ") + index + " does not exist");
+		return ((String[]) shards[indices.partitionOf(index)].call(IDS, node, indices.localOf(index), 1))[0];
+	}
+
+	/**
+	 * Ids of the nodes (or edges) with indices from to to - 1 (or the last
+	 * one), in one round with a batch for each partition holding some.
+	 */
+	synchronized String[] idsAt(boolean node, int from, int to) {
+		ShardIndex indices = node ? nodeIndex : edgeIndex;
+		to = Math.min(to, indices.size());
+		if (from >= to)
+			return new String[0];
+		int[] counts = new int[shards.length];
+		for (int i = from; i < to; i++)
+			counts[indices.partitionOf(i)]++;
+		int[][] locals = new int[shards.length][];
+		for (int p = 0; p < shards.length; p++)
+			locals[p] = new int[counts[p]];
+		Arrays.fill(counts, 0);
+		for (int i = from; i < to; i++) {
+			int p = indices.partitionOf(i);
+			locals[p][counts[p]++] = indices.localOf(i);
+		}
+		int[] slot = new int[shards.length];
+		for (int p = 0; p < shards.length; p++)
+			if (locals[p].length > 0)
+				slot[p] = shards[p].send(IDS_AT, node, locals[p]);
+		round();
+		String[][] answers = new String[shards.length][];
+		for (int p = 0; p < shards.length; p++)
+			if (locals[p].length > 0)
+				answers[p] = (String[]) shards[p].result(slot[p]);
+		String[] ids = new String[to - from];
+		Arrays.fill(counts, 0);
+		for (int i = from; i < to; i++) {
+			int p = indices.partitionOf(i);
+			ids[i - from] = answers[p][counts[p]++];
+		}
+		return ids;
+	}
+
+	synchronized int indexOf(ShardedElement e) {
+		boolean node = e.isNode();
+		int local = (Integer) call(e.partition, node ? NODE_INDEX : EDGE_INDEX, e.getId());
+		return local < 0 ? -1 : (node ? nodeIndex : edgeIndex).indexOf(e.partition, local);
+	}
+
+	private boolean owns(ShardedElement e) {
+		return e.graph == this;
+	}
+
+	// Element attributes, on the partition of the element
+
+	Object readAttribute(ShardedElement e, int op, String key) {
+		return call(e.partition, op, e.isNode(), e.getId(), key);
+	}
+
+	/**
+	 * Sets or removes key on e, or clears all its attributes, and sends the
+	 * events. Answers the previous value.
+	 */
+	Object writeAttribute(ShardedElement e, int op, String key, Object value) {
+		if (op == PUT_ATTR)
+			ShardClassFilter.check(value);
+		Object answer = call(e.partition, op, e.isNode(), e.getId(), key, value);
+		return attributeWritten(e.getId(), e.isNode(), op, key, value, answer);
+	}
+
+	private Object attributeWritten(String elementId, boolean node, int op, String key, Object value,
+			Object answer) {
+		ElementType type = node ? ElementType.NODE : ElementType.EDGE;
+		if (op == PUT_ATTR) {
+			Object[] put = (Object[]) answer;
+			listeners.sendAttributeChangedEvent(elementId, type, key,
+					(Boolean) put[0] ? AttributeChangeEvent.CHANGE : AttributeChangeEvent.ADD, put[1], value);
+			return put[1];
+		}
+		if (op == REMOVE_ATTR) {
+			if (answer == null)
+				return null;
+			Object old = ((Object[]) answer)[1];
+			listeners.sendAttributeChangedEvent(elementId, type, key, AttributeChangeEvent.REMOVE, old, null);
+			return old;
+		}
+		Object[] removed = (Object[]) answer;
+		for (int i = 0; i < removed.length; i += 2)
+			listeners.sendAttributeChangedEvent(elementId, type, (String) removed[i], AttributeChangeEvent.REMOVE,
+					removed[i + 1], null);
+		return null;
+	}
+
+	// Bulk attribute access, one batch per partition
+
+	/** Values of key on the given nodes, null for a node without it or missing. */
+	public Object[] getNodeAttributes(String key, String... nodeIds) {
+		return getAttributes(true, key, nodeIds);
+	}
+
+	public Object[] getEdgeAttributes(String key, String... edgeIds) {
+		return getAttributes(false, key, edgeIds);
+	}
+
+	/**
+	 * Sets key to values[i] on node nodeIds[i], with the events. A missing
+	 * node fails the call once the other values are set.
+	 */
+	public void setNodeAttributes(String key, String[] nodeIds, Object[] values) {
+		setAttributes(true, key, nodeIds, values);
+	}
+
+	public void setEdgeAttributes(String key, String[] edgeIds, Object[] values) {
+		setAttributes(false, key, edgeIds, values);
+	}
+
+	private synchronized Object[] getAttributes(boolean node, String key, String[] ids) {
+		int[] slot = new int[ids.length];
+		for (int i = 0; i < ids.length; i++)
+			slot[i] = shard(ids[i]).send(GET_ATTR, node, ids[i], key);
+		round();
+		Object[] values = new Object[ids.length];
+		for (int i = 0; i < ids.length; i++)
+			values[i] = shard(ids[i]).result(slot[i]);
+		return values;
+	}
+
+	private synchronized void setAttributes(boolean node, String key, String[] ids, Object[] values) {
+		if (values.length != ids.length)
+			throw new IllegalArgumentException("one value per element");
+		for (Object value : values)
+			ShardClassFilter.check(value);
+		int[] slot = new int[ids.length];
+		for (int i = 0; i < ids.length; i++)
+			slot[i] = shard(ids[i]).send(PUT_ATTR, node, ids[i], key, values[i]);
+		RuntimeException failure = null;
+		try {
+			round();
+		} catch (RuntimeException e) {
+			failure = e;
+		}
+		for (int i = 0; i < ids.length; i++) {
+			Object answer;
+			try {
+				answer = shard(ids[i]).result(slot[i]);
+			} catch (RuntimeException e) {
+				continue;
+			}
+			attributeWritten(ids[i], node, PUT_ATTR, key, values[i], answer);
+		}
+		if (failure != null)
+			throw failure;
+	}
+
+	// Traversal, fanned out level by level
+
+	public int[] breadthFirstLevels(String sourceId, boolean directed) {
+		return breadthFirstLevels(sourceId, directed, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Number of nodes at each distance from sourceId, up to maxDepth: index
+	 * 0 holds the source, the array ends at the last level reached. Each
+	 * level is one round: every partition expands the nodes of the level it
+	 * owns and answers the neighbours owned elsewhere, which are routed to
+	 * their partitions as part of the next level. Empty if the source does
+	 * not exist.
+	 */
+	public synchronized int[] breadthFirstLevels(String sourceId, boolean directed, int maxDepth) {
+		for (ShardConnection shard : shards)
+			shard.send(VISIT_BEGIN);
+		round();
+		String[][] incoming = new String[shards.length][0];
+		incoming[partition(sourceId)] = new String[] { sourceId };
+		int[] levels = new int[16];
+		int depth = 0;
+		int[] slot = new int[shards.length];
+		while (depth <= maxDepth) {
+			for (int p = 0; p < shards.length; p++)
+				slot[p] = shards[p].send(VISIT, incoming[p], directed);
+			round();
+			int count = 0;
+			List<LinkedHashSet<String>> next = new ArrayList<LinkedHashSet<String>>(shards.length);
+			for (int p = 0; p < shards.length; p++)
+				next.add(new LinkedHashSet<String>());
+			for (int p = 0; p < shards.length; p++) {
+				Object[] answer = (Object[]) shards[p].result(slot[p]);
+				count += (Integer) answer[0];
+				for (String v : (String[]) answer[1])
+					next.get(partition(v)).add(v);
+			}
+			if (count == 0)
+				break;
+			if (depth == levels.length)
+				levels = Arrays.copyOf(levels, 2 * depth);
+			levels[depth++] = count;
+			for (int p = 0; p < shards.length; p++)
+				incoming[p] = next.get(p).toArray(new String[0]);
+		}
+		return Arrays.copyOf(levels, depth);
+	}
+
+	// FacadeElement, the graph's own attributes, kept here
+
+	public String getId() {
+		return id;
+	}
+
+	public int getIndex() {
+		return 0;
+	}
+
+	@Override
+	protected Object attributeValue(String key) {
+		return graphAttributes == null ? null : graphAttributes.get(key);
+	}
+
+	@Override
+	protected boolean containsAttribute(String key) {
+		return graphAttributes != null && graphAttributes.containsKey(key);
+	}
+
+	@Override
+	protected Object putAttribute(String key, Object value) {
+		if (graphAttributes == null)
+			graphAttributes = new HashMap<String, Object>(4);
+		return graphAttributes.put(key, value);
+	}
+
+	@Override
+	protected Object deleteAttribute(String key) {
+		return graphAttributes == null ? null : graphAttributes.remove(key);
+	}
+
+	@Override
+	protected Collection<String> attributeKeys() {
+		if (graphAttributes == null)
+			return Collections.emptyList();
+		return new ArrayList<String>(graphAttributes.keySet());
+	}
+
+	public int getAttributeCount() {
+		return graphAttributes == null ? 0 : graphAttributes.size();
+	}
+
+	@Override
+	protected void attributeChanged(AttributeChangeEvent event, String attribute, Object oldValue,
+			Object newValue) {
+		listeners.sendAttributeChangedEvent(id, ElementType.GRAPH, attribute, event, oldValue, newValue);
+	}
+
+	public boolean nullAttributesAreErrors() {
+		return nullAttributesAreErrors;
+	}
+
+	public void setNullAttributesAreErrors(boolean on) {
+		nullAttributesAreErrors = on;
+	}
+
+	// Graph settings
+
+	public boolean isStrict() {
+		return strictChecking;
+	}
+
+	public void setStrict(boolean on) {
+		strictChecking = on;
+	}
+
+	public boolean isAutoCreationEnabled() {
+		return autoCreate;
+	}
+
+	public void setAutoCreate(boolean on) {
+		autoCreate = on;
+	}
+
+	public double getStep() {
+		return step;
+	}
+
+	public void stepBegins(double time) {
+		listeners.sendStepBegins(time);
+		step = time;
+	}
+
+	/** Elements are handles, there is nothing a factory could build. Always null. */
+	public NodeFactory<? extends Node> nodeFactory() {
+		return null;
+	}
+
+	public EdgeFactory<? extends Edge> edgeFactory() {
+		return null;
+	}
+
+	public void setNodeFactory(NodeFactory<? extends Node> nf) {
+		throw new UnsupportedOperationException("ShardedGraph does not use node factories");
+	}
+
+	public void setEdgeFactory(EdgeFactory<? extends Edge> ef) {
+		throw new UnsupportedOperationException("ShardedGraph does not use edge factories");
+	}
+
+	// Structure reads
+
+	public int getNodeCount() {
+		return nodeIndex.size();
+	}
+
+	public int getEdgeCount() {
+		return edgeIndex.size();
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T getNode(String nodeId) {
+		int p = partition(nodeId);
+		return (Boolean) call(p, HAS_NODE, nodeId) ? (T) new ShardedNode(this, nodeId) : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T getNode(int index) throws IndexOutOfBoundsException {
+		return (T) new ShardedNode(this, idAt(true, index));
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T getEdge(String edgeId) {
+		int p = partition(edgeId);
+		return (Integer) call(p, EDGE_INDEX, edgeId) >= 0 ? (T) new ShardedEdge(this, edgeId) : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T getEdge(int index) throws IndexOutOfBoundsException {
+		return (T) new ShardedEdge(this, idAt(false, index));
+	}
+
+	public <T extends Node> Iterator<T> getNodeIterator() {
+		return new ElementIterator<T>(true);
+	}
+
+	public <T extends Edge> Iterator<T> getEdgeIterator() {
+		return new ElementIterator<T>(false);
+	}
+
+	public <T extends Node> Iterable<? extends T> getEachNode() {
+		return new Iterable<T>() {
+			public Iterator<T> iterator() {
+				return getNodeIterator();
+			}
+		};
+	}
+
+	public <T extends Edge> Iterable<? extends T> getEachEdge() {
+		return new Iterable<T>() {
+			public Iterator<T> iterator() {
+				return getEdgeIterator();
+			}
+		};
+	}
+
+	public <T extends Node> Collection<T> getNodeSet() {
+		return new AbstractCollection<T>() {
+			public Iterator<T> iterator() {
+				return getNodeIterator();
+			}
+
+			public int size() {
+				return getNodeCount();
+			}
+		};
+	}
+
+	public <T extends Edge> Collection<T> getEdgeSet() {
+		return new AbstractCollection<T>() {
+			public Iterator<T> iterator() {
+				return getEdgeIterator();
+			}
+
+			public int size() {
+				return getEdgeCount();
+			}
+		};
+	}
+
+	public Iterator<Node> iterator() {
+		return getNodeIterator();
+	}
+
+	/**
+	 * Index order, fetching CHUNK ids per round. Like ConcurrentGraph's,
+	 * weakly consistent under changes made by others than the iterator.
+	 */
+	private class ElementIterator<T> implements Iterator<T> {
+		final boolean nodes;
+		int position;
+		String[] chunk = new String[0];
+		int chunkStart;
+		ShardedElement last;
+
+		ElementIterator(boolean nodes) {
+			this.nodes = nodes;
+		}
+
+		public boolean hasNext() {
+			return position < (nodes ? nodeIndex : edgeIndex).size();
+		}
+
+		@SuppressWarnings("unchecked")
+		public T next() {
+			int i = position - chunkStart;
+			if (i < 0 || i >= chunk.length) {
+				chunk = idsAt(nodes, position, position + CHUNK);
+				chunkStart = position;
+				i = 0;
+			}
+			if (i >= chunk.length)
+				throw new NoSuchElementException();
+			String next = chunk[i];
+			last = nodes ? new ShardedNode(ShardedGraph.this, next) : new ShardedEdge(ShardedGraph.this, next);
+			position++;
+			return (T) last;
+		}
+
+		public void remove() {
+			if (last == null)
+				throw new IllegalStateException();
+			// the last element moves into the freed index, visit it next
+			if (nodes)
+				removeNode((Node) last);
+			else
+				removeEdge((Edge) last);
+			position--;
+			chunk = new String[0];
+			last = null;
+		}
+	}
+
+	// Mutation
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T addNode(String nodeId) throws IdAlreadyInUseException {
+		int p = partition(nodeId);
+		if ((Boolean) call(p, ADD_NODE, nodeId)) {
+			nodeIndex.add(p);
+			listeners.sendNodeAdded(nodeId);
+		} else if (strictChecking) {
+			throw new IdAlreadyInUseException("id \"" + nodeId + "\" already in use. Cannot create a node.");
+		}
+		return (T) new ShardedNode(this, nodeId);
+	}
+
+	/**
+	 * Adds the nodes in one batch per partition, in the order given. In
+	 * strict mode an id already in use throws once the others are added.
+	 */
+	public synchronized void addNodes(String... nodeIds) {
+		int[] slot = new int[nodeIds.length];
+		for (int i = 0; i < nodeIds.length; i++)
+			slot[i] = shard(nodeIds[i]).send(ADD_NODE, nodeIds[i]);
+		round();
+		String duplicate = null;
+		for (int i = 0; i < nodeIds.length; i++) {
+			int p = partition(nodeIds[i]);
+			if ((Boolean) shards[p].result(slot[i])) {
+				nodeIndex.add(p);
+				listeners.sendNodeAdded(nodeIds[i]);
+			} else if (duplicate == null) {
+				duplicate = nodeIds[i];
+			}
+		}
+		if (duplicate != null && strictChecking)
+			throw new IdAlreadyInUseException("id \"" + duplicate + "\" already in use. Cannot create a node.");
+	}
+
+	public <T extends Edge> T addEdge(String edgeId, String node1, String node2) {
+		return addEdge(edgeId, node1, node2, false);
+	}
+
+	@SuppressWarnings("unchecked")
+	public synchronized <T extends Edge> T addEdge(String edgeId, String from, String to, boolean directed) {
+		ShardConnection home = shard(edgeId), a = shard(from), b = shard(to);
+		int info = home.send(EDGE_INFO, edgeId);
+		int probe = a.send(PROBE, from, to);
+		int hasTo = b.send(HAS_NODE, to);
+		round();
+		Object[] existing = (Object[]) home.result(info);
+		Object[] fromState = (Object[]) a.result(probe);
+		boolean fromExists = (Boolean) fromState[0], toExists = (Boolean) b.result(hasTo);
+
+		// same checks and order as CompactGraph.addEdge
+		if (existing != null) {
+			if (strictChecking)
+				throw new IdAlreadyInUseException("id \"" + edgeId + "\" already in use. Cannot create an edge.");
+			return existing[0].equals(from) && existing[1].equals(to) ? (T) new ShardedEdge(this, edgeId) : null;
+		}
+		if (!fromExists || !toExists) {
+			if (strictChecking)
+				throw new ElementNotFoundException("Cannot create edge %s[%s-%s%s]. Node '%s' does not exist.",
+						edgeId, from, directed ? ">" : "-", to, fromExists ? to : from);
+			if (!autoCreate)
+				return null;
+			if (!fromExists)
+				addNode(from);
+			if (!toExists)
+				addNode(to);
+		} else if (fromState[1] != null) {
+			if (strictChecking)
+				throw new EdgeRejectedException("Edge " + edgeId + " was rejected by node " + from);
+			return null;
+		}
+
+		sendLink(edgeId, from, to, directed);
+		round();
+		edgeIndex.add(home.partition);
+		listeners.sendEdgeAdded(edgeId, from, to, directed);
+		return (T) new ShardedEdge(this, edgeId);
+	}
+
+	/** Queues the record of an edge at its home and the edge at its endpoints. */
+	private void sendLink(String edgeId, String from, String to, boolean directed) {
+		ShardConnection a = shard(from), b = shard(to);
+		shard(edgeId).send(PUT_EDGE, edgeId, from, to, directed);
+		a.send(LINK, edgeId, from, to, directed);
+		if (b != a)
+			b.send(LINK, edgeId, from, to, directed);
+	}
+
+	/**
+	 * Adds the edges in two rounds of one batch per partition: the checks
+	 * of addEdge for every edge, against the graph and the edges before it
+	 * in the arrays, then the additions. In strict mode the first edge
+	 * failing a check throws before anything is added; otherwise the
+	 * failing edges are skipped and missing nodes created as auto-creation
+	 * says. Answers the number of edges added.
+	 */
+	public synchronized int addEdges(String[] edgeIds, String[] from, String[] to, boolean directed) {
+		int n = edgeIds.length;
+		if (from.length != n || to.length != n)
+			throw new IllegalArgumentException("one source and one target per edge");
+		int[] info = new int[n], probe = new int[n], hasTo = new int[n];
+		for (int i = 0; i < n; i++) {
+			info[i] = shard(edgeIds[i]).send(EDGE_INFO, edgeIds[i]);
+			probe[i] = shard(from[i]).send(PROBE, from[i], to[i]);
+			hasTo[i] = shard(to[i]).send(HAS_NODE, to[i]);
+		}
+		round();
+
+		HashSet<String> batchEdges = new HashSet<String>(), batchNodes = new HashSet<String>();
+		HashSet<List<String>> batchPairs = new HashSet<List<String>>();
+		boolean[] accepted = new boolean[n];
+		List<String> created = new ArrayList<String>();
+		int[] createdBefore = new int[n + 1];
+		for (int i = 0; i < n; i++) {
+			createdBefore[i] = created.size();
+			Object[] fromState = (Object[]) shard(from[i]).result(probe[i]);
+			boolean fromExists = (Boolean) fromState[0] || batchNodes.contains(from[i]);
+			boolean toExists = (Boolean) shard(to[i]).result(hasTo[i]) || batchNodes.contains(to[i]);
+			List<String> pair = from[i].compareTo(to[i]) <= 0 ? Arrays.asList(from[i], to[i])
+					: Arrays.asList(to[i], from[i]);
+			if (shard(edgeIds[i]).result(info[i]) != null || batchEdges.contains(edgeIds[i])) {
+				if (strictChecking)
+					throw new IdAlreadyInUseException(
+							"id \"" + edgeIds[i] + "\" already in use. Cannot create an edge.");
+				continue;
+			}
+			if (!fromExists || !toExists) {
+				if (strictChecking)
+					throw new ElementNotFoundException("Cannot create edge %s[%s-%s%s]. Node '%s' does not exist.",
+							edgeIds[i], from[i], directed ? ">" : "-", to[i], fromExists ? to[i] : from[i]);
+				if (!autoCreate)
+					continue;
+				if (!fromExists && batchNodes.add(from[i]))
+					created.add(from[i]);
+				if (!toExists && batchNodes.add(to[i]))
+					created.add(to[i]);
+			} else if (fromState[1] != null || batchPairs.contains(pair)) {
+				if (strictChecking)
+					throw new EdgeRejectedException("Edge " + edgeIds[i] + " was rejected by node " + from[i]);
+				continue;
+			}
+			batchEdges.add(edgeIds[i]);
+			batchPairs.add(pair);
+			accepted[i] = true;
+		}
+		createdBefore[n] = created.size();
+
+		for (String node : created)
+			shard(node).send(ADD_NODE, node);
+		int added = 0;
+		for (int i = 0; i < n; i++) {
+			if (accepted[i]) {
+				sendLink(edgeIds[i], from[i], to[i], directed);
+				added++;
+			}
+		}
+		round();
+
+		// events in the order sequential calls would have sent them
+		for (int i = 0; i < n; i++) {
+			for (int k = createdBefore[i]; k < createdBefore[i + 1]; k++) {
+				nodeIndex.add(partition(created.get(k)));
+				listeners.sendNodeAdded(created.get(k));
+			}
+			if (accepted[i]) {
+				edgeIndex.add(partition(edgeIds[i]));
+				listeners.sendEdgeAdded(edgeIds[i], from[i], to[i], directed);
+			}
+		}
+		return added;
+	}
+
+	public <T extends Edge> T addEdge(String edgeId, int index1, int index2) {
+		return addEdge(edgeId, index1, index2, false);
+	}
+
+	public <T extends Edge> T addEdge(String edgeId, int fromIndex, int toIndex, boolean directed) {
+		String from = idAt(true, fromIndex), to = idAt(true, toIndex);
+		return addEdge(edgeId, from, to, directed);
+	}
+
+	public <T extends Edge> T addEdge(String edgeId, Node node1, Node node2) {
+		return addEdge(edgeId, node1, node2, false);
+	}
+
+	public <T extends Edge> T addEdge(String edgeId, Node from, Node to, boolean directed) {
+		return addEdge(edgeId, from.getId(), to.getId(), directed);
+	}
+
+	@SuppressWarnings("unchecked")
+	public synchronized <T extends Node> T removeNode(String nodeId) throws ElementNotFoundException {
+		ShardConnection owner = shard(nodeId);
+		if (!(Boolean) owner.call(HAS_NODE, nodeId)) {
+			if (strictChecking)
+				throw new ElementNotFoundException("Node \"" + nodeId + "\" not found. Cannot remove it.");
+			return null;
+		}
+		String[] incident = (String[]) owner.call(INCIDENT, nodeId, ANY);
+		int degree = incident.length / 2;
+
+		// edges first, highest index first as CompactGraph does, then the
+		// node, all in one round; the events go out before anything is
+		// queued as a sink may call back
+		int[] slot = new int[degree];
+		for (int i = 0; i < degree; i++)
+			slot[i] = shard(incident[2 * i]).send(EDGE_INDEX, incident[2 * i]);
+		round();
+		long[] order = new long[degree];
+		for (int i = 0; i < degree; i++) {
+			int p = partition(incident[2 * i]);
+			order[i] = (long) edgeIndex.indexOf(p, (Integer) shards[p].result(slot[i])) << 32 | i;
+		}
+		Arrays.sort(order);
+		for (int k = degree - 1; k >= 0; k--)
+			listeners.sendEdgeRemoved(incident[2 * (int) order[k]]);
+		listeners.sendNodeRemoved(nodeId);
+		for (int k = degree - 1; k >= 0; k--) {
+			int i = (int) order[k];
+			slot[i] = sendUnlink(incident[2 * i], nodeId, incident[2 * i + 1]);
+		}
+		int removed = owner.send(REMOVE_NODE, nodeId);
+		round();
+		for (int k = degree - 1; k >= 0; k--) {
+			int i = (int) order[k], p = partition(incident[2 * i]);
+			edgeIndex.remove(p, (Integer) shards[p].result(slot[i]));
+		}
+		nodeIndex.remove(owner.partition, (Integer) owner.result(removed));
+		return (T) new ShardedNode(this, nodeId);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T removeNode(int index) throws IndexOutOfBoundsException {
+		return (T) removeNode(idAt(true, index));
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T removeNode(Node node) {
+		if (!(node instanceof ShardedNode) || !owns((ShardedNode) node)) {
+			if (strictChecking && node != null)
+				throw new ElementNotFoundException("Node \"" + node.getId() + "\" not found. Cannot remove it.");
+			return null;
+		}
+		return removeNode(node.getId()) == null ? null : (T) node;
+	}
+
+	/**
+	 * Queues the removal of an edge from its home and its endpoints, answers
+	 * the position of the removal of the record in its home's batch.
+	 */
+	private int sendUnlink(String edgeId, String from, String to) {
+		ShardConnection a = shard(from), b = shard(to);
+		int dropped = shard(edgeId).send(DROP_EDGE, edgeId);
+		a.send(UNLINK, edgeId);
+		if (b != a)
+			b.send(UNLINK, edgeId);
+		return dropped;
+	}
+
+	private synchronized void removeEdgeWith(String edgeId, String from, String to) {
+		listeners.sendEdgeRemoved(edgeId);
+		int dropped = sendUnlink(edgeId, from, to);
+		round();
+		edgeIndex.remove(partition(edgeId), (Integer) shard(edgeId).result(dropped));
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T removeEdge(String edgeId) throws ElementNotFoundException {
+		Object[] info = (Object[]) call(partition(edgeId), EDGE_INFO, edgeId);
+		if (info == null) {
+			if (strictChecking)
+				throw new ElementNotFoundException("Edge \"" + edgeId + "\" not found. Cannot remove it.");
+			return null;
+		}
+		removeEdgeWith(edgeId, (String) info[0], (String) info[1]);
+		return (T) new ShardedEdge(this, edgeId);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T removeEdge(int index) throws IndexOutOfBoundsException {
+		return (T) removeEdge(idAt(false, index));
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Edge> T removeEdge(Edge edge) {
+		if (edge instanceof ShardedEdge && owns((ShardedEdge) edge)) {
+			Object[] info = (Object[]) call(((ShardedEdge) edge).partition, EDGE_INFO, edge.getId());
+			if (info != null)
+				removeEdgeWith(edge.getId(), (String) info[0], (String) info[1]);
+		}
+		return (T) edge;
+	}
+
+	public synchronized <T extends Edge> T removeEdge(String from, String to) throws ElementNotFoundException {
+		ShardConnection a = shard(from), b = shard(to);
+		int hasFrom = a.send(HAS_NODE, from), hasTo = b.send(HAS_NODE, to);
+		round();
+		boolean fromExists = (Boolean) a.result(hasFrom), toExists = (Boolean) b.result(hasTo);
+		if (!fromExists || !toExists) {
+			if (strictChecking)
+				throw new ElementNotFoundException(
+						"Cannot remove edge between \"%s\" and \"%s\". Node '%s' does not exist.", from, to,
+						fromExists ? to : from);
+			return null;
+		}
+		return removeEdgeToward(from, to);
+	}
+
+	public <T extends Edge> T removeEdge(int fromIndex, int toIndex) {
+		String from = idAt(true, fromIndex), to = idAt(true, toIndex);
+		return removeEdgeToward(from, to);
+	}
+
+	public synchronized <T extends Edge> T removeEdge(Node node1, Node node2) throws ElementNotFoundException {
+		boolean exist = node1 instanceof ShardedNode && owns((ShardedNode) node1) && node2 instanceof ShardedNode
+				&& owns((ShardedNode) node2);
+		if (exist) {
+			ShardConnection a = shard(node1.getId()), b = shard(node2.getId());
+			int has1 = a.send(HAS_NODE, node1.getId()), has2 = b.send(HAS_NODE, node2.getId());
+			round();
+			exist = (Boolean) a.result(has1) && (Boolean) b.result(has2);
+		}
+		if (!exist) {
+			if (strictChecking)
+				throw new ElementNotFoundException("Cannot remove edge between \"%s\" and \"%s\".", node1, node2);
+			return null;
+		}
+		return removeEdgeToward(node1.getId(), node2.getId());
+	}
+
+	/** The edge leaving from toward to, both existing. */
+	@SuppressWarnings("unchecked")
+	private <T extends Edge> T removeEdgeToward(String from, String to) {
+		String edgeId = (String) call(partition(from), EDGE_BETWEEN, from, to, LEAVING);
+		if (edgeId == null) {
+			if (strictChecking)
+				throw new ElementNotFoundException("There is no edge from \"%s\" to \"%s\". Cannot remove it.",
+						from, to);
+			return null;
+		}
+		removeEdgeWith(edgeId, from, to);
+		return (T) new ShardedEdge(this, edgeId);
+	}
+
+	public synchronized void clear() {
+		listeners.sendGraphCleared();
+		for (ShardConnection shard : shards)
+			shard.send(CLEAR);
+		round();
+		nodeIndex.clear();
+		edgeIndex.clear();
+		graphAttributes = null;
+	}
+
+	// Sinks and sources, all handled by the library's GraphListeners
+
+	public Iterable<AttributeSink> attributeSinks() {
+		return listeners.attributeSinks();
+	}
+
+	public Iterable<ElementSink> elementSinks() {
+		return listeners.elementSinks();
+	}
+
+	public void addSink(Sink sink) {
+		listeners.addSink(sink);
+	}
+
+	public void removeSink(Sink sink) {
+		listeners.removeSink(sink);
+	}
+
+	public void addAttributeSink(AttributeSink sink) {
+		listeners.addAttributeSink(sink);
+	}
+
+	public void removeAttributeSink(AttributeSink sink) {
+		listeners.removeAttributeSink(sink);
+	}
+
+	public void addElementSink(ElementSink sink) {
+		listeners.addElementSink(sink);
+	}
+
+	public void removeElementSink(ElementSink sink) {
+		listeners.removeElementSink(sink);
+	}
+
+	public void clearElementSinks() {
+		listeners.clearElementSinks();
+	}
+
+	public void clearAttributeSinks() {
+		listeners.clearAttributeSinks();
+	}
+
+	public void clearSinks() {
+		listeners.clearSinks();
+	}
+
+	public Replayable.Controller getReplayController() {
+		return replayController;
+	}
+
+	public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+		listeners.edgeAttributeAdded(sourceId, timeId, edgeId, attribute, value);
+	}
+
+	public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute,
+			Object oldValue, Object newValue) {
+		listeners.edgeAttributeChanged(sourceId, timeId, edgeId, attribute, oldValue, newValue);
+	}
+
+	public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+		listeners.edgeAttributeRemoved(sourceId, timeId, edgeId, attribute);
+	}
+
+	public void graphAttributeAdded(String sourceId, long timeId, String attribute, Object value) {
+		listeners.graphAttributeAdded(sourceId, timeId, attribute, value);
+	}
+
+	public void graphAttributeChanged(String sourceId, long timeId, String attribute, Object oldValue,
+			Object newValue) {
+		listeners.graphAttributeChanged(sourceId, timeId, attribute, oldValue, newValue);
+	}
+
+	public void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+		listeners.graphAttributeRemoved(sourceId, timeId, attribute);
+	}
+
+	public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+		listeners.nodeAttributeAdded(sourceId, timeId, nodeId, attribute, value);
+	}
+
+	public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute,
+			Object oldValue, Object newValue) {
+		listeners.nodeAttributeChanged(sourceId, timeId, nodeId, attribute, oldValue, newValue);
+	}
+
+	public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+		listeners.nodeAttributeRemoved(sourceId, timeId, nodeId, attribute);
+	}
+
+	public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId,
+			boolean directed) {
+		listeners.edgeAdded(sourceId, timeId, edgeId, fromNodeId, toNodeId, directed);
+	}
+
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		listeners.edgeRemoved(sourceId, timeId, edgeId);
+	}
+
+	public void graphCleared(String sourceId, long timeId) {
+		listeners.graphCleared(sourceId, timeId);
+	}
+
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		listeners.nodeAdded(sourceId, timeId, nodeId);
+	}
+
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		listeners.nodeRemoved(sourceId, timeId, nodeId);
+	}
+
+	public void stepBegins(String sourceId, long timeId, double time) {
+		listeners.stepBegins(sourceId, timeId, time);
+	}
+
+	// I/O and display, as in AbstractGraph
+
+	public void read(String filename) throws IOException, GraphParseException, ElementNotFoundException {
+		FileSource input = FileSourceFactory.sourceFor(filename);
+		if (input == null)
+			throw new IOException("No source reader for " + filename);
+		input.addSink(this);
+		read(input, filename);
+		input.removeSink(this);
+	}
+
+	public void read(FileSource input, String filename) throws IOException, GraphParseException {
+		input.readAll(filename);
+	}
+
+	public void write(String filename) throws IOException {
+		FileSink output = FileSinkFactory.sinkFor(filename);
+		if (output == null)
+			throw new IOException("No sink writer for " + filename);
+		write(output, filename);
+	}
+
+	public void write(FileSink output, String filename) throws IOException {
+		output.writeAll(this, filename);
+	}
+
+	public Viewer display() {
+		return display(true);
+	}
+
+	public Viewer display(boolean autoLayout) {
+		Viewer viewer = new Viewer(new RingProxyPipe(this, true));
+		viewer.enableXYZfeedback(false);
+		GraphRenderer renderer = Viewer.newGraphRenderer();
+		viewer.addView(Viewer.DEFAULT_VIEW_ID, renderer);
+		if (autoLayout) {
+			Layout layout = Layouts.newLayoutAlgorithm();
+			viewer.enableAutoLayout(layout);
+		}
+		return viewer;
+	}
+}
@@ -0,0 +1,297 @@
+package csce867.graph;
+
+import static csce867.graph.ShardWorker.*;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.graphstream.graph.BreadthFirstIterator;
+import org.graphstream.graph.DepthFirstIterator;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+
+/**
+ * Node handle of a {@link ShardedGraph}. Every call is one request to the
+ * node's partition, whose adjacency holds all its edges; as in CompactNode
+ * an undirected edge or a loop is both entering and leaving.
+ */
+public class ShardedNode extends ShardedElement implements Node {
+
+	ShardedNode(ShardedGraph graph, String id) {
+		super(graph, id);
+	}
+
+	@Override
+	boolean isNode() {
+		return true;
+	}
+
+	public Graph getGraph() {
+		return graph;
+	}
+
+	private int count(int kind) {
+		return (Integer) graph.call(partition, DEGREE, getId(), kind);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T extends Edge> T nth(int kind, int i) {
+		return (T) new ShardedEdge(graph, (String) graph.call(partition, NTH_EDGE, getId(), kind, i));
+	}
+
+	public int getDegree() {
+		return count(ANY);
+	}
+
+	public int getInDegree() {
+		return count(ENTERING);
+	}
+
+	public int getOutDegree() {
+		return count(LEAVING);
+	}
+
+	public <T extends Edge> T getEdge(int i) {
+		return nth(ANY, i);
+	}
+
+	public <T extends Edge> T getEnteringEdge(int i) {
+		return nth(ENTERING, i);
+	}
+
+	public <T extends Edge> T getLeavingEdge(int i) {
+		return nth(LEAVING, i);
+	}
+
+	// edges toward, from and between other nodes
+
+	@SuppressWarnings("unchecked")
+	private <T extends Edge> T locate(String otherId, int kind) {
+		String edgeId = (String) graph.call(partition, EDGE_BETWEEN, getId(), otherId, kind);
+		return edgeId == null ? null : (T) new ShardedEdge(graph, edgeId);
+	}
+
+	private <T extends Edge> T locate(Node node, int kind) {
+		if (!(node instanceof ShardedNode) || ((ShardedNode) node).graph != graph)
+			return null;
+		return locate(node.getId(), kind);
+	}
+
+	private <T extends Edge> T locate(int nodeIndex, int kind) {
+		return locate(graph.idAt(true, nodeIndex), kind);
+	}
+
+	public <T extends Edge> T getEdgeToward(Node node) {
+		return locate(node, LEAVING);
+	}
+
+	public <T extends Edge> T getEdgeToward(String nodeId) {
+		return locate(nodeId, LEAVING);
+	}
+
+	public <T extends Edge> T getEdgeToward(int nodeIndex) {
+		return locate(nodeIndex, LEAVING);
+	}
+
+	public <T extends Edge> T getEdgeFrom(Node node) {
+		return locate(node, ENTERING);
+	}
+
+	public <T extends Edge> T getEdgeFrom(String nodeId) {
+		return locate(nodeId, ENTERING);
+	}
+
+	public <T extends Edge> T getEdgeFrom(int nodeIndex) {
+		return locate(nodeIndex, ENTERING);
+	}
+
+	public <T extends Edge> T getEdgeBetween(Node node) {
+		return locate(node, ANY);
+	}
+
+	public <T extends Edge> T getEdgeBetween(String nodeId) {
+		return locate(nodeId, ANY);
+	}
+
+	public <T extends Edge> T getEdgeBetween(int nodeIndex) {
+		return locate(nodeIndex, ANY);
+	}
+
+	public boolean hasEdgeToward(Node node) {
+		return getEdgeToward(node) != null;
+	}
+
+	public boolean hasEdgeToward(String nodeId) {
+		return getEdgeToward(nodeId) != null;
+	}
+
+	public boolean hasEdgeToward(int nodeIndex) {
+		return getEdgeToward(nodeIndex) != null;
+	}
+
+	public boolean hasEdgeFrom(Node node) {
+		return getEdgeFrom(node) != null;
+	}
+
+	public boolean hasEdgeFrom(String nodeId) {
+		return getEdgeFrom(nodeId) != null;
+	}
+
+	public boolean hasEdgeFrom(int nodeIndex) {
+		return getEdgeFrom(nodeIndex) != null;
+	}
+
+	public boolean hasEdgeBetween(Node node) {
+		return getEdgeBetween(node) != null;
+	}
+
+	public boolean hasEdgeBetween(String nodeId) {
+		return getEdgeBetween(nodeId) != null;
+	}
+
+	public boolean hasEdgeBetween(int nodeIndex) {
+		return getEdgeBetween(nodeIndex) != null;
+	}
+
+	// iterators and views, over the edge list read in one request when the
+	// iteration starts
+
+	private class EdgeIterator<T extends Edge> implements Iterator<T> {
+		/** edge id, opposite id, ... */
+		final String[] incident;
+		int position;
+		ShardedEdge last;
+
+		EdgeIterator(int kind) {
+			incident = (String[]) graph.call(partition, INCIDENT, getId(), kind);
+		}
+
+		public boolean hasNext() {
+			return position < incident.length;
+		}
+
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			last = new ShardedEdge(graph, incident[position]);
+			position += 2;
+			return (T) last;
+		}
+
+		/** Opposite node of the next edge, without asking the edge's home. */
+		<N extends Node> N nextOpposite() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			last = null;
+			position += 2;
+			@SuppressWarnings("unchecked")
+			N n = (N) new ShardedNode(graph, incident[position - 1]);
+			return n;
+		}
+
+		public void remove() {
+			if (last == null)
+				throw new IllegalStateException();
+			graph.removeEdge(last);
+			last = null;
+		}
+	}
+
+	public <T extends Edge> Iterator<T> getEdgeIterator() {
+		return new EdgeIterator<T>(ANY);
+	}
+
+	public <T extends Edge> Iterator<T> getEnteringEdgeIterator() {
+		return new EdgeIterator<T>(ENTERING);
+	}
+
+	public <T extends Edge> Iterator<T> getLeavingEdgeIterator() {
+		return new EdgeIterator<T>(LEAVING);
+	}
+
+	public <T extends Node> Iterator<T> getNeighborNodeIterator() {
+		return new Iterator<T>() {
+			final EdgeIterator<Edge> edges = new EdgeIterator<Edge>(ANY);
+
+			public boolean hasNext() {
+				return edges.hasNext();
+			}
+
+			public T next() {
+				return edges.nextOpposite();
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	public <T extends Node> Iterator<T> getBreadthFirstIterator() {
+		return new BreadthFirstIterator<T>(this);
+	}
+
+	public <T extends Node> Iterator<T> getBreadthFirstIterator(boolean directed) {
+		return new BreadthFirstIterator<T>(this, directed);
+	}
+
+	public <T extends Node> Iterator<T> getDepthFirstIterator() {
+		return new DepthFirstIterator<T>(this);
+	}
+
+	public <T extends Node> Iterator<T> getDepthFirstIterator(boolean directed) {
+		return new DepthFirstIterator<T>(this, directed);
+	}
+
+	public Iterator<Edge> iterator() {
+		return getEdgeIterator();
+	}
+
+	private <T extends Edge> Collection<T> view(final int kind) {
+		return new AbstractCollection<T>() {
+			public Iterator<T> iterator() {
+				return new EdgeIterator<T>(kind);
+			}
+
+			public int size() {
+				return count(kind);
+			}
+		};
+	}
+
+	private <T extends Edge> Iterable<T> each(final int kind) {
+		return new Iterable<T>() {
+			public Iterator<T> iterator() {
+				return new EdgeIterator<T>(kind);
+			}
+		};
+	}
+
+	public <T extends Edge> Iterable<T> getEachEdge() {
+		return each(ANY);
+	}
+
+	public <T extends Edge> Iterable<T> getEachEnteringEdge() {
+		return each(ENTERING);
+	}
+
+	public <T extends Edge> Iterable<T> getEachLeavingEdge() {
+		return each(LEAVING);
+	}
+
+	public <T extends Edge> Collection<T> getEdgeSet() {
+		return view(ANY);
+	}
+
+	public <T extends Edge> Collection<T> getEnteringEdgeSet() {
+		return view(ENTERING);
+	}
+
+	public <T extends Edge> Collection<T> getLeavingEdgeSet() {
+		return view(LEAVING);
+	}
+}
@@ -0,0 +1,462 @@
+package csce867.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntToDoubleFunction;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.Path;
+
+/**
+ * Shortest paths over any Graph on node and edge indices: single-source
+ * Dijkstra, bidirectional Dijkstra between two nodes, and A* with a
+ * caller's heuristic. Edge weights are the numeric attribute weightKey
+ * (missing or non-numeric values count as 1, as in gs-algo's Dijkstra; a
+ * null key weighs every edge 1). Negative weights are refused.
+ *
+ * As in {@link ParallelTraversal}, the adjacency and the weights are copied
+ * once into primitive arrays, reused by every query until
+ * {@link #refresh()}; the graph must not change while they are copied.
+ * Queries run on an {@link IndexedHeap} and per-node arrays held in a
+ * workspace per thread, reset in constant time, so that a distance query
+ * allocates nothing once the thread has its workspace. A Path (or an array
+ * of edge indices) is only built by the path methods.
+ *
+ * Directed queries follow leaving edges, and the backward half of a
+ * bidirectional search entering ones; undirected queries follow all edges.
+ * Unreachable nodes are at +infinity. The batch methods run their queries
+ * in a ForkJoinPool, the common pool unless one is given.
+ */
+public class ShortestPaths {
+
+	/** Queries per task in the batch methods. */
+	static final int BATCH_GRAIN = 4;
+
+	private static final int LEAVING = 0, ENTERING = 1, ALL = 2;
+
+	private final Graph graph;
+	private final String weightKey;
+	private final ForkJoinPool pool;
+	private final Adjacency[] adjacency = new Adjacency[3];
+	private double[] weights;
+	private final ThreadLocal<Workspace> workspaces = new ThreadLocal<Workspace>();
+
+	public ShortestPaths(Graph graph, String weightKey) {
+		this(graph, weightKey, ForkJoinPool.commonPool());
+	}
+
+	public ShortestPaths(Graph graph, String weightKey, ForkJoinPool pool) {
+		this.graph = graph;
+		this.weightKey = weightKey;
+		this.pool = pool;
+	}
+
+	public Graph getGraph() {
+		return graph;
+	}
+
+	public String getWeightKey() {
+		return weightKey;
+	}
+
+	/** Drops the copied adjacency and weights, the next query copies them again. */
+	public synchronized void refresh() {
+		Arrays.fill(adjacency, null);
+		weights = null;
+	}
+
+	// single source
+
+	/** Distance of every node, by index, from source. */
+	public double[] distances(Node source, boolean directed) {
+		double[] into = new double[graph.getNodeCount()];
+		distances(index(source), directed, into);
+		return into;
+	}
+
+	/** Same as {@link #distances(Node, boolean)} into a caller's array. */
+	public void distances(int source, boolean directed, double[] into) {
+		Adjacency adj = adjacency(directed ? LEAVING : ALL);
+		check(source, adj);
+		Workspace w = workspace(adj.nodes);
+		Search f = w.forward;
+		f.start(source);
+		w.settled = 0;
+		while (!f.heap.isEmpty()) {
+			f.settle(adj);
+			w.settled++;
+		}
+		for (int v = 0; v < adj.nodes; v++)
+			into[v] = f.heap.seen(v) ? f.dist[v] : Double.POSITIVE_INFINITY;
+	}
+
+	// point to point
+
+	/** Distance from source to target by bidirectional Dijkstra. */
+	public double distance(Node source, Node target, boolean directed) {
+		return distance(index(source), index(target), directed);
+	}
+
+	public double distance(int source, int target, boolean directed) {
+		Workspace w = bidirectional(source, target, directed);
+		return w.length;
+	}
+
+	/**
+	 * Distance from source to target by A*, heuristic giving a lower bound
+	 * of the distance from a node index to target. With a consistent
+	 * heuristic each node is settled once; an admissible one that is not
+	 * consistent reopens nodes but stays exact.
+	 */
+	public double distance(int source, int target, boolean directed, IntToDoubleFunction heuristic) {
+		return astar(source, target, directed, heuristic).length;
+	}
+
+	/** Edge indices of a shortest path from source to target, null if there is none. */
+	public int[] pathEdges(int source, int target, boolean directed) {
+		return edges(bidirectional(source, target, directed), source, target);
+	}
+
+	public int[] pathEdges(int source, int target, boolean directed, IntToDoubleFunction heuristic) {
+		return edges(astar(source, target, directed, heuristic), source, target);
+	}
+
+	/**
+	 * A shortest path from source to target as a gs-core Path, null if there
+	 * is none. Path links its nodes by identity, so the graph must hand out
+	 * one object per node; ConcurrentGraph does not, use pathEdges there.
+	 */
+	public Path path(Node source, Node target, boolean directed) {
+		return path(source, pathEdges(index(source), index(target), directed));
+	}
+
+	public Path path(Node source, Node target, boolean directed, IntToDoubleFunction heuristic) {
+		return path(source, pathEdges(index(source), index(target), directed, heuristic));
+	}
+
+	/** Nodes the last query on this thread settled, to compare the searches. */
+	public int getSettledCount() {
+		Workspace w = workspaces.get();
+		return w == null ? 0 : w.settled;
+	}
+
+	// batches
+
+	/** distances(sources[i]) for every i, the sources in parallel. */
+	public double[][] distances(final int[] sources, final boolean directed) {
+		final Adjacency adj = adjacency(directed ? LEAVING : ALL);
+		final double[][] result = new double[sources.length][];
+		invokeChunks(sources.length, (lo, hi) -> {
+			for (int i = lo; i < hi; i++) {
+				result[i] = new double[adj.nodes];
+				distances(sources[i], directed, result[i]);
+			}
+		});
+		return result;
+	}
+
+	/** distance(sources[i], targets[i]) for every i, the pairs in parallel. */
+	public double[] distances(final int[] sources, final int[] targets, final boolean directed) {
+		if (sources.length != targets.length)
+			throw new IllegalArgumentException(sources.length + " sources for " + targets.length + " targets");
+		adjacency(directed ? LEAVING : ALL);
+		if (directed)
+			adjacency(ENTERING);
+		final double[] result = new double[sources.length];
+		invokeChunks(sources.length, (lo, hi) -> {
+			for (int i = lo; i < hi; i++)
+				result[i] = distance(sources[i], targets[i], directed);
+		});
+		return result;
+	}
+
+	// searches
+
+	private Workspace bidirectional(int source, int target, boolean directed) {
+		Adjacency out = adjacency(directed ? LEAVING : ALL);
+		Adjacency in = directed ? adjacency(ENTERING) : out;
+		check(source, out);
+		check(target, out);
+		Workspace w = workspace(out.nodes);
+		Search f = w.forward, b = w.backward;
+		f.start(source);
+		b.start(target);
+		w.settled = 0;
+		w.length = source == target ? 0 : Double.POSITIVE_INFINITY;
+		w.meet = source == target ? source : -1;
+		while (!f.heap.isEmpty() && !b.heap.isEmpty()) {
+			if (f.heap.topKey() + b.heap.topKey() >= w.length)
+				break;
+			// grow the smaller frontier
+			boolean forward = f.heap.size() <= b.heap.size();
+			Search x = forward ? f : b, other = forward ? b : f;
+			Adjacency adj = forward ? out : in;
+			int u = x.heap.pop();
+			w.settled++;
+			double du = x.dist[u];
+			for (int j = adj.offset[u], end = adj.offset[u + 1]; j < end; j++) {
+				int v = adj.target[j];
+				x.relax(v, du + adj.weight[j], u, adj.edge[j], 0);
+				// both trees reach v, through their current parents
+				if (other.heap.seen(v) && x.dist[v] + other.dist[v] < w.length) {
+					w.length = x.dist[v] + other.dist[v];
+					w.meet = v;
+				}
+			}
+		}
+		return w;
+	}
+
+	private Workspace astar(int source, int target, boolean directed, IntToDoubleFunction heuristic) {
+		Adjacency adj = adjacency(directed ? LEAVING : ALL);
+		check(source, adj);
+		check(target, adj);
+		Workspace w = workspace(adj.nodes);
+		Search f = w.forward;
+		f.start(source);
+		w.settled = 0;
+		w.length = Double.POSITIVE_INFINITY;
+		w.meet = -1;
+		while (!f.heap.isEmpty()) {
+			int u = f.heap.pop();
+			w.settled++;
+			if (u == target) {
+				w.length = f.dist[u];
+				w.meet = u;
+				break;
+			}
+			double du = f.dist[u];
+			for (int j = adj.offset[u], end = adj.offset[u + 1]; j < end; j++) {
+				int v = adj.target[j];
+				f.relax(v, du + adj.weight[j], u, adj.edge[j], heuristic.applyAsDouble(v));
+			}
+		}
+		// meet is the target, edges() takes the whole path from the forward tree
+		return w;
+	}
+
+	/** Edges source .. meet from the forward tree, then meet .. target from the backward one. */
+	private static int[] edges(Workspace w, int source, int target) {
+		if (w.meet < 0)
+			return null;
+		Search f = w.forward, b = w.backward;
+		int count = 0;
+		for (int v = w.meet; v != source; v = f.parent[v])
+			count++;
+		for (int v = w.meet; v != target; v = b.parent[v])
+			count++;
+		int[] edges = new int[count];
+		int i = 0;
+		for (int v = w.meet; v != source; v = f.parent[v])
+			edges[i++] = f.via[v];
+		reverse(edges, i);
+		for (int v = w.meet; v != target; v = b.parent[v])
+			edges[i++] = b.via[v];
+		return edges;
+	}
+
+	private static void reverse(int[] a, int n) {
+		for (int i = 0, j = n - 1; i < j; i++, j--) {
+			int t = a[i];
+			a[i] = a[j];
+			a[j] = t;
+		}
+	}
+
+	private Path path(Node source, int[] edges) {
+		if (edges == null)
+			return null;
+		if (graph.getNode(source.getIndex()) != source)
+			throw new UnsupportedOperationException("graph " + graph.getId()
+					+ " does not keep one object per node, a Path cannot link them");
+		Path path = new Path();
+		path.setRoot(source);
+		Node at = source;
+		for (int e : edges) {
+			Edge edge = graph.getEdge(e);
+			path.add(at, edge);
+			at = edge.getOpposite(at);
+		}
+		return path;
+	}
+
+	private int index(Node n) {
+		int i = n.getIndex();
+		if (i < 0 || i >= graph.getNodeCount() || !graph.getNode(i).getId().equals(n.getId()))
+			throw new IllegalArgumentException("node " + n.getId() + " is not in graph " + graph.getId());
+		return i;
+	}
+
+	private static void check(int node, Adjacency adj) {
+		if (node < 0 || node >= adj.nodes)
+			throw new IndexOutOfBoundsException("Node " + node + " does not exist");
+	}
+
+	private Workspace workspace(int nodes) {
+		Workspace w = workspaces.get();
+		if (w == null || w.forward.heap.capacity() != nodes)
+			workspaces.set(w = new Workspace(nodes));
+		return w;
+	}
+
+	/** One direction of a search: the heap, the distances and the tree. */
+	static final class Search {
+		final IndexedHeap heap;
+		final double[] dist;
+		final int[] parent;
+		final int[] via;
+
+		Search(int nodes) {
+			heap = new IndexedHeap(nodes);
+			dist = new double[nodes];
+			parent = new int[nodes];
+			via = new int[nodes];
+		}
+
+		void start(int s) {
+			heap.reset();
+			dist[s] = 0;
+			parent[s] = -1;
+			via[s] = -1;
+			heap.push(s, 0);
+		}
+
+		/** Pops a node and relaxes its edges, plain Dijkstra. */
+		void settle(Adjacency adj) {
+			int u = heap.pop();
+			double du = dist[u];
+			for (int j = adj.offset[u], end = adj.offset[u + 1]; j < end; j++)
+				relax(adj.target[j], du + adj.weight[j], u, adj.edge[j], 0);
+		}
+
+		/** Takes d as the distance of v through edge from u if it is shorter, queued at d + h. */
+		void relax(int v, double d, int u, int edge, double h) {
+			if (heap.seen(v) && d >= dist[v])
+				return;
+			dist[v] = d;
+			parent[v] = u;
+			via[v] = edge;
+			heap.push(v, d + h);
+		}
+	}
+
+	/** A thread's searches and the outcome of its last point to point query. */
+	static final class Workspace {
+		final Search forward;
+		final Search backward;
+		double length;
+		int meet;
+		int settled;
+
+		Workspace(int nodes) {
+			forward = new Search(nodes);
+			backward = new Search(nodes);
+		}
+	}
+
+	private interface ChunkBody {
+		void run(int from, int to);
+	}
+
+	/** Runs body over [0, n) cut in chunks of BATCH_GRAIN, in the pool. */
+	private void invokeChunks(int n, ChunkBody body) {
+		ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+		for (int lo = 0; lo < n; lo += BATCH_GRAIN) {
+			final int from = lo, to = Math.min(n, lo + BATCH_GRAIN);
+			tasks.add(ForkJoinTask.adapt(() -> body.run(from, to)));
+		}
+		if (ForkJoinTask.inForkJoinPool())
+			ForkJoinTask.invokeAll(tasks);
+		else
+			pool.invoke(new RecursiveAction() {
+				protected void compute() {
+					invokeAll(tasks);
+				}
+			});
+	}
+
+	// adjacency copy
+
+	/**
+	 * Neighbours of node u in target[offset[u] .. offset[u + 1]), with the
+	 * index and weight of the edge leading to each.
+	 */
+	static final class Adjacency {
+		final int nodes;
+		final int[] offset;
+		final int[] target;
+		final int[] edge;
+		final double[] weight;
+
+		Adjacency(int nodes, int[] offset, int[] target, int[] edge, double[] weight) {
+			this.nodes = nodes;
+			this.offset = offset;
+			this.target = target;
+			this.edge = edge;
+			this.weight = weight;
+		}
+	}
+
+	private synchronized Adjacency adjacency(int kind) {
+		if (adjacency[kind] == null)
+			adjacency[kind] = copy(kind, weights());
+		return adjacency[kind];
+	}
+
+	/** Weight of every edge by index, read once. */
+	private double[] weights() {
+		if (weights != null)
+			return weights;
+		int m = graph.getEdgeCount();
+		double[] w = new double[m];
+		CompactGraph compact = graph instanceof CompactGraph ? (CompactGraph) graph : null;
+		for (int e = 0; e < m; e++) {
+			double x;
+			if (weightKey == null)
+				x = 1;
+			else if (compact != null)
+				x = compact.getEdgeNumber(e, weightKey);
+			else
+				x = graph.getEdge(e).getNumber(weightKey);
+			if (Double.isNaN(x))
+				x = 1;
+			if (x < 0)
+				throw new IllegalArgumentException("edge " + graph.getEdge(e).getId() + " has negative weight " + x);
+			w[e] = x;
+		}
+		return weights = w;
+	}
+
+	private Adjacency copy(int kind, double[] weights) {
+		int n = graph.getNodeCount();
+		int[] offset = new int[n + 1];
+		int[] target = new int[16];
+		int[] edge = new int[16];
+		int size = 0;
+		for (int u = 0; u < n; u++) {
+			Node node = graph.getNode(u);
+			Iterator<Edge> edges = kind == LEAVING ? node.getLeavingEdgeIterator()
+					: kind == ENTERING ? node.getEnteringEdgeIterator() : node.getEdgeIterator();
+			while (edges.hasNext()) {
+				Edge e = edges.next();
+				if (size == target.length) {
+					target = Arrays.copyOf(target, 2 * size);
+					edge = Arrays.copyOf(edge, 2 * size);
+				}
+				target[size] = e.getOpposite(node).getIndex();
+				edge[size++] = e.getIndex();
+			}
+			offset[u + 1] = size;
+		}
+		double[] weight = new double[size];
+		for (int j = 0; j < size; j++)
+			weight[j] = weights[edge[j]];
+		return new Adjacency(n, offset, Arrays.copyOf(target, size), Arrays.copyOf(edge, size), weight);
+	}
+}
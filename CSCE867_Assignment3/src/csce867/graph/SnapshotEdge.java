@@ -0,0 +1,76 @@
+package csce867.graph;
+
+import java.util.HashMap;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+
+/**
+ * Edge of a {@link GraphSnapshot}, a view of an immutable record.
+ */
+public class SnapshotEdge extends SnapshotElement implements Edge {
+
+	private final SnapshotMirror.EdgeRecord record;
+
+	SnapshotEdge(GraphSnapshot graph, int index, SnapshotMirror.EdgeRecord record) {
+		super(graph, index);
+		this.record = record;
+	}
+
+	@Override
+	boolean isNode() {
+		return false;
+	}
+
+	@Override
+	HashMap<String, Object> attributes() {
+		return record.attributes;
+	}
+
+	public String getId() {
+		return record.id;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[%s%s%s]", getId(), getSourceNode(), isDirected() ? "->" : "--", getTargetNode());
+	}
+
+	public boolean isDirected() {
+		return record.directed;
+	}
+
+	public boolean isLoop() {
+		return record.source == record.target;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T getNode0() {
+		return (T) graph.nodeAt(record.source);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T getNode1() {
+		return (T) graph.nodeAt(record.target);
+	}
+
+	public <T extends Node> T getSourceNode() {
+		return getNode0();
+	}
+
+	public <T extends Node> T getTargetNode() {
+		return getNode1();
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T getOpposite(Node node) {
+		if (!(node instanceof SnapshotNode) || ((SnapshotNode) node).graph != graph)
+			return null;
+		int n = ((SnapshotNode) node).index;
+		if (n == record.source)
+			return (T) graph.nodeAt(record.target);
+		if (n == record.target)
+			return (T) graph.nodeAt(record.source);
+		return null;
+	}
+}
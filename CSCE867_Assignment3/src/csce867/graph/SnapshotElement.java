@@ -0,0 +1,97 @@
+package csce867.graph;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+
+import org.graphstream.graph.implementations.AbstractElement.AttributeChangeEvent;
+
+/**
+ * What SnapshotNode and SnapshotEdge share: the snapshot, the index and the
+ * record's attribute map, none of which ever change. Every attribute write
+ * throws UnsupportedOperationException.
+ */
+abstract class SnapshotElement extends FacadeElement {
+
+	final GraphSnapshot graph;
+	final int index;
+
+	SnapshotElement(GraphSnapshot graph, int index) {
+		this.graph = graph;
+		this.index = index;
+	}
+
+	abstract boolean isNode();
+
+	abstract HashMap<String, Object> attributes();
+
+	public int getIndex() {
+		return index;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof SnapshotElement))
+			return false;
+		SnapshotElement e = (SnapshotElement) o;
+		return e.graph == graph && e.isNode() == isNode() && e.index == index;
+	}
+
+	@Override
+	public int hashCode() {
+		return getId().hashCode();
+	}
+
+	@Override
+	protected Object attributeValue(String key) {
+		HashMap<String, Object> m = attributes();
+		return m == null ? null : m.get(key);
+	}
+
+	@Override
+	protected boolean containsAttribute(String key) {
+		HashMap<String, Object> m = attributes();
+		return m != null && m.containsKey(key);
+	}
+
+	@Override
+	protected Object putAttribute(String key, Object value) {
+		throw GraphSnapshot.readOnly();
+	}
+
+	@Override
+	protected Object deleteAttribute(String key) {
+		throw GraphSnapshot.readOnly();
+	}
+
+	@Override
+	protected Collection<String> attributeKeys() {
+		HashMap<String, Object> m = attributes();
+		return m == null ? Collections.<String> emptyList() : m.keySet();
+	}
+
+	public int getAttributeCount() {
+		HashMap<String, Object> m = attributes();
+		return m == null ? 0 : m.size();
+	}
+
+	@Override
+	protected boolean nullAttributesAreErrors() {
+		return graph.nullAttributesAreErrors();
+	}
+
+	@Override
+	protected void attributeChanged(AttributeChangeEvent event, String attribute, Object oldValue,
+			Object newValue) {
+	}
+
+	@Override
+	public void removeAttribute(String attribute) {
+		throw GraphSnapshot.readOnly();
+	}
+
+	@Override
+	public void clearAttributes() {
+		throw GraphSnapshot.readOnly();
+	}
+}
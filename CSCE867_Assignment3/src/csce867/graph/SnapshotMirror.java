@@ -0,0 +1,403 @@
+package csce867.graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.stream.Sink;
+
+/**
+ * Copy of a graph's structure and attributes kept in persistent storage, so
+ * that {@link #snapshot()} hands out an immutable {@link GraphSnapshot} in
+ * O(1) while the live graph goes on changing.
+ *
+ * The mirror is a sink of the live graph. Nodes and edges are records in
+ * {@link PersistentArray}s, found by id through {@link PersistentIdMap}s,
+ * with the indices the live graph gives them (removal moves the last
+ * element into the freed index, as SingleGraph does). A snapshot shares
+ * every array, record and attribute map with the mirror and retires the
+ * mirror's edit token; the next event to touch a record copies it and the
+ * trie path above it, and the first attribute write or edge change copies
+ * its map or incidence array. Records untouched since the last snapshot
+ * are never copied, so between snapshots events cost what a plain graph's
+ * do, and a snapshot costs nothing but the copies it causes later.
+ *
+ * Construction replays the graph's current content; the graph must not be
+ * changed meanwhile. Events may come from any thread, one at a time, and
+ * snapshot() may be called from any thread. Attribute values are shared,
+ * not copied: a value changed in place (an array edited without
+ * setAttribute) changes in the snapshots too.
+ */
+public class SnapshotMirror implements Sink {
+
+	/** A node: id, attributes and incident edge indices, a loop once. */
+	static final class NodeRecord {
+		final String id;
+		Object edit;
+		HashMap<String, Object> attributes;
+		int[] edges;
+		int degree;
+		boolean ownAttributes, ownEdges;
+
+		NodeRecord(String id, Object edit) {
+			this.id = id;
+			this.edit = edit;
+			edges = EMPTY;
+			ownAttributes = ownEdges = true;
+		}
+
+		NodeRecord(NodeRecord other, Object edit) {
+			id = other.id;
+			this.edit = edit;
+			attributes = other.attributes;
+			edges = other.edges;
+			degree = other.degree;
+		}
+	}
+
+	/** An edge: id, attributes and endpoint indices. */
+	static final class EdgeRecord {
+		final String id;
+		Object edit;
+		HashMap<String, Object> attributes;
+		int source, target;
+		final boolean directed;
+		boolean ownAttributes;
+
+		EdgeRecord(String id, int source, int target, boolean directed, Object edit) {
+			this.id = id;
+			this.source = source;
+			this.target = target;
+			this.directed = directed;
+			this.edit = edit;
+			ownAttributes = true;
+		}
+
+		EdgeRecord(EdgeRecord other, Object edit) {
+			id = other.id;
+			this.edit = edit;
+			attributes = other.attributes;
+			source = other.source;
+			target = other.target;
+			directed = other.directed;
+		}
+	}
+
+	private static final int[] EMPTY = new int[0];
+
+	private final String id;
+	private final Graph graph;
+	private boolean attached;
+
+	// guarded by this
+	private Object edit = new Object();
+	private PersistentArray nodes, edges;
+	private PersistentIdMap nodeIds, edgeIds;
+	private int nodeCount, edgeCount;
+	private HashMap<String, Object> graphAttributes;
+	private boolean ownGraphAttributes;
+	private double step;
+
+	// metrics
+	private long snapshots, copies;
+
+	public SnapshotMirror(Graph graph) {
+		id = graph.getId();
+		this.graph = graph;
+		reset();
+		GraphReplayController replay = new GraphReplayController(graph);
+		replay.addSink(this);
+		replay.replay();
+		replay.removeSink(this);
+		step = graph.getStep();
+		graph.addSink(this);
+		attached = true;
+	}
+
+	/** An empty mirror of no graph, fed its events directly. */
+	SnapshotMirror(String id) {
+		this.id = id;
+		graph = null;
+		reset();
+	}
+
+	/**
+	 * A mirror of no graph starting from the content of base, which it shares
+	 * and never changes, fed its events directly.
+	 */
+	SnapshotMirror(GraphSnapshot base) {
+		id = base.getId();
+		graph = null;
+		nodes = new PersistentArray(base.nodes);
+		edges = new PersistentArray(base.edges);
+		nodeIds = new PersistentIdMap(base.nodeIds);
+		edgeIds = new PersistentIdMap(base.edgeIds);
+		nodeCount = base.getNodeCount();
+		edgeCount = base.getEdgeCount();
+		graphAttributes = base.attributes;
+		step = base.getStep();
+	}
+
+	/** The graph followed, null for a mirror fed directly. */
+	public Graph getGraph() {
+		return graph;
+	}
+
+	/** Stops following the graph; snapshots already taken stay valid. */
+	public synchronized void detach() {
+		if (attached)
+			graph.removeSink(this);
+		attached = false;
+	}
+
+	/** The graph as of the last event, read-only and never changing. */
+	public synchronized GraphSnapshot snapshot() {
+		GraphSnapshot s = new GraphSnapshot(id, new PersistentArray(nodes), nodeCount,
+				new PersistentArray(edges), edgeCount, new PersistentIdMap(nodeIds), new PersistentIdMap(edgeIds),
+				graphAttributes, step, snapshots);
+		edit = new Object();
+		ownGraphAttributes = false;
+		snapshots++;
+		return s;
+	}
+
+	public synchronized long getSnapshotCount() {
+		return snapshots;
+	}
+
+	/** Records copied because a snapshot shared them. */
+	public synchronized long getCopyCount() {
+		return copies;
+	}
+
+	public synchronized int getNodeCount() {
+		return nodeCount;
+	}
+
+	public synchronized int getEdgeCount() {
+		return edgeCount;
+	}
+
+	private void reset() {
+		nodes = new PersistentArray();
+		edges = new PersistentArray();
+		nodeIds = new PersistentIdMap();
+		edgeIds = new PersistentIdMap();
+		nodeCount = edgeCount = 0;
+		graphAttributes = null;
+		ownGraphAttributes = true;
+	}
+
+	// copy on write
+
+	private NodeRecord node(int index) {
+		NodeRecord r = (NodeRecord) nodes.get(index);
+		if (r.edit != edit) {
+			r = new NodeRecord(r, edit);
+			nodes.set(index, r, edit);
+			copies++;
+		}
+		return r;
+	}
+
+	private EdgeRecord edge(int index) {
+		EdgeRecord r = (EdgeRecord) edges.get(index);
+		if (r.edit != edit) {
+			r = new EdgeRecord(r, edit);
+			edges.set(index, r, edit);
+			copies++;
+		}
+		return r;
+	}
+
+	private static HashMap<String, Object> put(HashMap<String, Object> map, boolean own, String key, Object value) {
+		if (map == null)
+			map = new HashMap<String, Object>(4);
+		else if (!own)
+			map = new HashMap<String, Object>(map);
+		map.put(key, value);
+		return map;
+	}
+
+	private static HashMap<String, Object> remove(HashMap<String, Object> map, boolean own, String key) {
+		if (map == null || !map.containsKey(key))
+			return map;
+		if (!own)
+			map = new HashMap<String, Object>(map);
+		map.remove(key);
+		return map;
+	}
+
+	private static void attach(NodeRecord n, int e) {
+		if (!n.ownEdges || n.degree == n.edges.length) {
+			n.edges = Arrays.copyOf(n.edges, Math.max(4, n.degree + (n.degree >> 1) + 1));
+			n.ownEdges = true;
+		}
+		n.edges[n.degree++] = e;
+	}
+
+	private static void replace(NodeRecord n, int from, int to) {
+		if (!n.ownEdges) {
+			n.edges = Arrays.copyOf(n.edges, n.degree);
+			n.ownEdges = true;
+		}
+		for (int i = 0; i < n.degree; i++)
+			if (n.edges[i] == from) {
+				if (to < 0)
+					n.edges[i] = n.edges[--n.degree];
+				else
+					n.edges[i] = to;
+				return;
+			}
+	}
+
+	private void removeEdgeAt(int e) {
+		EdgeRecord r = (EdgeRecord) edges.get(e);
+		replace(node(r.source), e, -1);
+		if (r.target != r.source)
+			replace(node(r.target), e, -1);
+		edgeIds.remove(r.id, edit);
+		int last = --edgeCount;
+		if (e != last) {
+			EdgeRecord moved = (EdgeRecord) edges.get(last);
+			replace(node(moved.source), last, e);
+			if (moved.target != moved.source)
+				replace(node(moved.target), last, e);
+			edges.set(e, moved, edit);
+			edgeIds.put(moved.id, e, edit);
+		}
+		edges.set(last, null, edit);
+	}
+
+	private void removeNodeAt(int u) {
+		NodeRecord r = (NodeRecord) nodes.get(u);
+		while (r.degree > 0) {
+			removeEdgeAt(r.edges[r.degree - 1]);
+			r = (NodeRecord) nodes.get(u);
+		}
+		nodeIds.remove(r.id, edit);
+		int last = --nodeCount;
+		if (u != last) {
+			NodeRecord moved = (NodeRecord) nodes.get(last);
+			for (int i = 0; i < moved.degree; i++) {
+				EdgeRecord er = edge(moved.edges[i]);
+				if (er.source == last)
+					er.source = u;
+				if (er.target == last)
+					er.target = u;
+			}
+			nodes.set(u, moved, edit);
+			nodeIds.put(moved.id, u, edit);
+		}
+		nodes.set(last, null, edit);
+	}
+
+	// events, sent by the graph
+
+	public synchronized void nodeAdded(String sourceId, long timeId, String nodeId) {
+		if (nodeIds.get(nodeId) >= 0)
+			return;
+		nodes.set(nodeCount, new NodeRecord(nodeId, edit), edit);
+		nodeIds.put(nodeId, nodeCount++, edit);
+	}
+
+	public synchronized void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		int u = nodeIds.get(nodeId);
+		if (u >= 0)
+			removeNodeAt(u);
+	}
+
+	public synchronized void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId,
+			String toNodeId, boolean directed) {
+		int s = nodeIds.get(fromNodeId), t = nodeIds.get(toNodeId);
+		if (s < 0 || t < 0 || edgeIds.get(edgeId) >= 0)
+			return;
+		int e = edgeCount++;
+		edges.set(e, new EdgeRecord(edgeId, s, t, directed, edit), edit);
+		edgeIds.put(edgeId, e, edit);
+		attach(node(s), e);
+		if (t != s)
+			attach(node(t), e);
+	}
+
+	public synchronized void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		int e = edgeIds.get(edgeId);
+		if (e >= 0)
+			removeEdgeAt(e);
+	}
+
+	public synchronized void graphCleared(String sourceId, long timeId) {
+		reset();
+	}
+
+	public synchronized void stepBegins(String sourceId, long timeId, double time) {
+		step = time;
+	}
+
+	private void nodeAttribute(String nodeId, String attribute, Object value, boolean removed) {
+		int u = nodeIds.get(nodeId);
+		if (u < 0)
+			return;
+		NodeRecord r = node(u);
+		r.attributes = removed ? remove(r.attributes, r.ownAttributes, attribute)
+				: put(r.attributes, r.ownAttributes, attribute, value);
+		r.ownAttributes = true;
+	}
+
+	private void edgeAttribute(String edgeId, String attribute, Object value, boolean removed) {
+		int e = edgeIds.get(edgeId);
+		if (e < 0)
+			return;
+		EdgeRecord r = edge(e);
+		r.attributes = removed ? remove(r.attributes, r.ownAttributes, attribute)
+				: put(r.attributes, r.ownAttributes, attribute, value);
+		r.ownAttributes = true;
+	}
+
+	private void graphAttribute(String attribute, Object value, boolean removed) {
+		graphAttributes = removed ? remove(graphAttributes, ownGraphAttributes, attribute)
+				: put(graphAttributes, ownGraphAttributes, attribute, value);
+		ownGraphAttributes = true;
+	}
+
+	public synchronized void graphAttributeAdded(String sourceId, long timeId, String attribute, Object value) {
+		graphAttribute(attribute, value, false);
+	}
+
+	public synchronized void graphAttributeChanged(String sourceId, long timeId, String attribute,
+			Object oldValue, Object newValue) {
+		graphAttribute(attribute, newValue, false);
+	}
+
+	public synchronized void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+		graphAttribute(attribute, null, true);
+	}
+
+	public synchronized void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute,
+			Object value) {
+		nodeAttribute(nodeId, attribute, value, false);
+	}
+
+	public synchronized void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute,
+			Object oldValue, Object newValue) {
+		nodeAttribute(nodeId, attribute, newValue, false);
+	}
+
+	public synchronized void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+		nodeAttribute(nodeId, attribute, null, true);
+	}
+
+	public synchronized void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute,
+			Object value) {
+		edgeAttribute(edgeId, attribute, value, false);
+	}
+
+	public synchronized void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute,
+			Object oldValue, Object newValue) {
+		edgeAttribute(edgeId, attribute, newValue, false);
+	}
+
+	public synchronized void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+		edgeAttribute(edgeId, attribute, null, true);
+	}
+}
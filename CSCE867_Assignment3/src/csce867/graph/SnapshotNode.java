@@ -0,0 +1,340 @@
+package csce867.graph;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.graphstream.graph.BreadthFirstIterator;
+import org.graphstream.graph.DepthFirstIterator;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+
+/**
+ * Node of a {@link GraphSnapshot}, a view of an immutable record. As in
+ * CompactNode an undirected edge or a loop is both entering and leaving,
+ * and a loop is listed once.
+ */
+public class SnapshotNode extends SnapshotElement implements Node {
+
+	private static final int ANY = 0, ENTERING = 1, LEAVING = 2;
+
+	private final SnapshotMirror.NodeRecord record;
+
+	SnapshotNode(GraphSnapshot graph, int index, SnapshotMirror.NodeRecord record) {
+		super(graph, index);
+		this.record = record;
+	}
+
+	@Override
+	boolean isNode() {
+		return true;
+	}
+
+	@Override
+	HashMap<String, Object> attributes() {
+		return record.attributes;
+	}
+
+	public String getId() {
+		return record.id;
+	}
+
+	public Graph getGraph() {
+		return graph;
+	}
+
+	private SnapshotMirror.EdgeRecord edgeRecord(int position) {
+		return graph.edgeRecord(record.edges[position]);
+	}
+
+	private boolean matches(SnapshotMirror.EdgeRecord e, int kind) {
+		if (kind == ANY || !e.directed)
+			return true;
+		return kind == LEAVING ? e.source == index : e.target == index;
+	}
+
+	private int count(int kind) {
+		if (kind == ANY)
+			return record.degree;
+		int n = 0;
+		for (int i = 0; i < record.degree; i++)
+			if (matches(edgeRecord(i), kind))
+				n++;
+		return n;
+	}
+
+	/** Position of the i-th edge of the kind, or -1. */
+	private int position(int kind, int i) {
+		if (kind == ANY)
+			return i >= 0 && i < record.degree ? i : -1;
+		for (int k = 0; k < record.degree; k++)
+			if (matches(edgeRecord(k), kind) && i-- == 0)
+				return k;
+		return -1;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T extends Edge> T nth(int kind, int i) {
+		int p = position(kind, i);
+		if (p < 0)
+			throw new IndexOutOfBoundsException("Node " + getId() + " has no edge " + i);
+		return (T) graph.edgeAt(record.edges[p]);
+	}
+
+	public int getDegree() {
+		return count(ANY);
+	}
+
+	public int getInDegree() {
+		return count(ENTERING);
+	}
+
+	public int getOutDegree() {
+		return count(LEAVING);
+	}
+
+	public <T extends Edge> T getEdge(int i) {
+		return nth(ANY, i);
+	}
+
+	public <T extends Edge> T getEnteringEdge(int i) {
+		return nth(ENTERING, i);
+	}
+
+	public <T extends Edge> T getLeavingEdge(int i) {
+		return nth(LEAVING, i);
+	}
+
+	// edges toward, from and between other nodes
+
+	@SuppressWarnings("unchecked")
+	private <T extends Edge> T locate(int v, int kind) {
+		if (v < 0)
+			return null;
+		for (int i = 0; i < record.degree; i++) {
+			SnapshotMirror.EdgeRecord e = edgeRecord(i);
+			int other = e.source == index ? e.target : e.source;
+			if (other == v && matches(e, kind))
+				return (T) graph.edgeAt(record.edges[i]);
+		}
+		return null;
+	}
+
+	private <T extends Edge> T locate(Node node, int kind) {
+		if (!(node instanceof SnapshotNode) || ((SnapshotNode) node).graph != graph)
+			return null;
+		return locate(((SnapshotNode) node).index, kind);
+	}
+
+	private <T extends Edge> T locate(String nodeId, int kind) {
+		return locate(graph.nodeIndex(nodeId), kind);
+	}
+
+	private <T extends Edge> T locateIndex(int nodeIndex, int kind) {
+		graph.checkNode(nodeIndex);
+		return locate(nodeIndex, kind);
+	}
+
+	public <T extends Edge> T getEdgeToward(Node node) {
+		return locate(node, LEAVING);
+	}
+
+	public <T extends Edge> T getEdgeToward(String nodeId) {
+		return locate(nodeId, LEAVING);
+	}
+
+	public <T extends Edge> T getEdgeToward(int nodeIndex) {
+		return locateIndex(nodeIndex, LEAVING);
+	}
+
+	public <T extends Edge> T getEdgeFrom(Node node) {
+		return locate(node, ENTERING);
+	}
+
+	public <T extends Edge> T getEdgeFrom(String nodeId) {
+		return locate(nodeId, ENTERING);
+	}
+
+	public <T extends Edge> T getEdgeFrom(int nodeIndex) {
+		return locateIndex(nodeIndex, ENTERING);
+	}
+
+	public <T extends Edge> T getEdgeBetween(Node node) {
+		return locate(node, ANY);
+	}
+
+	public <T extends Edge> T getEdgeBetween(String nodeId) {
+		return locate(nodeId, ANY);
+	}
+
+	public <T extends Edge> T getEdgeBetween(int nodeIndex) {
+		return locateIndex(nodeIndex, ANY);
+	}
+
+	public boolean hasEdgeToward(Node node) {
+		return getEdgeToward(node) != null;
+	}
+
+	public boolean hasEdgeToward(String nodeId) {
+		return getEdgeToward(nodeId) != null;
+	}
+
+	public boolean hasEdgeToward(int nodeIndex) {
+		return getEdgeToward(nodeIndex) != null;
+	}
+
+	public boolean hasEdgeFrom(Node node) {
+		return getEdgeFrom(node) != null;
+	}
+
+	public boolean hasEdgeFrom(String nodeId) {
+		return getEdgeFrom(nodeId) != null;
+	}
+
+	public boolean hasEdgeFrom(int nodeIndex) {
+		return getEdgeFrom(nodeIndex) != null;
+	}
+
+	public boolean hasEdgeBetween(Node node) {
+		return getEdgeBetween(node) != null;
+	}
+
+	public boolean hasEdgeBetween(String nodeId) {
+		return getEdgeBetween(nodeId) != null;
+	}
+
+	public boolean hasEdgeBetween(int nodeIndex) {
+		return getEdgeBetween(nodeIndex) != null;
+	}
+
+	// iterators and views
+
+	private class EdgeIterator<T extends Edge> implements Iterator<T> {
+		final int kind;
+		int position;
+
+		EdgeIterator(int kind) {
+			this.kind = kind;
+			skip();
+		}
+
+		private void skip() {
+			while (position < record.degree && !matches(edgeRecord(position), kind))
+				position++;
+		}
+
+		public boolean hasNext() {
+			return position < record.degree;
+		}
+
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			T e = (T) graph.edgeAt(record.edges[position++]);
+			skip();
+			return e;
+		}
+
+		public void remove() {
+			throw GraphSnapshot.readOnly();
+		}
+	}
+
+	public <T extends Edge> Iterator<T> getEdgeIterator() {
+		return new EdgeIterator<T>(ANY);
+	}
+
+	public <T extends Edge> Iterator<T> getEnteringEdgeIterator() {
+		return new EdgeIterator<T>(ENTERING);
+	}
+
+	public <T extends Edge> Iterator<T> getLeavingEdgeIterator() {
+		return new EdgeIterator<T>(LEAVING);
+	}
+
+	public <T extends Node> Iterator<T> getNeighborNodeIterator() {
+		return new Iterator<T>() {
+			final Iterator<Edge> edges = getEdgeIterator();
+
+			public boolean hasNext() {
+				return edges.hasNext();
+			}
+
+			public T next() {
+				return edges.next().getOpposite(SnapshotNode.this);
+			}
+
+			public void remove() {
+				throw GraphSnapshot.readOnly();
+			}
+		};
+	}
+
+	public <T extends Node> Iterator<T> getBreadthFirstIterator() {
+		return new BreadthFirstIterator<T>(this);
+	}
+
+	public <T extends Node> Iterator<T> getBreadthFirstIterator(boolean directed) {
+		return new BreadthFirstIterator<T>(this, directed);
+	}
+
+	public <T extends Node> Iterator<T> getDepthFirstIterator() {
+		return new DepthFirstIterator<T>(this);
+	}
+
+	public <T extends Node> Iterator<T> getDepthFirstIterator(boolean directed) {
+		return new DepthFirstIterator<T>(this, directed);
+	}
+
+	public Iterator<Edge> iterator() {
+		return getEdgeIterator();
+	}
+
+	private <T extends Edge> Collection<T> view(final int kind) {
+		return new AbstractCollection<T>() {
+			public Iterator<T> iterator() {
+				return new EdgeIterator<T>(kind);
+			}
+
+			public int size() {
+				return count(kind);
+			}
+		};
+	}
+
+	private <T extends Edge> Iterable<T> each(final int kind) {
+		return new Iterable<T>() {
+			public Iterator<T> iterator() {
+				return new EdgeIterator<T>(kind);
+			}
+		};
+	}
+
+	public <T extends Edge> Iterable<T> getEachEdge() {
+		return each(ANY);
+	}
+
+	public <T extends Edge> Iterable<T> getEachEnteringEdge() {
+		return each(ENTERING);
+	}
+
+	public <T extends Edge> Iterable<T> getEachLeavingEdge() {
+		return each(LEAVING);
+	}
+
+	public <T extends Edge> Collection<T> getEdgeSet() {
+		return view(ANY);
+	}
+
+	public <T extends Edge> Collection<T> getEnteringEdgeSet() {
+		return view(ENTERING);
+	}
+
+	public <T extends Edge> Collection<T> getLeavingEdgeSet() {
+		return view(LEAVING);
+	}
+}
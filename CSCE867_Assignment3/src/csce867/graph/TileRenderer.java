@@ -0,0 +1,845 @@
+package csce867.graph;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.stream.Sink;
+
+/**
+ * Renders a graph into an offscreen image, without Swing and without the
+ * GraphicGraph copy a Viewer keeps: attached as a sink, it holds only the
+ * position and colour of each node and the endpoints of each edge, and runs
+ * headless.
+ *
+ * Events are not drawn as they come. The sink side records, per element,
+ * what changed since the last frame, so a node moved a thousand times
+ * between two frames is one change. {@link #renderFrame()} takes those
+ * changes, works out the tiles (squares of the image) covered by what moved,
+ * appeared or vanished, before and after, and repaints only those tiles, in
+ * parallel in a ForkJoinPool. Tiles are regions of one image, so nothing is
+ * composed afterwards. {@link #start(int)} renders frames at a fixed rate on
+ * a thread of its own.
+ *
+ * Positions are read from the xyz, xy, x and y attributes, colours from
+ * ui.color (a Color or a "#rrggbb" string); nodes without a position are not
+ * drawn. The viewport maps graph coordinates to pixels, y upwards; until it
+ * is set it is fitted to the positions at the first frame.
+ *
+ * Frame time (a histogram), dirty tiles of the last frame, frames rendered,
+ * events received and the changes queued for the next frame are exposed,
+ * so a rendering loop can be timed as a benchmark. The image is the frame
+ * buffer: read it between frames, e.g. from the frame listener.
+ */
+public class TileRenderer implements Sink {
+
+	public static final int DEFAULT_TILE_SIZE = 64;
+
+	private static final Color BACKGROUND = Color.WHITE, NODE = Color.BLACK, EDGE = Color.GRAY;
+
+	private final Graph graph;
+	private final ForkJoinPool pool;
+	private final int width, height, tileSize, columns, rows;
+	private final BufferedImage image;
+	private final int[] pixels;
+	private final int radius = 3;
+	/** half width of the node disc on each row from its centre */
+	private static final int[] DISC = { 3, 3, 2, 1 };
+
+	// changes since the last frame, guarded by lock
+	private final Object lock = new Object();
+	private HashMap<String, NodeChange> nodeChanges = new HashMap<String, NodeChange>();
+	private HashMap<String, EdgeChange> edgeChanges = new HashMap<String, EdgeChange>();
+	private boolean cleared, refit, repaint;
+	private double[] viewportRequest;
+	private long events;
+
+	// render state, owned by the thread in renderFrame
+	private final HashMap<String, NodeShape> nodes = new HashMap<String, NodeShape>();
+	private final HashMap<String, EdgeShape> edges = new HashMap<String, EdgeShape>();
+	private final ArrayList<HashSet<NodeShape>> tileNodes;
+	private final ArrayList<HashSet<EdgeShape>> tileEdges;
+	private final BitSet dirty = new BitSet();
+	private double minX, maxY, scale;
+	private boolean fitted;
+	private volatile boolean antialiasing;
+
+	// metrics
+	private final LatencyHistogram frameTimes = new LatencyHistogram();
+	private volatile long frames, lastFrameNanos, tilesRendered;
+	private volatile int lastDirtyTiles;
+
+	private ScheduledExecutorService loop;
+	private volatile Runnable frameListener;
+
+	public TileRenderer(Graph graph, int width, int height) {
+		this(graph, width, height, DEFAULT_TILE_SIZE, ForkJoinPool.commonPool());
+	}
+
+	public TileRenderer(Graph graph, int width, int height, int tileSize, ForkJoinPool pool) {
+		if (width < 1 || height < 1 || tileSize < 1)
+			throw new IllegalArgumentException("image and tile sizes must be positive");
+		this.graph = graph;
+		this.pool = pool;
+		this.width = width;
+		this.height = height;
+		this.tileSize = tileSize;
+		columns = (width + tileSize - 1) / tileSize;
+		rows = (height + tileSize - 1) / tileSize;
+		image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		tileNodes = new ArrayList<HashSet<NodeShape>>(columns * rows);
+		tileEdges = new ArrayList<HashSet<EdgeShape>>(columns * rows);
+		for (int t = 0; t < columns * rows; t++) {
+			tileNodes.add(new HashSet<NodeShape>());
+			tileEdges.add(new HashSet<EdgeShape>());
+		}
+		dirty.set(0, columns * rows);
+		synchronized (lock) {
+			for (Node n : graph.getEachNode()) {
+				nodeAdded(null, 0, n.getId());
+				for (String key : n.getAttributeKeySet())
+					nodeAttributeAdded(null, 0, n.getId(), key, n.getAttribute(key));
+			}
+			for (Edge e : graph.getEachEdge()) {
+				edgeAdded(null, 0, e.getId(), e.getSourceNode().getId(), e.getTargetNode().getId(), e.isDirected());
+				Object colour = e.getAttribute("ui.color");
+				if (colour != null)
+					edgeAttributeAdded(null, 0, e.getId(), "ui.color", colour);
+			}
+			graph.addSink(this);
+		}
+	}
+
+	public Graph getGraph() {
+		return graph;
+	}
+
+	/** The frame buffer. */
+	public BufferedImage getImage() {
+		return image;
+	}
+
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	public int getTileCount() {
+		return columns * rows;
+	}
+
+	/** Shows [minX, maxX] x [minY, maxY] of the graph from the next frame on. */
+	public void setViewport(double minX, double minY, double maxX, double maxY) {
+		if (!(minX < maxX && minY < maxY))
+			throw new IllegalArgumentException("empty viewport");
+		synchronized (lock) {
+			viewportRequest = new double[] { minX, minY, maxX, maxY };
+		}
+	}
+
+	/** Fits the viewport to the node positions at the next frame. */
+	public void fitViewport() {
+		synchronized (lock) {
+			refit = true;
+		}
+	}
+
+	/**
+	 * Smooth lines and discs, drawn through Graphics2D and many times slower;
+	 * off by default.
+	 */
+	public void setAntialiasing(boolean on) {
+		synchronized (lock) {
+			antialiasing = on;
+			repaint = true;
+		}
+	}
+
+	public boolean isAntialiasing() {
+		return antialiasing;
+	}
+
+	/** Stops following the graph; stops the frame loop. */
+	public void detach() {
+		stop();
+		graph.removeSink(this);
+	}
+
+	// metrics
+
+	/** Element changes waiting for the next frame, after coalescing. */
+	public int getQueueDepth() {
+		synchronized (lock) {
+			return nodeChanges.size() + edgeChanges.size();
+		}
+	}
+
+	/** Graph events received since construction. */
+	public long getEventCount() {
+		synchronized (lock) {
+			return events;
+		}
+	}
+
+	public long getFrameCount() {
+		return frames;
+	}
+
+	public long getLastFrameNanos() {
+		return lastFrameNanos;
+	}
+
+	/** Render time of every frame, in nanoseconds. */
+	public LatencyHistogram getFrameTimes() {
+		return frameTimes;
+	}
+
+	public int getLastDirtyTiles() {
+		return lastDirtyTiles;
+	}
+
+	public long getTilesRendered() {
+		return tilesRendered;
+	}
+
+	// frame loop
+
+	/** Called on the rendering thread after each frame. */
+	public void setFrameListener(Runnable listener) {
+		frameListener = listener;
+	}
+
+	/** Renders framesPerSecond frames a second on a thread of its own. */
+	public synchronized void start(int framesPerSecond) {
+		if (framesPerSecond < 1)
+			throw new IllegalArgumentException("frame rate must be positive");
+		if (loop != null)
+			throw new IllegalStateException("frame loop already running");
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+			Thread t = new Thread(r, "tile-renderer");
+			t.setDaemon(true);
+			return t;
+		});
+		executor.scheduleAtFixedRate(this::renderFrame, 0, 1000000000L / framesPerSecond, TimeUnit.NANOSECONDS);
+		loop = executor;
+	}
+
+	public synchronized void stop() {
+		if (loop == null)
+			return;
+		loop.shutdown();
+		try {
+			loop.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		loop = null;
+	}
+
+	// rendering
+
+	/**
+	 * Applies the changes queued since the last frame and repaints the tiles
+	 * they touch. Frames must not overlap: call it from one thread, or use
+	 * {@link #start(int)}.
+	 *
+	 * @return the number of tiles repainted
+	 */
+	public int renderFrame() {
+		long started = System.nanoTime();
+		HashMap<String, NodeChange> nodeBatch;
+		HashMap<String, EdgeChange> edgeBatch;
+		boolean clear, fit;
+		double[] viewport;
+		synchronized (lock) {
+			nodeBatch = nodeChanges;
+			edgeBatch = edgeChanges;
+			nodeChanges = new HashMap<String, NodeChange>();
+			edgeChanges = new HashMap<String, EdgeChange>();
+			clear = cleared;
+			fit = refit;
+			viewport = viewportRequest;
+			if (repaint)
+				dirty.set(0, columns * rows);
+			cleared = refit = repaint = false;
+			viewportRequest = null;
+		}
+
+		if (clear) {
+			nodes.clear();
+			edges.clear();
+			for (int t = 0; t < tileNodes.size(); t++) {
+				tileNodes.get(t).clear();
+				tileEdges.get(t).clear();
+			}
+			dirty.set(0, columns * rows);
+		}
+		HashSet<EdgeShape> reshape = new HashSet<EdgeShape>();
+		for (Map.Entry<String, NodeChange> entry : nodeBatch.entrySet())
+			apply(entry.getKey(), entry.getValue(), reshape);
+		for (Map.Entry<String, EdgeChange> entry : edgeBatch.entrySet())
+			apply(entry.getKey(), entry.getValue(), reshape);
+
+		if (viewport != null)
+			setTransform(viewport[0], viewport[1], viewport[2], viewport[3]);
+		else if (fit || !fitted)
+			fit();
+		else
+			for (EdgeShape e : reshape)
+				place(e);
+
+		int[] tiles = dirty.stream().toArray();
+		dirty.clear();
+		paint(tiles);
+
+		long elapsed = System.nanoTime() - started;
+		frameTimes.record(elapsed);
+		lastFrameNanos = elapsed;
+		lastDirtyTiles = tiles.length;
+		tilesRendered += tiles.length;
+		frames++;
+		Runnable listener = frameListener;
+		if (listener != null)
+			listener.run();
+		return tiles.length;
+	}
+
+	private void apply(String id, NodeChange c, HashSet<EdgeShape> reshape) {
+		NodeShape n = nodes.get(id);
+		if (c.removed) {
+			if (n != null) {
+				unplace(n);
+				nodes.remove(id);
+			}
+			if (!c.added)
+				return;
+			n = null;
+		}
+		if (n == null)
+			nodes.put(id, n = new NodeShape());
+		if (c.recoloured) {
+			n.colour = c.colour;
+			markTiles(n.tiles);
+		}
+		if (c.moved) {
+			n.x = c.hidden ? Double.NaN : Double.isNaN(c.x) ? n.x : c.x;
+			n.y = c.hidden ? Double.NaN : Double.isNaN(c.y) ? n.y : c.y;
+			if (fitted)
+				place(n);
+			reshape.addAll(n.edges);
+		}
+	}
+
+	private void apply(String id, EdgeChange c, HashSet<EdgeShape> reshape) {
+		EdgeShape e = edges.get(id);
+		if (c.removed && e != null) {
+			unplace(e);
+			edges.remove(id);
+			reshape.remove(e);
+			if (e.from != null)
+				e.from.edges.remove(e);
+			if (e.to != null)
+				e.to.edges.remove(e);
+			e = null;
+		}
+		if (c.added) {
+			edges.put(id, e = new EdgeShape());
+			e.from = node(c.from);
+			e.to = node(c.to);
+			e.from.edges.add(e);
+			e.to.edges.add(e);
+			reshape.add(e);
+		}
+		if (e != null && c.recoloured) {
+			e.colour = c.colour;
+			markTiles(e.tiles);
+		}
+	}
+
+	private NodeShape node(String id) {
+		NodeShape n = nodes.get(id);
+		if (n == null)
+			nodes.put(id, n = new NodeShape());
+		return n;
+	}
+
+	private void fit() {
+		double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+		double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+		for (NodeShape n : nodes.values()) {
+			if (Double.isNaN(n.x) || Double.isNaN(n.y))
+				continue;
+			x0 = Math.min(x0, n.x);
+			y0 = Math.min(y0, n.y);
+			x1 = Math.max(x1, n.x);
+			y1 = Math.max(y1, n.y);
+		}
+		if (x0 > x1) {
+			x0 = y0 = 0;
+			x1 = y1 = 1;
+		}
+		double margin = 0.05 * Math.max(Math.max(x1 - x0, y1 - y0), 1e-9);
+		setTransform(x0 - margin, y0 - margin, x1 + margin, y1 + margin);
+	}
+
+	/** A new viewport: every element is placed again and every tile repainted. */
+	private void setTransform(double x0, double y0, double x1, double y1) {
+		minX = x0;
+		maxY = y1;
+		scale = Math.min(width / (x1 - x0), height / (y1 - y0));
+		fitted = true;
+		for (NodeShape n : nodes.values())
+			place(n);
+		for (EdgeShape e : edges.values())
+			place(e);
+		dirty.set(0, columns * rows);
+	}
+
+	// tiles
+
+	private void markTiles(int[] tiles) {
+		for (int t : tiles)
+			dirty.set(t);
+	}
+
+	private void unplace(NodeShape n) {
+		for (int t : n.tiles) {
+			tileNodes.get(t).remove(n);
+			dirty.set(t);
+		}
+		n.tiles = NO_TILES;
+	}
+
+	private void unplace(EdgeShape e) {
+		for (int t : e.tiles) {
+			tileEdges.get(t).remove(e);
+			dirty.set(t);
+		}
+		e.tiles = NO_TILES;
+	}
+
+	/** Moves n to the tiles its disc covers now, marking old and new dirty. */
+	private void place(NodeShape n) {
+		unplace(n);
+		if (Double.isNaN(n.x) || Double.isNaN(n.y))
+			return;
+		double px = px(n.x), py = py(n.y);
+		if (outside(px - radius, py - radius, px + radius, py + radius))
+			return;
+		int c0 = column(px - radius), c1 = column(px + radius), r0 = row(py - radius), r1 = row(py + radius);
+		int[] tiles = new int[(c1 - c0 + 1) * (r1 - r0 + 1)];
+		int k = 0;
+		for (int r = r0; r <= r1; r++)
+			for (int c = c0; c <= c1; c++) {
+				int t = r * columns + c;
+				tiles[k++] = t;
+				tileNodes.get(t).add(n);
+				dirty.set(t);
+			}
+		n.tiles = tiles;
+	}
+
+	/** Moves e to the tiles its segment crosses now, marking old and new dirty. */
+	private void place(EdgeShape e) {
+		unplace(e);
+		NodeShape a = e.from, b = e.to;
+		if (Double.isNaN(a.x) || Double.isNaN(a.y) || Double.isNaN(b.x) || Double.isNaN(b.y))
+			return;
+		double x1 = px(a.x), y1 = py(a.y), x2 = px(b.x), y2 = py(b.y);
+		if (outside(Math.min(x1, x2) - 1, Math.min(y1, y2) - 1, Math.max(x1, x2) + 1, Math.max(y1, y2) + 1))
+			return;
+		int c0 = column(Math.min(x1, x2) - 1), c1 = column(Math.max(x1, x2) + 1);
+		int r0 = row(Math.min(y1, y2) - 1), r1 = row(Math.max(y1, y2) + 1);
+		int[] tiles = new int[8];
+		int k = 0;
+		for (int r = r0; r <= r1; r++)
+			for (int c = c0; c <= c1; c++) {
+				// the tile grown by the line width, against the segment
+				if (!crosses(x1, y1, x2, y2, c * tileSize - 1, r * tileSize - 1, (c + 1) * tileSize + 1,
+						(r + 1) * tileSize + 1))
+					continue;
+				int t = r * columns + c;
+				if (k == tiles.length)
+					tiles = Arrays.copyOf(tiles, 2 * k);
+				tiles[k++] = t;
+				tileEdges.get(t).add(e);
+				dirty.set(t);
+			}
+		e.tiles = Arrays.copyOf(tiles, k);
+	}
+
+	/** Whether segment (x1, y1)-(x2, y2) meets the rectangle, Liang-Barsky. */
+	private static boolean crosses(double x1, double y1, double x2, double y2, double left, double top,
+			double right, double bottom) {
+		double dx = x2 - x1, dy = y2 - y1, t0 = 0, t1 = 1;
+		double[] p = { -dx, dx, -dy, dy };
+		double[] q = { x1 - left, right - x1, y1 - top, bottom - y1 };
+		for (int i = 0; i < 4; i++) {
+			if (p[i] == 0) {
+				if (q[i] < 0)
+					return false;
+			} else {
+				double r = q[i] / p[i];
+				if (p[i] < 0)
+					t0 = Math.max(t0, r);
+				else
+					t1 = Math.min(t1, r);
+				if (t0 > t1)
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/** Pixel coordinate, clamped well inside the int range. */
+	private static int pixel(double p) {
+		return (int) Math.round(Math.max(-1e6, Math.min(1e6, p)));
+	}
+
+	private double px(double x) {
+		return (x - minX) * scale;
+	}
+
+	private double py(double y) {
+		return (maxY - y) * scale;
+	}
+
+	/** Column of pixel x, clamped to the image. */
+	private int column(double x) {
+		return (int) Math.max(0, Math.min(columns - 1, Math.floor(x / tileSize)));
+	}
+
+	private int row(double y) {
+		return (int) Math.max(0, Math.min(rows - 1, Math.floor(y / tileSize)));
+	}
+
+	private boolean outside(double left, double top, double right, double bottom) {
+		return right < 0 || bottom < 0 || left >= width || top >= height;
+	}
+
+	private void paint(int[] tiles) {
+		if (tiles.length == 0)
+			return;
+		if (tiles.length == 1 || pool.getParallelism() == 1) {
+			for (int t : tiles)
+				paintTile(t);
+			return;
+		}
+		ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(tiles.length);
+		for (int t : tiles) {
+			final int tile = t;
+			tasks.add(ForkJoinTask.adapt(() -> paintTile(tile)));
+		}
+		if (ForkJoinTask.inForkJoinPool())
+			ForkJoinTask.invokeAll(tasks);
+		else
+			pool.invoke(new RecursiveAction() {
+				protected void compute() {
+					invokeAll(tasks);
+				}
+			});
+	}
+
+	/** Repaints one tile from scratch: background, its edges, its nodes. */
+	private void paintTile(int t) {
+		int x = (t % columns) * tileSize, y = (t / columns) * tileSize;
+		int w = Math.min(tileSize, width - x), h = Math.min(tileSize, height - y);
+		if (!antialiasing) {
+			paintPixels(x, y, x + w, y + h, t);
+			return;
+		}
+		Graphics2D g = image.getSubimage(x, y, w, h).createGraphics();
+		try {
+			g.setColor(BACKGROUND);
+			g.fillRect(0, 0, w, h);
+			g.translate(-x, -y);
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			for (EdgeShape e : tileEdges.get(t)) {
+				g.setColor(e.colour == null ? EDGE : e.colour);
+				g.draw(new Line2D.Double(px(e.from.x), py(e.from.y), px(e.to.x), py(e.to.y)));
+			}
+			for (NodeShape n : tileNodes.get(t)) {
+				g.setColor(n.colour == null ? NODE : n.colour);
+				g.fill(new Ellipse2D.Double(px(n.x) - radius, py(n.y) - radius, 2 * radius, 2 * radius));
+			}
+		} finally {
+			g.dispose();
+		}
+	}
+
+	/**
+	 * Without antialiasing the tile is written straight into the raster, a
+	 * call per element through Graphics2D costing more than the pixels. A
+	 * line plots, along its major axis, the pixel nearest the true line, so
+	 * the part of it in a tile is the same whichever tiles are repainted.
+	 */
+	private void paintPixels(int left, int top, int right, int bottom, int t) {
+		int background = BACKGROUND.getRGB();
+		for (int y = top; y < bottom; y++)
+			Arrays.fill(pixels, y * width + left, y * width + right, background);
+		for (EdgeShape e : tileEdges.get(t)) {
+			int rgb = (e.colour == null ? EDGE : e.colour).getRGB();
+			int x0 = pixel(px(e.from.x)), y0 = pixel(py(e.from.y)), x1 = pixel(px(e.to.x)), y1 = pixel(py(e.to.y));
+			int dx = x1 - x0, dy = y1 - y0;
+			if (Math.abs(dx) >= Math.abs(dy)) {
+				if (dx == 0) {
+					plot(x0, y0, rgb, left, top, right, bottom);
+					continue;
+				}
+				double slope = (double) dy / dx;
+				for (int x = Math.max(left, Math.min(x0, x1)), end = Math.min(right - 1, Math.max(x0, x1)); x <= end; x++)
+					plot(x, (int) Math.round(y0 + (x - x0) * slope), rgb, left, top, right, bottom);
+			} else {
+				double slope = (double) dx / dy;
+				for (int y = Math.max(top, Math.min(y0, y1)), end = Math.min(bottom - 1, Math.max(y0, y1)); y <= end; y++)
+					plot((int) Math.round(x0 + (y - y0) * slope), y, rgb, left, top, right, bottom);
+			}
+		}
+		for (NodeShape n : tileNodes.get(t)) {
+			int rgb = (n.colour == null ? NODE : n.colour).getRGB();
+			int cx = pixel(px(n.x)), cy = pixel(py(n.y));
+			for (int dy = -radius; dy <= radius; dy++) {
+				int y = cy + dy;
+				if (y < top || y >= bottom)
+					continue;
+				int half = DISC[Math.abs(dy)];
+				int from = Math.max(left, cx - half), to = Math.min(right, cx + half + 1);
+				if (from < to)
+					Arrays.fill(pixels, y * width + from, y * width + to, rgb);
+			}
+		}
+	}
+
+	private void plot(int x, int y, int rgb, int left, int top, int right, int bottom) {
+		if (x >= left && x < right && y >= top && y < bottom)
+			pixels[y * width + x] = rgb;
+	}
+
+	private static final int[] NO_TILES = new int[0];
+
+	private static class NodeShape {
+		double x = Double.NaN, y = Double.NaN;
+		Color colour;
+		int[] tiles = NO_TILES;
+		final HashSet<EdgeShape> edges = new HashSet<EdgeShape>(4);
+	}
+
+	private static class EdgeShape {
+		NodeShape from, to;
+		Color colour;
+		int[] tiles = NO_TILES;
+	}
+
+	// changes, coalesced per element until the next frame
+
+	private static class NodeChange {
+		boolean added, removed, moved, hidden, recoloured;
+		double x = Double.NaN, y = Double.NaN;
+		Color colour;
+	}
+
+	private static class EdgeChange {
+		boolean added, removed, recoloured;
+		String from, to;
+		Color colour;
+	}
+
+	private NodeChange nodeChange(String id) {
+		events++;
+		NodeChange c = nodeChanges.get(id);
+		if (c == null)
+			nodeChanges.put(id, c = new NodeChange());
+		return c;
+	}
+
+	private EdgeChange edgeChange(String id) {
+		events++;
+		EdgeChange c = edgeChanges.get(id);
+		if (c == null)
+			edgeChanges.put(id, c = new EdgeChange());
+		return c;
+	}
+
+	private static double number(Object value) {
+		return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+	}
+
+	/** Element i of an array attribute (Object[], double[], float[]...), or NaN. */
+	private static double coordinate(Object value, int i) {
+		if (value instanceof Object[])
+			return ((Object[]) value).length > i ? number(((Object[]) value)[i]) : Double.NaN;
+		if (value instanceof double[])
+			return ((double[]) value).length > i ? ((double[]) value)[i] : Double.NaN;
+		if (value instanceof float[])
+			return ((float[]) value).length > i ? ((float[]) value)[i] : Double.NaN;
+		if (value instanceof int[])
+			return ((int[]) value).length > i ? ((int[]) value)[i] : Double.NaN;
+		return Double.NaN;
+	}
+
+	private static Color colour(Object value) {
+		if (value instanceof Color)
+			return (Color) value;
+		if (value instanceof String && ((String) value).startsWith("#")) {
+			try {
+				return Color.decode((String) value);
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	private void nodeAttribute(String nodeId, String attribute, Object value) {
+		switch (attribute) {
+		case "xyz":
+		case "xy": {
+			NodeChange c = nodeChange(nodeId);
+			c.moved = true;
+			c.hidden = value == null;
+			c.x = coordinate(value, 0);
+			c.y = coordinate(value, 1);
+			break;
+		}
+		case "x":
+		case "y": {
+			NodeChange c = nodeChange(nodeId);
+			c.moved = true;
+			c.hidden = false;
+			if (attribute.equals("x"))
+				c.x = number(value);
+			else
+				c.y = number(value);
+			break;
+		}
+		case "ui.color": {
+			NodeChange c = nodeChange(nodeId);
+			c.recoloured = true;
+			c.colour = colour(value);
+			break;
+		}
+		default:
+			events++;
+		}
+	}
+
+	// sink
+
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		synchronized (lock) {
+			NodeChange c = nodeChange(nodeId);
+			c.added = true;
+		}
+	}
+
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		synchronized (lock) {
+			NodeChange c = nodeChange(nodeId);
+			c.removed = true;
+			c.added = c.moved = c.recoloured = false;
+			c.x = c.y = Double.NaN;
+		}
+	}
+
+	public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId,
+			boolean directed) {
+		synchronized (lock) {
+			EdgeChange c = edgeChange(edgeId);
+			c.added = true;
+			c.from = fromNodeId;
+			c.to = toNodeId;
+		}
+	}
+
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		synchronized (lock) {
+			EdgeChange c = edgeChange(edgeId);
+			c.removed = true;
+			c.added = c.recoloured = false;
+		}
+	}
+
+	public void graphCleared(String sourceId, long timeId) {
+		synchronized (lock) {
+			events++;
+			nodeChanges.clear();
+			edgeChanges.clear();
+			cleared = true;
+		}
+	}
+
+	public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+		synchronized (lock) {
+			nodeAttribute(nodeId, attribute, value);
+		}
+	}
+
+	public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute,
+			Object oldValue, Object newValue) {
+		synchronized (lock) {
+			nodeAttribute(nodeId, attribute, newValue);
+		}
+	}
+
+	public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+		synchronized (lock) {
+			if (attribute.equals("x") || attribute.equals("y"))
+				nodeAttribute(nodeId, "xyz", null);
+			else
+				nodeAttribute(nodeId, attribute, null);
+		}
+	}
+
+	public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+		edgeAttributeChanged(sourceId, timeId, edgeId, attribute, null, value);
+	}
+
+	public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute,
+			Object oldValue, Object newValue) {
+		synchronized (lock) {
+			if (!attribute.equals("ui.color")) {
+				events++;
+				return;
+			}
+			EdgeChange c = edgeChange(edgeId);
+			c.recoloured = true;
+			c.colour = colour(newValue);
+		}
+	}
+
+	public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+		edgeAttributeChanged(sourceId, timeId, edgeId, attribute, null, null);
+	}
+
+	public void graphAttributeAdded(String sourceId, long timeId, String attribute, Object value) {
+	}
+
+	public void graphAttributeChanged(String sourceId, long timeId, String attribute, Object oldValue,
+			Object newValue) {
+	}
+
+	public void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+	}
+
+	public void stepBegins(String sourceId, long timeId, double step) {
+	}
+}
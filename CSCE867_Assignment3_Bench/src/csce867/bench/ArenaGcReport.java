@@ -0,0 +1,101 @@
+package csce867.bench;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+
+import csce867.graph.ArenaEdgeFactory;
+import csce867.graph.ArenaNodeFactory;
+import csce867.graph.ElementArena;
+
+/**
+ * Heap and GC pauses of a SingleGraph with the default factories and with
+ * the arena factories. Not a JMH benchmark: run it with a large -Xmx, the
+ * collector under test (e.g. -XX:+UseParallelGC) and optionally the node
+ * count as argument (default 1000000).
+ *
+ * The graph is the fixture ring with chords, each node carrying a Double
+ * "rank" and an Integer "hits", each edge a Double weight, all in arena
+ * columns. Reported: retained heap (used heap around the build), off-heap
+ * bytes, the average of 5 full collections with the graph live, and the
+ * young collections while 4 GB of short-lived garbage is allocated next to
+ * it, whose pauses grow with the objects the collector has to trace.
+ */
+public class ArenaGcReport {
+
+	private static long usedHeap() {
+		Runtime rt = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+		}
+		return used;
+	}
+
+	private static long[] gcTotals() {
+		long count = 0, millis = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, gc.getCollectionCount());
+			millis += Math.max(0, gc.getCollectionTime());
+		}
+		return new long[] { count, millis };
+	}
+
+	static SingleGraph build(int n, boolean arena) {
+		SingleGraph g = new SingleGraph("bench", false, false, n, n + n / 2);
+		if (arena) {
+			g.setNodeFactory(new ArenaNodeFactory(new ElementArena().column("rank", Double.class)
+					.column("hits", Integer.class)));
+			g.setEdgeFactory(new ArenaEdgeFactory(new ElementArena().column(GraphFixtures.NUM_KEY, Double.class)));
+		}
+		GraphFixtures.populate(g, n, false);
+		for (Node node : g) {
+			node.addAttribute("rank", node.getIndex() * 0.5);
+			node.addAttribute("hits", node.getIndex());
+		}
+		for (Edge edge : g.getEachEdge())
+			edge.addAttribute(GraphFixtures.NUM_KEY, (double) edge.getIndex());
+		return g;
+	}
+
+	private static void measure(String name, int n, boolean arena) {
+		long before = usedHeap();
+		SingleGraph g = build(n, arena);
+		long heap = usedHeap() - before;
+		long offHeap = arena ? ((ArenaNodeFactory) g.nodeFactory()).getArena().getOffHeapBytes()
+				+ ((ArenaEdgeFactory) g.edgeFactory()).getArena().getOffHeapBytes() : 0;
+
+		long[] start = gcTotals();
+		for (int i = 0; i < 5; i++)
+			System.gc();
+		long[] full = gcTotals();
+		double fullPause = (double) (full[1] - start[1]) / Math.max(1, full[0] - start[0]);
+
+		// short-lived garbage next to the live graph
+		Random rnd = new Random(GraphFixtures.SEED);
+		long sink = 0;
+		for (long bytes = 0; bytes < (4L << 30); bytes += 1024) {
+			long[] garbage = new long[126];
+			garbage[rnd.nextInt(126)] = bytes;
+			sink += garbage[0];
+		}
+		long[] churn = gcTotals();
+		long youngCount = churn[0] - full[0], youngMillis = churn[1] - full[1];
+
+		System.out.printf("%-7s nodes=%d edges=%d heap=%,d bytes (%d per element) off-heap=%,d bytes%n", name,
+				g.getNodeCount(), g.getEdgeCount(), heap, heap / (g.getNodeCount() + g.getEdgeCount()), offHeap);
+		System.out.printf("%-7s full gc %.1f ms each, churn %d gcs %d ms (%.2f ms each)%s%n", name, fullPause,
+				youngCount, youngMillis, (double) youngMillis / Math.max(1, youngCount), sink == 42 ? " " : "");
+	}
+
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		measure("default", n, false);
+		measure("arena", n, true);
+	}
+}
@@ -0,0 +1,94 @@
+package csce867.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import csce867.graph.AttributeIndex;
+
+/**
+ * "Elements where key == v" and "edges where weight is in a range" on the
+ * fixture graph, nodes tagged with one of 100 groups: a scan reading the
+ * attribute of every element against AttributeIndex lookups, and the cost
+ * the index adds to an attribute write.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx16g" })
+public class AttributeIndexBenchmark {
+
+	static final String GROUP = "group";
+
+	@Param({ "10000", "100000" })
+	public int size;
+
+	SingleGraph graph;
+	AttributeIndex index;
+	int next;
+
+	@Setup
+	public void build() {
+		graph = GraphFixtures.populate(new SingleGraph("bench", false, false, size, size + size / 2), size, true);
+		for (int i = 0; i < size; i++)
+			graph.getNode(i).addAttribute(GROUP, i % 100);
+		index = new AttributeIndex(graph);
+		index.indexNodes(GROUP);
+		index.indexEdgesByRange(GraphFixtures.NUM_KEY);
+	}
+
+	@Benchmark
+	public List<Node> equalityScan() {
+		ArrayList<Node> found = new ArrayList<Node>();
+		Integer v = 42;
+		for (Node n : graph.getEachNode())
+			if (v.equals(n.getAttribute(GROUP)))
+				found.add(n);
+		return found;
+	}
+
+	@Benchmark
+	public List<Node> equalityIndex() {
+		return index.nodes(GROUP, 42);
+	}
+
+	@Benchmark
+	public List<Edge> rangeScan() {
+		ArrayList<Edge> found = new ArrayList<Edge>();
+		for (Edge e : graph.getEachEdge()) {
+			Object w = e.getAttribute(GraphFixtures.NUM_KEY);
+			if (w instanceof Number && ((Number) w).doubleValue() >= 1000 && ((Number) w).doubleValue() <= 1100)
+				found.add(e);
+		}
+		return found;
+	}
+
+	@Benchmark
+	public List<Edge> rangeIndex() {
+		return index.edges(GraphFixtures.NUM_KEY, 1000, 1100);
+	}
+
+	@Benchmark
+	public int indexedWrite() {
+		int i = next++ % size;
+		graph.getNode(i).setAttribute(GROUP, next % 100);
+		return i;
+	}
+}
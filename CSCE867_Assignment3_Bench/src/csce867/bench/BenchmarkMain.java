@@ -0,0 +1,34 @@
+package csce867.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.results.format.ResultFormatType;
+
+/**
+ * Entry point for the benchmark project. Accepts the normal JMH command
+ * line (benchmark regex, -p size=..., -f, -wi, ...) and always adds the
+ * gc profiler so every result carries gc.alloc.rate.norm (bytes per op)
+ * next to the throughput and the SampleTime percentiles.
+ *
+ * Run from Eclipse with e.g. "SingleGraphRead -p size=1000,100000" as the
+ * program arguments, or from a shell with the bin folders and jars of both
+ * projects on the class path. Results are written to jmh-result.json so two
+ * runs (before and after swapping lib/gs-core-1.3) can be diffed.
+ */
+public class BenchmarkMain {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		Options opts = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.resultFormat(ResultFormatType.JSON)
+				.result("jmh-result.json")
+				.build();
+		new Runner(opts).run();
+	}
+}
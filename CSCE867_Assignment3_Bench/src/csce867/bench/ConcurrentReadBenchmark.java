@@ -0,0 +1,127 @@
+package csce867.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import csce867.graph.ConcurrentGraph;
+
+/**
+ * Many readers and one writer on one shared graph: 7 threads reading an
+ * attribute and an edge's endpoints while 1 thread toggles an edge and
+ * rewrites node attributes. "locked" is SingleGraph behind one
+ * ReentrantReadWriteLock, the wrapping we use today; "concurrent" is
+ * ConcurrentGraph with its optimistic reads and striped attribute writes.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx16g" })
+public class ConcurrentReadBenchmark {
+
+	@Param({ "10000", "1000000" })
+	public int size;
+
+	SingleGraph sg;
+	ReentrantReadWriteLock rw;
+	ConcurrentGraph cg;
+	int[] order;
+
+	@State(Scope.Thread)
+	public static class Cursor {
+		int position = new Random().nextInt(4096);
+		int toggles;
+	}
+
+	@Setup
+	public void build() {
+		sg = GraphFixtures.singleGraph(size);
+		rw = new ReentrantReadWriteLock();
+		cg = GraphFixtures.populate(new ConcurrentGraph("bench", false, false, size, size + size / 2), size);
+		order = new int[4096];
+		Random rnd = new Random(GraphFixtures.SEED);
+		for (int i = 0; i < order.length; i++)
+			order[i] = rnd.nextInt(size);
+	}
+
+	private int next(Cursor c) {
+		c.position = (c.position + 1) & (order.length - 1);
+		return order[c.position];
+	}
+
+	@Benchmark
+	@Group("locked")
+	@GroupThreads(7)
+	public Object lockedRead(Cursor c) {
+		rw.readLock().lock();
+		try {
+			Edge e = sg.getEdge(next(c));
+			Node n = e.getNode0();
+			return n.getAttribute(GraphFixtures.KEY);
+		} finally {
+			rw.readLock().unlock();
+		}
+	}
+
+	@Benchmark
+	@Group("locked")
+	@GroupThreads(1)
+	public void lockedWrite(Cursor c) {
+		rw.writeLock().lock();
+		try {
+			write(sg, c);
+		} finally {
+			rw.writeLock().unlock();
+		}
+	}
+
+	@Benchmark
+	@Group("concurrent")
+	@GroupThreads(7)
+	public Object concurrentRead(Cursor c) {
+		Edge e = cg.getEdge(next(c));
+		Node n = e.getNode0();
+		return n.getAttribute(GraphFixtures.KEY);
+	}
+
+	@Benchmark
+	@Group("concurrent")
+	@GroupThreads(1)
+	public void concurrentWrite(Cursor c) {
+		write(cg, c);
+	}
+
+	private void write(Graph g, Cursor c) {
+		// alternate a structural change and an attribute change; the toggled
+		// edge is always the last one, so the ring edges the readers pick by
+		// index below size never move
+		if ((c.toggles++ & 1) == 0) {
+			if (g.getEdge("toggle") == null)
+				g.addEdge("toggle", 0, size / 2);
+			else
+				g.removeEdge("toggle");
+		} else {
+			g.getNode(next(c)).addAttribute(GraphFixtures.KEY, "node_attrib_value");
+		}
+	}
+}
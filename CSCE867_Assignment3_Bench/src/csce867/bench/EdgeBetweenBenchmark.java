@@ -0,0 +1,107 @@
+package csce867.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.Edge;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import csce867.graph.CompactGraph;
+
+/**
+ * Lookups by node pair on a CompactGraph of random edges, the existence
+ * checks of a link-prediction workload. "none" walks the shorter incidence
+ * list, "table" probes the EdgePairIndex, "bloom" puts its Bloom filter in
+ * front.
+ *
+ * "hit" asks for pairs that have an edge, "miss" for random pairs, nearly
+ * all absent; "removeAdd" is RemoveEdgeByNodes followed by adding the edge
+ * back, which resolves the pair twice (the removal, then the single graph
+ * check of addEdge).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx16g" })
+public class EdgeBetweenBenchmark {
+
+	@Param({ "100000", "1000000" })
+	public int size;
+
+	/** average degree */
+	@Param({ "4", "64" })
+	public int degree;
+
+	@Param({ "none", "table", "bloom" })
+	public String index;
+
+	CompactGraph graph;
+	int[] hitFrom, hitTo, missFrom, missTo;
+	int cursor;
+
+	@Setup(Level.Trial)
+	public void build() {
+		long edges = (long) size * degree / 2;
+		graph = new CompactGraph("bench", false, false, size, (int) edges);
+		graph.setEdgePairIndex(!index.equals("none"), index.equals("bloom"));
+		String[] ids = GraphFixtures.nodeIds(size);
+		for (String id : ids)
+			graph.addNode(id);
+		Random rnd = new Random(GraphFixtures.SEED);
+		for (long e = 0; e < edges; e++) {
+			int a = rnd.nextInt(size), b = rnd.nextInt(size);
+			if (a != b && graph.getEdgeBetweenIndex(a, b) < 0)
+				graph.addEdge("Edge" + e, a, b);
+		}
+		graph.compact();
+		hitFrom = new int[4096];
+		hitTo = new int[4096];
+		missFrom = new int[4096];
+		missTo = new int[4096];
+		for (int i = 0; i < 4096; i++) {
+			int e = rnd.nextInt(graph.getEdgeCount());
+			hitFrom[i] = graph.getSourceIndex(e);
+			hitTo[i] = graph.getTargetIndex(e);
+			missFrom[i] = rnd.nextInt(size);
+			missTo[i] = rnd.nextInt(size);
+		}
+	}
+
+	private int next() {
+		cursor = (cursor + 1) & 4095;
+		return cursor;
+	}
+
+	@Benchmark
+	public int hit() {
+		int i = next();
+		return graph.getEdgeBetweenIndex(hitFrom[i], hitTo[i]);
+	}
+
+	@Benchmark
+	public int miss() {
+		int i = next();
+		return graph.getEdgeBetweenIndex(missFrom[i], missTo[i]);
+	}
+
+	@Benchmark
+	public Edge removeAdd() {
+		int i = next();
+		int u = hitFrom[i], v = hitTo[i];
+		Edge e = graph.removeEdge(u, v);
+		return graph.addEdge(e.getId(), u, v);
+	}
+}
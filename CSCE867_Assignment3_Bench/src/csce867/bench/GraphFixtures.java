@@ -0,0 +1,104 @@
+package csce867.bench;
+
+import java.util.Random;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+
+import csce867.graph.CompactGraph;
+
+/**
+ * Builds the graphs shared by the benchmarks. Node ids follow the
+ * "Node<i>" naming of SingleGraph_TSL_Tests and edges are a ring plus
+ * random chords so every node has at least degree 2.
+ */
+public final class GraphFixtures {
+
+	public static final String KEY = "attrib_key";
+	public static final String NUM_KEY = "KeyString";
+	public static final long SEED = 867L;
+
+	private GraphFixtures() {
+	}
+
+	public static String[] nodeIds(int n) {
+		String[] ids = new String[n];
+		for (int i = 0; i < n; i++)
+			ids[i] = "Node" + i;
+		return ids;
+	}
+
+	public static String[] edgeIds(int m) {
+		String[] ids = new String[m];
+		for (int i = 0; i < m; i++)
+			ids[i] = "Edge" + i;
+		return ids;
+	}
+
+	/**
+	 * Ring of n nodes plus n/2 random chords, so roughly 1.5n edges. Chords
+	 * that would duplicate an existing edge are skipped since SingleGraph
+	 * refuses multi-edges.
+	 */
+	public static int[][] ringWithChords(int n) {
+		Random rnd = new Random(SEED);
+		int chords = n / 2;
+		int[] from = new int[n + chords];
+		int[] to = new int[n + chords];
+		for (int i = 0; i < n; i++) {
+			from[i] = i;
+			to[i] = (i + 1) % n;
+		}
+		for (int i = 0; i < chords; i++) {
+			from[n + i] = rnd.nextInt(n);
+			to[n + i] = rnd.nextInt(n);
+		}
+		return new int[][] { from, to };
+	}
+
+	/**
+	 * Non-strict single graph of n nodes with a string and a numeric
+	 * attribute on every node and edge, the layout used by TestCase38-43.
+	 */
+	public static SingleGraph singleGraph(int n) {
+		return populate(new SingleGraph("bench", false, false, n, n + n / 2), n);
+	}
+
+	/** Same content as {@link #singleGraph(int)} in a CompactGraph. */
+	public static CompactGraph compactGraph(int n) {
+		CompactGraph g = populate(new CompactGraph("bench", false, false, n, n + n / 2), n);
+		g.compact();
+		return g;
+	}
+
+	/**
+	 * Fills any empty graph with the fixture layout. Later graph backends
+	 * reuse this so every implementation is timed on the same shape.
+	 */
+	public static <G extends Graph> G populate(G g, int n) {
+		return populate(g, n, true);
+	}
+
+	/** Same as {@link #populate(Graph, int)}, attributes optional. */
+	public static <G extends Graph> G populate(G g, int n, boolean attributes) {
+		String[] nids = nodeIds(n);
+		int[][] pairs = ringWithChords(n);
+		String[] eids = edgeIds(pairs[0].length);
+		for (int i = 0; i < n; i++) {
+			Node node = g.addNode(nids[i]);
+			if (attributes)
+				node.addAttribute(KEY, "node_attrib_value");
+		}
+		for (int i = 0; i < eids.length; i++) {
+			int a = pairs[0][i], b = pairs[1][i];
+			if (a == b || g.getNode(a).hasEdgeBetween(b))
+				continue;
+			Edge edge = g.addEdge(eids[i], a, b);
+			if (attributes)
+				edge.addAttribute(NUM_KEY, (double) i);
+		}
+		return g;
+	}
+}
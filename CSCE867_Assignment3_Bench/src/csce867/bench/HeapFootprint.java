@@ -0,0 +1,55 @@
+package csce867.bench;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.SingleGraph;
+
+import csce867.graph.CompactGraph;
+
+/**
+ * Retained heap of the fixture graph in SingleGraph and CompactGraph, by
+ * difference of used heap around the build. Not a JMH benchmark: run it
+ * with a large -Xmx and optionally the node count as argument (default
+ * 1000000). Each backend is built in turn and dropped before the next,
+ * once bare and once with the fixture attributes.
+ */
+public class HeapFootprint {
+
+	private static long usedHeap() {
+		Runtime rt = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		// a few rounds so weak facades and finished builds are collected
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+		}
+		return used;
+	}
+
+	private static long measure(String name, int n, boolean attributes) {
+		long before = usedHeap();
+		int m = n + n / 2;
+		Graph g;
+		if ("single".equals(name)) {
+			g = GraphFixtures.populate(new SingleGraph("bench", false, false, n, m), n, attributes);
+		} else {
+			CompactGraph cg = GraphFixtures.populate(new CompactGraph("bench", false, false, n, m), n, attributes);
+			System.gc();
+			// compact() also drops the cache slots of facades collected above
+			cg.compact();
+			g = cg;
+		}
+		long bytes = usedHeap() - before;
+		System.out.printf("%-8s attributes=%-5s nodes=%d edges=%d heap=%,d bytes (%d per edge)%n", name, attributes, g.getNodeCount(),
+				g.getEdgeCount(), bytes, bytes / Math.max(1, g.getEdgeCount()));
+		return bytes;
+	}
+
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		for (boolean attributes : new boolean[] { false, true }) {
+			long single = measure("single", n, attributes);
+			long compact = measure("compact", n, attributes);
+			System.out.printf("ratio %.1fx%n", (double) single / compact);
+		}
+	}
+}
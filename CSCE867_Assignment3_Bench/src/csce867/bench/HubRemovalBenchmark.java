@@ -0,0 +1,68 @@
+package csce867.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import csce867.graph.CompactGraph;
+
+/**
+ * The latency spikes of high churn: removing a hub node connected to every
+ * other node of the fixture graph, and clear() on the whole graph. Each
+ * invocation gets a freshly built graph; SingleGraph against CompactGraph
+ * with the dense index contract and with stable indices.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx16g" })
+public class HubRemovalBenchmark {
+
+	@Param({ "10000", "100000" })
+	public int size;
+
+	@Param({ "single", "compact", "stable" })
+	public String graph;
+
+	Graph g;
+
+	@Setup(Level.Invocation)
+	public void build() {
+		if (graph.equals("single")) {
+			g = GraphFixtures.populate(new SingleGraph("bench", false, false, size + 1, 3 * size), size, false);
+		} else {
+			CompactGraph cg = new CompactGraph("bench", false, false, size + 1, 3 * size);
+			cg.setStableIndices(graph.equals("stable"));
+			g = GraphFixtures.populate(cg, size, false);
+		}
+		g.addNode("Hub");
+		for (int i = 0; i < size; i++)
+			g.addEdge("Hub" + i, "Hub", "Node" + i);
+	}
+
+	@Benchmark
+	public Object removeHub() {
+		return g.removeNode("Hub");
+	}
+
+	@Benchmark
+	public Graph clear() {
+		g.clear();
+		return g;
+	}
+}
@@ -0,0 +1,99 @@
+package csce867.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.implementations.SingleGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import csce867.graph.GraphJournal;
+
+/**
+ * Cost of persistence on the mutating thread: changing a node attribute on
+ * a graph with no sink, with a GraphJournal attached (fsync per group or
+ * left to the OS), against the stop-the-world alternative of a full write()
+ * every "dumpEvery" changes. The journal's own counters are printed at
+ * tear down so flush latency and stalls can be read next to the scores.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx16g" })
+public class JournalBenchmark {
+
+	@Param({ "10000" })
+	public int size;
+
+	@Param({ "true", "false" })
+	public boolean force;
+
+	@Param({ "100000" })
+	public int dumpEvery;
+
+	SingleGraph plain, journaled, dumped;
+	GraphJournal journal;
+	File directory, dump;
+	int next, changes;
+
+	@Setup(Level.Trial)
+	public void build() throws IOException {
+		plain = GraphFixtures.singleGraph(size);
+		journaled = GraphFixtures.singleGraph(size);
+		dumped = GraphFixtures.singleGraph(size);
+		directory = Files.createTempDirectory("journal").toFile();
+		dump = File.createTempFile("dump", ".dgs");
+		journal = new GraphJournal(directory.getPath(), GraphJournal.DEFAULT_CAPACITY, 16L << 20, 4, force);
+		journaled.addSink(journal);
+	}
+
+	@TearDown(Level.Trial)
+	public void close() throws IOException {
+		journal.close();
+		System.out.printf("%n[journal] events %d, groups %d, mean flush %.1f us, max %.1f us, stalls %d (%.1f ms)%n",
+				journal.getEventsWritten(), journal.getFlushCount(),
+				journal.getTotalFlushNanos() / 1e3 / Math.max(1, journal.getFlushCount()),
+				journal.getMaxFlushNanos() / 1e3, journal.getStallCount(), journal.getStallNanos() / 1e6);
+		for (File f : directory.listFiles())
+			f.delete();
+		directory.delete();
+		dump.delete();
+	}
+
+	private String nextId() {
+		next = (next + 1) % size;
+		return "Node" + next;
+	}
+
+	@Benchmark
+	public void noSink() {
+		plain.getNode(nextId()).changeAttribute(GraphFixtures.KEY, next);
+	}
+
+	@Benchmark
+	public void journal() {
+		journaled.getNode(nextId()).changeAttribute(GraphFixtures.KEY, next);
+	}
+
+	@Benchmark
+	public void periodicDump() throws IOException {
+		dumped.getNode(nextId()).changeAttribute(GraphFixtures.KEY, next);
+		if (++changes % dumpEvery == 0)
+			dumped.write(dump.getPath());
+	}
+}
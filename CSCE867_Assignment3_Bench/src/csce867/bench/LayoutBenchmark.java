@@ -0,0 +1,104 @@
+package csce867.bench;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.GraphReplay;
+import org.graphstream.ui.layout.Layout;
+import org.graphstream.ui.layout.springbox.implementations.SpringBox;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import csce867.graph.ParallelLayout;
+
+/**
+ * SpringBox against ParallelLayout with 1 to 8 pool threads on a square
+ * grid graph: the time of one step from a random start (throughput), and
+ * the time to converge, i.e. to step until the stabilization limit or
+ * MAX_STEPS (single shot, the steps taken are printed).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx16g" })
+public class LayoutBenchmark {
+
+	static final int MAX_STEPS = 5000;
+
+	@Param({ "10000", "200000" })
+	public int size;
+
+	@Param({ "springbox", "parallel" })
+	public String layout;
+
+	@Param({ "1", "2", "4", "8" })
+	public int threads;
+
+	SingleGraph graph;
+	ForkJoinPool pool;
+	Layout l;
+
+	@Setup(Level.Trial)
+	public void build() {
+		int side = (int) Math.sqrt(size);
+		graph = new SingleGraph("bench", false, false, size, 2 * size);
+		String[] ids = GraphFixtures.nodeIds(size);
+		for (int i = 0; i < size; i++)
+			graph.addNode(ids[i]);
+		for (int i = 0; i < size; i++) {
+			if ((i + 1) % side != 0 && i + 1 < size)
+				graph.addEdge("h" + i, i, i + 1);
+			if (i + side < size)
+				graph.addEdge("v" + i, i, i + side);
+		}
+		pool = new ForkJoinPool(threads);
+	}
+
+	@Setup(Level.Iteration)
+	public void fresh() {
+		Random random = new Random(42);
+		l = layout.equals("springbox") ? new SpringBox(false, random) : new ParallelLayout(pool, random);
+		GraphReplay replay = new GraphReplay("replay");
+		replay.addSink(l);
+		replay.replay(graph);
+	}
+
+	@TearDown(Level.Trial)
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public int step() {
+		l.compute();
+		return l.getNodeMovedCount();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public int converge() {
+		int steps = 0;
+		do {
+			l.compute();
+			steps++;
+		} while (l.getStabilization() < l.getStabilizationLimit() && steps < MAX_STEPS);
+		System.out.printf("%s %d: %d steps%n", layout, size, steps);
+		return steps;
+	}
+}
@@ -0,0 +1,74 @@
+package csce867.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import csce867.graph.MeteredGraph;
+
+/**
+ * What metering costs on the hottest calls, getNode(String) and an
+ * add/remove edge pair: the bare SingleGraph, a MeteredGraph with its
+ * metrics disabled (the price of leaving the wrapper in) and enabled.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx16g" })
+public class MeteredGraphBenchmark {
+
+	@Param({ "100000" })
+	public int size;
+
+	@Param({ "plain", "disabled", "enabled" })
+	public String mode;
+
+	Graph graph;
+	String[] ids;
+	int[] order;
+	int position;
+
+	@Setup
+	public void build() {
+		SingleGraph sg = GraphFixtures.singleGraph(size);
+		graph = mode.equals("plain") ? sg : new MeteredGraph(sg, mode.equals("enabled"));
+		ids = GraphFixtures.nodeIds(size);
+		order = new int[4096];
+		Random rnd = new Random(GraphFixtures.SEED);
+		for (int i = 0; i < order.length; i++)
+			order[i] = rnd.nextInt(size);
+	}
+
+	private int next() {
+		position = (position + 1) & (order.length - 1);
+		return order[position];
+	}
+
+	@Benchmark
+	public Node getNode() {
+		return graph.getNode(ids[next()]);
+	}
+
+	@Benchmark
+	public Edge addRemoveEdge() {
+		graph.addEdge("metered", 0, size / 2);
+		return graph.removeEdge("metered");
+	}
+}
@@ -0,0 +1,103 @@
+package csce867.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.implementations.SingleGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import csce867.graph.MetricsCache;
+
+/**
+ * Derived metrics on a graph that barely changes: each operation asks for
+ * the neighbours and the component of a random node, the component count
+ * and the degree distribution, and every "mutateEvery" operations an extra
+ * edge is added or removed. "uncached" clears the cache before each query
+ * so every answer is computed; "cached" keeps it and relies on the graph's
+ * events. The fixture graph is one component, so removing the edge drops
+ * it whole while adding it drops nothing but the two neighbour sets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx16g" })
+public class MetricsCacheBenchmark {
+
+	@Param({ "10000", "100000" })
+	public int size;
+
+	@Param({ "100", "10000" })
+	public int mutateEvery;
+
+	SingleGraph graph;
+	MetricsCache cache;
+	String[] ids;
+	Random random;
+	int operations;
+	boolean extra;
+
+	@Setup
+	public void build() {
+		graph = GraphFixtures.singleGraph(size);
+		cache = new MetricsCache(graph);
+		ids = GraphFixtures.nodeIds(size);
+		random = new Random(GraphFixtures.SEED);
+	}
+
+	@TearDown
+	public void report() {
+		System.out.printf("%n[cache] hit rate %.3f, %d invalidations, %d evictions%n", cache.getHitRate(),
+				cache.getInvalidationCount(), cache.getEvictionCount());
+	}
+
+	private void mutate() {
+		if (++operations % mutateEvery != 0)
+			return;
+		if (extra)
+			graph.removeEdge("Extra");
+		else
+			graph.addEdge("Extra", ids[random.nextInt(size)], ids[random.nextInt(size)]);
+		extra = !extra;
+	}
+
+	private int query(boolean cached) {
+		mutate();
+		String id = ids[random.nextInt(size)];
+		int n = 0;
+		if (!cached)
+			cache.clear();
+		n += cache.neighbours(id).size();
+		if (!cached)
+			cache.clear();
+		n += cache.component(id).size();
+		if (!cached)
+			cache.clear();
+		n += cache.componentCount();
+		if (!cached)
+			cache.clear();
+		return n + cache.degreeDistribution().length;
+	}
+
+	@Benchmark
+	public int uncached() {
+		return query(false);
+	}
+
+	@Benchmark
+	public int cached() {
+		return query(true);
+	}
+}
@@ -0,0 +1,85 @@
+package csce867.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import csce867.graph.CompactEdge;
+import csce867.graph.CompactGraph;
+
+/**
+ * One layout-style pass over every edge: read the numeric attribute and
+ * write back a new value. SingleGraph goes through getNumber/changeAttribute
+ * (one Double per write), CompactGraph through the column fast path by
+ * index and through the edge facade. gc.alloc.rate.norm shows the boxing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx16g" })
+public class NumericAttributeBenchmark {
+
+	@Param({ "1000", "100000", "1000000" })
+	public int size;
+
+	SingleGraph sg;
+	CompactGraph cg;
+
+	@Setup(Level.Trial)
+	public void build() {
+		sg = GraphFixtures.singleGraph(size);
+		cg = GraphFixtures.compactGraph(size);
+		// move the fixture values into a column
+		for (int e = 0; e < cg.getEdgeCount(); e++)
+			cg.setEdgeNumber(e, GraphFixtures.NUM_KEY, cg.getEdgeNumber(e, GraphFixtures.NUM_KEY));
+	}
+
+	@Benchmark
+	public double singleGraphPass() {
+		double sum = 0;
+		for (int e = 0, m = sg.getEdgeCount(); e < m; e++) {
+			Edge edge = sg.getEdge(e);
+			double v = edge.getNumber(GraphFixtures.NUM_KEY);
+			edge.changeAttribute(GraphFixtures.NUM_KEY, v * 0.5 + 1);
+			sum += v;
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double compactGraphPassByIndex() {
+		double sum = 0;
+		for (int e = 0, m = cg.getEdgeCount(); e < m; e++) {
+			double v = cg.getEdgeNumber(e, GraphFixtures.NUM_KEY);
+			cg.setEdgeNumber(e, GraphFixtures.NUM_KEY, v * 0.5 + 1);
+			sum += v;
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double compactGraphPassByFacade() {
+		double sum = 0;
+		for (Edge edge : cg.getEachEdge()) {
+			double v = edge.getNumber(GraphFixtures.NUM_KEY);
+			((CompactEdge) edge).setNumber(GraphFixtures.NUM_KEY, v * 0.5 + 1);
+			sum += v;
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,86 @@
+package csce867.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.GraphParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import csce867.graph.BatchSingleGraph;
+import csce867.graph.FileSourceParallel;
+
+/**
+ * Reading a .dgs file of the fixture graph: Graph.read() on one thread
+ * against FileSourceParallel with 1 to 8 pool threads, into a SingleGraph
+ * (events one at a time) and into a BatchSingleGraph (GraphBatch runs).
+ * threads = 1 measures the chunking overhead, the rest the scaling.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx16g" })
+public class ParallelReadBenchmark {
+
+	@Param({ "100000", "1000000" })
+	public int size;
+
+	@Param({ "1", "2", "4", "8" })
+	public int threads;
+
+	File dgs;
+	ForkJoinPool pool;
+
+	@Setup
+	public void write() throws IOException {
+		dgs = File.createTempFile("parallel", ".dgs");
+		GraphFixtures.singleGraph(size).write(dgs.getPath());
+		pool = new ForkJoinPool(threads);
+	}
+
+	@TearDown
+	public void delete() {
+		pool.shutdown();
+		dgs.delete();
+	}
+
+	@Benchmark
+	public SingleGraph readSequential() throws IOException, GraphParseException {
+		SingleGraph sg = new SingleGraph("read", false, false, size, size + size / 2);
+		sg.read(dgs.getPath());
+		return sg;
+	}
+
+	@Benchmark
+	public SingleGraph readParallel() throws IOException {
+		SingleGraph sg = new SingleGraph("read", false, false, size, size + size / 2);
+		FileSourceParallel source = new FileSourceParallel(pool, FileSourceParallel.DEFAULT_CHUNK_SIZE);
+		source.addSink(sg);
+		source.readAll(dgs.getPath());
+		return sg;
+	}
+
+	@Benchmark
+	public SingleGraph readParallelBatched() throws IOException {
+		BatchSingleGraph sg = new BatchSingleGraph("read", false, false, size, size + size / 2);
+		FileSourceParallel source = new FileSourceParallel(pool, FileSourceParallel.DEFAULT_CHUNK_SIZE);
+		source.addSink(sg);
+		source.readAll(dgs.getPath());
+		return sg;
+	}
+}
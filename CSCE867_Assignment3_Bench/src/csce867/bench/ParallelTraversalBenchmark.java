@@ -0,0 +1,89 @@
+package csce867.bench;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.BreadthFirstIterator;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import csce867.graph.ParallelTraversal;
+
+/**
+ * Whole-graph breadth-first search and reachability on the fixture graph:
+ * the gs-core BreadthFirstIterator against ParallelTraversal with 1 to 8
+ * pool threads. The adjacency copy is made in setup and timed on its own
+ * by copyAdjacency.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx16g" })
+public class ParallelTraversalBenchmark {
+
+	@Param({ "100000", "1000000" })
+	public int size;
+
+	@Param({ "1", "2", "4", "8" })
+	public int threads;
+
+	SingleGraph graph;
+	ForkJoinPool pool;
+	ParallelTraversal traversal;
+	Node start;
+
+	@Setup
+	public void build() {
+		graph = GraphFixtures.populate(new SingleGraph("bench", false, false, size, size + size / 2), size, false);
+		pool = new ForkJoinPool(threads);
+		traversal = new ParallelTraversal(graph, pool);
+		start = graph.getNode(0);
+		traversal.reachable(start, false);
+	}
+
+	@TearDown
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public int iterator() {
+		BreadthFirstIterator<Node> bfs = new BreadthFirstIterator<Node>(start, false);
+		int n = 0;
+		while (bfs.hasNext()) {
+			bfs.next();
+			n++;
+		}
+		return n;
+	}
+
+	@Benchmark
+	public int[] breadthFirst() {
+		return traversal.breadthFirst(start, false);
+	}
+
+	@Benchmark
+	public int[] reachable() {
+		return traversal.reachable(start, false);
+	}
+
+	@Benchmark
+	public int[] copyAdjacency() {
+		traversal.refresh();
+		return traversal.neighbourhood(start, 0, false);
+	}
+}
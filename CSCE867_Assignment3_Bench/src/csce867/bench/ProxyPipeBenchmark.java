@@ -0,0 +1,91 @@
+package csce867.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.stream.ProxyPipe;
+import org.graphstream.stream.SinkAdapter;
+import org.graphstream.stream.thread.ThreadProxyPipe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import csce867.graph.RingProxyPipe;
+
+/**
+ * Events carried from one thread to another by a ProxyPipe: gs-core's
+ * ThreadProxyPipe against RingProxyPipe with each wait strategy.
+ *
+ * "transfer" is throughput, one thread posting node attribute changes
+ * while another pumps them into a counting sink; read the producer's score
+ * (the unbounded ThreadProxyPipe lets it run ahead, the ring holds it back
+ * to what is delivered). The round trip latency is measured by
+ * {@link ProxyPipeRoundTripBenchmark}.
+ */
+@State(Scope.Group)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx16g" })
+public class ProxyPipeBenchmark {
+
+	@Param({ "thread", "ring-block", "ring-park", "ring-yield", "ring-spin" })
+	public String pipe;
+
+	ProxyPipe proxy;
+	Counter counter;
+	long posted;
+
+	static class Counter extends SinkAdapter {
+		volatile long delivered;
+
+		@Override
+		public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute,
+				Object oldValue, Object newValue) {
+			delivered = timeId;
+		}
+	}
+
+	static ProxyPipe newPipe(String kind) {
+		if (kind.equals("thread"))
+			return new ThreadProxyPipe();
+		RingProxyPipe.WaitStrategy strategy = RingProxyPipe.WaitStrategy.valueOf(kind.substring(5).toUpperCase());
+		return new RingProxyPipe(RingProxyPipe.DEFAULT_CAPACITY, strategy);
+	}
+
+	@Setup(Level.Iteration)
+	public void build() {
+		proxy = newPipe(pipe);
+		counter = new Counter();
+		proxy.addSink(counter);
+		posted = 0;
+	}
+
+	@Benchmark
+	@Group("transfer")
+	@GroupThreads(1)
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public void produce() {
+		proxy.nodeAttributeChanged("bench", ++posted, "Node0", GraphFixtures.KEY, null, GraphFixtures.KEY);
+	}
+
+	@Benchmark
+	@Group("transfer")
+	@GroupThreads(1)
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public long consume() {
+		proxy.pump();
+		return counter.delivered;
+	}
+}
@@ -0,0 +1,75 @@
+package csce867.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.stream.ProxyPipe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of the pipes of {@link ProxyPipeBenchmark}, sampled: post one
+ * event and spin until a consumer thread blocked in blockingPump()
+ * delivers it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx16g" })
+public class ProxyPipeRoundTripBenchmark {
+
+	@Param({ "thread", "ring-block", "ring-park", "ring-yield", "ring-spin" })
+	public String pipe;
+
+	ProxyPipe proxy;
+	ProxyPipeBenchmark.Counter counter;
+	Thread consumer;
+	volatile boolean running;
+	long posted;
+
+	@Setup(Level.Trial)
+	public void start() {
+		proxy = ProxyPipeBenchmark.newPipe(pipe);
+		counter = new ProxyPipeBenchmark.Counter();
+		proxy.addSink(counter);
+		running = true;
+		consumer = new Thread(() -> {
+			try {
+				while (running)
+					proxy.blockingPump(10);
+			} catch (InterruptedException e) {
+				// stopping
+			}
+		}, "pipe-consumer");
+		consumer.setDaemon(true);
+		consumer.start();
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() throws InterruptedException {
+		running = false;
+		consumer.join();
+	}
+
+	@Benchmark
+	public long roundTrip() {
+		long id = ++posted;
+		proxy.nodeAttributeChanged("bench", id, "Node0", GraphFixtures.KEY, null, GraphFixtures.KEY);
+		while (counter.delivered != id) {
+			// spin on the volatile read
+		}
+		return id;
+	}
+}
@@ -0,0 +1,97 @@
+package csce867.bench;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import csce867.graph.TileRenderer;
+
+/**
+ * Headless frame rate of TileRenderer on a grid-like graph (nodes jittered
+ * on a square grid, edges to the right and lower neighbours) in a 2048
+ * pixel square: a full repaint, and a frame after moving a number of nodes
+ * ten times each, with 1 to 8 pool threads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx16g", "-Djava.awt.headless=true" })
+public class RenderFrameBenchmark {
+
+	@Param({ "100000", "1000000" })
+	public int size;
+
+	@Param({ "1", "2", "4", "8" })
+	public int threads;
+
+	@Param({ "100", "10000" })
+	public int moved;
+
+	SingleGraph graph;
+	ForkJoinPool pool;
+	TileRenderer renderer;
+	Random random = new Random(42);
+	int side;
+
+	@Setup
+	public void build() {
+		side = (int) Math.ceil(Math.sqrt(size));
+		graph = new SingleGraph("bench", false, false, size, 2 * size);
+		String[] ids = GraphFixtures.nodeIds(size);
+		for (int i = 0; i < size; i++)
+			graph.addNode(ids[i]).addAttribute("xy", position(i % side), position(i / side));
+		for (int i = 0; i < size; i++) {
+			if ((i + 1) % side != 0 && i + 1 < size)
+				graph.addEdge("h" + i, i, i + 1);
+			if (i + side < size)
+				graph.addEdge("v" + i, i, i + side);
+		}
+		pool = new ForkJoinPool(threads);
+		renderer = new TileRenderer(graph, 2048, 2048, TileRenderer.DEFAULT_TILE_SIZE, pool);
+		renderer.renderFrame();
+	}
+
+	double position(int cell) {
+		return cell * 3 + random.nextDouble() * 3;
+	}
+
+	@TearDown
+	public void shutdown() {
+		renderer.detach();
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public int fullFrame() {
+		renderer.fitViewport();
+		return renderer.renderFrame();
+	}
+
+	@Benchmark
+	public int movedFrame() {
+		for (int i = 0; i < moved; i++) {
+			int v = random.nextInt(size);
+			Node n = graph.getNode(v);
+			for (int k = 0; k < 10; k++)
+				n.setAttribute("xy", position(v % side), position(v / side));
+		}
+		return renderer.renderFrame();
+	}
+}
@@ -0,0 +1,113 @@
+package csce867.bench;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import csce867.graph.ShardedGraph;
+
+/**
+ * Scaling of a ShardedGraph from 1 to 4 worker processes, each started
+ * with workerHeap: loading the fixture graph with the bulk adds, reading
+ * one attribute of "reads" random nodes in one call, a breadth-first
+ * level count over the whole graph, and a single addEdge/removeEdge pair
+ * for the cost of the round trips alone. The workers run in parallel only
+ * with as many free cores, so compare the scores on a machine with at
+ * least workers + 1 of them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx4g" })
+public class ShardedGraphBenchmark {
+
+	@Param({ "1", "2", "4" })
+	public int workers;
+
+	@Param({ "100000" })
+	public int size;
+
+	@Param({ "10000" })
+	public int reads;
+
+	@Param({ "-Xmx4g" })
+	public String workerHeap;
+
+	ShardedGraph graph;
+	String[] nodeIds, edgeIds, from, to, sample;
+	int next;
+
+	@Setup(Level.Trial)
+	public void build() throws IOException {
+		graph = ShardedGraph.launch("bench", workers, workerHeap);
+		graph.setStrict(false);
+		nodeIds = GraphFixtures.nodeIds(size);
+		int[][] pairs = GraphFixtures.ringWithChords(size);
+		edgeIds = GraphFixtures.edgeIds(pairs[0].length);
+		from = new String[edgeIds.length];
+		to = new String[edgeIds.length];
+		for (int i = 0; i < edgeIds.length; i++) {
+			from[i] = nodeIds[pairs[0][i]];
+			to[i] = nodeIds[pairs[1][i]];
+		}
+		load();
+		Object[] values = new Object[size];
+		for (int i = 0; i < size; i++)
+			values[i] = (double) i;
+		graph.setNodeAttributes(GraphFixtures.NUM_KEY, nodeIds, values);
+		Random rnd = new Random(GraphFixtures.SEED);
+		sample = new String[reads];
+		for (int i = 0; i < reads; i++)
+			sample[i] = nodeIds[rnd.nextInt(size)];
+	}
+
+	@TearDown(Level.Trial)
+	public void close() throws IOException {
+		graph.close();
+	}
+
+	/** Clears the graph and adds the fixture nodes and edges, loops and duplicates skipped. */
+	@Benchmark
+	public int load() {
+		graph.clear();
+		graph.addNodes(nodeIds);
+		return graph.addEdges(edgeIds, from, to, false);
+	}
+
+	@Benchmark
+	public Object[] batchedAttributeReads() {
+		return graph.getNodeAttributes(GraphFixtures.NUM_KEY, sample);
+	}
+
+	@Benchmark
+	public int[] breadthFirstLevels() {
+		next = (next + 1) % size;
+		return graph.breadthFirstLevels(nodeIds[next], false);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Object addRemoveEdge() {
+		next = (next + 1) % size;
+		String a = nodeIds[next], b = nodeIds[(next + size / 2) % size];
+		Object e = graph.addEdge("Extra", a, b);
+		graph.removeEdge("Extra");
+		return e;
+	}
+}
@@ -0,0 +1,146 @@
+package csce867.bench;
+
+import java.util.HashMap;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToDoubleFunction;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import csce867.graph.ShortestPaths;
+
+/**
+ * Point to point shortest paths on a SingleGraph grid of side x side nodes,
+ * 4 neighbours each, edge weights uniform in [1, 2) under "weight".
+ *
+ * "boxed" is the per-query code we layer on Graph today: a HashMap of
+ * Double distances and a PriorityQueue of entries over Node objects.
+ * "dijkstra" is ShortestPaths single-source into a reused array,
+ * "bidirectional" and "astar" (manhattan heuristic, consistent since every
+ * weight is at least 1) are its point to point searches, and "path" the
+ * bidirectional search plus building the gs-core Path. "batch" runs 64
+ * pairs through the ForkJoinPool, per pair.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx16g" })
+public class ShortestPathBenchmark {
+
+	@Param({ "100", "1000" })
+	public int side;
+
+	SingleGraph graph;
+	ShortestPaths paths;
+	double[] distances;
+	int[] sources, targets;
+	int cursor;
+
+	@Setup(Level.Trial)
+	public void build() {
+		int n = side * side;
+		graph = new SingleGraph("bench", false, false, n, 2 * n);
+		Random rnd = new Random(GraphFixtures.SEED);
+		for (int i = 0; i < n; i++)
+			graph.addNode(Integer.toString(i));
+		for (int i = 0; i < n; i++) {
+			if (i % side + 1 < side)
+				graph.addEdge(i + "-" + (i + 1), i, i + 1).addAttribute("weight", 1 + rnd.nextDouble());
+			if (i + side < n)
+				graph.addEdge(i + "-" + (i + side), i, i + side).addAttribute("weight", 1 + rnd.nextDouble());
+		}
+		paths = new ShortestPaths(graph, "weight");
+		distances = new double[n];
+		sources = new int[64];
+		targets = new int[64];
+		for (int i = 0; i < sources.length; i++) {
+			sources[i] = rnd.nextInt(n);
+			targets[i] = rnd.nextInt(n);
+		}
+		// the copy is paid once, outside the measurement
+		paths.distance(0, n - 1, false);
+	}
+
+	private int next() {
+		cursor = (cursor + 1) & 63;
+		return cursor;
+	}
+
+	@Benchmark
+	public double boxed() {
+		int i = next();
+		Node source = graph.getNode(sources[i]), target = graph.getNode(targets[i]);
+		HashMap<Node, Double> dist = new HashMap<Node, Double>();
+		PriorityQueue<Object[]> queue = new PriorityQueue<Object[]>(
+				(a, b) -> Double.compare((Double) a[1], (Double) b[1]));
+		dist.put(source, 0.0);
+		queue.add(new Object[] { source, 0.0 });
+		while (!queue.isEmpty()) {
+			Object[] top = queue.poll();
+			Node u = (Node) top[0];
+			double du = (Double) top[1];
+			if (u == target)
+				return du;
+			if (du > dist.get(u))
+				continue;
+			for (Edge e : u.getEachEdge()) {
+				Node v = e.getOpposite(u);
+				double d = du + e.getNumber("weight");
+				Double old = dist.get(v);
+				if (old == null || d < old) {
+					dist.put(v, d);
+					queue.add(new Object[] { v, d });
+				}
+			}
+		}
+		return Double.POSITIVE_INFINITY;
+	}
+
+	@Benchmark
+	public double[] dijkstra() {
+		paths.distances(sources[next()], false, distances);
+		return distances;
+	}
+
+	@Benchmark
+	public double bidirectional() {
+		int i = next();
+		return paths.distance(sources[i], targets[i], false);
+	}
+
+	@Benchmark
+	public double astar() {
+		int i = next();
+		final int t = targets[i], tx = t % side, ty = t / side;
+		IntToDoubleFunction manhattan = v -> Math.abs(v % side - tx) + Math.abs(v / side - ty);
+		return paths.distance(sources[i], t, false, manhattan);
+	}
+
+	@Benchmark
+	public Object path() {
+		int i = next();
+		return paths.path(graph.getNode(sources[i]), graph.getNode(targets[i]), false);
+	}
+
+	@Benchmark
+	public double[] batch() {
+		return paths.distances(sources, targets, false);
+	}
+}
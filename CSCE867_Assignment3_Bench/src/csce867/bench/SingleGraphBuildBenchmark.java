@@ -0,0 +1,90 @@
+package csce867.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.implementations.SingleGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import csce867.graph.BatchSingleGraph;
+
+/**
+ * Whole-graph costs: loading n nodes and ~1.5n edges one call at a time
+ * the way the tests build their graphs or in one GraphBatch, and clear()
+ * (ClearGraph). These are single shot since one invocation at 10^7 takes
+ * seconds.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx16g" })
+public class SingleGraphBuildBenchmark {
+
+	@Param({ "1000", "10000", "100000", "1000000", "10000000" })
+	public int size;
+
+	String[] nodeIds;
+	String[] edgeIds;
+	int[][] pairs;
+	SingleGraph toClear;
+
+	@Setup(Level.Trial)
+	public void ids() {
+		nodeIds = GraphFixtures.nodeIds(size);
+		pairs = GraphFixtures.ringWithChords(size);
+		edgeIds = GraphFixtures.edgeIds(pairs[0].length);
+	}
+
+	@Setup(Level.Iteration)
+	public void graphToClear() {
+		toClear = GraphFixtures.singleGraph(size);
+	}
+
+	@Benchmark
+	public SingleGraph buildById() {
+		// non strict so duplicate chords are silently dropped
+		SingleGraph sg = new SingleGraph("build", false, false);
+		for (int i = 0; i < size; i++)
+			sg.addNode(nodeIds[i]);
+		int[] from = pairs[0], to = pairs[1];
+		for (int i = 0; i < edgeIds.length; i++)
+			sg.addEdge(edgeIds[i], nodeIds[from[i]], nodeIds[to[i]]);
+		return sg;
+	}
+
+	@Benchmark
+	public SingleGraph buildByIdxPresized() {
+		SingleGraph sg = new SingleGraph("build", false, false, size, edgeIds.length);
+		for (int i = 0; i < size; i++)
+			sg.addNode(nodeIds[i]);
+		int[] from = pairs[0], to = pairs[1];
+		for (int i = 0; i < edgeIds.length; i++)
+			sg.addEdge(edgeIds[i], from[i], to[i]);
+		return sg;
+	}
+
+	@Benchmark
+	public SingleGraph buildBatch() {
+		BatchSingleGraph sg = new BatchSingleGraph("build", false, false);
+		sg.batch().addNodes(nodeIds).addEdges(edgeIds, pairs[0], pairs[1], false).commit();
+		return sg;
+	}
+
+	@Benchmark
+	public SingleGraph clear() {
+		toClear.clear();
+		return toClear;
+	}
+}
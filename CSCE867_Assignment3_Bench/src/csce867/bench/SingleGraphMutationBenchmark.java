@@ -0,0 +1,159 @@
+package csce867.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mutating SingleGraph calls from SingleGraph_TSL_Tests. Every benchmark
+ * method adds an element and removes it again through the matching removal
+ * variant (RemoveNodeById/ByIdx/ByNode, RemoveEdgeById/ByIdx/ByEdge/
+ * ByNodeIds/ByNodes) so the graph stays at {@link #size} elements for the
+ * whole run and the numbers are comparable across iterations.
+ *
+ * Removal by index swaps the last element into the freed slot, so the
+ * "ByIdx" variants always remove the element that was just added, which
+ * is the last one, exactly as in the tests.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx16g" })
+public class SingleGraphMutationBenchmark {
+
+	static final String TMP_NODE = "BenchNode";
+	static final String TMP_EDGE = "BenchEdge";
+
+	@Param({ "1000", "10000", "100000", "1000000", "10000000" })
+	public int size;
+
+	SingleGraph sg;
+	Node[] nodes;
+	int[] order;
+	int cursor;
+
+	@Setup(Level.Trial)
+	public void build() {
+		sg = GraphFixtures.singleGraph(size);
+		nodes = new Node[size];
+		for (int i = 0; i < size; i++)
+			nodes[i] = sg.getNode(i);
+		order = new int[4096];
+		Random rnd = new Random(GraphFixtures.SEED);
+		for (int i = 0; i < order.length; i++)
+			order[i] = rnd.nextInt(size);
+	}
+
+	private int next() {
+		cursor = (cursor + 1) & (order.length - 1);
+		return order[cursor];
+	}
+
+	@Benchmark
+	public Node addRemoveNodeById() {
+		sg.addNode(TMP_NODE);
+		return sg.removeNode(TMP_NODE);
+	}
+
+	@Benchmark
+	public Node addRemoveNodeByIdx() {
+		Node n = sg.addNode(TMP_NODE);
+		return sg.removeNode(n.getIndex());
+	}
+
+	@Benchmark
+	public Node addRemoveNodeByNode() {
+		Node n = sg.addNode(TMP_NODE);
+		return sg.removeNode(n);
+	}
+
+	@Benchmark
+	public Node addRemoveConnectedNode() {
+		// removeNode also has to drop the incident edges
+		Node n = sg.addNode(TMP_NODE);
+		sg.addEdge(TMP_EDGE, n, nodes[next()]);
+		return sg.removeNode(n);
+	}
+
+	@Benchmark
+	public Edge addEdgeByIdRemoveById() {
+		Node n = sg.addNode(TMP_NODE);
+		sg.addEdge(TMP_EDGE, TMP_NODE, nodes[next()].getId());
+		Edge e = sg.removeEdge(TMP_EDGE);
+		sg.removeNode(n);
+		return e;
+	}
+
+	@Benchmark
+	public Edge addEdgeByIdxRemoveByIdx() {
+		Node n = sg.addNode(TMP_NODE);
+		Edge e = sg.addEdge(TMP_EDGE, n.getIndex(), next());
+		sg.removeEdge(e.getIndex());
+		sg.removeNode(n);
+		return e;
+	}
+
+	@Benchmark
+	public Edge addEdgeByNodeRemoveByEdge() {
+		Node n = sg.addNode(TMP_NODE);
+		Edge e = sg.addEdge(TMP_EDGE, n, nodes[next()], true);
+		sg.removeEdge(e);
+		sg.removeNode(n);
+		return e;
+	}
+
+	@Benchmark
+	public Edge addEdgeRemoveByNodeIds() {
+		Node n = sg.addNode(TMP_NODE);
+		Node other = nodes[next()];
+		sg.addEdge(TMP_EDGE, n, other);
+		Edge e = sg.removeEdge(TMP_NODE, other.getId());
+		sg.removeNode(n);
+		return e;
+	}
+
+	@Benchmark
+	public Edge addEdgeRemoveByNodes() {
+		Node n = sg.addNode(TMP_NODE);
+		Node other = nodes[next()];
+		sg.addEdge(TMP_EDGE, n, other);
+		Edge e = sg.removeEdge(n, other);
+		sg.removeNode(n);
+		return e;
+	}
+
+	@Benchmark
+	public Node nodeAttributeCycle() {
+		// add, change and clear as in TestCase38
+		Node n = nodes[next()];
+		n.addAttribute("bench_key", "node_attrib_value");
+		n.changeAttribute("bench_key", "node_chgd_value");
+		n.removeAttribute("bench_key");
+		return n;
+	}
+
+	@Benchmark
+	public SingleGraph graphAttributeCycle() {
+		sg.addAttribute("KeyString", 0.23456789);
+		sg.changeAttribute("KeyString", 1.2345);
+		sg.removeAttribute("KeyString");
+		return sg;
+	}
+}
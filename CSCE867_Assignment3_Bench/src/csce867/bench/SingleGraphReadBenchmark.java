@@ -0,0 +1,162 @@
+package csce867.bench;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Read-only SingleGraph calls from SingleGraph_TSL_Tests: getNode/getEdge
+ * by id and index, the has*Attribute family, getAttribute, and walking the
+ * node/edge sets and iterators (getNodeBySet, getEdgesBySet, TestCase38).
+ *
+ * The point lookups cycle through a precomputed table of random indices
+ * so the cost of building id strings or drawing random numbers is not
+ * measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx16g" })
+public class SingleGraphReadBenchmark {
+
+	@Param({ "1000", "10000", "100000", "1000000", "10000000" })
+	public int size;
+
+	SingleGraph sg;
+	String[] nodeIds;
+	String[] edgeIds;
+	int[] order;
+	int cursor;
+
+	@Setup(Level.Trial)
+	public void build() {
+		sg = GraphFixtures.singleGraph(size);
+		nodeIds = GraphFixtures.nodeIds(size);
+		edgeIds = new String[sg.getEdgeCount()];
+		for (int i = 0; i < edgeIds.length; i++)
+			edgeIds[i] = sg.getEdge(i).getId();
+		// fixed pseudo-random visiting order, 4096 slots is enough to defeat
+		// the branch predictor without turning the benchmark into a cache miss test
+		order = new int[4096];
+		Random rnd = new Random(GraphFixtures.SEED);
+		for (int i = 0; i < order.length; i++)
+			order[i] = rnd.nextInt(size);
+	}
+
+	private int next() {
+		cursor = (cursor + 1) & (order.length - 1);
+		return order[cursor];
+	}
+
+	@Benchmark
+	public Node getNodeById() {
+		return sg.getNode(nodeIds[next()]);
+	}
+
+	@Benchmark
+	public Node getNodeByIdx() {
+		return sg.getNode(next());
+	}
+
+	@Benchmark
+	public Edge getEdgeById() {
+		return sg.getEdge(edgeIds[next() % edgeIds.length]);
+	}
+
+	@Benchmark
+	public Edge getEdgeByIdx() {
+		return sg.getEdge(next() % edgeIds.length);
+	}
+
+	@Benchmark
+	public boolean hasAttribute() {
+		return sg.getNode(next()).hasAttribute(GraphFixtures.KEY);
+	}
+
+	@Benchmark
+	public boolean hasAttributeOfClass() {
+		return sg.getNode(next()).hasAttribute(GraphFixtures.KEY, String.class);
+	}
+
+	@Benchmark
+	public boolean hasLabel() {
+		return sg.getNode(next()).hasLabel(GraphFixtures.KEY);
+	}
+
+	@Benchmark
+	public boolean hasNumber() {
+		return sg.getEdge(next() % edgeIds.length).hasNumber(GraphFixtures.NUM_KEY);
+	}
+
+	@Benchmark
+	public Object getAttribute() {
+		return sg.getNode(next()).getAttribute(GraphFixtures.KEY);
+	}
+
+	@Benchmark
+	public double getNumber() {
+		return sg.getEdge(next() % edgeIds.length).getNumber(GraphFixtures.NUM_KEY);
+	}
+
+	@Benchmark
+	public Edge getEdgeBetween() {
+		Edge e = sg.getEdge(next() % edgeIds.length);
+		Node a = e.getNode0(), b = e.getNode1();
+		return a.getEdgeBetween(b);
+	}
+
+	// full scans, reported per scan so divide by size for a per-element cost
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public void nodeSetScan(Blackhole bh) {
+		for (Node n : sg.getNodeSet())
+			bh.consume(n);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public void edgeSetScan(Blackhole bh) {
+		for (Edge e : sg.getEdgeSet())
+			bh.consume(e);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public void nodeIteratorScan(Blackhole bh) {
+		Iterator<Node> it = sg.getNodeIterator();
+		while (it.hasNext())
+			bh.consume(it.next());
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public void edgeIteratorScan(Blackhole bh) {
+		Iterator<Edge> it = sg.getEdgeIterator();
+		while (it.hasNext())
+			bh.consume(it.next());
+	}
+}
@@ -0,0 +1,210 @@
+package csce867.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.Graphs;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import csce867.graph.GraphSnapshot;
+import csce867.graph.SnapshotMirror;
+
+/**
+ * Snapshots of a changing SingleGraph.
+ *
+ * Cost: "takeSnapshot" changes one node attribute and takes a SnapshotMirror
+ * snapshot, paying for the records the change copies; "deepCopy" is
+ * Graphs.clone, the copy we take today. "mirroredWrite" and "plainWrite"
+ * are the writer's side, an attribute change and an edge toggle on the
+ * graph with and without a mirror attached.
+ *
+ * Reads under writes: 7 threads read an edge, its endpoint and an attribute
+ * while 1 thread changes the graph. "locked" is SingleGraph behind one
+ * ReentrantReadWriteLock, as in ConcurrentReadBenchmark; in "snapshot" the
+ * writer publishes a snapshot after each change through a volatile field
+ * and the readers never wait.
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx16g" })
+public class SnapshotBenchmark {
+
+	/** A graph of its own for the single-threaded cost benchmarks. */
+	@State(Scope.Thread)
+	public static class Cost {
+		@Param({ "10000", "1000000" })
+		public int size;
+
+		SingleGraph plain, mirrored;
+		SnapshotMirror mirror;
+		int toggles;
+
+		@Setup
+		public void build() {
+			plain = GraphFixtures.singleGraph(size);
+			mirrored = GraphFixtures.singleGraph(size);
+			mirror = new SnapshotMirror(mirrored);
+		}
+
+		@TearDown
+		public void report() {
+			System.out.printf("%n[snapshot] %d snapshots, %d records copied%n", mirror.getSnapshotCount(),
+					mirror.getCopyCount());
+		}
+	}
+
+	/** The graph the readers and the writer of a group share. */
+	@State(Scope.Group)
+	public static class Shared {
+		@Param({ "10000", "1000000" })
+		public int size;
+
+		SingleGraph graph;
+		SnapshotMirror mirror;
+		volatile GraphSnapshot current;
+		ReentrantReadWriteLock rw;
+		int[] order;
+
+		@Setup
+		public void build() {
+			graph = GraphFixtures.singleGraph(size);
+			mirror = new SnapshotMirror(graph);
+			current = mirror.snapshot();
+			rw = new ReentrantReadWriteLock();
+			order = new int[4096];
+			Random rnd = new Random(GraphFixtures.SEED);
+			for (int i = 0; i < order.length; i++)
+				order[i] = rnd.nextInt(size);
+		}
+
+		int next(Cursor c) {
+			c.position = (c.position + 1) & (order.length - 1);
+			return order[c.position];
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Cursor {
+		int position = new Random().nextInt(4096);
+		int toggles;
+	}
+
+	// cost
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public GraphSnapshot takeSnapshot(Cost cost) {
+		cost.mirrored.getNode(cost.toggles++ % cost.size).addAttribute(GraphFixtures.KEY, "node_attrib_value");
+		return cost.mirror.snapshot();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Graph deepCopy(Cost cost) {
+		cost.plain.getNode(cost.toggles++ % cost.size).addAttribute(GraphFixtures.KEY, "node_attrib_value");
+		return Graphs.clone(cost.plain);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public void mirroredWrite(Cost cost) {
+		toggle(cost.mirrored, cost.toggles++, cost.size);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public void plainWrite(Cost cost) {
+		toggle(cost.plain, cost.toggles++, cost.size);
+	}
+
+	// reads under writes
+
+	@Benchmark
+	@Group("locked")
+	@GroupThreads(7)
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Object lockedRead(Shared s, Cursor c) {
+		s.rw.readLock().lock();
+		try {
+			return read(s, s.graph, c);
+		} finally {
+			s.rw.readLock().unlock();
+		}
+	}
+
+	@Benchmark
+	@Group("locked")
+	@GroupThreads(1)
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public void lockedWrite(Shared s, Cursor c) {
+		s.rw.writeLock().lock();
+		try {
+			toggle(s.graph, c.toggles++, s.next(c));
+		} finally {
+			s.rw.writeLock().unlock();
+		}
+	}
+
+	@Benchmark
+	@Group("snapshot")
+	@GroupThreads(7)
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Object snapshotRead(Shared s, Cursor c) {
+		return read(s, s.current, c);
+	}
+
+	@Benchmark
+	@Group("snapshot")
+	@GroupThreads(1)
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public void snapshotWrite(Shared s, Cursor c) {
+		toggle(s.graph, c.toggles++, s.next(c));
+		s.current = s.mirror.snapshot();
+	}
+
+	private static Object read(Shared s, Graph g, Cursor c) {
+		Edge e = g.getEdge(s.next(c));
+		Node n = e.getNode0();
+		return n.getAttribute(GraphFixtures.KEY);
+	}
+
+	// alternate a structural change and an attribute change; the toggled edge
+	// is always the last one, so the ring edges picked by index below size
+	// never move
+	private static void toggle(Graph g, int toggles, int node) {
+		if ((toggles & 1) == 0) {
+			if (g.getEdge("toggle") == null)
+				g.addEdge("toggle", 0, g.getNodeCount() / 2);
+			else
+				g.removeEdge("toggle");
+		} else {
+			g.getNode(node % g.getNodeCount()).addAttribute(GraphFixtures.KEY, "node_attrib_value");
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package csce867.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.GraphParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import csce867.graph.BinaryGraphFile;
+import csce867.graph.FileSinkBinary;
+import csce867.graph.FileSourceBinary;
+
+/**
+ * Reloading a saved graph: parsing the .dgsz WriteGraph produces, replaying
+ * a binary snapshot into a SingleGraph, and only opening the snapshot and
+ * looking up one node, which is what a restart that reads lazily pays.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx16g" })
+public class SnapshotLoadBenchmark {
+
+	@Param({ "10000", "1000000" })
+	public int size;
+
+	File dgs, binary;
+
+	@Setup
+	public void write() throws IOException {
+		SingleGraph sg = GraphFixtures.singleGraph(size);
+		dgs = File.createTempFile("snapshot", ".dgsz");
+		binary = File.createTempFile("snapshot", ".gsb");
+		sg.write(dgs.getPath());
+		sg.write(new FileSinkBinary(), binary.getPath());
+	}
+
+	@TearDown
+	public void delete() {
+		dgs.delete();
+		binary.delete();
+	}
+
+	@Benchmark
+	public SingleGraph readDgs() throws IOException, GraphParseException {
+		SingleGraph sg = new SingleGraph("load", false, false, size, size + size / 2);
+		sg.read(dgs.getPath());
+		return sg;
+	}
+
+	@Benchmark
+	public SingleGraph readBinary() throws IOException {
+		SingleGraph sg = new SingleGraph("load", false, false, size, size + size / 2);
+		FileSourceBinary source = new FileSourceBinary();
+		source.addSink(sg);
+		source.readAll(binary.getPath());
+		return sg;
+	}
+
+	@Benchmark
+	public int openBinary() throws IOException {
+		BinaryGraphFile file = BinaryGraphFile.open(binary.getPath());
+		try {
+			return file.getDegree(file.getNodeIndex("Node" + size / 2));
+		} finally {
+			file.close();
+		}
+	}
+}
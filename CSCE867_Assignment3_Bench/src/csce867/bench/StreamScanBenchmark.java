@@ -0,0 +1,86 @@
+package csce867.bench;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import csce867.graph.CompactGraph;
+import csce867.graph.GraphStreams;
+
+/**
+ * A whole-graph scan (sum of degrees) and an attribute-filtered count:
+ * the node iterator against sequential and parallel GraphStreams, on
+ * SingleGraph and CompactGraph.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx16g" })
+public class StreamScanBenchmark {
+
+	@Param({ "100000", "1000000" })
+	public int size;
+
+	@Param({ "single", "compact" })
+	public String graph;
+
+	Graph g;
+
+	@Setup
+	public void build() {
+		if (graph.equals("single"))
+			g = new SingleGraph("bench", false, false, size, size + size / 2);
+		else
+			g = new CompactGraph("bench", false, false, size, size + size / 2);
+		GraphFixtures.populate(g, size, true);
+	}
+
+	@Benchmark
+	public long iterator() {
+		long sum = 0;
+		Iterator<Node> nodes = g.getNodeIterator();
+		while (nodes.hasNext())
+			sum += nodes.next().getDegree();
+		return sum;
+	}
+
+	@Benchmark
+	public long stream() {
+		return GraphStreams.<Node> nodes(g).mapToLong(Node::getDegree).sum();
+	}
+
+	@Benchmark
+	public long parallelStream() {
+		return GraphStreams.<Node> nodes(g).parallel().mapToLong(Node::getDegree).sum();
+	}
+
+	@Benchmark
+	public long filteredIterator() {
+		long n = 0;
+		for (Node node : g.getEachNode())
+			if (node.getAttribute(GraphFixtures.KEY) != null)
+				n++;
+		return n;
+	}
+
+	@Benchmark
+	public long filteredParallelStream() {
+		return GraphStreams.nodes(g, GraphFixtures.KEY, v -> v != null).parallel().count();
+	}
+}
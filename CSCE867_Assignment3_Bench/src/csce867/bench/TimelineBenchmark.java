@@ -0,0 +1,100 @@
+package csce867.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import csce867.graph.GraphSnapshot;
+import csce867.graph.GraphTimeline;
+
+/**
+ * Seek latency against event-log size. The log is a graph growing to
+ * events / 10 nodes and churning edges and attributes, one step every 1000
+ * events; each operation seeks to a random step. "none" keeps only the
+ * empty checkpoint at the start, so every seek replays from there as
+ * gs-core's Timeline does; the others checkpoint every so many events.
+ * "graphAt" builds a SingleGraph (the checkpoint's content plus the tail),
+ * "snapshotAt" continues the checkpoint read-only (the tail alone).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx16g" })
+public class TimelineBenchmark {
+
+	@Param({ "100000", "1000000", "10000000" })
+	public int events;
+
+	@Param({ "none", "10000", "100000" })
+	public String checkpoints;
+
+	GraphTimeline timeline;
+	Random random;
+
+	@Setup
+	public void record() {
+		int every = checkpoints.equals("none") ? Integer.MAX_VALUE : Integer.parseInt(checkpoints);
+		timeline = new GraphTimeline("bench", every, Double.POSITIVE_INFINITY);
+		Graph g = new SingleGraph("bench", false, false);
+		timeline.begin(g);
+		Random rnd = new Random(GraphFixtures.SEED);
+		int next = 0, step = 0;
+		g.addNode("Node" + next++);
+		while (timeline.getEventCount() < events) {
+			if (timeline.getEventCount() / 1000 >= step)
+				g.stepBegins(step++);
+			int op = rnd.nextInt(10);
+			Node u = g.getNode(rnd.nextInt(g.getNodeCount()));
+			if (op < 1 && next < events / 10)
+				g.addNode("Node" + next++);
+			else if (op < 5) {
+				Node v = g.getNode(rnd.nextInt(g.getNodeCount()));
+				if (!u.hasEdgeBetween(v) && !v.hasEdgeBetween(u))
+					g.addEdge("Edge" + next++, u.getId(), v.getId());
+			} else if (op < 7 && g.getEdgeCount() > 0)
+				g.removeEdge(g.getEdge(rnd.nextInt(g.getEdgeCount())).getId());
+			else
+				u.addAttribute(GraphFixtures.KEY, op);
+		}
+		timeline.end();
+		random = new Random(GraphFixtures.SEED);
+	}
+
+	@TearDown
+	public void report() {
+		System.out.printf("%n[timeline] %d events, %d steps, %d checkpoints, %.0f events replayed per seek%n",
+				timeline.getEventCount(), timeline.getStepCount(), timeline.getCheckpointCount(),
+				(double) timeline.getReplayedEventCount() / Math.max(1, timeline.getSeekCount()));
+	}
+
+	private double time() {
+		return random.nextInt(timeline.getStepCount());
+	}
+
+	@Benchmark
+	public Graph graphAt() {
+		return timeline.graphAt(time());
+	}
+
+	@Benchmark
+	public GraphSnapshot snapshotAt() {
+		return timeline.snapshotAt(time());
+	}
+}